@@ -4,6 +4,7 @@ import android.annotation.SuppressLint;
 
 import com.nfx.android.graph.androidgraph.list.bindadapters.GraphListAdapter;
 import com.nfx.android.graph.androidgraph.list.data.AverageFrequencyData;
+import com.nfx.android.graph.graphbufferinput.AnalysisScheduler;
 import com.nfx.android.graph.graphbufferinput.InputInterface;
 
 import java.util.AbstractMap;
@@ -15,7 +16,8 @@ import java.util.List;
  * NFX Development
  * Created by nick on 7/01/17.
  * <p>
- * A Object to calculate the average frequency on a time plot
+ * A Object to calculate the average frequency on a time plot. The analysers for each input share
+ * a single scheduler so the reader thread is not held up by the analysis
  */
 class AverageFrequencyManager implements AverageFrequencyManagerInterface {
     /**
@@ -23,7 +25,16 @@ class AverageFrequencyManager implements AverageFrequencyManagerInterface {
      */
     @SuppressLint("UseSparseArrays")
     private AbstractMap<Integer, AverageFrequencyData> averageFrequencyDataMap = new HashMap<>();
-
+    /**
+     * The input each average frequency analyser is listening to
+     */
+    @SuppressLint("UseSparseArrays")
+    private AbstractMap<Integer, InputInterface> averageFrequencyInputMap = new HashMap<>();
+    /**
+     * One scheduler per input, keyed by the input's hash code
+     */
+    @SuppressLint("UseSparseArrays")
+    private AbstractMap<Integer, AnalysisScheduler> analysisSchedulerMap = new HashMap<>();
 
     /**
      * Object to control the list view of marker information
@@ -35,12 +46,24 @@ class AverageFrequencyManager implements AverageFrequencyManagerInterface {
     }
 
     public void addAverageFrequencyListener(int signalId, int signalColor, InputInterface input) {
+        if(averageFrequencyDataMap.containsKey(signalId)) {
+            removeAnalyser(signalId);
+        }
+
         AverageFrequencyData averageFrequencyData =
                 new AverageFrequencyData(input.getSampleRate(), signalColor);
 
-        input.addInputListener(averageFrequencyData);
+        AnalysisScheduler analysisScheduler = analysisSchedulerMap.get(input.hashCode());
+        // A scheduler is shut down when its input is removed, it can not be used again
+        if(analysisScheduler == null || analysisScheduler.isShutdown()) {
+            analysisScheduler = new AnalysisScheduler(input.getSampleRate());
+            analysisSchedulerMap.put(input.hashCode(), analysisScheduler);
+            input.addInputListener(analysisScheduler);
+        }
+        analysisScheduler.addAnalyser(averageFrequencyData);
 
         averageFrequencyDataMap.put(signalId, averageFrequencyData);
+        averageFrequencyInputMap.put(signalId, input);
 
         List<AverageFrequencyData> averageFrequencyDataList = new ArrayList<>();
         averageFrequencyDataList.addAll(averageFrequencyDataMap.values());
@@ -53,7 +76,7 @@ class AverageFrequencyManager implements AverageFrequencyManagerInterface {
     }
 
     public void removeAverageFrequencyListener(int signalId) {
-        averageFrequencyDataMap.remove(signalId);
+        removeAnalyser(signalId);
         List<AverageFrequencyData> averageFrequencyDataList = new ArrayList<>();
         averageFrequencyDataList.addAll(averageFrequencyDataMap.values());
 
@@ -61,7 +84,33 @@ class AverageFrequencyManager implements AverageFrequencyManagerInterface {
     }
 
     public void removeAll() {
-        averageFrequencyDataMap.clear();
+        for(int signalId : new ArrayList<>(averageFrequencyDataMap.keySet())) {
+            removeAnalyser(signalId);
+        }
         graphListAdapter.removeAverageFrequencyList();
     }
+
+    /**
+     * Stop the analyser for the given signal, the input's scheduler is removed along with its
+     * last analyser
+     *
+     * @param signalId id of signal the analyser is attached to
+     */
+    private void removeAnalyser(int signalId) {
+        AverageFrequencyData averageFrequencyData = averageFrequencyDataMap.remove(signalId);
+        InputInterface input = averageFrequencyInputMap.remove(signalId);
+        if(averageFrequencyData == null || input == null) {
+            return;
+        }
+
+        AnalysisScheduler analysisScheduler = analysisSchedulerMap.get(input.hashCode());
+        if(analysisScheduler != null) {
+            analysisScheduler.removeAnalyser(averageFrequencyData);
+            if(analysisScheduler.getNumberOfAnalysers() == 0) {
+                input.removeInputListener(analysisScheduler);
+                analysisScheduler.shutdown();
+                analysisSchedulerMap.remove(input.hashCode());
+            }
+        }
+    }
 }
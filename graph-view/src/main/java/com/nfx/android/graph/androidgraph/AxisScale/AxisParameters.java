@@ -19,6 +19,11 @@ public class AxisParameters {
      * Maximum value of the axis
      */
     private float maximumValue = 1;
+    /**
+     * Transform for the current values. Each setter makes a new one and publishes it with a
+     * single write, so a reader never sees a transform missing a change
+     */
+    private volatile AxisTransform axisTransform;
 
     /**
      * @param minimumValue initial minimum value of the axis
@@ -29,6 +34,7 @@ public class AxisParameters {
         this.minimumValue = minimumValue;
         this.maximumValue = maximumValue;
         this.axisScale = axisScale;
+        axisTransform = AxisTransform.create(minimumValue, maximumValue, axisScale);
     }
 
     /**
@@ -38,21 +44,7 @@ public class AxisParameters {
      * @return scaled value of the x axis
      */
     public float graphPositionToScaledAxis(float graphPosition) {
-        if(axisScale == Scale.logarithmic) {
-            double minimumValue = this.minimumValue > 0 ? this.minimumValue : 1;
-            double maximumValue = Math.log(this.maximumValue / minimumValue) / Math.log(2);
-            graphPosition *= maximumValue;
-
-            double frequency = minimumValue * Math.pow(2, graphPosition);
-
-            if(frequency == 1f) {
-                return 0f;
-            } else {
-                return (float) frequency;
-            }
-        } else {
-            return minimumValue + (getAxisSpan() * graphPosition);
-        }
+        return getAxisTransform().graphPositionToScaledAxis(graphPosition);
     }
 
     /**
@@ -62,17 +54,17 @@ public class AxisParameters {
      * @return graph position the scaled value is portraying
      */
     public float scaledAxisToGraphPosition(float scaleAxisValue) {
-        if(axisScale == Scale.logarithmic) {
-            double minimumValue = this.minimumValue > 0 ? this.minimumValue : 1;
-            double maximumValue = Math.log(this.maximumValue / minimumValue) / Math.log(2);
-            double result = Math.log(scaleAxisValue / minimumValue) / Math.log(2);
-
-            result /= maximumValue;
+        return getAxisTransform().scaledAxisToGraphPosition(scaleAxisValue);
+    }
 
-            return (float) result;
-        } else {
-            return (scaleAxisValue - minimumValue) / getAxisSpan();
-        }
+    /**
+     * Get the transform for the current axis values. Hold on to the transform when converting
+     * many values, it is not affected by later changes to the axis
+     *
+     * @return transform for the current axis values
+     */
+    public AxisTransform getAxisTransform() {
+        return axisTransform;
     }
 
     /**
@@ -88,7 +80,10 @@ public class AxisParameters {
      * @param mMinimumValue minimum value
      */
     public void setMinimumValue(float mMinimumValue) {
-        this.minimumValue = mMinimumValue;
+        synchronized(this) {
+            this.minimumValue = mMinimumValue;
+            axisTransform = AxisTransform.create(minimumValue, maximumValue, axisScale);
+        }
     }
 
     /**
@@ -104,7 +99,10 @@ public class AxisParameters {
      * @param mMaximumValue minimum value
      */
     public void setMaximumValue(float mMaximumValue) {
-        this.maximumValue = mMaximumValue;
+        synchronized(this) {
+            this.maximumValue = mMaximumValue;
+            axisTransform = AxisTransform.create(minimumValue, maximumValue, axisScale);
+        }
     }
 
     /**
@@ -120,7 +118,10 @@ public class AxisParameters {
      * @param mAxisScale axis scale
      */
     public void setAxisScale(Scale mAxisScale) {
-        this.axisScale = mAxisScale;
+        synchronized(this) {
+            this.axisScale = mAxisScale;
+            axisTransform = AxisTransform.create(minimumValue, maximumValue, axisScale);
+        }
     }
 
     /**
@@ -0,0 +1,108 @@
+package com.nfx.android.graph.androidgraph.AxisScale;
+
+import com.nfx.android.graph.androidgraph.Scale;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Converts between a position on the graph 0-1 and a value on the axis. Each implementation
+ * works out its constants once so a conversion is a few multiplies, and there is one
+ * implementation per scale so calls in a loop do not branch on the scale. Transforms are
+ * immutable, a new one is made when the axis changes
+ */
+public abstract class AxisTransform {
+    /**
+     * Minimum and maximum value of the axis
+     */
+    final float minimumValue;
+    final float maximumValue;
+
+    AxisTransform(float minimumValue, float maximumValue) {
+        this.minimumValue = minimumValue;
+        this.maximumValue = maximumValue;
+    }
+
+    /**
+     * @param minimumValue minimum value of the axis
+     * @param maximumValue maximum value of the axis
+     * @param axisScale    scale of the axis
+     * @return transform for the axis
+     */
+    public static AxisTransform create(float minimumValue, float maximumValue, Scale axisScale) {
+        if(axisScale == Scale.logarithmic) {
+            return new LogarithmicAxisTransform(minimumValue, maximumValue);
+        }
+        return new LinearAxisTransform(minimumValue, maximumValue);
+    }
+
+    /**
+     * Find the scaled value that graph Position points to
+     *
+     * @param graphPosition graph position to calculate
+     * @return scaled value of the axis
+     */
+    public abstract float graphPositionToScaledAxis(float graphPosition);
+
+    /**
+     * Calculate the position on graph from a given scaled value
+     *
+     * @param scaledAxisValue real world value to calculate graph position
+     * @return graph position the scaled value is portraying
+     */
+    public abstract float scaledAxisToGraphPosition(float scaledAxisValue);
+
+    /**
+     * Convert a number of graph positions to scaled values. The arrays may be the same array
+     *
+     * @param graphPositions graph positions to convert
+     * @param scaledValues   filled with the scaled values
+     * @param length         number of values to convert
+     */
+    public abstract void graphPositionsToScaledAxis(float[] graphPositions, float[] scaledValues,
+                                                    int length);
+
+    /**
+     * Convert evenly spaced graph positions to scaled values. Cheaper than converting an array
+     * of positions as the spacing lets each value follow on from the last
+     *
+     * @param firstGraphPosition graph position of the first value
+     * @param graphPositionStep  distance between graph positions
+     * @param scaledValues       filled with the scaled values
+     * @param length             number of values to convert
+     */
+    public abstract void graphPositionRampToScaledAxis(float firstGraphPosition,
+                                                       float graphPositionStep,
+                                                       float[] scaledValues, int length);
+
+    /**
+     * Convert a number of scaled values to graph positions. The arrays may be the same array
+     *
+     * @param scaledValues   scaled values to convert
+     * @param graphPositions filled with the graph positions
+     * @param length         number of values to convert
+     */
+    public abstract void scaledAxisToGraphPositions(float[] scaledValues, float[] graphPositions,
+                                                    int length);
+
+    /**
+     * @return minimum value of the axis
+     */
+    public float getMinimumValue() {
+        return minimumValue;
+    }
+
+    /**
+     * @return maximum value of the axis
+     */
+    public float getMaximumValue() {
+        return maximumValue;
+    }
+
+    /**
+     * @return the span between minimum and maximum
+     */
+    public float getAxisSpan() {
+        return maximumValue - minimumValue;
+    }
+}
@@ -0,0 +1,57 @@
+package com.nfx.android.graph.androidgraph.AxisScale;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Transform for a linear axis
+ */
+final class LinearAxisTransform extends AxisTransform {
+    private final float axisSpan;
+
+    LinearAxisTransform(float minimumValue, float maximumValue) {
+        super(minimumValue, maximumValue);
+        axisSpan = maximumValue - minimumValue;
+    }
+
+    @Override
+    public float graphPositionToScaledAxis(float graphPosition) {
+        return minimumValue + (axisSpan * graphPosition);
+    }
+
+    @Override
+    public float scaledAxisToGraphPosition(float scaledAxisValue) {
+        return (scaledAxisValue - minimumValue) / axisSpan;
+    }
+
+    @Override
+    public void graphPositionsToScaledAxis(float[] graphPositions, float[] scaledValues,
+                                           int length) {
+        final float minimumValue = this.minimumValue;
+        final float axisSpan = this.axisSpan;
+        for(int i = 0; i < length; i++) {
+            scaledValues[i] = minimumValue + (axisSpan * graphPositions[i]);
+        }
+    }
+
+    @Override
+    public void graphPositionRampToScaledAxis(float firstGraphPosition, float graphPositionStep,
+                                              float[] scaledValues, int length) {
+        final float minimumValue = this.minimumValue;
+        final float axisSpan = this.axisSpan;
+        for(int i = 0; i < length; i++) {
+            scaledValues[i] = minimumValue +
+                    (axisSpan * (firstGraphPosition + graphPositionStep * i));
+        }
+    }
+
+    @Override
+    public void scaledAxisToGraphPositions(float[] scaledValues, float[] graphPositions,
+                                           int length) {
+        final float minimumValue = this.minimumValue;
+        final float axisSpan = this.axisSpan;
+        for(int i = 0; i < length; i++) {
+            graphPositions[i] = (scaledValues[i] - minimumValue) / axisSpan;
+        }
+    }
+}
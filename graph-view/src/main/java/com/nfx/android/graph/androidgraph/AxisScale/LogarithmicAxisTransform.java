@@ -0,0 +1,78 @@
+package com.nfx.android.graph.androidgraph.AxisScale;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Transform for a logarithmic axis. An axis starting at 0 or below is treated as starting at 1
+ */
+final class LogarithmicAxisTransform extends AxisTransform {
+    /**
+     * Value at graph position 0
+     */
+    private final double logarithmMinimumValue;
+    /**
+     * Natural log of the ratio between the maximum and minimum, and its reciprocal
+     */
+    private final double logarithmSpan;
+    private final double inverseLogarithmSpan;
+
+    LogarithmicAxisTransform(float minimumValue, float maximumValue) {
+        super(minimumValue, maximumValue);
+        logarithmMinimumValue = minimumValue > 0 ? minimumValue : 1;
+        logarithmSpan = Math.log(maximumValue / logarithmMinimumValue);
+        inverseLogarithmSpan = 1d / logarithmSpan;
+    }
+
+    @Override
+    public float graphPositionToScaledAxis(float graphPosition) {
+        final double value = logarithmMinimumValue * Math.exp(graphPosition * logarithmSpan);
+
+        // An axis treated as starting at 1 shows its start as 0
+        if(value == 1d) {
+            return 0f;
+        }
+        return (float) value;
+    }
+
+    @Override
+    public float scaledAxisToGraphPosition(float scaledAxisValue) {
+        return (float) (Math.log(scaledAxisValue / logarithmMinimumValue) *
+                inverseLogarithmSpan);
+    }
+
+    @Override
+    public void graphPositionsToScaledAxis(float[] graphPositions, float[] scaledValues,
+                                           int length) {
+        for(int i = 0; i < length; i++) {
+            scaledValues[i] = graphPositionToScaledAxis(graphPositions[i]);
+        }
+    }
+
+    /**
+     * Evenly spaced positions give values in a geometric series, so after the first each value
+     * is a multiply rather than an exponential
+     */
+    @Override
+    public void graphPositionRampToScaledAxis(float firstGraphPosition, float graphPositionStep,
+                                              float[] scaledValues, int length) {
+        final double ratio = Math.exp(graphPositionStep * logarithmSpan);
+        double value = logarithmMinimumValue * Math.exp(firstGraphPosition * logarithmSpan);
+        for(int i = 0; i < length; i++) {
+            // An axis treated as starting at 1 shows its start as 0
+            scaledValues[i] = value == 1d ? 0f : (float) value;
+            value *= ratio;
+        }
+    }
+
+    @Override
+    public void scaledAxisToGraphPositions(float[] scaledValues, float[] graphPositions,
+                                           int length) {
+        final double inverseMinimumValue = 1d / logarithmMinimumValue;
+        final double inverseLogarithmSpan = this.inverseLogarithmSpan;
+        for(int i = 0; i < length; i++) {
+            graphPositions[i] = (float) (Math.log(scaledValues[i] * inverseMinimumValue) *
+                    inverseLogarithmSpan);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import android.graphics.Paint;
 import android.graphics.Rect;
 
 import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
+import com.nfx.android.utils.EngineeringFormat;
 
 /**
  * NFX Development
@@ -22,14 +23,25 @@ abstract class AxisText extends DrawableObject {
      * The Bounds of the display text
      */
     final Rect bounds = new Rect();
+    /**
+     * Measures the text, it is drawn with the style
+     */
+    final Paint textPaint = new Paint();
     /**
      * graph scale limits
      */
     private final AxisParameters axisParameters;
     /**
-     * Store the values in a array as working the value every draw was memory intensive
+     * Formats the grid line values, prefixes below unity are not used so small values are shown
+     * as decimals
      */
-    String[] gridLineValues;
+    private final EngineeringFormat engineeringFormat = new EngineeringFormat(0, 12);
+    /**
+     * Text of each grid line value and its length. The arrays are written in place whenever the
+     * values change so zooming does not allocate
+     */
+    char[][] gridLineValues;
+    int[] gridLineValueLengths;
 
     /**
      * Constructor
@@ -44,46 +56,38 @@ abstract class AxisText extends DrawableObject {
 
         float textScale = context.getResources().getDisplayMetrics().density;
 
-        paint.setFlags(Paint.ANTI_ALIAS_FLAG);
-        paint.setTextAlign(Paint.Align.CENTER);
-        paint.setColor(Color.GRAY);
+        textPaint.setFlags(Paint.ANTI_ALIAS_FLAG);
+        style.setAntiAlias(true);
+        style.setTextAlign(DrawingStyle.TextAlign.CENTRE);
+        style.setColour(Color.GRAY);
         /*
           text size before scaling for screen has been applied
          */
         int mUnscaledTextSize = 16;
-        paint.setTextSize((float) mUnscaledTextSize * textScale);
-        paint.setShadowLayer(1f, 0f, 1f, Color.WHITE);
+        textPaint.setTextSize((float) mUnscaledTextSize * textScale);
+        style.setTextSize(textPaint.getTextSize());
+        style.setShadow(1f, 0f, 1f, Color.WHITE);
 
-        gridLineValues = new String[gridLines.getNumberOfGridLines()];
+        allocateGridLineValues();
         calculateGridLineValues();
 
-        String sMaximumString = "00.00K";
-        paint.getTextBounds(sMaximumString, 0, sMaximumString.length(), bounds);
+        String sMaximumString = "-00.0k";
+        textPaint.getTextBounds(sMaximumString, 0, sMaximumString.length(), bounds);
     }
 
     /**
-     * Return the string to display for the given grid line
+     * Write the text to display for the given grid line
      *
-     * @param gridLine grid line number between 0 and max number of grid lines
-     * @return string to display
+     * @param gridLine    grid line number between 0 and max number of grid lines
+     * @param destination array to write the text into
+     * @return length of the text
      */
-    private String displayString(int gridLine) {
+    private int displayString(int gridLine, char[] destination) {
         float locationOnGraph = gridLines.intersect(gridLine);
 
         float valueToDisplay = axisParameters.graphPositionToScaledAxis(locationOnGraph);
-        float nonNegativeValue = Math.abs(valueToDisplay);
 
-        if(nonNegativeValue < 10f) {
-            return String.valueOf((float) Math.round(valueToDisplay * 100d) / 100d);
-        } else if(nonNegativeValue < 100f) {
-            return String.valueOf((float) Math.round(valueToDisplay * 10d) / 10d);
-        } else if(nonNegativeValue < 1000f) {
-            return String.valueOf(Math.round(valueToDisplay));
-        } else if(nonNegativeValue < 100000f) {
-            return String.valueOf((float) Math.round(valueToDisplay / 10d) / 100f) + "K";
-        } else {
-            return "NaN";
-        }
+        return engineeringFormat.format(valueToDisplay, destination, 0);
     }
 
     /**
@@ -102,7 +106,7 @@ abstract class AxisText extends DrawableObject {
      * @return text height
      */
     float getRealTextHeight() {
-        return (Math.abs(paint.ascent()) + Math.abs(paint.descent()));
+        return (Math.abs(textPaint.ascent()) + Math.abs(textPaint.descent()));
     }
 
     /**
@@ -110,8 +114,23 @@ abstract class AxisText extends DrawableObject {
      * display
      */
     void calculateGridLineValues() {
-        for(int i = 0; i < gridLineValues.length; ++i) {
-            gridLineValues[i] = displayString(i);
+        allocateGridLineValues();
+        final int numberOfGridLines = gridLines.getNumberOfGridLines();
+        for(int i = 0; i < numberOfGridLines; ++i) {
+            gridLineValueLengths[i] = displayString(i, gridLineValues[i]);
+        }
+    }
+
+    /**
+     * Size the value arrays to the number of grid lines. The arrays only ever grow so pooled
+     * grid lines which are given a different number of lines do not allocate
+     */
+    void allocateGridLineValues() {
+        final int numberOfGridLines = gridLines.getNumberOfGridLines();
+        if(gridLineValues != null && gridLineValues.length >= numberOfGridLines) {
+            return;
         }
+        gridLineValues = new char[numberOfGridLines][EngineeringFormat.MAXIMUM_LENGTH];
+        gridLineValueLengths = new int[numberOfGridLines];
     }
 }
@@ -1,6 +1,5 @@
 package com.nfx.android.graph.androidgraph;
 
-import android.graphics.Canvas;
 import android.graphics.Color;
 
 /**
@@ -17,12 +16,12 @@ class Background extends DrawableObject {
     private static final int INITIAL_COLOR = Color.BLACK;
 
     Background() {
-        paint.setColor(INITIAL_COLOR);
+        style.setColour(INITIAL_COLOR);
     }
 
     @Override
-    public void doDraw(Canvas canvas) {
-        canvas.drawRect(getDrawableArea().getRect(), paint);
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
+        drawingSurface.drawRect(getDrawableArea().getRect(), style);
     }
 
     /**
@@ -1,7 +1,7 @@
 package com.nfx.android.graph.androidgraph;
 
 import android.content.Context;
-import android.graphics.Canvas;
+import android.util.Log;
 
 import com.nfx.android.graph.androidgraph.AxisScale.GraphParameters;
 
@@ -11,9 +11,19 @@ import com.nfx.android.graph.androidgraph.AxisScale.GraphParameters;
  * <p>
  * The background manager holders many drawable objects which are considered background objects
  * It makes batch calls to DoDraw functions of all it's members and individual sizing options
- * are possible by overriding surfaceChanged
+ * are possible by overriding surfaceChanged. The background only changes on a zoom, resize or
+ * setting change, so it is drawn into an offscreen layer which is copied to the screen each frame
+ * and only redrawn once it has been invalidated.
+ * <p>
+ * The grid lines are changed by zoom changes on the render thread and by the setters here on the
+ * UI thread, so both hold the lock on this object, as does drawing
  */
 class BackgroundManager implements BackgroundManagerInterface {
+    private static final String TAG = "BackgroundManager";
+    /**
+     * Most major divisions across a linear axis, minor grid lines fill in as it is zoomed
+     */
+    private static final int MAXIMUM_MAJOR_DIVISIONS = 5;
     /**
      * An object which draws onto the canvas
      **/
@@ -44,6 +54,34 @@ class BackgroundManager implements BackgroundManagerInterface {
      * App Context
      */
     private Context context;
+    /**
+     * Offscreen copy of the background, made by the surface being drawn onto
+     */
+    private DrawingSurface backgroundLayer;
+    /**
+     * Size of the background layer to make, 0 while there is nothing to draw
+     */
+    private int backgroundWidth = 0;
+    private int backgroundHeight = 0;
+    /**
+     * Set when the background bitmap needs to be redrawn
+     */
+    private volatile boolean backgroundInvalid = true;
+    /**
+     * Asked for a new frame whenever the background is invalidated
+     */
+    private RenderRequester renderRequester;
+    /**
+     * Invalidates the background when either axis is zoomed or scrolled
+     */
+    private final ZoomChangedListener zoomChangedListener = new ZoomChangedListener() {
+        @Override
+        void zoomChanged() {
+            // Zoom changes are told at the start of a frame which has already been requested,
+            // so only the flag needs setting
+            backgroundInvalid = true;
+        }
+    };
 
 
     /**
@@ -78,34 +116,87 @@ class BackgroundManager implements BackgroundManagerInterface {
      * @param drawableArea the available area to draw
      */
     public void surfaceChanged(DrawableArea drawableArea) {
-        background.surfaceChanged(drawableArea);
+        synchronized(this) {
+            // The layer is made again on the next frame as only the surface knows how to. It
+            // covers the whole area, so is sized before the objects below take their share of it
+            releaseBackgroundLayer();
+            backgroundWidth = drawableArea.getLeft() + drawableArea.getWidth();
+            backgroundHeight = drawableArea.getTop() + drawableArea.getHeight();
+
+            background.surfaceChanged(drawableArea);
+
+            if(showAxisText) {
+                boarderText.surfaceChanged(drawableArea);
+                // we have to call Y here first to shift the x text into the right location
+                yGridLines.notifyAxisTextOfSurfaceChange(drawableArea);
+                xGridLines.notifyAxisTextOfSurfaceChange(drawableArea);
+            }
 
-        if(showAxisText) {
-            boarderText.surfaceChanged(drawableArea);
-            // we have to call Y here first to shift the x text into the right location
-            yGridLines.notifyAxisTextOfSurfaceChange(drawableArea);
-            xGridLines.notifyAxisTextOfSurfaceChange(drawableArea);
+            boarder.surfaceChanged(drawableArea);
+
+            xGridLines.surfaceChanged(drawableArea);
+            yGridLines.surfaceChanged(drawableArea);
+
+            invalidate();
         }
+    }
+
+    /**
+     * Call with the surface to draw on, the background layer is redrawn first if it has been
+     * invalidated
+     *
+     * @param drawingSurface surface to draw the objects onto
+     * @param frameState state of the frame being drawn
+     */
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
+        synchronized(this) {
+            if(backgroundWidth <= 0 || backgroundHeight <= 0) {
+                drawBackground(drawingSurface, frameState);
+                return;
+            }
+
+            // A layer can only be drawn onto the kind of surface which made it
+            if(backgroundLayer == null || backgroundLayer.getClass() != drawingSurface.getClass()) {
+                releaseBackgroundLayer();
+                backgroundLayer = drawingSurface.createLayer(backgroundWidth, backgroundHeight);
+                backgroundInvalid = true;
+            }
+
+            if(backgroundInvalid) {
+                // Cleared before drawing so a change made during the redraw is not lost
+                backgroundInvalid = false;
+                drawBackground(backgroundLayer, frameState);
+            }
 
-        boarder.surfaceChanged(drawableArea);
+            drawingSurface.drawLayer(backgroundLayer);
+        }
+    }
 
-        xGridLines.surfaceChanged(drawableArea);
-        yGridLines.surfaceChanged(drawableArea);
+    /**
+     * Free the background layer, a new one is made when next drawn
+     */
+    private void releaseBackgroundLayer() {
+        if(backgroundLayer != null) {
+            backgroundLayer.release();
+            backgroundLayer = null;
+        }
     }
 
     /**
-     * Call with the canvas to draw on
-     * @param canvas canvas to draw the objects onto
+     * Draw all of the background objects
+     *
+     * @param drawingSurface surface to draw the objects onto
+     * @param frameState state of the frame being drawn
      */
-    public void doDraw(Canvas canvas) {
-        background.doDraw(canvas);
-        boarder.doDraw(canvas);
+    private void drawBackground(DrawingSurface drawingSurface, FrameState frameState) {
+        background.doDraw(drawingSurface, frameState);
+        boarder.doDraw(drawingSurface, frameState);
 
-        xGridLines.doDraw(canvas);
-        yGridLines.doDraw(canvas);
+        xGridLines.doDraw(drawingSurface, frameState);
+        yGridLines.doDraw(drawingSurface, frameState);
 
         if(showAxisText) {
-            boarderText.doDraw(canvas);
+            boarderText.doDraw(drawingSurface, frameState);
         }
     }
 
@@ -115,8 +206,12 @@ class BackgroundManager implements BackgroundManagerInterface {
      * @param yZoomDisplay zoom object for the y axis
      */
     void setYZoomDisplay(ZoomDisplay yZoomDisplay) {
-        yGridLines.setZoomDisplay(yZoomDisplay);
-        boarderText.setYZoomDisplay(yZoomDisplay);
+        synchronized(this) {
+            yZoomDisplay.addListener(zoomChangedListener);
+            yGridLines.setZoomDisplay(yZoomDisplay);
+            boarderText.setYZoomDisplay(yZoomDisplay);
+            invalidate();
+        }
     }
 
     /**
@@ -125,89 +220,105 @@ class BackgroundManager implements BackgroundManagerInterface {
      * @param zoomDisplay zoom object for the x axis
      */
     void setXZoomDisplay(ZoomDisplay zoomDisplay) {
-        xGridLines.setZoomDisplay(zoomDisplay);
-        boarderText.setXZoomDisplay(zoomDisplay);
+        synchronized(this) {
+            zoomDisplay.addListener(zoomChangedListener);
+            xGridLines.setZoomDisplay(zoomDisplay);
+            boarderText.setXZoomDisplay(zoomDisplay);
+            invalidate();
+        }
+    }
+
+    /**
+     * Tell the listeners of both zoom displays of changes since the last frame. The grid lines
+     * change as they are told, so this holds the same lock as drawing and the setters called
+     * from the UI thread
+     *
+     * @param xZoomDisplay zoom object for the x axis
+     * @param yZoomDisplay zoom object for the y axis
+     */
+    void dispatchZoomChanged(ZoomDisplay xZoomDisplay, ZoomDisplay yZoomDisplay) {
+        synchronized(this) {
+            xZoomDisplay.dispatchZoomChanged();
+            yZoomDisplay.dispatchZoomChanged();
+        }
     }
 
     /**
      * Handle changes to display the x axis as a logarithmic scale
      */
     void setXAxisLogarithmic() {
-        // We want the decades located on the major grid lines but want the max to be 22.05K
-        // therefore we have to do a fudge to make 100K the maximum and zoom to 0 - 22.05K
-        float maxValue = graphParameters.getXAxisParameters().getMaximumValue();
-        float minValue = graphParameters.getXAxisParameters().getMinimumValue();
-        float max = maxValue;
-        int i = 0;
-        while(max >= 1) {
-            i++;
-            max /= 10;
-        }
-        double virtualMax = Math.pow(10, i);
+        synchronized(this) {
+            // We want the decades located on the major grid lines but want the max to be 22.05K
+            // therefore we have to do a fudge to make 100K the maximum and zoom to 0 - 22.05K
+            float maxValue = graphParameters.getXAxisParameters().getMaximumValue();
+            float minValue = graphParameters.getXAxisParameters().getMinimumValue();
+            float max = maxValue;
+            int i = 0;
+            while(max >= 1) {
+                i++;
+                max /= 10;
+            }
+            double virtualMax = Math.pow(10, i);
 
-        // Plus one to account for the far right hand side last grid line
-        xGridLines.setNumberOfGridLines(i+1);
+            // Plus one to account for the far right hand side last grid line
+            xGridLines.setNumberOfGridLines(i+1);
 
-        double virtualMaxLog = Math.log(virtualMax) / Math.log(2);
+            double virtualMaxLog = Math.log(virtualMax) / Math.log(2);
 
-        double logMinimum = Math.log(minValue) / Math.log(2);
-        logMinimum /= virtualMaxLog;
+            double logMinimum = Math.log(minValue) / Math.log(2);
+            logMinimum /= virtualMaxLog;
 
-        double logMaximum = Math.log(maxValue) / Math.log(2);
-        logMaximum /= virtualMaxLog;
+            double logMaximum = Math.log(maxValue) / Math.log(2);
+            logMaximum /= virtualMaxLog;
 
-        xGridLines.getFixedZoomDisplay().setZoomLevelPercentage((float)(logMaximum - logMinimum));
-        xGridLines.getFixedZoomDisplay().setDisplayOffsetPercentage((float)logMinimum);
+            xGridLines.getFixedZoomDisplay().setZoom((float)(logMaximum - logMinimum),
+                    (float)logMinimum);
 
-        // Axis are reset so lets remove all the children
-        xGridLines.removeAllChildGridLines();
+            // Axis are reset so lets remove all the children
+            xGridLines.removeAllChildGridLines();
 
-        xGridLines.setChildGridLineScale(Scale.logarithmic);
+            xGridLines.setChildGridLineScale(Scale.logarithmic);
 
-        forceGridLineValueRecalculate();
+            forceGridLineValueRecalculate();
+            invalidate();
+        }
     }
 
     /**
      * Handle changes to display the x axis as a linear scale
      */
     void setXAxisLinear() {
-        // This will scale the x axis in a logical fashion. it will round up to a value based on
-        // the iterator. The iterator will grown by a factor of 10 after each 10 iterations round
-        // round the loop. results eg. 22500 = 30000 | 0.05 = 0.1
-
-        float iterator = 1f;
-        float divisor = iterator;
-
-        float minValue = graphParameters.getXAxisParameters().getMinimumValue();
-        float maxValue = graphParameters.getXAxisParameters().getMaximumValue();
-
-        xGridLines.getFixedZoomDisplay().setDisplayOffsetPercentage(0);
-        xGridLines.getFixedZoomDisplay().setZoomLevelPercentage(1);
-
-        while((maxValue / divisor) > 1f) {
-            divisor += iterator;
-            if(divisor >= (iterator * 10)) {
-                iterator *= 10f;
-                divisor = iterator;
+        synchronized(this) {
+            // The major grid lines are placed on nice multiples of a step, rounded out past each
+            // end of the axis. eg. 20 - 22050 gives grid lines every 5000 from 0 to 25000, the
+            // fixed zoom then shows the part of them which the axis covers
+            float minValue = graphParameters.getXAxisParameters().getMinimumValue();
+            float maxValue = graphParameters.getXAxisParameters().getMaximumValue();
+
+            final float step = TickGenerator.majorTickStep(minValue, maxValue,
+                    MAXIMUM_MAJOR_DIVISIONS);
+            if(step <= 0) {
+                Log.e(TAG, "Cannot place grid lines on x axis " + minValue + " - " + maxValue);
+                return;
             }
-        }
-
-        int lowerGridLines = (int)(minValue / iterator);
-        float remainder = minValue % iterator;
+            final double firstGridLine = TickGenerator.majorTickBelow(minValue, step);
+            final double gridLineSpan =
+                    TickGenerator.majorTickAbove(maxValue, step) - firstGridLine;
 
-        if(remainder > 0) {
-            xGridLines.getFixedZoomDisplay().setZoomLevelPercentage(1f - (remainder / (maxValue - (minValue - remainder))));
-            xGridLines.getFixedZoomDisplay().setDisplayOffsetPercentage((remainder / (maxValue - (minValue - remainder))));
-        }
+            xGridLines.getFixedZoomDisplay().setZoom(
+                    (float) ((maxValue - minValue) / gridLineSpan),
+                    (float) ((minValue - firstGridLine) / gridLineSpan));
 
-        xGridLines.setNumberOfGridLines((int)(divisor / iterator) + 1 - lowerGridLines);
+            xGridLines.setNumberOfGridLines((int) Math.round(gridLineSpan / step) + 1);
 
-        // Axis are reset so lets remove all the children
-        xGridLines.removeAllChildGridLines();
+            // Axis are reset so lets remove all the children
+            xGridLines.removeAllChildGridLines();
 
-        xGridLines.setChildGridLineScale(Scale.linear);
+            xGridLines.setChildGridLineScale(Scale.linear);
 
-        forceGridLineValueRecalculate();
+            forceGridLineValueRecalculate();
+            invalidate();
+        }
     }
 
     /**
@@ -218,6 +329,7 @@ class BackgroundManager implements BackgroundManagerInterface {
     @Override
     public void setBackgroundColour(int colour) {
         background.setColour(colour);
+        invalidate();
     }
 
     /**
@@ -231,22 +343,60 @@ class BackgroundManager implements BackgroundManagerInterface {
         yGridLines.setColour(colour);
         boarder.setColour(colour);
         boarderText.setColour(colour);
+        invalidate();
     }
 
     /**
      * Remove child grid lines for x and y axis
      */
     void removeAllChildGridLines() {
-        xGridLines.removeAllChildGridLines();
-        yGridLines.removeAllChildGridLines();
+        synchronized(this) {
+            xGridLines.removeAllChildGridLines();
+            yGridLines.removeAllChildGridLines();
+            invalidate();
+        }
     }
 
+    /**
+     * Show or hide the minor grid lines for x and y axis
+     *
+     * @param minorGridLinesShown true to show minor grid lines where there is space
+     */
+    void setMinorGridLinesShown(boolean minorGridLinesShown) {
+        synchronized(this) {
+            xGridLines.setChildGridLinesShown(minorGridLinesShown);
+            yGridLines.setChildGridLinesShown(minorGridLinesShown);
+            invalidate();
+        }
+    }
 
     void setShowAxisText(boolean showAxisText) {
-        this.showAxisText = showAxisText;
+        synchronized(this) {
+            this.showAxisText = showAxisText;
+
+            xGridLines.showAxisText(context);
+            yGridLines.showAxisText(context);
+            invalidate();
+        }
+    }
 
-        xGridLines.showAxisText(context);
-        yGridLines.showAxisText(context);
+    /**
+     * Mark the background to be redrawn on the next frame. Call after changing the grid lines
+     * directly
+     */
+    @Override
+    public void invalidate() {
+        backgroundInvalid = true;
+        if(renderRequester != null) {
+            renderRequester.requestRender();
+        }
+    }
+
+    /**
+     * @param renderRequester asked for a new frame whenever the background is invalidated
+     */
+    void setRenderRequester(RenderRequester renderRequester) {
+        this.renderRequester = renderRequester;
     }
 
     private void forceGridLineValueRecalculate() {
@@ -12,4 +12,6 @@ public interface BackgroundManagerInterface {
     void setBackgroundColour(int color);
 
     void setGridLineColour(int color);
+
+    void invalidate();
 }
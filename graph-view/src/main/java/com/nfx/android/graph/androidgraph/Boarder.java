@@ -1,6 +1,5 @@
 package com.nfx.android.graph.androidgraph;
 
-import android.graphics.Canvas;
 import android.graphics.Color;
 
 /**
@@ -21,35 +20,39 @@ class Boarder extends DrawableObject {
     private static final int COLOR = Color.GRAY;
 
     Boarder() {
-        paint.setColor(COLOR);
-        paint.setStrokeWidth(STROKE_WIDTH);
+        style.setColour(COLOR);
+        style.setStrokeWidth(STROKE_WIDTH);
     }
 
     /**
      * Called from BackManager when a draw is needed
      *
-     * @param canvas draw directly onto this canvas
+     * @param drawingSurface draw directly onto this surface
+     * @param frameState state of the frame being drawn
      */
     @Override
-    public void doDraw(Canvas canvas) {
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
         int halfStrokeWidth = STROKE_WIDTH / 2;
 
         // Draw the left boarder
-        canvas.drawLine(getDrawableArea().getLeft() + halfStrokeWidth, getDrawableArea().getTop(),
+        drawingSurface.drawLine(getDrawableArea().getLeft() + halfStrokeWidth,
+                getDrawableArea().getTop(),
                 getDrawableArea().getLeft() + halfStrokeWidth, getDrawableArea().getBottom(),
-                paint);
+                style);
         // Draw the right boarder
-        canvas.drawLine(getDrawableArea().getRight() - halfStrokeWidth, getDrawableArea().getTop(),
+        drawingSurface.drawLine(getDrawableArea().getRight() - halfStrokeWidth,
+                getDrawableArea().getTop(),
                 getDrawableArea().getRight() - halfStrokeWidth, getDrawableArea().getBottom(),
-                paint);
+                style);
         // Draw the top boarder
-        canvas.drawLine(getDrawableArea().getLeft(), getDrawableArea().getTop() + halfStrokeWidth,
-                getDrawableArea().getRight(), getDrawableArea().getTop() + halfStrokeWidth, paint);
+        drawingSurface.drawLine(getDrawableArea().getLeft(),
+                getDrawableArea().getTop() + halfStrokeWidth,
+                getDrawableArea().getRight(), getDrawableArea().getTop() + halfStrokeWidth, style);
         // draw the bottom boarder
-        canvas.drawLine(getDrawableArea().getLeft(),
+        drawingSurface.drawLine(getDrawableArea().getLeft(),
                 getDrawableArea().getBottom() - halfStrokeWidth,
                 getDrawableArea().getRight(),
-                getDrawableArea().getBottom() - halfStrokeWidth, paint);
+                getDrawableArea().getBottom() - halfStrokeWidth, style);
     }
 
     /**
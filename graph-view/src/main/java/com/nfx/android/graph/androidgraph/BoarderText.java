@@ -1,12 +1,12 @@
 package com.nfx.android.graph.androidgraph;
 
 import android.content.Context;
-import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
 
 import com.nfx.android.graph.androidgraph.AxisScale.GraphParameters;
+import com.nfx.android.utils.EngineeringFormat;
 
 /**
  * NFX Development
@@ -20,6 +20,10 @@ class BoarderText extends DrawableObject {
      * Maximum Bounds of text
      */
     private final Rect bounds = new Rect();
+    /**
+     * Measures the text, it is drawn with the style
+     */
+    private final Paint textPaint = new Paint();
     /**
      * Graph Limits
      */
@@ -30,12 +34,31 @@ class BoarderText extends DrawableObject {
     private ZoomDisplay xZoomDisplay;
     private ZoomDisplay yZoomDisplay;
     /**
-     * The values to display in each corner
+     * We have to listen for changes to the zoom offset to update the shown values
+     */
+    private final ZoomChangedListener zoomChangedListener = new ZoomChangedListener() {
+        @Override
+        void zoomChanged() {
+            calculateValuesToDisplay();
+        }
+    };
+    /**
+     * Formats the values, prefixes below unity are not used so small values are shown as
+     * decimals
      */
-    private String leftX;
-    private String rightX;
-    private String topY;
-    private String bottomY;
+    private final EngineeringFormat engineeringFormat = new EngineeringFormat(0, 12);
+    /**
+     * The values to display in each corner and their lengths, written in place so zooming does
+     * not allocate
+     */
+    private final char[] leftX = new char[EngineeringFormat.MAXIMUM_LENGTH];
+    private final char[] rightX = new char[EngineeringFormat.MAXIMUM_LENGTH];
+    private final char[] topY = new char[EngineeringFormat.MAXIMUM_LENGTH];
+    private final char[] bottomY = new char[EngineeringFormat.MAXIMUM_LENGTH];
+    private int leftXLength;
+    private int rightXLength;
+    private int topYLength;
+    private int bottomYLength;
 
     /**
      * @param context  needed to work out the text size
@@ -51,76 +74,55 @@ class BoarderText extends DrawableObject {
 
         float textScale = context.getResources().getDisplayMetrics().density;
 
-        paint.setFlags(Paint.ANTI_ALIAS_FLAG);
-        paint.setTextAlign(Paint.Align.RIGHT);
-        paint.setColor(Color.GRAY);
+        textPaint.setFlags(Paint.ANTI_ALIAS_FLAG);
+        style.setAntiAlias(true);
+        style.setTextAlign(DrawingStyle.TextAlign.RIGHT);
+        style.setColour(Color.GRAY);
         /*
       text size before scaling for screen has been applied
      */
         int mUnscaledTextSize = 16;
-        paint.setTextSize((float) mUnscaledTextSize * textScale);
-        paint.setShadowLayer(1f, 0f, 1f, Color.WHITE);
+        textPaint.setTextSize((float) mUnscaledTextSize * textScale);
+        style.setTextSize(textPaint.getTextSize());
+        style.setShadow(1f, 0f, 1f, Color.WHITE);
 
-        String sMaximumString = "00.00K";
-        paint.getTextBounds(sMaximumString, 0, sMaximumString.length(), bounds);
+        String sMaximumString = "-00.0k";
+        textPaint.getTextBounds(sMaximumString, 0, sMaximumString.length(), bounds);
 
         calculateValuesToDisplay();
     }
 
     @Override
-    public void doDraw(Canvas canvas) {
-        canvas.drawText(topY, getDrawableArea().getLeft() + bounds.width(),
-                getDrawableArea().getTop() + bounds.height(), paint);
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
+        drawingSurface.drawText(topY, 0, topYLength, getDrawableArea().getLeft() + bounds.width(),
+                getDrawableArea().getTop() + bounds.height(), style);
 
-        canvas.drawText(bottomY, getDrawableArea().getLeft() + bounds.width(),
-                getDrawableArea().getBottom() - getRealTextHeight(), paint);
+        drawingSurface.drawText(bottomY, 0, bottomYLength,
+                getDrawableArea().getLeft() + bounds.width(),
+                getDrawableArea().getBottom() - getRealTextHeight(), style);
 
-        canvas.drawText(leftX, (getDrawableArea().getLeft() + bounds.width() + (bounds.width()
-                        / 2)),
-                getDrawableArea().getBottom() - Math.abs(paint.descent()), paint);
+        drawingSurface.drawText(leftX, 0, leftXLength,
+                (getDrawableArea().getLeft() + bounds.width() + (bounds.width() / 2)),
+                getDrawableArea().getBottom() - Math.abs(textPaint.descent()), style);
 
-        canvas.drawText(rightX, getDrawableArea().getRight(),
-                getDrawableArea().getBottom() - Math.abs(paint.descent()), paint);
+        drawingSurface.drawText(rightX, 0, rightXLength, getDrawableArea().getRight(),
+                getDrawableArea().getBottom() - Math.abs(textPaint.descent()), style);
     }
 
     /**
      * We calculate the value ahead of time to removeAllChildGridLines any hold up in doDraw
      */
     void calculateValuesToDisplay() {
-        topY = displayString(graphParameters.getYAxisParameters().getMinimumValue() +
-                (yZoomDisplay.getFarSideOffsetPercentage() * graphParameters.getYAxisParameters
-                        ().getAxisSpan()));
-        bottomY = displayString(graphParameters.getYAxisParameters().getMinimumValue() +
-                (yZoomDisplay.getDisplayOffsetPercentage() * graphParameters.getYAxisParameters
-                        ().getAxisSpan()));
-        leftX = displayString(graphParameters.getXAxisParameters().graphPositionToScaledAxis(
-                xZoomDisplay.getDisplayOffsetPercentage()));
-        rightX = displayString(graphParameters.getXAxisParameters().graphPositionToScaledAxis(
-                xZoomDisplay.getFarSideOffsetPercentage()));
-    }
-
-    /**
-     * Return a string for the given value to display. Truncation will be applied to allow the
-     * string
-     * to be displayed correctly on screen
-     *
-     * @param valueToDisplay the number to display
-     * @return display string
-     */
-    private String displayString(float valueToDisplay) {
-        float nonNegativeValue = Math.abs(valueToDisplay);
-
-        if(nonNegativeValue < 10f) {
-            return String.valueOf((float) Math.round(valueToDisplay * 100d) / 100d);
-        } else if(nonNegativeValue < 100f) {
-            return String.valueOf((float) Math.round(valueToDisplay * 10d) / 10d);
-        } else if(nonNegativeValue < 1000f) {
-            return String.valueOf(Math.round(valueToDisplay));
-        } else if(nonNegativeValue < 100000f) {
-            return String.valueOf((float) Math.round(valueToDisplay / 10d) / 100f) + "K";
-        } else {
-            return "NaN";
-        }
+        topYLength = engineeringFormat.format(graphParameters.getYAxisParameters()
+                .getMinimumValue() + (yZoomDisplay.getFarSideOffsetPercentage() *
+                graphParameters.getYAxisParameters().getAxisSpan()), topY, 0);
+        bottomYLength = engineeringFormat.format(graphParameters.getYAxisParameters()
+                .getMinimumValue() + (yZoomDisplay.getDisplayOffsetPercentage() *
+                graphParameters.getYAxisParameters().getAxisSpan()), bottomY, 0);
+        leftXLength = engineeringFormat.format(graphParameters.getXAxisParameters()
+                .graphPositionToScaledAxis(xZoomDisplay.getDisplayOffsetPercentage()), leftX, 0);
+        rightXLength = engineeringFormat.format(graphParameters.getXAxisParameters()
+                .graphPositionToScaledAxis(xZoomDisplay.getFarSideOffsetPercentage()), rightX, 0);
     }
 
     /**
@@ -140,17 +142,9 @@ class BoarderText extends DrawableObject {
      * @param zoomDisplay the y Zoom levels
      */
     void setYZoomDisplay(ZoomDisplay zoomDisplay) {
+        yZoomDisplay.removeListener(zoomChangedListener);
         yZoomDisplay = zoomDisplay;
-
-        /*
-            We have to list for changes to the zoom offset to update the shown values
-         */
-        yZoomDisplay.addListener(new ZoomChangedListener() {
-            @Override
-            public void zoomChanged() {
-                calculateValuesToDisplay();
-            }
-        });
+        yZoomDisplay.addListener(zoomChangedListener);
     }
 
     /**
@@ -160,17 +154,9 @@ class BoarderText extends DrawableObject {
      * @param zoomDisplay the y Zoom levels
      */
     void setXZoomDisplay(ZoomDisplay zoomDisplay) {
+        xZoomDisplay.removeListener(zoomChangedListener);
         xZoomDisplay = zoomDisplay;
-
-        /*
-            We have to list for changes to the zoom offset to update the shown values
-         */
-        xZoomDisplay.addListener(new ZoomChangedListener() {
-            @Override
-            public void zoomChanged() {
-                calculateValuesToDisplay();
-            }
-        });
+        xZoomDisplay.addListener(zoomChangedListener);
     }
 
     /**
@@ -180,6 +166,6 @@ class BoarderText extends DrawableObject {
      * @return text height
      */
     private float getRealTextHeight() {
-        return (Math.abs(paint.ascent()) + Math.abs(paint.descent()));
+        return (Math.abs(textPaint.ascent()) + Math.abs(textPaint.descent()));
     }
 }
@@ -0,0 +1,202 @@
+package com.nfx.android.graph.androidgraph;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.support.annotation.Nullable;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Draws onto an android canvas. The graph view keeps a single instance and points it at the
+ * canvas locked for each frame, layers are backed by a bitmap. Each drawing style is copied onto
+ * a single reused paint, and each image keeps a bitmap copy which is brought up to date with the
+ * rows changed since it was last drawn
+ */
+public class CanvasDrawingSurface implements DrawingSurface {
+    /**
+     * Takes the drawing style of each call
+     */
+    private final Paint paint = new Paint();
+    /**
+     * Reused areas of the image being drawn
+     */
+    private final Rect sourceRect = new Rect();
+    private final Rect destinationRect = new Rect();
+    /**
+     * Reused to draw polygons
+     */
+    private final Path polygonPath = new Path();
+    /**
+     * Canvas being drawn onto
+     */
+    private Canvas canvas;
+    /**
+     * Bitmap the canvas draws into when this surface is a layer
+     */
+    @Nullable
+    private Bitmap layerBitmap = null;
+
+    /**
+     * @param canvas canvas to draw onto, may be set later with setCanvas
+     */
+    public CanvasDrawingSurface(@Nullable Canvas canvas) {
+        this.canvas = canvas;
+    }
+
+    /**
+     * @param canvas canvas to draw onto from now on
+     */
+    public void setCanvas(Canvas canvas) {
+        this.canvas = canvas;
+    }
+
+    @Override
+    public int getWidth() {
+        return canvas.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return canvas.getHeight();
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY,
+                         DrawingStyle style) {
+        canvas.drawLine(startX, startY, stopX, stopY, applyStyle(style));
+    }
+
+    @Override
+    public void drawLines(float[] points, int offset, int count, DrawingStyle style) {
+        canvas.drawLines(points, offset, count, applyStyle(style));
+    }
+
+    @Override
+    public void drawRect(DrawingRect rect, DrawingStyle style) {
+        canvas.drawRect(rect.getLeft(), rect.getTop(), rect.getRight(), rect.getBottom(),
+                applyStyle(style));
+    }
+
+    @Override
+    public void drawCircle(float centreX, float centreY, float radius, DrawingStyle style) {
+        canvas.drawCircle(centreX, centreY, radius, applyStyle(style));
+    }
+
+    @Override
+    public void drawPolygon(float[] points, int count, DrawingStyle style) {
+        if(count < 2) {
+            return;
+        }
+        polygonPath.rewind();
+        polygonPath.moveTo(points[0], points[1]);
+        for(int i = 2; i + 1 < count; i += 2) {
+            polygonPath.lineTo(points[i], points[i + 1]);
+        }
+        polygonPath.close();
+        canvas.drawPath(polygonPath, applyStyle(style));
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y,
+                         DrawingStyle style) {
+        canvas.drawText(text, index, count, x, y, applyStyle(style));
+    }
+
+    @Override
+    public void drawImage(DrawingImage image, @Nullable DrawingRect source,
+                          DrawingRect destination, DrawingStyle style) {
+        Bitmap bitmap = (Bitmap) image.surfaceCopy;
+        if(bitmap == null) {
+            bitmap = Bitmap.createBitmap(image.getWidth(), image.getHeight(),
+                    Bitmap.Config.ARGB_8888);
+            image.surfaceCopy = bitmap;
+            image.markChanged(0, image.getHeight());
+        }
+        final int changedTop = image.getChangedTop();
+        final int changedBottom = image.getChangedBottom();
+        if(changedTop < changedBottom) {
+            bitmap.setPixels(image.getPixels(), changedTop * image.getWidth(), image.getWidth(),
+                    0, changedTop, image.getWidth(), changedBottom - changedTop);
+            image.clearChanged();
+        }
+
+        if(source == null) {
+            sourceRect.set(0, 0, image.getWidth(), image.getHeight());
+        } else {
+            sourceRect.set(source.getLeft(), source.getTop(), source.getRight(),
+                    source.getBottom());
+        }
+        destinationRect.set(destination.getLeft(), destination.getTop(), destination.getRight(),
+                destination.getBottom());
+        canvas.drawBitmap(bitmap, sourceRect, destinationRect, applyStyle(style));
+    }
+
+    @Override
+    public DrawingSurface createLayer(int width, int height) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        CanvasDrawingSurface layer = new CanvasDrawingSurface(new Canvas(bitmap));
+        layer.layerBitmap = bitmap;
+        return layer;
+    }
+
+    @Override
+    public void drawLayer(DrawingSurface layer) {
+        Bitmap bitmap = ((CanvasDrawingSurface) layer).layerBitmap;
+        if(bitmap != null) {
+            canvas.drawBitmap(bitmap, 0, 0, null);
+        }
+    }
+
+    @Override
+    public void release() {
+        if(layerBitmap != null) {
+            layerBitmap.recycle();
+            layerBitmap = null;
+        }
+    }
+
+    /**
+     * Copy a drawing style onto the reused paint
+     *
+     * @param style style to copy
+     * @return the paint
+     */
+    private Paint applyStyle(DrawingStyle style) {
+        paint.setColor(style.getColour());
+        paint.setStrokeWidth(style.getStrokeWidth());
+        paint.setAntiAlias(style.isAntiAlias());
+        paint.setFilterBitmap(style.isFilterImages());
+        paint.setTextSize(style.getTextSize());
+        paint.setShadowLayer(style.getShadowRadius(), style.getShadowDx(), style.getShadowDy(),
+                style.getShadowColour());
+
+        switch(style.getStyle()) {
+            case STROKE:
+                paint.setStyle(Paint.Style.STROKE);
+                break;
+            case FILL_AND_STROKE:
+                paint.setStyle(Paint.Style.FILL_AND_STROKE);
+                break;
+            default:
+                paint.setStyle(Paint.Style.FILL);
+                break;
+        }
+
+        switch(style.getTextAlign()) {
+            case CENTRE:
+                paint.setTextAlign(Paint.Align.CENTER);
+                break;
+            case RIGHT:
+                paint.setTextAlign(Paint.Align.RIGHT);
+                break;
+            default:
+                paint.setTextAlign(Paint.Align.LEFT);
+                break;
+        }
+        return paint;
+    }
+}
@@ -1,7 +1,5 @@
 package com.nfx.android.graph.androidgraph;
 
-import android.graphics.Rect;
-
 /**
  * Created by nick on 25/10/15.
  * <p>
@@ -9,7 +7,7 @@ import android.graphics.Rect;
  */
 class DrawableArea {
 
-    private final Rect rect;
+    private final DrawingRect rect;
     private int xOffset = 0;
     private int yOffset = 0;
     private int height = 0;
@@ -30,7 +28,7 @@ class DrawableArea {
         this.height = height;
         this.width = width;
 
-        rect = new Rect(xOffset, yOffset, xOffset + width, yOffset + height);
+        rect = new DrawingRect(xOffset, yOffset, xOffset + width, yOffset + height);
     }
 
     /**
@@ -90,7 +88,7 @@ class DrawableArea {
         }
     }
 
-    Rect getRect() {
+    DrawingRect getRect() {
         return rect;
     }
 
@@ -1,8 +1,5 @@
 package com.nfx.android.graph.androidgraph;
 
-import android.graphics.Canvas;
-import android.graphics.Paint;
-
 /**
  * Created by nick on 25/10/15.
  * <p>
@@ -10,19 +7,20 @@ import android.graphics.Paint;
  */
 abstract class DrawableObject {
     /**
-     * The paint in which to draw with
+     * The style in which to draw with
      */
-    final Paint paint = new Paint();
+    final DrawingStyle style = new DrawingStyle();
     /**
      * Advises the background in which area it can draw.
      **/
     private final DrawableArea drawableArea = new DrawableArea(0, 0, 0, 0);
 
     /**
-     * Override and implement the specific drawing onto the canvas
-     * @param canvas a canvas to draw onto
+     * Override and implement the specific drawing onto the surface
+     * @param drawingSurface surface to draw onto
+     * @param frameState state of the frame being drawn
      */
-    protected abstract void doDraw(Canvas canvas);
+    protected abstract void doDraw(DrawingSurface drawingSurface, FrameState frameState);
 
     /**
      * Get the DrawableArea to change the area in which the object draws in
@@ -50,20 +48,20 @@ abstract class DrawableObject {
     protected abstract void calculateRemainingDrawableArea(DrawableArea currentDrawableArea);
 
     /**
-     * Get the colour on the default paint
+     * Get the colour on the default style
      *
-     * @return colour of paint
+     * @return colour of style
      */
     int getColour() {
-        return paint.getColor();
+        return style.getColour();
     }
 
     /**
-     * Set the colour on the default paint
+     * Set the colour on the default style
      *
      * @param colour colour to set
      */
     public void setColour(int colour) {
-        paint.setColor(colour);
+        style.setColour(colour);
     }
 }
@@ -0,0 +1,131 @@
+package com.nfx.android.graph.androidgraph;
+
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * An ARGB image in plain java which any drawing surface can draw. The rows changed since the
+ * image was last drawn are tracked, so a surface which has to copy the image into its own form,
+ * such as a bitmap, only copies what has changed. The image is not thread safe, the owner must
+ * not change it while it is being drawn
+ */
+public class DrawingImage {
+    private final int width;
+    private final int height;
+    /**
+     * Pixels of the image, row by row from the top left
+     */
+    private final int[] pixels;
+    /**
+     * Rows changed since the surface copy was last brought up to date, top is included and
+     * bottom is not. Empty when top is not above bottom
+     */
+    private int changedTop;
+    private int changedBottom;
+    /**
+     * The surface's own copy of the image, only used by the surface which made it
+     */
+    @Nullable
+    Object surfaceCopy = null;
+
+    /**
+     * @param width  width of the image in pixels
+     * @param height height of the image in pixels
+     */
+    public DrawingImage(int width, int height) {
+        this.width = width;
+        this.height = height;
+        pixels = new int[width * height];
+        changedTop = 0;
+        changedBottom = height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the pixels of the image, row by row from the top left. Call markChanged after
+     * writing to them
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Copy pixels into part of the image
+     *
+     * @param source pixels to copy, row by row
+     * @param offset index of the first pixel to copy
+     * @param stride pixels in each row of the source
+     * @param x      left column of the image to copy into
+     * @param y      top row of the image to copy into
+     * @param width  number of columns to copy
+     * @param height number of rows to copy
+     */
+    public void setPixels(int[] source, int offset, int stride, int x, int y, int width,
+                          int height) {
+        for(int row = 0; row < height; row++) {
+            System.arraycopy(source, offset + row * stride, pixels, (y + row) * this.width + x,
+                    width);
+        }
+        markChanged(y, y + height);
+    }
+
+    /**
+     * Set every pixel
+     *
+     * @param colour ARGB colour
+     */
+    public void eraseColor(int colour) {
+        Arrays.fill(pixels, colour);
+        markChanged(0, height);
+    }
+
+    /**
+     * Record that rows have been written to through getPixels
+     *
+     * @param top    first row changed
+     * @param bottom row after the last one changed
+     */
+    public void markChanged(int top, int bottom) {
+        if(changedTop < changedBottom) {
+            changedTop = Math.min(changedTop, top);
+            changedBottom = Math.max(changedBottom, bottom);
+        } else {
+            changedTop = top;
+            changedBottom = bottom;
+        }
+    }
+
+    /**
+     * @return first row changed since clearChanged
+     */
+    int getChangedTop() {
+        return changedTop;
+    }
+
+    /**
+     * @return row after the last one changed since clearChanged, no more than getChangedTop when
+     * nothing has changed
+     */
+    int getChangedBottom() {
+        return changedBottom;
+    }
+
+    /**
+     * Called by a surface once its copy is up to date
+     */
+    void clearChanged() {
+        changedTop = 0;
+        changedBottom = 0;
+    }
+}
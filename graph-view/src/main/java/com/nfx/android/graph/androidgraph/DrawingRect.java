@@ -0,0 +1,53 @@
+package com.nfx.android.graph.androidgraph;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * An area of a drawing surface or image in whole pixels. The right and bottom edges are not
+ * included. It is changed in place so the drawables can reuse one every frame
+ */
+public class DrawingRect {
+    private int left;
+    private int top;
+    private int right;
+    private int bottom;
+
+    public DrawingRect() {
+    }
+
+    public DrawingRect(int left, int top, int right, int bottom) {
+        set(left, top, right, bottom);
+    }
+
+    public void set(int left, int top, int right, int bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    public int getLeft() {
+        return left;
+    }
+
+    public int getTop() {
+        return top;
+    }
+
+    public int getRight() {
+        return right;
+    }
+
+    public int getBottom() {
+        return bottom;
+    }
+
+    public int getWidth() {
+        return right - left;
+    }
+
+    public int getHeight() {
+        return bottom - top;
+    }
+}
@@ -0,0 +1,149 @@
+package com.nfx.android.graph.androidgraph;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * How a drawing surface draws a shape or text. It holds only plain values so a surface can be
+ * written and tested without android, each drawable keeps one and changes it in place. The
+ * defaults match a new android paint
+ */
+public class DrawingStyle {
+    /**
+     * ARGB colour
+     */
+    private int colour = 0xFF000000;
+    private Style style = Style.FILL;
+    /**
+     * Width of lines and outlines, 0 draws the thinnest line the surface can
+     */
+    private float strokeWidth = 0f;
+    /**
+     * Smooth the edges of shapes and text where the surface supports it
+     */
+    private boolean antiAlias = false;
+    /**
+     * Filter images when they are stretched where the surface supports it
+     */
+    private boolean filterImages = false;
+    private float textSize = 12f;
+    private TextAlign textAlign = TextAlign.LEFT;
+    /**
+     * Shadow drawn behind text, none while the radius is 0
+     */
+    private float shadowRadius = 0f;
+    private float shadowDx = 0f;
+    private float shadowDy = 0f;
+    private int shadowColour = 0;
+
+    public int getColour() {
+        return colour;
+    }
+
+    /**
+     * @param colour ARGB colour
+     */
+    public void setColour(int colour) {
+        this.colour = colour;
+    }
+
+    public Style getStyle() {
+        return style;
+    }
+
+    public void setStyle(Style style) {
+        this.style = style;
+    }
+
+    public float getStrokeWidth() {
+        return strokeWidth;
+    }
+
+    public void setStrokeWidth(float strokeWidth) {
+        this.strokeWidth = strokeWidth;
+    }
+
+    public boolean isAntiAlias() {
+        return antiAlias;
+    }
+
+    public void setAntiAlias(boolean antiAlias) {
+        this.antiAlias = antiAlias;
+    }
+
+    public boolean isFilterImages() {
+        return filterImages;
+    }
+
+    public void setFilterImages(boolean filterImages) {
+        this.filterImages = filterImages;
+    }
+
+    public float getTextSize() {
+        return textSize;
+    }
+
+    /**
+     * @param textSize text size in pixels
+     */
+    public void setTextSize(float textSize) {
+        this.textSize = textSize;
+    }
+
+    public TextAlign getTextAlign() {
+        return textAlign;
+    }
+
+    public void setTextAlign(TextAlign textAlign) {
+        this.textAlign = textAlign;
+    }
+
+    public float getShadowRadius() {
+        return shadowRadius;
+    }
+
+    public float getShadowDx() {
+        return shadowDx;
+    }
+
+    public float getShadowDy() {
+        return shadowDy;
+    }
+
+    public int getShadowColour() {
+        return shadowColour;
+    }
+
+    /**
+     * Draw a shadow behind text
+     *
+     * @param radius blur radius of the shadow, 0 for no shadow
+     * @param dx     x offset of the shadow
+     * @param dy     y offset of the shadow
+     * @param colour ARGB colour of the shadow
+     */
+    public void setShadow(float radius, float dx, float dy, int colour) {
+        shadowRadius = radius;
+        shadowDx = dx;
+        shadowDy = dy;
+        shadowColour = colour;
+    }
+
+    /**
+     * Whether shapes are filled, outlined or both
+     */
+    public enum Style {
+        FILL,
+        STROKE,
+        FILL_AND_STROKE
+    }
+
+    /**
+     * Whether the x position of text is its left, centre or right
+     */
+    public enum TextAlign {
+        LEFT,
+        CENTRE,
+        RIGHT
+    }
+}
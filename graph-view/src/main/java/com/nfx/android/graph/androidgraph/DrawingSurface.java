@@ -0,0 +1,69 @@
+package com.nfx.android.graph.androidgraph;
+
+import android.support.annotation.Nullable;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * What the drawables draw onto. Only the drawing calls the graph uses are here, with shapes
+ * given as plain coordinates so a surface does not need to understand android paths. Styles,
+ * areas and images are plain java values so a surface can be implemented and tested without
+ * android
+ */
+public interface DrawingSurface {
+    int getWidth();
+
+    int getHeight();
+
+    void drawLine(float startX, float startY, float stopX, float stopY, DrawingStyle style);
+
+    /**
+     * @param points x and y of the start and end of each line, four floats per line
+     * @param offset index of the first float to use
+     * @param count  number of floats to use
+     * @param style  style to draw with
+     */
+    void drawLines(float[] points, int offset, int count, DrawingStyle style);
+
+    void drawRect(DrawingRect rect, DrawingStyle style);
+
+    void drawCircle(float centreX, float centreY, float radius, DrawingStyle style);
+
+    /**
+     * @param points x and y of each corner, the last corner joins back to the first
+     * @param count  number of floats to use
+     * @param style  style to draw with
+     */
+    void drawPolygon(float[] points, int count, DrawingStyle style);
+
+    void drawText(char[] text, int index, int count, float x, float y, DrawingStyle style);
+
+    /**
+     * @param image       image to draw
+     * @param source      part of the image to draw, null for all of it
+     * @param destination area of the surface to stretch the image over
+     * @param style       style to draw with, only whether to filter the image is used
+     */
+    void drawImage(DrawingImage image, @Nullable DrawingRect source, DrawingRect destination,
+                   DrawingStyle style);
+
+    /**
+     * @param width  width of the layer
+     * @param height height of the layer
+     * @return an offscreen surface of the same kind which can be drawn with drawLayer
+     */
+    DrawingSurface createLayer(int width, int height);
+
+    /**
+     * Draw a layer made by createLayer with its top left at the top left of this surface
+     *
+     * @param layer layer to draw
+     */
+    void drawLayer(DrawingSurface layer);
+
+    /**
+     * Free anything held by a layer, the layer can not be used afterwards
+     */
+    void release();
+}
@@ -0,0 +1,271 @@
+package com.nfx.android.graph.androidgraph;
+
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Keeps the graph at a target frame rate by trading detail for time. The time taken to draw
+ * each frame is compared with the frame period, after a run of frames over the budget the level
+ * of detail is lowered and after a run with plenty to spare it is raised again. Each frame is
+ * counted on its own rather than through the average, so a single slow frame such as the first
+ * after the graph starts only breaks a run and does not hold the level down. A level
+ * sets how many points each signal is drawn with, whether minor grid lines are shown and how
+ * often marker values are posted. Lowering is quick so a slow device recovers within a few
+ * frames, raising waits for a sustained run of cheap frames so the level does not oscillate.
+ * The frame counts belong to the render thread, a level set from another thread is handed over
+ * and applied at the start of the next frame
+ */
+class FrameBudgetController implements FrameBudgetInterface {
+    private static final String TAG = "FrameBudgetController";
+    /**
+     * Pixels per signal point at each level, level 0 is the most detailed
+     */
+    private static final int[] LINE_RESOLUTIONS = {2, 4, 6, 8, 12};
+    /**
+     * Whether minor grid lines are shown at each level
+     */
+    private static final boolean[] MINOR_GRID_LINES_SHOWN = {true, true, true, false, false};
+    /**
+     * Frames between marker value updates at each level
+     */
+    private static final int[] MARKER_UPDATE_INTERVALS = {1, 1, 2, 4, 8};
+    /**
+     * Level used until the frame times say otherwise, this matches the fixed detail the graph
+     * has always drawn with
+     */
+    static final int DEFAULT_LEVEL = 1;
+    static final int DEFAULT_LINE_RESOLUTION = LINE_RESOLUTIONS[DEFAULT_LEVEL];
+    private static final int DEFAULT_TARGET_FRAME_RATE = 60;
+    /**
+     * Fraction of the frame period above which a frame is over budget
+     */
+    private static final float OVER_BUDGET = 0.9f;
+    /**
+     * Fraction of the frame period below which there is time to spare
+     */
+    private static final float UNDER_BUDGET = 0.5f;
+    /**
+     * Consecutive frames needed before the level is lowered or raised
+     */
+    static final int FRAMES_TO_LOWER = 10;
+    static final int FRAMES_TO_RAISE = 120;
+    /**
+     * Weight of each new frame time in the average
+     */
+    private static final float SMOOTHING = 0.1f;
+    private static final float NANOSECONDS_PER_MILLISECOND = 1000000f;
+    /**
+     * Held by requestedLevel while no level has been asked for
+     */
+    private static final int NO_REQUESTED_LEVEL = -1;
+
+    private volatile boolean enabled = true;
+    private volatile int targetFrameRate = DEFAULT_TARGET_FRAME_RATE;
+    private volatile long frameBudgetNs = 1000000000L / DEFAULT_TARGET_FRAME_RATE;
+    private volatile int level = DEFAULT_LEVEL;
+    /**
+     * Set whenever the level changes, cleared once the render thread has applied it
+     */
+    private final AtomicBoolean levelChanged = new AtomicBoolean(false);
+    /**
+     * Level asked for by setLevel, picked up by the render thread in takeLevelChange
+     */
+    private final AtomicInteger requestedLevel = new AtomicInteger(NO_REQUESTED_LEVEL);
+    /**
+     * Asked for a frame when the level changes so it is applied without waiting for other
+     * changes
+     */
+    @Nullable
+    private volatile RenderRequester renderRequester;
+    /**
+     * Smoothed frame time for reporting, 0 until a frame has been measured at the current level.
+     * Only written on the render thread
+     */
+    private volatile float averageFrameTimeNs = 0;
+    private int framesOverBudget = 0;
+    private int framesUnderBudget = 0;
+
+    /**
+     * Record the time taken to draw a frame, call on the render thread after each frame
+     *
+     * @param frameTimeNs time spent drawing the frame
+     */
+    void frameDrawn(long frameTimeNs) {
+        if(!enabled) {
+            return;
+        }
+
+        final float previousAverageNs = averageFrameTimeNs;
+        averageFrameTimeNs = previousAverageNs == 0 ? frameTimeNs :
+                previousAverageNs + SMOOTHING * (frameTimeNs - previousAverageNs);
+
+        final long frameBudgetNs = this.frameBudgetNs;
+        if(frameTimeNs > frameBudgetNs * OVER_BUDGET) {
+            framesUnderBudget = 0;
+            if(++framesOverBudget >= FRAMES_TO_LOWER && changeLevel(level + 1)) {
+                requestRender();
+            }
+        } else if(frameTimeNs < frameBudgetNs * UNDER_BUDGET) {
+            framesOverBudget = 0;
+            if(++framesUnderBudget >= FRAMES_TO_RAISE && changeLevel(level - 1)) {
+                requestRender();
+            }
+        } else {
+            framesOverBudget = 0;
+            framesUnderBudget = 0;
+        }
+    }
+
+    /**
+     * Call on the render thread at the start of each frame. Any level asked for through setLevel
+     * is applied first
+     *
+     * @return true once after each level change, the caller should then apply the new level
+     */
+    boolean takeLevelChange() {
+        final int newLevel = requestedLevel.getAndSet(NO_REQUESTED_LEVEL);
+        if(newLevel != NO_REQUESTED_LEVEL) {
+            changeLevel(newLevel);
+        }
+        return levelChanged.getAndSet(false);
+    }
+
+    /**
+     * Move to a new level, the frame times are measured afresh at the new level. Only called on
+     * the render thread
+     *
+     * @param newLevel level to move to, clamped to the available levels
+     * @return true if the level has changed
+     */
+    private boolean changeLevel(int newLevel) {
+        framesOverBudget = 0;
+        framesUnderBudget = 0;
+        newLevel = Math.max(0, Math.min(newLevel, LINE_RESOLUTIONS.length - 1));
+        if(newLevel == level) {
+            return false;
+        }
+        level = newLevel;
+        averageFrameTimeNs = 0;
+        levelChanged.set(true);
+        return true;
+    }
+
+    private void requestRender() {
+        final RenderRequester renderRequester = this.renderRequester;
+        if(renderRequester != null) {
+            renderRequester.requestRender();
+        }
+    }
+
+    /**
+     * @param renderRequester asked for a frame whenever the level changes
+     */
+    void setRenderRequester(@Nullable RenderRequester renderRequester) {
+        this.renderRequester = renderRequester;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * When disabled the current level is held until set otherwise
+     *
+     * @param enabled true to adjust the level of detail from the frame times
+     */
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public int getTargetFrameRate() {
+        return targetFrameRate;
+    }
+
+    /**
+     * @param targetFrameRate frames per second the level of detail is adjusted to hold
+     */
+    @Override
+    public void setTargetFrameRate(int targetFrameRate) {
+        if(targetFrameRate <= 0) {
+            Log.e(TAG, "Target frame rate must be greater than 0");
+            return;
+        }
+        this.targetFrameRate = targetFrameRate;
+        frameBudgetNs = 1000000000L / targetFrameRate;
+    }
+
+    @Override
+    public int getNumberOfLevels() {
+        return LINE_RESOLUTIONS.length;
+    }
+
+    /**
+     * @return current level of detail, 0 is the most detailed
+     */
+    @Override
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Jump to a level of detail. While enabled the controller carries on from this level. The
+     * level is applied on the render thread at the start of the next frame, getLevel returns the
+     * old level until then
+     *
+     * @param level 0 for the most detail up to getNumberOfLevels() - 1
+     */
+    @Override
+    public void setLevel(int level) {
+        if(level < 0 || level >= LINE_RESOLUTIONS.length) {
+            Log.e(TAG, "Level " + level + " out of range");
+            return;
+        }
+        final int previousRequest = requestedLevel.getAndSet(level);
+        // Only a change needs a frame, either from the level drawn or from an earlier request
+        if(previousRequest != NO_REQUESTED_LEVEL ? previousRequest != level :
+                level != this.level) {
+            requestRender();
+        }
+    }
+
+    /**
+     * @return pixels per point each signal is drawn with at the current level
+     */
+    @Override
+    public int getLineResolution() {
+        return LINE_RESOLUTIONS[level];
+    }
+
+    /**
+     * @return whether minor grid lines are shown at the current level
+     */
+    @Override
+    public boolean isMinorGridLinesShown() {
+        return MINOR_GRID_LINES_SHOWN[level];
+    }
+
+    /**
+     * @return frames between marker value updates at the current level
+     */
+    @Override
+    public int getMarkerUpdateInterval() {
+        return MARKER_UPDATE_INTERVALS[level];
+    }
+
+    /**
+     * @return smoothed time taken to draw a frame at the current level, 0 until measured
+     */
+    @Override
+    public float getAverageFrameTimeMs() {
+        return averageFrameTimeNs / NANOSECONDS_PER_MILLISECOND;
+    }
+}
@@ -0,0 +1,29 @@
+package com.nfx.android.graph.androidgraph;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public interface FrameBudgetInterface {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    int getTargetFrameRate();
+
+    void setTargetFrameRate(int targetFrameRate);
+
+    int getNumberOfLevels();
+
+    int getLevel();
+
+    void setLevel(int level);
+
+    int getLineResolution();
+
+    boolean isMinorGridLinesShown();
+
+    int getMarkerUpdateInterval();
+
+    float getAverageFrameTimeMs();
+}
@@ -0,0 +1,103 @@
+package com.nfx.android.graph.androidgraph;
+
+import android.support.annotation.Nullable;
+
+import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
+import com.nfx.android.graph.androidgraph.AxisScale.GraphParameters;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * An immutable record of the graph axes and zoom taken once at the start of each frame and
+ * passed to every drawable. The UI thread can change the zoom and axes while a frame is drawn,
+ * reading them from here means every part of the frame, including signals prepared on worker
+ * threads, agrees on the same values without locking
+ */
+final class FrameState {
+    /**
+     * Copies of the graph axes, never changed once captured
+     */
+    final AxisParameters xAxisParameters;
+    final AxisParameters yAxisParameters;
+    /**
+     * Graph x and y zoom
+     */
+    final float xZoomLevelPercentage;
+    final float xDisplayOffsetPercentage;
+    final float yZoomLevelPercentage;
+    final float yDisplayOffsetPercentage;
+    /**
+     * Lowest and highest x axis values in view
+     */
+    final float lowerXValue;
+    final float higherXValue;
+
+    private FrameState(AxisParameters xAxisParameters, AxisParameters yAxisParameters,
+                       long xZoomState, long yZoomState) {
+        this.xAxisParameters = xAxisParameters;
+        this.yAxisParameters = yAxisParameters;
+        xZoomLevelPercentage = ZoomDisplay.zoomLevelOf(xZoomState);
+        xDisplayOffsetPercentage = ZoomDisplay.displayOffsetOf(xZoomState);
+        yZoomLevelPercentage = ZoomDisplay.zoomLevelOf(yZoomState);
+        yDisplayOffsetPercentage = ZoomDisplay.displayOffsetOf(yZoomState);
+
+        lowerXValue = xAxisParameters.getMinimumValue() +
+                (xAxisParameters.getAxisSpan() * xDisplayOffsetPercentage);
+        higherXValue = xAxisParameters.getMinimumValue() +
+                (xAxisParameters.getAxisSpan() * getXFarSideOffsetPercentage());
+    }
+
+    /**
+     * Capture the state for a new frame. The axis copies of the previous frame are reused while
+     * the axes are unchanged
+     *
+     * @param previous        state of the last frame, null for the first frame
+     * @param graphParameters axes of the graph
+     * @param xZoomDisplay    graph x zoom
+     * @param yZoomDisplay    graph y zoom
+     * @return state for the new frame
+     */
+    static FrameState capture(@Nullable FrameState previous, GraphParameters graphParameters,
+                              ZoomDisplay xZoomDisplay, ZoomDisplay yZoomDisplay) {
+        return new FrameState(
+                copy(previous == null ? null : previous.xAxisParameters,
+                        graphParameters.getXAxisParameters()),
+                copy(previous == null ? null : previous.yAxisParameters,
+                        graphParameters.getYAxisParameters()),
+                xZoomDisplay.getZoomState(), yZoomDisplay.getZoomState());
+    }
+
+    /**
+     * @param previousCopy copy made for the last frame
+     * @param axisParameters axis to copy
+     * @return the previous copy if it still matches, otherwise a new copy
+     */
+    private static AxisParameters copy(@Nullable AxisParameters previousCopy,
+                                       AxisParameters axisParameters) {
+        final float minimumValue = axisParameters.getMinimumValue();
+        final float maximumValue = axisParameters.getMaximumValue();
+        final Scale axisScale = axisParameters.getAxisScale();
+
+        if(previousCopy != null && previousCopy.getMinimumValue() == minimumValue &&
+                previousCopy.getMaximumValue() == maximumValue &&
+                previousCopy.getAxisScale() == axisScale) {
+            return previousCopy;
+        }
+        return new AxisParameters(minimumValue, maximumValue, axisScale);
+    }
+
+    /**
+     * @return x display offset plus the size being displayed
+     */
+    float getXFarSideOffsetPercentage() {
+        return xDisplayOffsetPercentage + xZoomLevelPercentage;
+    }
+
+    /**
+     * @return y display offset plus the size being displayed
+     */
+    float getYFarSideOffsetPercentage() {
+        return yDisplayOffsetPercentage + yZoomLevelPercentage;
+    }
+}
@@ -3,13 +3,20 @@ package com.nfx.android.graph.androidgraph;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
+import android.os.Build;
+import android.os.Handler;
+import android.support.annotation.Nullable;
 import android.support.v4.content.ContextCompat;
 import android.util.AttributeSet;
+import android.view.Display;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
 import com.nfx.android.graph.R;
 import com.nfx.android.graph.androidgraph.AxisScale.GraphParameters;
+import com.nfx.android.graph.timing.TimingHistogram;
+import com.nfx.android.graph.timing.TimingStatistics;
+import com.nfx.android.graph.timing.TimingStatisticsInterface;
 
 /**
  * NFX Development
@@ -43,9 +50,20 @@ public class GraphView extends SurfaceView implements SurfaceHolder.Callback, Gr
      **/
     private SignalManager signalManager;
     /**
-     * The thread that updates the surface
+     * Draws a frame on the display vsync whenever one has been requested
      **/
-    private GraphManagerThread graphManagerThread;
+    private final RenderScheduler renderScheduler = new RenderScheduler(
+            new RenderScheduler.FrameDrawer() {
+                @Override
+                public void drawFrame() {
+                    GraphView.this.drawFrame();
+                }
+            });
+    /**
+     * State of the last frame drawn, only used on the render thread
+     */
+    @Nullable
+    private FrameState lastFrameState = null;
     /**
      * GraphListManager that handles text boxes
      */
@@ -54,6 +72,51 @@ public class GraphView extends SurfaceView implements SurfaceHolder.Callback, Gr
      * Drawable area for whole Graph view
      */
     private DrawableArea drawableArea;
+    /**
+     * Rolling timings of each stage of a frame
+     */
+    private final TimingStatistics frameTimingStatistics = new TimingStatistics();
+    private final TimingHistogram frameTiming = frameTimingStatistics.getStage("Frame");
+    private final TimingHistogram backgroundTiming = frameTimingStatistics.getStage("Background");
+    private final TimingHistogram postTiming = frameTimingStatistics.getStage("Post");
+    /**
+     * Age of the newest signal data when the frame showing it is posted
+     */
+    private final TimingStatistics latencyStatistics = new TimingStatistics();
+    private final TimingHistogram captureToPresentLatency =
+            latencyStatistics.getStage("Capture to present");
+    /**
+     * Capture time of the newest data already recorded, so a redraw of the same data is not
+     * counted again
+     */
+    private long lastPresentedCaptureTimeNs = 0;
+    /**
+     * Draws the timings on top of the graph
+     */
+    private TimingOverlay timingOverlay;
+    private volatile boolean timingOverlayEnabled = false;
+    /**
+     * Redraws the graph each time the overlay text is due while the overlay is shown, so the
+     * figures keep updating when nothing else on the graph changes
+     */
+    private final Handler timingOverlayHandler = new Handler();
+    private final Runnable timingOverlayRefresh = new Runnable() {
+        @Override
+        public void run() {
+            if(timingOverlayEnabled) {
+                requestRender();
+                timingOverlayHandler.postDelayed(this, TimingOverlay.UPDATE_INTERVAL_MS);
+            }
+        }
+    };
+    /**
+     * Points at the canvas locked for each frame
+     */
+    private final CanvasDrawingSurface canvasDrawingSurface = new CanvasDrawingSurface(null);
+    /**
+     * Adjusts the level of detail to hold the target frame rate
+     */
+    private final FrameBudgetController frameBudgetController = new FrameBudgetController();
 
     /**
      * Constructor for graph manager
@@ -126,11 +189,15 @@ public class GraphView extends SurfaceView implements SurfaceHolder.Callback, Gr
 
 
             if(a.getBoolean(R.styleable.GraphManager_limit_x_axis_offset, true)) {
+                xZoomDisplay.setRenderRequester(null);
                 xZoomDisplay = new ZoomDisplayWithOffsetBounds(1f, 0f);
+                xZoomDisplay.setRenderRequester(this);
             }
 
             if(a.getBoolean(R.styleable.GraphManager_limit_y_axis_offset, true)) {
+                yZoomDisplay.setRenderRequester(null);
                 yZoomDisplay = new ZoomDisplayWithOffsetBounds(1f, 0f);
+                yZoomDisplay.setRenderRequester(this);
             }
 
             if(!a.getBoolean(R.styleable.GraphManager_disable_background_scrolling, false)) {
@@ -150,9 +217,16 @@ public class GraphView extends SurfaceView implements SurfaceHolder.Callback, Gr
         SurfaceHolder holder = getHolder();
         holder.addCallback(this);
 
-        graphManagerThread = new GraphManagerThread();
+        setFocusable(true);
+
         backgroundManager = new BackgroundManager(getContext(), graphParameters);
-        signalManager = new SignalManager(this, graphListManager);
+        backgroundManager.setRenderRequester(this);
+        frameBudgetController.setRenderRequester(this);
+        signalManager = new SignalManager(this, graphListManager, frameTimingStatistics);
+        timingOverlay = new TimingOverlay(getContext());
+        timingOverlay.addTimingStatistics(frameTimingStatistics);
+        timingOverlay.addTimingStatistics(latencyStatistics);
+        latencyStatistics.setEnabled(true);
 
 
         if(graphParameters.getXAxisParameters().getAxisScale() == Scale.logarithmic) {
@@ -163,6 +237,9 @@ public class GraphView extends SurfaceView implements SurfaceHolder.Callback, Gr
 
         xZoomDisplay = new ZoomDisplay(1f, 0f);
         yZoomDisplay = new ZoomDisplay(1f, 0f);
+        // Zoom changes request a frame and listeners are told at the start of it
+        xZoomDisplay.setRenderRequester(this);
+        yZoomDisplay.setRenderRequester(this);
     }
 
     /**
@@ -186,9 +263,21 @@ public class GraphView extends SurfaceView implements SurfaceHolder.Callback, Gr
      */
     @Override
     public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        layOut(width, height);
+        requestRender();
+    }
+
+    /**
+     * Size every drawable object to the area given
+     *
+     * @param width  width of the graph
+     * @param height height of the graph
+     */
+    private void layOut(int width, int height) {
         drawableArea = new DrawableArea(0, 0, width, height);
         backgroundManager.surfaceChanged(drawableArea);
         signalManager.surfaceChanged(drawableArea);
+        timingOverlay.surfaceChanged(drawableArea);
     }
 
     /**
@@ -202,12 +291,21 @@ public class GraphView extends SurfaceView implements SurfaceHolder.Callback, Gr
     }
 
     /**
-     * Start displaying the graph output on screen
+     * Start displaying the graph output on screen. Frames are only drawn when something on the
+     * graph has changed
      */
     public void start() {
-        graphManagerThread = new GraphManagerThread();
-        graphManagerThread.setRun(true);
-        graphManagerThread.start();
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            final Display display = getDisplay();
+            if(display != null) {
+                renderScheduler.setDisplayRefreshRate(display.getRefreshRate());
+            }
+        }
+        renderScheduler.start();
+        if(timingOverlayEnabled) {
+            timingOverlayHandler.postDelayed(timingOverlayRefresh,
+                    TimingOverlay.UPDATE_INTERVAL_MS);
+        }
     }
 
     /**
@@ -216,30 +314,200 @@ public class GraphView extends SurfaceView implements SurfaceHolder.Callback, Gr
     public void stop() {
         backgroundManager.removeAllChildGridLines();
 
-        boolean retry = true;
-        if(graphManagerThread != null) {
-            graphManagerThread.setRun(false);
-            while (retry) {
-                try {
-                    graphManagerThread.join();
-                    retry = false;
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+        timingOverlayHandler.removeCallbacks(timingOverlayRefresh);
+        renderScheduler.stop();
+        signalManager.stop();
+    }
+
+    /**
+     * Ask for the graph to be redrawn on the next display frame. Any number of requests before
+     * the frame is drawn result in a single frame. Can be called from any thread
+     */
+    @Override
+    public void requestRender() {
+        renderScheduler.requestRender();
+    }
+
+    /**
+     * Limit how often the graph is redrawn. By default the graph is redrawn at the refresh rate
+     * of the display. A cap draws on every n-th display frame, so on a 90Hz display a cap of 60
+     * gives 45 frames per second
+     *
+     * @param maximumFrameRate highest number of frames drawn per second, 0 for no cap
+     */
+    @Override
+    public void setMaximumFrameRate(int maximumFrameRate) {
+        renderScheduler.setMaximumFrameRate(maximumFrameRate);
+    }
+
+    /**
+     * Draw a single frame onto the surface, called on the render thread
+     */
+    private void drawFrame() {
+        final long frameStartTime = frameTimingStatistics.startTiming();
+        Canvas canvas = null;
+        final SurfaceHolder surfaceHolder = getHolder();
+        long captureTimeNs = 0;
+        prepareFrame();
+        try {
+            canvas = surfaceHolder.lockCanvas(null);
+            if(canvas != null) {
+                // Read before drawing so the time is never newer than the data drawn
+                captureTimeNs = signalManager.getNewestCaptureTimeNs();
+                // Only the drawing is budgeted, waiting on the surface is not ours to reduce
+                final long drawStartTime = System.nanoTime();
+                canvasDrawingSurface.setCanvas(canvas);
+                doDraw(canvasDrawingSurface);
+                frameBudgetController.frameDrawn(System.nanoTime() - drawStartTime);
+            }
+        } finally {
+            // do this in a finally so that if an exception is thrown
+            // during the above, we don't leave the Surface in an
+            // inconsistent state
+            if(canvas != null) {
+                final long postStartTime = frameTimingStatistics.startTiming();
+                surfaceHolder.unlockCanvasAndPost(canvas);
+                frameTimingStatistics.lap(postTiming, postStartTime);
             }
+        }
+        frameTimingStatistics.lap(frameTiming, frameStartTime);
+        recordLatency(captureTimeNs);
+    }
 
-            graphManagerThread = null;
+    /**
+     * Draw the graph onto a surface other than the screen, for example a RasterDrawingSurface to
+     * time the drawing or export an image without a display. The graph is first laid out to the
+     * size of the surface if needed. Do not call while the graph is started as the render thread
+     * draws the same objects
+     *
+     * @param drawingSurface surface to draw onto
+     */
+    public void drawOnto(DrawingSurface drawingSurface) {
+        if(drawableArea == null || drawableArea.getWidth() != drawingSurface.getWidth() ||
+                drawableArea.getHeight() != drawingSurface.getHeight()) {
+            layOut(drawingSurface.getWidth(), drawingSurface.getHeight());
         }
+        prepareFrame();
+        doDraw(drawingSurface);
     }
 
     /**
-     * Calls through to children draw methods which fills the canvas with current graphic data
+     * Bring the drawables up to date with changes made since the last frame
+     */
+    private void prepareFrame() {
+        // Any number of zoom changes since the last frame cause a single update
+        backgroundManager.dispatchZoomChanged(xZoomDisplay, yZoomDisplay);
+        signalManager.dispatchZoomChanged();
+        if(frameBudgetController.takeLevelChange()) {
+            applyLevelOfDetail();
+        }
+    }
+
+    /**
+     * Pass the level of detail chosen by the frame budget on to the drawables
+     */
+    private void applyLevelOfDetail() {
+        signalManager.setLineResolution(frameBudgetController.getLineResolution());
+        signalManager.setMarkerUpdateInterval(frameBudgetController.getMarkerUpdateInterval());
+        backgroundManager.setMinorGridLinesShown(frameBudgetController.isMinorGridLinesShown());
+    }
+
+    /**
+     * Record how old the newest data was when the frame was posted. Only frames showing new data
+     * are counted
+     *
+     * @param captureTimeNs capture time of the newest data drawn, 0 when not known
+     */
+    private void recordLatency(long captureTimeNs) {
+        if(captureTimeNs == 0 || captureTimeNs == lastPresentedCaptureTimeNs ||
+                !latencyStatistics.isEnabled()) {
+            return;
+        }
+        lastPresentedCaptureTimeNs = captureTimeNs;
+        captureToPresentLatency.record(System.nanoTime() - captureTimeNs);
+    }
+
+    /**
+     * Calls through to children draw methods which fills the surface with current graphic data.
+     * The zoom and axes are captured once here so every child draws from the same values
+     *
+     * @param drawingSurface surface to draw on
+     */
+    private void doDraw(DrawingSurface drawingSurface) {
+        final FrameState frameState = FrameState.capture(lastFrameState, graphParameters,
+                xZoomDisplay, yZoomDisplay);
+        lastFrameState = frameState;
+
+        final long backgroundStartTime = frameTimingStatistics.startTiming();
+        backgroundManager.doDraw(drawingSurface, frameState);
+        frameTimingStatistics.lap(backgroundTiming, backgroundStartTime);
+        signalManager.doDraw(drawingSurface, frameState);
+
+        if(timingOverlayEnabled) {
+            timingOverlay.doDraw(drawingSurface, frameState);
+        }
+    }
+
+    /**
+     * @return rolling timings of each stage of drawing a frame. Timing is disabled by default
+     */
+    @Override
+    public TimingStatisticsInterface getFrameTimingStatistics() {
+        return frameTimingStatistics;
+    }
+
+    /**
+     * The frame budget lowers the detail drawn when frames take too long and raises it again when
+     * there is time to spare. Enabled by default with a target of 60 frames per second
      *
-     * @param canvas canvas to draw on
+     * @return level of detail control
      */
-    private void doDraw(Canvas canvas) {
-        backgroundManager.doDraw(canvas);
-        signalManager.doDraw(canvas);
+    @Override
+    public FrameBudgetInterface getFrameBudget() {
+        return frameBudgetController;
+    }
+
+    /**
+     * The latency is measured from the capture of the newest sample on screen to the frame
+     * showing it being posted, so the display pipeline adds around one further frame. Recorded
+     * by default
+     *
+     * @return rolling capture to present latency
+     */
+    @Override
+    public TimingStatisticsInterface getLatencyStatistics() {
+        return latencyStatistics;
+    }
+
+    /**
+     * Show the frame timings on top of the graph, this also enables the frame timing. While the
+     * overlay is shown the graph is redrawn each time the overlay text is due to be rebuilt.
+     * Call from the UI thread
+     *
+     * @param enabled true to show the overlay
+     */
+    @Override
+    public void setTimingOverlayEnabled(boolean enabled) {
+        if(enabled) {
+            frameTimingStatistics.setEnabled(true);
+        }
+        timingOverlayEnabled = enabled;
+        timingOverlayHandler.removeCallbacks(timingOverlayRefresh);
+        if(enabled) {
+            timingOverlayHandler.postDelayed(timingOverlayRefresh,
+                    TimingOverlay.UPDATE_INTERVAL_MS);
+        }
+        requestRender();
+    }
+
+    /**
+     * Show further timings on the overlay, for example those of the input processing
+     *
+     * @param timingStatistics timings to show
+     */
+    @Override
+    public void addTimingOverlayStatistics(TimingStatisticsInterface timingStatistics) {
+        timingOverlay.addTimingStatistics(timingStatistics);
     }
 
     /**
@@ -309,66 +577,4 @@ public class GraphView extends SurfaceView implements SurfaceHolder.Callback, Gr
     public ZoomDisplay getYZoomDisplay() {
         return yZoomDisplay;
     }
-
-    /**
-     * The drawing thread for the graph data
-     */
-    private class GraphManagerThread extends Thread {
-        /**
-         * Screen refresh Rate in milliseconds
-         */
-        private final static long SCREEN_REFRESH_RATE = 17;
-        /**
-         * Indicate whether the surface has been created & is ready to draw
-         */
-        private boolean run = false;
-
-        GraphManagerThread() {
-            setFocusable(true);
-        }
-
-        @Override
-        public void run() {
-            while(run) {
-                long startTime = (System.currentTimeMillis());
-                Canvas canvas = null;
-                final SurfaceHolder surfaceHolder = getHolder();
-                try {
-                    canvas = surfaceHolder.lockCanvas(null);
-                    if (canvas != null) {
-                        doDraw(canvas);
-                    }
-                } finally {
-                    // do this in a finally so that if an exception is thrown
-                    // during the above, we don't leave the Surface in an
-                    // inconsistent state
-                    if (canvas != null) {
-                        surfaceHolder.unlockCanvasAndPost(canvas);
-                    }
-                }
-                long endTime = System.currentTimeMillis();
-                long sleepTime = SCREEN_REFRESH_RATE - (endTime - startTime);
-                if(sleepTime < 0) {
-                    sleepTime = 1;
-                }
-
-                try {
-                    sleep(sleepTime, 0);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-        }
-
-        /**
-         * This will allow the thread to run. If it is set to false the thread will die until
-         * run is set to true again and start() is called.
-         *
-         * @param run true to run, false to shut down
-         */
-        void setRun(boolean run) {
-            this.run = run;
-        }
-
-    }
 }
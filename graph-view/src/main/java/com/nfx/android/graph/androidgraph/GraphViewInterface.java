@@ -1,12 +1,13 @@
 package com.nfx.android.graph.androidgraph;
 
 import com.nfx.android.graph.androidgraph.AxisScale.GraphParameters;
+import com.nfx.android.graph.timing.TimingStatisticsInterface;
 
 /**
  * NFX Development
  * Created by nick on 15/01/17.
  */
-public interface GraphViewInterface {
+public interface GraphViewInterface extends RenderRequester {
 
     void start();
 
@@ -23,4 +24,16 @@ public interface GraphViewInterface {
     void setXAxisLogarithmic();
 
     void setXAxisLinear();
+
+    void setMaximumFrameRate(int maximumFrameRate);
+
+    TimingStatisticsInterface getFrameTimingStatistics();
+
+    TimingStatisticsInterface getLatencyStatistics();
+
+    void setTimingOverlayEnabled(boolean enabled);
+
+    void addTimingOverlayStatistics(TimingStatisticsInterface timingStatistics);
+
+    FrameBudgetInterface getFrameBudget();
 }
@@ -1,16 +1,14 @@
 package com.nfx.android.graph.androidgraph;
 
 import android.content.Context;
-import android.graphics.Canvas;
 import android.graphics.Color;
 import android.support.annotation.Nullable;
-import android.util.SparseBooleanArray;
 
 import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
 
-import java.util.Iterator;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * NFX Development
@@ -43,6 +41,15 @@ public abstract class GridLines extends DrawableObject {
      * Use an even number to ensure all grid line strokes look the same
      */
     private static final float INITIAL_LINE_STROKE_WIDTH = 4f;
+    /**
+     * If the spacing between two grid lines in pixels is greater than this minor grid lines are
+     * added between them
+     */
+    private static final float MINOR_GRID_LINE_SPACE = 500f;
+    /**
+     * Smallest spacing in pixels between minor grid lines
+     */
+    private static final float MINIMUM_MINOR_GRID_LINE_SPACING = 40f;
     /**
      * Graph Scale limits
      */
@@ -52,13 +59,29 @@ public abstract class GridLines extends DrawableObject {
      */
     private final AxisOrientation axisOrientation;
     /**
-     * Minor GridLines
+     * Minor grid lines which have been scrolled or zoomed out of view, kept with their axis text
+     * so they can be reused rather than created again
+     */
+    private final List<GridLines> childGridLinePool = new ArrayList<>();
+    /**
+     * Chooses the number of minor grid lines to place between two major grid lines
+     */
+    private final TickGenerator tickGenerator =
+            new TickGenerator(MINIMUM_MINOR_GRID_LINE_SPACING);
+    /**
+     * Zoom used while no zoom display is attached
      */
-    private final Map<Integer, GridLines> childGridLines = new ConcurrentHashMap<>();
+    private final ZoomDisplay defaultZoomDisplay = new ZoomDisplay(1f, 0f);
     /**
      * Number of grid lines to display in the area
      */
     int numberOfGridLines = 6;
+    /**
+     * Minor GridLines, indexed by the major grid line they start at and null where there are
+     * none. Held in an array rather than a map so adding and removing them does not allocate.
+     * Only read and changed while holding the lock of the BackgroundManager which owns them
+     */
+    private GridLines[] childGridLines = new GridLines[numberOfGridLines - 1];
     /**
      * The axis text to be displayed if needed
      */
@@ -72,6 +95,10 @@ public abstract class GridLines extends DrawableObject {
      * scale for child grid lines
      */
     Scale childGridLineScale;
+    /**
+     * Minor grid lines are only added while this is set
+     */
+    private boolean childGridLinesShown = true;
     /**
      * This is a zoom that is never changed over the runtime of the app. Useful for setting limits
      */
@@ -108,9 +135,9 @@ public abstract class GridLines extends DrawableObject {
 
         fixedZoomDisplay = new ZoomDisplay(1f, 0f);
         // Set a default zoom Display
-        zoomDisplay = new ZoomDisplay(1f, 0f);
-        paint.setColor(INITIAL_LINE_COLOR);
-        paint.setStrokeWidth(INITIAL_LINE_STROKE_WIDTH);
+        zoomDisplay = defaultZoomDisplay;
+        style.setColour(INITIAL_LINE_COLOR);
+        style.setStrokeWidth(INITIAL_LINE_STROKE_WIDTH);
 
         setGridLinesSize(1f);
     }
@@ -118,15 +145,18 @@ public abstract class GridLines extends DrawableObject {
     /**
      * Super should always be called to ensure the Axis text and any child lines are drawn if needed
      *
-     * @param canvas a canvas to draw onto
+     * @param drawingSurface surface to draw onto
+     * @param frameState state of the frame being drawn
      */
     @Override
-    public void doDraw(Canvas canvas) {
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
         if(axisText != null) {
-            axisText.doDraw(canvas);
+            axisText.doDraw(drawingSurface, frameState);
         }
-        for(GridLines gridLines : childGridLines.values()) {
-            gridLines.doDraw(canvas);
+        for(GridLines gridLines : childGridLines) {
+            if(gridLines != null) {
+                gridLines.doDraw(drawingSurface, frameState);
+            }
         }
     }
 
@@ -155,6 +185,10 @@ public abstract class GridLines extends DrawableObject {
      */
     public void setNumberOfGridLines(int numberOfGridLines) {
         this.numberOfGridLines = numberOfGridLines;
+        // Only ever grown so pooled grid lines given a different number of lines do not allocate
+        if(numberOfGridLines - 1 > childGridLines.length) {
+            childGridLines = Arrays.copyOf(childGridLines, numberOfGridLines - 1);
+        }
     }
 
     /**
@@ -164,7 +198,7 @@ public abstract class GridLines extends DrawableObject {
      */
     @SuppressWarnings("SameParameterValue")
     private void setGridStrokeWidth(int strokeWidth) {
-        paint.setStrokeWidth(strokeWidth);
+        style.setStrokeWidth(strokeWidth);
 
     }
 
@@ -174,7 +208,7 @@ public abstract class GridLines extends DrawableObject {
      * @param color new color value
      */
     private void setColor(@SuppressWarnings("SameParameterValue") int color) {
-        paint.setColor(color);
+        style.setColour(color);
     }
 
     /**
@@ -246,6 +280,11 @@ public abstract class GridLines extends DrawableObject {
      * @param scale log or lin
      */
     void setChildGridLineScale(Scale scale) {
+        if(scale != childGridLineScale) {
+            synchronized(childGridLinePool) {
+                childGridLinePool.clear();
+            }
+        }
         childGridLineScale = scale;
         refreshChildGridLines();
     }
@@ -271,9 +310,11 @@ public abstract class GridLines extends DrawableObject {
     @Override
     public void surfaceChanged(DrawableArea drawableArea) {
         super.surfaceChanged(drawableArea);
-        for(Map.Entry<Integer, GridLines> gridLines : childGridLines.entrySet()) {
-            gridLines.getValue().surfaceChanged(drawableArea);
-            minorGridLineSurfaceChanged(gridLines.getValue(), gridLines.getKey());
+        for(int i = 0; i < childGridLines.length; ++i) {
+            if(childGridLines[i] != null) {
+                childGridLines[i].surfaceChanged(drawableArea);
+                minorGridLineSurfaceChanged(childGridLines[i], i);
+            }
         }
 
         if(axisText != null) {
@@ -295,144 +336,167 @@ public abstract class GridLines extends DrawableObject {
      * @param zoomDisplay zoomDisplay to set
      */
     void setZoomDisplay(ZoomDisplay zoomDisplay) {
+        zoomDisplay.addListener(zoomChangeListener);
+        followZoomDisplay(zoomDisplay);
+    }
+
+    /**
+     * Follow a zoom display without listening to it. Minor grid lines are refreshed by their
+     * parent instead, as adding and removing a listener on each zoom step would allocate
+     *
+     * @param zoomDisplay zoomDisplay to follow
+     */
+    private void followZoomDisplay(ZoomDisplay zoomDisplay) {
         this.zoomDisplay = zoomDisplay;
 
-        zoomDisplay.addListener(zoomChangeListener);
-        for(GridLines gridLines : childGridLines.values()) {
-            gridLines.setZoomDisplay(zoomDisplay);
+        for(GridLines gridLines : childGridLines) {
+            if(gridLines != null) {
+                gridLines.followZoomDisplay(zoomDisplay);
+            }
         }
     }
 
     /**
-     * remove the zoomDisplay, this is done to remove the listener.
+     * Return to the default zoom display, used when grid lines are put back in the pool
      */
     private void removeZoomDisplay() {
         zoomDisplay.removeListener(zoomChangeListener);
-        zoomDisplay = new ZoomDisplay(1f, 0f);
-
-        for(GridLines gridLines : childGridLines.values()) {
-            gridLines.removeZoomDisplay();
-        }
+        followZoomDisplay(defaultZoomDisplay);
     }
 
     /**
-     * Checks to see if there is still space for child grid lines and add/removes them where needed
+     * Checks to see if there is still space for child grid lines and add/removes them where
+     * needed. This runs on every zoom change so nothing is allocated once the pool has filled
      */
     private void refreshChildGridLines() {
-        SparseBooleanArray minorXGridLinesToDisplay = adequateSpaceForMinorGridLines();
-
-        final int arraySize = minorXGridLinesToDisplay.size();
+        if(!childGridLinesShown) {
+            return;
+        }
+        final int numberOfSpaces = getNumberOfGridLines() - 1;
 
-        for(int i = 0; i < arraySize; i++) {
-            int key = minorXGridLinesToDisplay.keyAt(i);
-            if(minorXGridLinesToDisplay.get(key)) {
-                if(!childGridLines.containsKey(key)) {
-                    addMinorGridLine(key);
+        for(int i = 0; i < numberOfSpaces; ++i) {
+            final float gridLineSpacing = gridLineSpacing(i);
+            if(gridLineSpacing > MINOR_GRID_LINE_SPACE) {
+                if(childGridLines[i] == null) {
+                    addMinorGridLine(i, gridLineSpacing);
                 }
             } else {
-                GridLines childGridLine = childGridLines.remove(key);
-                // We must ensure the observer is removed
+                GridLines childGridLine = childGridLines[i];
                 if(childGridLine != null) {
-                    childGridLine.removeZoomDisplay();
+                    childGridLines[i] = null;
+                    recycleChildGridLine(childGridLine);
                 }
             }
         }
+
+        // Minor grid lines do not listen to the zoom themselves
+        for(GridLines gridLines : childGridLines) {
+            if(gridLines != null) {
+                gridLines.refreshChildGridLines();
+            }
+        }
     }
 
     /**
-     * Reports if there is adequate space to fit minor grid lines between current grid lines
+     * Reports the on screen spacing between a grid line and the next, if either is visible
      *
-     * @return a key pair that gives a boolean to show if there is enough space between the grid
-     * lines
-     */
-    private SparseBooleanArray adequateSpaceForMinorGridLines() {
-        SparseBooleanArray adequateSpaceList = new SparseBooleanArray();
-        final float mPlaceMinorGridLinesSize = 500f;
-
-        for (int i = 0; i < getNumberOfGridLines() - 1; ++i) {
-
-            float lowerIntersect = intersectZoomCompensated(i);
-            float upperIntersect = intersectZoomCompensated(i + 1);
-
-            if((lowerIntersect > 0 && lowerIntersect < getDimensionLength()) ||
-                    (upperIntersect > 0 &&
-                            upperIntersect < getDimensionLength())) {
-                float gridLineSpacing = (upperIntersect - lowerIntersect) *
-                        getDimensionLength();
-                // If the grid lines spacing is greater than this number minor grid lines are added
-                if(gridLineSpacing > mPlaceMinorGridLinesSize) {
-                    adequateSpaceList.put(i, true);
-                    continue;
-                }
-            }
-
-            adequateSpaceList.put(i, false);
+     * @param gridLine grid line at the start of the space
+     * @return spacing in pixels, or 0 if neither grid line is in view
+     */
+    private float gridLineSpacing(int gridLine) {
+        final float lowerIntersect = intersectZoomCompensated(gridLine);
+        final float upperIntersect = intersectZoomCompensated(gridLine + 1);
 
+        if((lowerIntersect > 0 && lowerIntersect < getDimensionLength()) ||
+                (upperIntersect > 0 && upperIntersect < getDimensionLength())) {
+            return (upperIntersect - lowerIntersect) * getDimensionLength();
         }
-
-        return adequateSpaceList;
+        return 0;
     }
 
     /**
      * Add a child minor Grid Line to this grid line
      *
-     * @param majorGridLine the grid line number to insert the minor grid line after
-     */
-    private void addMinorGridLine(int majorGridLine) {
-        int numberOfChildGridLines = 11;
-        if(!childGridLines.containsKey(majorGridLine)) {
-            GridLines minorGridLine;
-
-            if(childGridLineScale == Scale.linear) {
-                if(axisOrientation == AxisOrientation.xAxis) {
-                    minorGridLine = new LinXGridLines(axisParameters);
-                } else {
-                    minorGridLine = new LinYGridLines(axisParameters);
-                }
-            } else {
-                float gridLineMinimumValue = axisParameters.graphPositionToScaledAxis(
-                        intersect(majorGridLine));
-
-                float gridLineMaximumValue = axisParameters.graphPositionToScaledAxis(
-                        intersect(majorGridLine + 1));
-
-                // calculates the number of gridLines needed to give a equal whole number
-                // spacing
-                float removeTrailingZeros =
-                        Math.round(gridLineMaximumValue - gridLineMinimumValue);
-                while(removeTrailingZeros % 1 == 0) {
-                    removeTrailingZeros /= 10f;
-                }
-                removeTrailingZeros *= 10;
-
-                for(int i = 9; i > 0; i--) {
-                    if((removeTrailingZeros / (float) i) % 1 > 0) {
-                        numberOfChildGridLines = i + 2;
-                        break;
-                    }
-                }
+     * @param majorGridLine   the grid line number to insert the minor grid line after
+     * @param gridLineSpacing on screen spacing between the major grid lines in pixels
+     */
+    private void addMinorGridLine(int majorGridLine, float gridLineSpacing) {
+        final float gridLineMinimumValue = axisParameters.graphPositionToScaledAxis(
+                intersect(majorGridLine));
+        final float gridLineMaximumValue = axisParameters.graphPositionToScaledAxis(
+                intersect(majorGridLine + 1));
+
+        GridLines minorGridLine = obtainChildGridLine(gridLineMinimumValue,
+                gridLineMaximumValue);
+        minorGridLine.setNumberOfGridLines(tickGenerator.numberOfGridLines(
+                gridLineMinimumValue, gridLineMaximumValue, gridLineSpacing));
+        childGridLines[majorGridLine] = minorGridLine;
+
+        minorGridLineSurfaceChanged(minorGridLine, majorGridLine);
+        minorGridLine.followZoomDisplay(getZoomDisplay());
+    }
 
-                if(axisOrientation == AxisOrientation.xAxis) {
-                    minorGridLine = new LogXGridLines(axisParameters, gridLineMinimumValue,
-                            gridLineMaximumValue);
-                } else {
-                    minorGridLine = new LogYGridLines(axisParameters, gridLineMinimumValue,
-                            gridLineMaximumValue);
-                }
+    /**
+     * Take a child grid line from the pool, or create one if the pool is empty
+     *
+     * @param gridLineMinimumValue value of the major grid line the child starts at
+     * @param gridLineMaximumValue value of the major grid line the child ends at
+     * @return grid lines ready to be placed between the two values
+     */
+    private GridLines obtainChildGridLine(float gridLineMinimumValue,
+                                          float gridLineMaximumValue) {
+        GridLines minorGridLine = null;
+        synchronized(childGridLinePool) {
+            if(!childGridLinePool.isEmpty()) {
+                minorGridLine = childGridLinePool.remove(childGridLinePool.size() - 1);
             }
-            minorGridLine.setGridStrokeWidth(2);
-            minorGridLine.setColor(Color.DKGRAY);
-            minorGridLine.setNumberOfGridLines(numberOfChildGridLines);
-            minorGridLine.setFixedZoomDisplay(fixedZoomDisplay);
-            childGridLines.put(majorGridLine, minorGridLine);
+        }
 
+        if(minorGridLine != null) {
+            if(minorGridLine instanceof LogGridLines) {
+                ((LogGridLines) minorGridLine).setGridLineRange(gridLineMinimumValue,
+                        gridLineMaximumValue);
+            }
+            return minorGridLine;
+        }
 
-            if(axisText != null) {
-                minorGridLine.showAxisText(context);
+        if(childGridLineScale == Scale.linear) {
+            if(axisOrientation == AxisOrientation.xAxis) {
+                minorGridLine = new LinXGridLines(axisParameters);
+            } else {
+                minorGridLine = new LinYGridLines(axisParameters);
+            }
+        } else {
+            if(axisOrientation == AxisOrientation.xAxis) {
+                minorGridLine = new LogXGridLines(axisParameters, gridLineMinimumValue,
+                        gridLineMaximumValue);
+            } else {
+                minorGridLine = new LogYGridLines(axisParameters, gridLineMinimumValue,
+                        gridLineMaximumValue);
             }
+        }
+        minorGridLine.setGridStrokeWidth(2);
+        minorGridLine.setColor(Color.DKGRAY);
+        minorGridLine.setFixedZoomDisplay(fixedZoomDisplay);
 
-            minorGridLineSurfaceChanged(minorGridLine, majorGridLine);
-            minorGridLine.setZoomDisplay(getZoomDisplay());
+        if(axisText != null) {
+            minorGridLine.showAxisText(context);
+        }
+
+        return minorGridLine;
+    }
+
+    /**
+     * Detach a child grid line from the zoom and return it, along with its own children, to
+     * the pool
+     *
+     * @param childGridLine child grid line no longer displayed
+     */
+    private void recycleChildGridLine(GridLines childGridLine) {
+        childGridLine.removeZoomDisplay();
+        childGridLine.removeAllChildGridLines();
+        synchronized(childGridLinePool) {
+            childGridLinePool.add(childGridLine);
         }
     }
 
@@ -456,8 +520,6 @@ public abstract class GridLines extends DrawableObject {
         right *= getFixedZoomDisplay().getZoomLevelPercentage();
         right += getFixedZoomDisplay().getDisplayOffsetPercentage();
 
-        gridLine.surfaceChanged(parentDrawableArea);
-
         gridLine.setGridLinesSize(right - left);
         gridLine.setGridLinesOffset(left);
 
@@ -469,16 +531,47 @@ public abstract class GridLines extends DrawableObject {
         }
     }
 
+    /**
+     * Show or hide the minor grid lines, hiding them returns them to the pool
+     *
+     * @param childGridLinesShown true to add minor grid lines where there is space
+     */
+    void setChildGridLinesShown(boolean childGridLinesShown) {
+        if(childGridLinesShown == this.childGridLinesShown) {
+            return;
+        }
+        this.childGridLinesShown = childGridLinesShown;
+        if(childGridLinesShown) {
+            refreshChildGridLines();
+        } else {
+            removeAllChildGridLines();
+        }
+    }
+
     /**
      * Remove all the child grid lines from this object
      */
     void removeAllChildGridLines() {
-        for(Iterator<Map.Entry<Integer, GridLines>> it = childGridLines.entrySet().iterator();
-            it.hasNext(); ) {
-            Map.Entry<Integer, GridLines> entry = it.next();
-            entry.getValue().removeAllChildGridLines();
-            it.remove();
+        for(int i = 0; i < childGridLines.length; ++i) {
+            final GridLines childGridLine = childGridLines[i];
+            if(childGridLine != null) {
+                childGridLines[i] = null;
+                recycleChildGridLine(childGridLine);
+            }
+        }
+    }
+
+    /**
+     * @return number of minor grid lines shown directly beneath these grid lines
+     */
+    int getNumberOfChildGridLines() {
+        int numberOfChildGridLines = 0;
+        for(GridLines gridLines : childGridLines) {
+            if(gridLines != null) {
+                numberOfChildGridLines++;
+            }
         }
+        return numberOfChildGridLines;
     }
 
     /**
@@ -1,6 +1,5 @@
 package com.nfx.android.graph.androidgraph;
 
-import android.graphics.Canvas;
 import android.util.Log;
 
 /**
@@ -17,21 +16,21 @@ public class HorizontalLabelPointer extends LabelPointer {
     }
 
     @Override
-    public void doDraw(Canvas canvas) {
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
         float xPositionOfCircle = getXPositionOfPointer();
         float yPositionOfCircle = getYPositionOfPointer();
 
-        canvas.drawCircle(getDrawableArea().checkLimitX(xPositionOfCircle),
+        drawingSurface.drawCircle(getDrawableArea().checkLimitX(xPositionOfCircle),
                 getDrawableArea().checkLimitY(yPositionOfCircle),
-                circleRadius, paint);
+                circleRadius, style);
 
         if(showLine) {
-            canvas.drawLine(
+            drawingSurface.drawLine(
                     getDrawableArea().getLeft(),
                     getDrawableArea().checkLimitY(yPositionOfCircle),
                     getDrawableArea().getRight(),
                     getDrawableArea().checkLimitY(yPositionOfCircle),
-                    paint
+                    style
             );
         }
     }
@@ -1,7 +1,6 @@
 package com.nfx.android.graph.androidgraph;
 
 import android.content.Context;
-import android.graphics.Canvas;
 
 import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
 
@@ -24,19 +23,20 @@ class LinXGridLines extends LinGridLines {
     /**
      * Draws all lines which are viewable on screen
      *
-     * @param canvas a canvas to draw onto
+     * @param drawingSurface surface to draw onto
+     * @param frameState state of the frame being drawn
      */
     @Override
-    public void doDraw(Canvas canvas) {
-        super.doDraw(canvas);
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
+        super.doDraw(drawingSurface, frameState);
 
         for(int i = 0; i < numberOfGridLines; ++i) {
             float xIntersect = intersectZoomCompensated(i) * getDrawableArea().getWidth();
             if(xIntersect >= 0 && xIntersect < getDimensionLength()) {
-                canvas.drawLine(getDrawableArea().getLeft() + xIntersect, getDrawableArea()
+                drawingSurface.drawLine(getDrawableArea().getLeft() + xIntersect, getDrawableArea()
                         .getTop(),
                         getDrawableArea().getLeft() + xIntersect, getDrawableArea().getBottom(),
-                        paint);
+                        style);
             }
         }
     }
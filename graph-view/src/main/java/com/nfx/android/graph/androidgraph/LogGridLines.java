@@ -12,11 +12,11 @@ abstract class LogGridLines extends GridLines {
     /**
      * minimum value displayed by these grid lines
      */
-    private final float mGridLineMinimumValue;
+    private float mGridLineMinimumValue;
     /**
      * span of these gridlines
      */
-    private final float mGridLineSpanValue;
+    private float mGridLineSpanValue;
 
     /**
      * Constructor
@@ -30,6 +30,17 @@ abstract class LogGridLines extends GridLines {
                  float gridLineMinimumValue, float gridLineMaximumValue) {
         super(axisOrientation, axisParameters);
         this.childGridLineScale = Scale.logarithmic;
+        setGridLineRange(gridLineMinimumValue, gridLineMaximumValue);
+    }
+
+    /**
+     * Change the values covered, used when pooled grid lines are placed between a different pair
+     * of major grid lines
+     *
+     * @param gridLineMinimumValue minimum value displayed by these grid lines
+     * @param gridLineMaximumValue maximum value displayed by these grid lines
+     */
+    void setGridLineRange(float gridLineMinimumValue, float gridLineMaximumValue) {
         this.mGridLineMinimumValue = gridLineMinimumValue;
         this.mGridLineSpanValue = gridLineMaximumValue - gridLineMinimumValue;
     }
@@ -1,7 +1,6 @@
 package com.nfx.android.graph.androidgraph;
 
 import android.content.Context;
-import android.graphics.Canvas;
 
 import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
 
@@ -35,19 +34,20 @@ class LogXGridLines extends LogGridLines {
     /**
      * Draws all lines which are viewable on screen
      *
-     * @param canvas a canvas to draw onto
+     * @param drawingSurface surface to draw onto
+     * @param frameState state of the frame being drawn
      */
     @Override
-    public void doDraw(Canvas canvas) {
-        super.doDraw(canvas);
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
+        super.doDraw(drawingSurface, frameState);
         float xIntersect;
         for(int i = 0; i < numberOfGridLines; ++i) {
             xIntersect = intersectZoomCompensated(i) * getDrawableArea().getWidth();
             if(xIntersect >= 0 && xIntersect < getDimensionLength()) {
-                canvas.drawLine(getDrawableArea().getLeft() + xIntersect,
+                drawingSurface.drawLine(getDrawableArea().getLeft() + xIntersect,
                         getDrawableArea().getTop(),
                         getDrawableArea().getLeft() + xIntersect, getDrawableArea().getBottom(),
-                        paint);
+                        style);
 
             }
         }
@@ -1,7 +1,6 @@
 package com.nfx.android.graph.androidgraph;
 
 import android.content.Context;
-import android.graphics.Canvas;
 
 import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
 
@@ -29,19 +28,20 @@ class LogYGridLines extends LogGridLines {
     /**
      * Draws all lines which are viewable on screen
      *
-     * @param canvas a canvas to draw onto
+     * @param drawingSurface surface to draw onto
+     * @param frameState state of the frame being drawn
      */
     @Override
-    public void doDraw(Canvas canvas) {
-        super.doDraw(canvas);
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
+        super.doDraw(drawingSurface, frameState);
 
         for(int i = 0; i < numberOfGridLines; ++i) {
             float yIntersect = intersectZoomCompensated(i) * getDrawableArea().getHeight();
             if(yIntersect >= 0 && yIntersect < getDimensionLength()) {
-                canvas.drawLine(getDrawableArea().getLeft(), getDrawableArea().getTop() +
+                drawingSurface.drawLine(getDrawableArea().getLeft(), getDrawableArea().getTop() +
                         yIntersect,
                         getDrawableArea().getRight(), getDrawableArea().getTop() + yIntersect,
-                        paint);
+                        style);
 
             }
         }
@@ -1,8 +1,6 @@
 package com.nfx.android.graph.androidgraph;
 
-import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Paint;
 
 /**
  * NFX Development
@@ -43,6 +41,15 @@ public class Marker extends DrawableObject {
      * Default position for the marker
      */
     private float markerPosition = (float) Math.random();
+    /**
+     * Number of frames between updates posted to the marker update interface, the marker itself
+     * is still drawn every frame
+     */
+    private int updateInterval = 1;
+    /**
+     * Frames drawn since the last update was posted
+     */
+    private int framesSinceUpdate = Integer.MAX_VALUE - 1;
 
     /**
      * @param signalId                  Id of the signal the markers are attached to
@@ -56,31 +63,32 @@ public class Marker extends DrawableObject {
         this.graphViewInterface = graphViewInterface;
         this.signalInterface = signal;
         this.markerUpdateInterface = markerUpdateInterface;
-        paint.setColor(INITIAL_LINE_COLOR);
-        paint.setStrokeWidth(INITIAL_LINE_STROKE_WIDTH);
-        paint.setStyle(Paint.Style.STROKE);
-        paint.setAntiAlias(true);
+        style.setColour(INITIAL_LINE_COLOR);
+        style.setStrokeWidth(INITIAL_LINE_STROKE_WIDTH);
+        style.setStyle(DrawingStyle.Style.STROKE);
+        style.setAntiAlias(true);
         this.markerUpdateInterface.markerColour(INITIAL_LINE_COLOR);
     }
 
     @Override
-    public void doDraw(Canvas canvas) {
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
         if (signalInterface != null && markerUpdateInterface != null && graphViewInterface != null) {
-            float xValue = graphViewInterface.getGraphParameters().getXAxisParameters().
-                    graphPositionToScaledAxis(markerPosition);
+            float xValue = frameState.xAxisParameters.graphPositionToScaledAxis(markerPosition);
             float yValue = signalInterface.getValueAtPosition(xValue);
-            markerUpdateInterface.markerPositionUpdate(xValue, yValue);
+            if(++framesSinceUpdate >= updateInterval) {
+                framesSinceUpdate = 0;
+                markerUpdateInterface.markerPositionUpdate(xValue, yValue);
+            }
 
             float centreX, centreY;
 
-            if (markerPosition <
-                    graphViewInterface.getGraphXZoomDisplay().getDisplayOffsetPercentage()) {
+            if (markerPosition < frameState.xDisplayOffsetPercentage) {
                 centreX = getDrawableArea().getLeft();
-            } else if (markerPosition >
-                    graphViewInterface.getGraphXZoomDisplay().getFarSideOffsetPercentage()) {
+            } else if (markerPosition > frameState.getXFarSideOffsetPercentage()) {
                 centreX = getDrawableArea().getRight();
             } else {
-                centreX = getMarkerPositionInPx();
+                centreX = markerPositionInPx(frameState.xDisplayOffsetPercentage,
+                        frameState.xZoomLevelPercentage);
             }
 
             float yPosition = (1f - signalInterface.getValueAtPosition(xValue));
@@ -93,23 +101,23 @@ public class Marker extends DrawableObject {
                 centreY = getDrawableArea().getTop() + yPosition * getDrawableArea().getHeight();
             }
 
-            canvas.drawCircle(
+            drawingSurface.drawCircle(
                     centreX,
                     centreY,
                     circleRadius,
-                    paint
+                    style
             );
-            canvas.drawLine(centreX - circleRadius,
+            drawingSurface.drawLine(centreX - circleRadius,
                     centreY,
                     centreX + circleRadius,
                     centreY,
-                    paint
+                    style
             );
-            canvas.drawLine(centreX,
+            drawingSurface.drawLine(centreX,
                     centreY - circleRadius,
                     centreX,
                     centreY + circleRadius,
-                    paint
+                    style
             );
         }
     }
@@ -150,16 +158,42 @@ public class Marker extends DrawableObject {
         } else {
             this.markerPosition = markerPosition;
         }
+        // A moved marker shows its new value straight away
+        framesSinceUpdate = Integer.MAX_VALUE - 1;
+
+        if(graphViewInterface != null) {
+            graphViewInterface.requestRender();
+        }
+    }
+
+    /**
+     * @param updateInterval number of frames between updates posted to the marker update
+     *                       interface
+     */
+    void setUpdateInterval(int updateInterval) {
+        this.updateInterval = Math.max(1, updateInterval);
     }
 
     /**
      * @return the marker position in relation to pixels
      */
     float getMarkerPositionInPx() {
+        final long xZoomState = graphViewInterface.getGraphXZoomDisplay().getZoomState();
+        return markerPositionInPx(ZoomDisplay.displayOffsetOf(xZoomState),
+                ZoomDisplay.zoomLevelOf(xZoomState));
+    }
+
+    /**
+     * @param xDisplayOffsetPercentage x display offset to place the marker with
+     * @param xZoomLevelPercentage     x zoom level to place the marker with
+     * @return the marker position in relation to pixels
+     */
+    private float markerPositionInPx(float xDisplayOffsetPercentage,
+                                     float xZoomLevelPercentage) {
         float intersect = markerPosition;
 
-        intersect -= graphViewInterface.getGraphXZoomDisplay().getDisplayOffsetPercentage();
-        intersect /= graphViewInterface.getGraphXZoomDisplay().getZoomLevelPercentage();
+        intersect -= xDisplayOffsetPercentage;
+        intersect /= xZoomLevelPercentage;
 
         intersect *= getDrawableArea().getWidth();
         intersect += getDrawableArea().getLeft();
@@ -219,6 +253,13 @@ public class Marker extends DrawableObject {
         return signalId;
     }
 
+    /**
+     * @return the object marker updates are posted to
+     */
+    MarkerUpdateInterface getMarkerUpdateInterface() {
+        return markerUpdateInterface;
+    }
+
     /**
      * The update interface to allow communication to other objects
      */
@@ -1,9 +1,13 @@
 package com.nfx.android.graph.androidgraph;
 
-import android.graphics.Canvas;
+import android.util.SparseArray;
 
 import com.nfx.android.graph.androidgraph.list.bindadapters.GraphListAdapter;
 import com.nfx.android.graph.androidgraph.list.data.MarkerData;
+import com.nfx.android.graph.androidgraph.list.data.MarkerLevelTracker;
+import com.nfx.android.graph.graphbufferinput.InputListener;
+import com.nfx.android.graph.graphbufferinput.windowing.NoWindow;
+import com.nfx.android.graph.graphbufferinput.windowing.Window;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -35,6 +39,10 @@ class MarkerManager implements MarkerManagerInterface {
      * List of all the markers
      */
     private List<MarkerData> markerList = new ArrayList<>();
+    /**
+     * Level trackers keyed by signal id, guarded by itself
+     */
+    private final SparseArray<MarkerLevelTracker> markerLevelTrackers = new SparseArray<>();
     /**
      * Object to control the list view of marker information
      */
@@ -44,6 +52,11 @@ class MarkerManager implements MarkerManagerInterface {
      */
     private DrawableArea drawableArea = new DrawableArea(0, 0, 0, 0);
 
+    /**
+     * Number of frames between marker value updates
+     */
+    private int markerUpdateInterval = 1;
+
     private boolean xIsInteger = false;
     private boolean yIsInteger = false;
 
@@ -61,12 +74,13 @@ class MarkerManager implements MarkerManagerInterface {
 
     /**
      * Call with the canvas to draw on
-     * @param canvas canvas to draw the objects onto
+     * @param drawingSurface surface to draw the objects onto
+     * @param frameState state of the frame being drawn
      */
-    public void doDraw(Canvas canvas) {
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
         synchronized (markers) {
             for (Marker marker : markers) {
-                marker.doDraw(canvas);
+                marker.doDraw(drawingSurface, frameState);
             }
         }
     }
@@ -148,6 +162,13 @@ class MarkerManager implements MarkerManagerInterface {
         markerData.setYIsInteger(yIsInteger);
         markerList.add(markerData);
 
+        synchronized (markerLevelTrackers) {
+            MarkerLevelTracker markerLevelTracker = markerLevelTrackers.get(signalId);
+            if(markerLevelTracker != null) {
+                markerLevelTracker.addMarkerData(markerData);
+            }
+        }
+
         Marker marker = new Marker(signalId, graphViewInterface,
                 signalManagerInterface.getSignalBufferInterface(signalId), markerData);
 
@@ -155,12 +176,28 @@ class MarkerManager implements MarkerManagerInterface {
         marker.setColour(colour);
 
         synchronized (markers) {
+            marker.setUpdateInterval(markerUpdateInterval);
             markers.add(marker);
         }
 
         graphListAdapter.setMarkerList(markerList);
     }
 
+    /**
+     * Post the marker values to the list every so many frames rather than every frame, the
+     * markers are still drawn every frame
+     *
+     * @param markerUpdateInterval number of frames between marker value updates
+     */
+    void setMarkerUpdateInterval(int markerUpdateInterval) {
+        synchronized (markers) {
+            this.markerUpdateInterval = markerUpdateInterval;
+            for (Marker marker : markers) {
+                marker.setUpdateInterval(markerUpdateInterval);
+            }
+        }
+    }
+
     /**
      * Update the markers with signal Id to look at the correct signal buffer
      *
@@ -195,5 +232,81 @@ class MarkerManager implements MarkerManagerInterface {
         }
         markerList.clear();
         graphListAdapter.removeMarkerList();
+
+        synchronized (markerLevelTrackers) {
+            MarkerLevelTracker markerLevelTracker = markerLevelTrackers.get(signalId);
+            if(markerLevelTracker != null) {
+                markerLevelTracker.removeAll();
+            }
+        }
+    }
+
+    /**
+     * Track the levels of the markers on the given signal with a Goertzel filter rather than
+     * reading them from the displayed spectrum. The returned listener has to be added to a time
+     * domain input for the given signal. Markers added later on will also be tracked
+     *
+     * @param signalId   signal id the markers are attached to
+     * @param sampleRate sample rate of the time domain input
+     * @return listener to attach to the time domain input
+     */
+    @Override
+    public InputListener enableMarkerLevelTracking(int signalId, int sampleRate) {
+        return enableMarkerLevelTracking(signalId, sampleRate, new NoWindow());
+    }
+
+    /**
+     * Track the levels of the markers on the given signal with a Goertzel filter. The window
+     * should be the one the signal's FFT is taken with so the levels agree with the spectrum
+     *
+     * @param signalId   signal id the markers are attached to
+     * @param sampleRate sample rate of the time domain input
+     * @param window     window applied to each block before the levels are worked out
+     * @return listener to attach to the time domain input
+     */
+    @Override
+    public InputListener enableMarkerLevelTracking(int signalId, int sampleRate, Window window) {
+        synchronized (markerLevelTrackers) {
+            MarkerLevelTracker markerLevelTracker = markerLevelTrackers.get(signalId);
+            if(markerLevelTracker != null) {
+                markerLevelTracker.setSampleRate(sampleRate);
+                markerLevelTracker.setWindow(window);
+                return markerLevelTracker;
+            }
+
+            markerLevelTracker = new MarkerLevelTracker(sampleRate);
+            markerLevelTracker.setWindow(window);
+
+            synchronized (markers) {
+                for (Marker marker : markers) {
+                    if (marker.getSignalId() == signalId &&
+                            marker.getMarkerUpdateInterface() instanceof MarkerData) {
+                        markerLevelTracker.addMarkerData(
+                                (MarkerData) marker.getMarkerUpdateInterface());
+                    }
+                }
+            }
+
+            markerLevelTrackers.put(signalId, markerLevelTracker);
+
+            return markerLevelTracker;
+        }
+    }
+
+    /**
+     * Stop tracking marker levels on the given signal, the markers will read their levels from
+     * the displayed signal again
+     *
+     * @param signalId signal id the markers are attached to
+     */
+    @Override
+    public void disableMarkerLevelTracking(int signalId) {
+        synchronized (markerLevelTrackers) {
+            MarkerLevelTracker markerLevelTracker = markerLevelTrackers.get(signalId);
+            if(markerLevelTracker != null) {
+                markerLevelTracker.removeAll();
+                markerLevelTrackers.remove(signalId);
+            }
+        }
     }
 }
@@ -2,6 +2,9 @@ package com.nfx.android.graph.androidgraph;
 
 import android.support.annotation.Nullable;
 
+import com.nfx.android.graph.graphbufferinput.InputListener;
+import com.nfx.android.graph.graphbufferinput.windowing.Window;
+
 /**
  * NFX Development
  * Created by nick on 15/01/17.
@@ -13,6 +16,12 @@ public interface MarkerManagerInterface {
 
     void removeMarkers(int signalId);
 
+    InputListener enableMarkerLevelTracking(int signalId, int sampleRate);
+
+    InputListener enableMarkerLevelTracking(int signalId, int sampleRate, Window window);
+
+    void disableMarkerLevelTracking(int signalId);
+
     void representXAsFloat();
 
     void representYAsFloat();
@@ -0,0 +1,301 @@
+package com.nfx.android.graph.androidgraph;
+
+import android.graphics.Color;
+import android.util.Log;
+
+import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * A digital phosphor, each trace added is rasterised into an intensity buffer which decays
+ * exponentially with every frame, so often visited pixels glow brighter. The intensities are
+ * mapped through a colour lookup table into an image. Adding a trace costs a fixed amount per
+ * pixel however much history is visible, and drawing is a single image blit. The buffers are
+ * replaced when the surface changes on the UI thread while traces are added and drawn on the
+ * render thread, so every access is made holding the phosphor's lock
+ */
+class Phosphor {
+    private static final String TAG = "Phosphor";
+    /**
+     * Screen pixels per phosphor pixel in each dimension, the image is scaled up when drawn
+     */
+    private static final int RESOLUTION = 2;
+    /**
+     * Intensities are 16 bit, the top 8 bits index the colour lookup table
+     */
+    private static final int MAXIMUM_INTENSITY = 0xFFFF;
+    private static final int COLOUR_LOOKUP_SIZE = 256;
+    /**
+     * Intensity added each time a trace passes through a pixel
+     */
+    static final int HIT_INTENSITY = 0x3000;
+    /**
+     * Maps the top 8 bits of an intensity to a colour
+     */
+    private final int[] colourLookup = new int[COLOUR_LOOKUP_SIZE];
+    /**
+     * Area the image is stretched over
+     */
+    private final DrawingRect destinationRect = new DrawingRect();
+    private final DrawingStyle imageStyle = new DrawingStyle();
+    /**
+     * Fraction of the intensity kept after each frame, in 16.16 fixed point
+     */
+    private volatile int decayFactor = (int) (0.9f * 65536f);
+    private int columns = 0;
+    private int rows = 0;
+    /**
+     * Intensity of each pixel, row by row
+     */
+    private int[] intensities = new int[0];
+    /**
+     * Colour of each pixel, null until the phosphor has a size
+     */
+    private DrawingImage image;
+    /**
+     * The trace to add, one value per column normalised 0-1
+     */
+    private float[] minimumValues = new float[0];
+    private float[] maximumValues = new float[0];
+    /**
+     * Set while any pixel is bright enough to be seen, the phosphor keeps fading until it is not
+     */
+    private boolean lit = false;
+
+    /**
+     * @param colour colour of the trace at mid intensity
+     */
+    Phosphor(int colour) {
+        imageStyle.setFilterImages(true);
+        setColour(colour);
+    }
+
+    /**
+     * Resize to the drawable area, any history is lost
+     *
+     * @param drawableArea area the phosphor is drawn over
+     */
+    void surfaceChanged(DrawableArea drawableArea) {
+        synchronized(this) {
+            columns = drawableArea.getWidth() / RESOLUTION;
+            rows = drawableArea.getHeight() / RESOLUTION;
+            destinationRect.set(drawableArea.getLeft(), drawableArea.getTop(),
+                    drawableArea.getRight(), drawableArea.getBottom());
+
+            intensities = new int[columns * rows];
+            minimumValues = new float[columns];
+            maximumValues = new float[columns];
+            lit = false;
+
+            image = null;
+            if(columns > 0 && rows > 0) {
+                image = new DrawingImage(columns, rows);
+            }
+        }
+    }
+
+    /**
+     * Scale the signal buffer to the phosphor width and rasterise it
+     *
+     * @param signalBufferInterface buffer to add
+     * @param lowerX                lowest x value on screen
+     * @param higherX               highest x value on screen
+     * @param xAxisParameters       x axis of the graph
+     */
+    void addTrace(SignalBufferInterface signalBufferInterface, float lowerX, float higherX,
+                  AxisParameters xAxisParameters) {
+        synchronized(this) {
+            if(image == null) {
+                return;
+            }
+            signalBufferInterface.getScaledMinimumMaximumBuffers(minimumValues, maximumValues,
+                    lowerX, higherX, xAxisParameters);
+            rasterise(minimumValues, maximumValues, intensities, columns, rows);
+            lit = true;
+        }
+    }
+
+    /**
+     * Update the image with the current intensities then decay them. Call once per frame
+     *
+     * @return true while anything can still be seen, another frame is needed to fade it out
+     */
+    boolean fade() {
+        synchronized(this) {
+            if(image == null || !lit) {
+                return false;
+            }
+            lit = decay(intensities, image.getPixels(), colourLookup, decayFactor);
+            image.markChanged(0, rows);
+            return lit;
+        }
+    }
+
+    /**
+     * Rasterise a trace into the intensities. Each column covers its range of values and is
+     * joined to the previous column where the ranges do not overlap
+     *
+     * @param minimumValues minimum value of each column normalised 0-1
+     * @param maximumValues maximum value of each column normalised 0-1
+     * @param intensities   intensity of each pixel, row by row
+     * @param columns       number of columns
+     * @param rows          number of rows
+     */
+    static void rasterise(float[] minimumValues, float[] maximumValues, int[] intensities,
+                          int columns, int rows) {
+        int previousTop = 0;
+        int previousBottom = 0;
+        for(int x = 0; x < columns; x++) {
+            final int top = valueToRow(maximumValues[x], rows);
+            final int bottom = valueToRow(minimumValues[x], rows);
+
+            // The range of values covered by the column
+            for(int y = top; y <= bottom; y++) {
+                hit(intensities, columns, x, y);
+            }
+
+            // Join to the previous column where the ranges do not overlap
+            if(x > 0) {
+                if(top > previousBottom) {
+                    plotLine(intensities, columns, x - 1, previousBottom, x, top);
+                } else if(bottom < previousTop) {
+                    plotLine(intensities, columns, x - 1, previousTop, x, bottom);
+                }
+            }
+
+            previousTop = top;
+            previousBottom = bottom;
+        }
+    }
+
+    /**
+     * Colour each pixel from its intensity, then decay the intensities. The pixels show the
+     * intensities before the decay so a new trace is seen at full intensity
+     *
+     * @param intensities  intensity of each pixel
+     * @param pixels       colour of each pixel to fill
+     * @param colourLookup maps the top 8 bits of an intensity to a colour
+     * @param decayFactor  fraction of the intensity kept in 16.16 fixed point
+     * @return true if any pixel is still bright enough to be seen after the decay
+     */
+    static boolean decay(int[] intensities, int[] pixels, int[] colourLookup, int decayFactor) {
+        int brightest = 0;
+        final int numberOfPixels = intensities.length;
+        for(int i = 0; i < numberOfPixels; i++) {
+            final int intensity = intensities[i];
+            pixels[i] = colourLookup[intensity >>> 8];
+            if(intensity != 0) {
+                final int decayed = (int) (((long) intensity * decayFactor) >>> 16);
+                intensities[i] = decayed;
+                brightest |= decayed;
+            }
+        }
+        // Below 256 an intensity maps to the first, transparent, colour
+        return brightest >>> 8 != 0;
+    }
+
+    /**
+     * Bresenham line between two pixels
+     */
+    private static void plotLine(int[] intensities, int columns, int x0, int y0, int x1,
+                                 int y1) {
+        final int dx = Math.abs(x1 - x0);
+        final int dy = -Math.abs(y1 - y0);
+        final int stepX = x0 < x1 ? 1 : -1;
+        final int stepY = y0 < y1 ? 1 : -1;
+        int error = dx + dy;
+
+        while(true) {
+            hit(intensities, columns, x0, y0);
+            if(x0 == x1 && y0 == y1) {
+                break;
+            }
+            final int doubleError = 2 * error;
+            if(doubleError >= dy) {
+                error += dy;
+                x0 += stepX;
+            }
+            if(doubleError <= dx) {
+                error += dx;
+                y0 += stepY;
+            }
+        }
+    }
+
+    private static void hit(int[] intensities, int columns, int x, int y) {
+        final int index = y * columns + x;
+        intensities[index] = Math.min(intensities[index] + HIT_INTENSITY, MAXIMUM_INTENSITY);
+    }
+
+    /**
+     * @param value value normalised 0-1, values outside are clamped
+     * @param rows  number of rows in the image
+     * @return row of the image, 0 at the top
+     */
+    static int valueToRow(float value, int rows) {
+        if(value > 1f) {
+            value = 1f;
+        } else if(value < 0f) {
+            value = 0f;
+        }
+        return (int) ((1f - value) * (rows - 1));
+    }
+
+    /**
+     * @param drawingSurface surface to draw the phosphor onto
+     */
+    void doDraw(DrawingSurface drawingSurface) {
+        synchronized(this) {
+            if(image != null) {
+                drawingSurface.drawImage(image, null, destinationRect, imageStyle);
+            }
+        }
+    }
+
+    /**
+     * Rebuild the colour lookup table, fading in from transparent to the colour and on to white
+     * at full intensity. Pixels already drawn change colour with the next frame
+     *
+     * @param colour colour of the trace at mid intensity
+     */
+    void setColour(int colour) {
+        final int half = COLOUR_LOOKUP_SIZE / 2;
+        synchronized(this) {
+            for(int i = 0; i < half; i++) {
+                colourLookup[i] = Color.argb(i * 255 / (half - 1), Color.red(colour),
+                        Color.green(colour), Color.blue(colour));
+            }
+            for(int i = half; i < COLOUR_LOOKUP_SIZE; i++) {
+                final float fraction = (float) (i - half) / (COLOUR_LOOKUP_SIZE - half - 1);
+                colourLookup[i] = Color.rgb(
+                        (int) (Color.red(colour) + (255 - Color.red(colour)) * fraction),
+                        (int) (Color.green(colour) + (255 - Color.green(colour)) * fraction),
+                        (int) (Color.blue(colour) + (255 - Color.blue(colour)) * fraction));
+            }
+        }
+    }
+
+    /**
+     * Set how quickly the traces fade. If the decay is not between 0 and 1 it will not be set and
+     * a Log error is displayed.
+     *
+     * @param decay fraction of the intensity kept after each frame, 0-1
+     */
+    void setDecay(float decay) {
+        if(!isValidDecay(decay)) {
+            Log.e(TAG, "Decay " + decay + " is not between 0 and 1");
+            return;
+        }
+        decayFactor = (int) (decay * 65536f);
+    }
+
+    /**
+     * @param decay fraction of the intensity kept after each frame
+     * @return true if the decay is between 0 and 1
+     */
+    static boolean isValidDecay(float decay) {
+        return decay >= 0f && decay <= 1f;
+    }
+}
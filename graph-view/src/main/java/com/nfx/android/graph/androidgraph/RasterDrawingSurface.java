@@ -0,0 +1,510 @@
+package com.nfx.android.graph.androidgraph;
+
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Draws into an array of ARGB pixels in plain java, so a graph can be drawn without a display
+ * for throughput tests, rendering regression tests or image export. Shapes are filled by
+ * sampling at pixel centres without anti aliasing and blended source over. Text uses a small
+ * built in block font which covers the digits, signs and SI prefixes used for axis values,
+ * other characters are drawn as a box
+ */
+public class RasterDrawingSurface implements DrawingSurface {
+    /**
+     * Glyph size in font units, each glyph is followed by one unit of space
+     */
+    private static final int GLYPH_WIDTH = 3;
+    private static final int GLYPH_HEIGHT = 5;
+    /**
+     * Font units in the text size, the glyphs stand 5 units tall on the baseline
+     */
+    private static final float UNITS_PER_TEXT_SIZE = 7f;
+    /**
+     * Characters of the built in font and their glyphs, three bits per row from the top row,
+     * the highest bit of each row is the left column
+     */
+    private static final String GLYPH_CHARACTERS = "0123456789.-+:%kMGTmunpHz ";
+    private static final int[] GLYPHS = {
+            glyph(7, 5, 5, 5, 7), glyph(2, 6, 2, 2, 7), glyph(7, 1, 7, 4, 7),
+            glyph(7, 1, 7, 1, 7), glyph(5, 5, 7, 1, 1), glyph(7, 4, 7, 1, 7),
+            glyph(7, 4, 7, 5, 7), glyph(7, 1, 1, 1, 1), glyph(7, 5, 7, 5, 7),
+            glyph(7, 5, 7, 1, 7), glyph(0, 0, 0, 0, 2), glyph(0, 0, 7, 0, 0),
+            glyph(0, 2, 7, 2, 0), glyph(0, 2, 0, 2, 0), glyph(5, 1, 2, 4, 5),
+            glyph(4, 5, 6, 5, 5), glyph(5, 7, 7, 5, 5), glyph(7, 4, 5, 5, 7),
+            glyph(7, 2, 2, 2, 2), glyph(0, 0, 7, 7, 5), glyph(0, 0, 5, 5, 7),
+            glyph(0, 0, 6, 5, 5), glyph(0, 7, 5, 7, 4), glyph(5, 5, 7, 5, 5),
+            glyph(0, 7, 2, 4, 7), 0
+    };
+    private static final int UNKNOWN_GLYPH = glyph(0, 7, 5, 7, 0);
+    /**
+     * Pixels of the surface, row by row from the top left
+     */
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+    /**
+     * Reused corners of a thick line
+     */
+    private final float[] lineCorners = new float[8];
+    /**
+     * Reused edge crossings of the scan line being filled
+     */
+    private float[] crossings = new float[16];
+
+    /**
+     * @param width  width of the surface in pixels
+     * @param height height of the surface in pixels
+     */
+    public RasterDrawingSurface(int width, int height) {
+        this.width = width;
+        this.height = height;
+        pixels = new int[width * height];
+    }
+
+    private static int glyph(int row0, int row1, int row2, int row3, int row4) {
+        return row0 << 12 | row1 << 9 | row2 << 6 | row3 << 3 | row4;
+    }
+
+    /**
+     * @return the pixels of the surface, row by row from the top left. This is the backing array
+     * so it changes as more is drawn
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * @param x column
+     * @param y row
+     * @return ARGB colour of the pixel
+     */
+    public int getPixel(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    /**
+     * Set every pixel, without blending
+     *
+     * @param colour ARGB colour
+     */
+    public void eraseColor(int colour) {
+        Arrays.fill(pixels, colour);
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY,
+                         DrawingStyle style) {
+        strokeLine(startX, startY, stopX, stopY, style.getStrokeWidth(), style.getColour());
+    }
+
+    @Override
+    public void drawLines(float[] points, int offset, int count, DrawingStyle style) {
+        final float strokeWidth = style.getStrokeWidth();
+        final int colour = style.getColour();
+        final int end = offset + count;
+        for(int i = offset; i + 3 < end; i += 4) {
+            strokeLine(points[i], points[i + 1], points[i + 2], points[i + 3], strokeWidth,
+                    colour);
+        }
+    }
+
+    @Override
+    public void drawRect(DrawingRect rect, DrawingStyle style) {
+        final DrawingStyle.Style fillStyle = style.getStyle();
+        final int left = rect.getLeft();
+        final int top = rect.getTop();
+        final int right = rect.getRight();
+        final int bottom = rect.getBottom();
+        if(fillStyle != DrawingStyle.Style.STROKE) {
+            fillRect(left, top, right, bottom, style.getColour());
+        }
+        if(fillStyle != DrawingStyle.Style.FILL) {
+            final float strokeWidth = style.getStrokeWidth();
+            final int colour = style.getColour();
+            strokeLine(left, top, right, top, strokeWidth, colour);
+            strokeLine(right, top, right, bottom, strokeWidth, colour);
+            strokeLine(right, bottom, left, bottom, strokeWidth, colour);
+            strokeLine(left, bottom, left, top, strokeWidth, colour);
+        }
+    }
+
+    @Override
+    public void drawCircle(float centreX, float centreY, float radius, DrawingStyle style) {
+        final DrawingStyle.Style fillStyle = style.getStyle();
+        if(fillStyle == DrawingStyle.Style.FILL) {
+            fillCircle(centreX, centreY, radius, style.getColour());
+        } else if(fillStyle == DrawingStyle.Style.STROKE) {
+            strokeCircle(centreX, centreY, radius, style.getStrokeWidth(), style.getColour());
+        } else {
+            fillCircle(centreX, centreY, radius + style.getStrokeWidth() / 2f, style.getColour());
+        }
+    }
+
+    @Override
+    public void drawPolygon(float[] points, int count, DrawingStyle style) {
+        final DrawingStyle.Style fillStyle = style.getStyle();
+        final int colour = style.getColour();
+        if(fillStyle != DrawingStyle.Style.STROKE) {
+            fillPolygon(points, count, colour);
+        }
+        if(fillStyle != DrawingStyle.Style.FILL && count >= 4) {
+            final float strokeWidth = style.getStrokeWidth();
+            for(int i = 0; i + 1 < count; i += 2) {
+                final int next = i + 2 < count - 1 ? i + 2 : 0;
+                strokeLine(points[i], points[i + 1], points[next], points[next + 1],
+                        strokeWidth, colour);
+            }
+        }
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y,
+                         DrawingStyle style) {
+        drawText(text, index, count, x, y, style.getTextSize(), style.getTextAlign(),
+                style.getColour());
+    }
+
+    /**
+     * Images are always drawn nearest neighbour
+     */
+    @Override
+    public void drawImage(DrawingImage image, @Nullable DrawingRect source,
+                          DrawingRect destination, DrawingStyle style) {
+        if(source == null) {
+            drawPixels(image.getPixels(), image.getWidth(), 0, 0, image.getWidth(),
+                    image.getHeight(), destination.getLeft(), destination.getTop(),
+                    destination.getRight(), destination.getBottom());
+        } else {
+            drawPixels(image.getPixels(), image.getWidth(), source.getLeft(), source.getTop(),
+                    source.getRight(), source.getBottom(), destination.getLeft(),
+                    destination.getTop(), destination.getRight(), destination.getBottom());
+        }
+    }
+
+    @Override
+    public DrawingSurface createLayer(int width, int height) {
+        return new RasterDrawingSurface(width, height);
+    }
+
+    @Override
+    public void drawLayer(DrawingSurface layer) {
+        final RasterDrawingSurface rasterLayer = (RasterDrawingSurface) layer;
+        drawPixels(rasterLayer.pixels, rasterLayer.width, 0, 0, rasterLayer.width,
+                rasterLayer.height, 0, 0, rasterLayer.width, rasterLayer.height);
+    }
+
+    /**
+     * Nothing is held other than the pixels, which are left to the garbage collector
+     */
+    @Override
+    public void release() {
+    }
+
+    /**
+     * Fill the pixels whose centres fall inside the rectangle
+     *
+     * @param left   left edge
+     * @param top    top edge
+     * @param right  right edge
+     * @param bottom bottom edge
+     * @param colour ARGB colour
+     */
+    public void fillRect(float left, float top, float right, float bottom, int colour) {
+        final int startX = Math.max(0, pixelStart(Math.min(left, right)));
+        final int endX = Math.min(width, pixelStart(Math.max(left, right)));
+        final int startY = Math.max(0, pixelStart(Math.min(top, bottom)));
+        final int endY = Math.min(height, pixelStart(Math.max(top, bottom)));
+        for(int y = startY; y < endY; y++) {
+            final int row = y * width;
+            for(int x = startX; x < endX; x++) {
+                blend(row + x, colour);
+            }
+        }
+    }
+
+    /**
+     * Draw a line with butt ends, a stroke width below 1 draws a single pixel wide line
+     *
+     * @param startX      x of the start of the line
+     * @param startY      y of the start of the line
+     * @param stopX       x of the end of the line
+     * @param stopY       y of the end of the line
+     * @param strokeWidth width of the line
+     * @param colour      ARGB colour
+     */
+    public void strokeLine(float startX, float startY, float stopX, float stopY,
+                           float strokeWidth, int colour) {
+        final float deltaX = stopX - startX;
+        final float deltaY = stopY - startY;
+        final float length = (float) Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+
+        if(strokeWidth <= 1f || length == 0f) {
+            // Step one pixel at a time along the longer axis
+            final int steps = (int) Math.ceil(Math.max(Math.abs(deltaX), Math.abs(deltaY)));
+            for(int i = 0; i <= steps; i++) {
+                final float fraction = steps == 0 ? 0 : (float) i / steps;
+                plot((int) Math.floor(startX + deltaX * fraction),
+                        (int) Math.floor(startY + deltaY * fraction), colour);
+            }
+            return;
+        }
+
+        final float normalX = -deltaY / length * strokeWidth / 2f;
+        final float normalY = deltaX / length * strokeWidth / 2f;
+        lineCorners[0] = startX + normalX;
+        lineCorners[1] = startY + normalY;
+        lineCorners[2] = stopX + normalX;
+        lineCorners[3] = stopY + normalY;
+        lineCorners[4] = stopX - normalX;
+        lineCorners[5] = stopY - normalY;
+        lineCorners[6] = startX - normalX;
+        lineCorners[7] = startY - normalY;
+        fillPolygon(lineCorners, lineCorners.length, colour);
+    }
+
+    /**
+     * Fill the pixels whose centres fall inside the polygon, using the even odd rule
+     *
+     * @param points x and y of each corner, the last corner joins back to the first
+     * @param count  number of floats to use
+     * @param colour ARGB colour
+     */
+    public void fillPolygon(float[] points, int count, int colour) {
+        final int numberOfCorners = count / 2;
+        if(numberOfCorners < 3) {
+            return;
+        }
+        if(crossings.length < numberOfCorners) {
+            crossings = new float[numberOfCorners];
+        }
+
+        float minimumY = points[1];
+        float maximumY = points[1];
+        for(int i = 1; i < numberOfCorners; i++) {
+            minimumY = Math.min(minimumY, points[i * 2 + 1]);
+            maximumY = Math.max(maximumY, points[i * 2 + 1]);
+        }
+        final int startY = Math.max(0, pixelStart(minimumY));
+        final int endY = Math.min(height, pixelStart(maximumY));
+
+        for(int y = startY; y < endY; y++) {
+            final float centreY = y + 0.5f;
+            int numberOfCrossings = 0;
+            for(int i = 0; i < numberOfCorners; i++) {
+                final int next = i + 1 < numberOfCorners ? i + 1 : 0;
+                final float x0 = points[i * 2];
+                final float y0 = points[i * 2 + 1];
+                final float x1 = points[next * 2];
+                final float y1 = points[next * 2 + 1];
+                if((y0 <= centreY && centreY < y1) || (y1 <= centreY && centreY < y0)) {
+                    final float crossing = x0 + (centreY - y0) / (y1 - y0) * (x1 - x0);
+                    // Insertion sort, a scan line only crosses a few edges
+                    int position = numberOfCrossings++;
+                    while(position > 0 && crossings[position - 1] > crossing) {
+                        crossings[position] = crossings[position - 1];
+                        position--;
+                    }
+                    crossings[position] = crossing;
+                }
+            }
+
+            final int row = y * width;
+            for(int i = 0; i + 1 < numberOfCrossings; i += 2) {
+                final int startX = Math.max(0, pixelStart(crossings[i]));
+                final int endX = Math.min(width, pixelStart(crossings[i + 1]));
+                for(int x = startX; x < endX; x++) {
+                    blend(row + x, colour);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param centreX x of the centre
+     * @param centreY y of the centre
+     * @param radius  radius of the circle
+     * @param colour  ARGB colour
+     */
+    public void fillCircle(float centreX, float centreY, float radius, int colour) {
+        drawRing(centreX, centreY, 0f, radius, colour);
+    }
+
+    /**
+     * @param centreX     x of the centre
+     * @param centreY     y of the centre
+     * @param radius      radius to the middle of the outline
+     * @param strokeWidth width of the outline, at least one pixel is drawn
+     * @param colour      ARGB colour
+     */
+    public void strokeCircle(float centreX, float centreY, float radius, float strokeWidth,
+                             int colour) {
+        final float halfWidth = Math.max(1f, strokeWidth) / 2f;
+        drawRing(centreX, centreY, Math.max(0f, radius - halfWidth), radius + halfWidth, colour);
+    }
+
+    /**
+     * Fill the pixels whose centres lie between the two radii
+     */
+    private void drawRing(float centreX, float centreY, float innerRadius, float outerRadius,
+                          int colour) {
+        final float innerSquared = innerRadius * innerRadius;
+        final float outerSquared = outerRadius * outerRadius;
+        final int startX = Math.max(0, pixelStart(centreX - outerRadius));
+        final int endX = Math.min(width, pixelStart(centreX + outerRadius));
+        final int startY = Math.max(0, pixelStart(centreY - outerRadius));
+        final int endY = Math.min(height, pixelStart(centreY + outerRadius));
+
+        for(int y = startY; y < endY; y++) {
+            final float distanceY = y + 0.5f - centreY;
+            final int row = y * width;
+            for(int x = startX; x < endX; x++) {
+                final float distanceX = x + 0.5f - centreX;
+                final float distanceSquared = distanceX * distanceX + distanceY * distanceY;
+                if(distanceSquared <= outerSquared && distanceSquared >= innerSquared) {
+                    blend(row + x, colour);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draw text in the built in block font
+     *
+     * @param text      characters to draw from
+     * @param index     first character to draw
+     * @param count     number of characters to draw
+     * @param x         position of the text, see align
+     * @param y         baseline of the text
+     * @param textSize  text size in pixels
+     * @param align     whether x is the left, centre or right of the text
+     * @param colour    ARGB colour
+     */
+    public void drawText(char[] text, int index, int count, float x, float y, float textSize,
+                         DrawingStyle.TextAlign align, int colour) {
+        final float unit = textSize / UNITS_PER_TEXT_SIZE;
+        final float textWidth = (count * (GLYPH_WIDTH + 1) - 1) * unit;
+        float left = x;
+        if(align == DrawingStyle.TextAlign.CENTRE) {
+            left -= textWidth / 2f;
+        } else if(align == DrawingStyle.TextAlign.RIGHT) {
+            left -= textWidth;
+        }
+        final float top = y - GLYPH_HEIGHT * unit;
+
+        for(int i = 0; i < count; i++) {
+            final int glyphIndex = GLYPH_CHARACTERS.indexOf(text[index + i]);
+            final int glyph = glyphIndex < 0 ? UNKNOWN_GLYPH : GLYPHS[glyphIndex];
+            final float glyphLeft = left + i * (GLYPH_WIDTH + 1) * unit;
+            for(int row = 0; row < GLYPH_HEIGHT; row++) {
+                final int rowBits = glyph >> ((GLYPH_HEIGHT - 1 - row) * GLYPH_WIDTH);
+                for(int column = 0; column < GLYPH_WIDTH; column++) {
+                    if((rowBits & (1 << (GLYPH_WIDTH - 1 - column))) != 0) {
+                        fillRect(glyphLeft + column * unit, top + row * unit,
+                                glyphLeft + (column + 1) * unit, top + (row + 1) * unit, colour);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Stretch part of a pixel array over part of the surface, nearest neighbour
+     *
+     * @param source            pixels to draw, row by row
+     * @param stride            pixels in each row of the source
+     * @param sourceLeft        left column of the source to draw
+     * @param sourceTop         top row of the source to draw
+     * @param sourceRight       column after the last one to draw
+     * @param sourceBottom      row after the last one to draw
+     * @param destinationLeft   left edge of the area to draw over
+     * @param destinationTop    top edge of the area to draw over
+     * @param destinationRight  right edge of the area to draw over
+     * @param destinationBottom bottom edge of the area to draw over
+     */
+    public void drawPixels(int[] source, int stride, int sourceLeft, int sourceTop,
+                           int sourceRight, int sourceBottom, int destinationLeft,
+                           int destinationTop, int destinationRight, int destinationBottom) {
+        final int destinationWidth = destinationRight - destinationLeft;
+        final int destinationHeight = destinationBottom - destinationTop;
+        final int sourceWidth = sourceRight - sourceLeft;
+        final int sourceHeight = sourceBottom - sourceTop;
+        if(destinationWidth <= 0 || destinationHeight <= 0 || sourceWidth <= 0 ||
+                sourceHeight <= 0) {
+            return;
+        }
+
+        final int startX = Math.max(0, destinationLeft);
+        final int endX = Math.min(width, destinationRight);
+        final int startY = Math.max(0, destinationTop);
+        final int endY = Math.min(height, destinationBottom);
+
+        for(int y = startY; y < endY; y++) {
+            final int sourceY = sourceTop + (int) ((long) (y - destinationTop) * sourceHeight /
+                    destinationHeight);
+            final int sourceRow = sourceY * stride;
+            final int row = y * width;
+            for(int x = startX; x < endX; x++) {
+                final int sourceX = sourceLeft + (int) ((long) (x - destinationLeft) *
+                        sourceWidth / destinationWidth);
+                blend(row + x, source[sourceRow + sourceX]);
+            }
+        }
+    }
+
+    /**
+     * @param edge position of an edge
+     * @return first pixel whose centre is at or beyond the edge
+     */
+    private static int pixelStart(float edge) {
+        return (int) Math.ceil(edge - 0.5f);
+    }
+
+    private void plot(int x, int y, int colour) {
+        if(x >= 0 && x < width && y >= 0 && y < height) {
+            blend(y * width + x, colour);
+        }
+    }
+
+    /**
+     * Blend a colour over a pixel, source over
+     *
+     * @param index  index of the pixel
+     * @param colour ARGB colour to blend on top
+     */
+    private void blend(int index, int colour) {
+        final int alpha = colour >>> 24;
+        if(alpha == 0xFF) {
+            pixels[index] = colour;
+            return;
+        } else if(alpha == 0) {
+            return;
+        }
+
+        final int destination = pixels[index];
+        final int destinationWeight = (destination >>> 24) * (0xFF - alpha) / 0xFF;
+        final int outputAlpha = alpha + destinationWeight;
+
+        int output = outputAlpha << 24;
+        for(int shift = 0; shift < 24; shift += 8) {
+            final int channel = (((colour >> shift) & 0xFF) * alpha +
+                    ((destination >> shift) & 0xFF) * destinationWeight) / outputAlpha;
+            output |= channel << shift;
+        }
+        pixels[index] = output;
+    }
+}
@@ -0,0 +1,12 @@
+package com.nfx.android.graph.androidgraph;
+
+/**
+ * How a signal is drawn. line joins the points and draws a bar where a point covers a range of
+ * values, envelope fills the area between the minimum and maximum values as a single shape and
+ * phosphor keeps a fading persistence of previous buffers, like an analogue scope
+ */
+public enum RenderMode {
+    line,
+    envelope,
+    phosphor
+}
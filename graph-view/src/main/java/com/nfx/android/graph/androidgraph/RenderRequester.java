@@ -0,0 +1,11 @@
+package com.nfx.android.graph.androidgraph;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Implemented by objects which draw on request. Call when something on screen has changed
+ */
+public interface RenderRequester {
+    void requestRender();
+}
@@ -0,0 +1,294 @@
+package com.nfx.android.graph.androidgraph;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.Choreographer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Decides when the graph is drawn. A frame is only drawn after one has been requested, so nothing
+ * is drawn while the graph is static. On Jelly Bean and above frames are driven by the display
+ * through Choreographer, following whatever refresh rate the panel runs at. Below that a thread
+ * waits to be woken by a request. By default the frame rate is not capped. When a cap is set
+ * frames are drawn on every n-th display frame, n being the smallest whole number of display
+ * frames that keeps within the cap
+ */
+class RenderScheduler implements RenderRequester {
+    /**
+     * Maximum frame rate meaning the graph is drawn at the refresh rate of the display
+     */
+    static final int UNCAPPED = 0;
+    /**
+     * Used until the refresh rate of the display is known
+     */
+    private static final float DEFAULT_DISPLAY_REFRESH_RATE = 60f;
+    /**
+     * Draws a single frame
+     */
+    private final FrameDrawer frameDrawer;
+    /**
+     * Set when a frame has been requested and not yet drawn
+     */
+    private final AtomicBoolean frameRequested = new AtomicBoolean(false);
+    /**
+     * Used by the thread waiting for requests below Jelly Bean
+     */
+    private final Object requestLock = new Object();
+    private final boolean useChoreographer;
+    private volatile boolean running = false;
+    private volatile int maximumFrameRate = UNCAPPED;
+    private volatile float displayRefreshRate = DEFAULT_DISPLAY_REFRESH_RATE;
+    /**
+     * Number of display frames between drawn frames, worked out from the cap and refresh rate
+     */
+    private volatile int vsyncDivisor = 1;
+    private long lastFrameTimeNs = 0;
+    /**
+     * Thread the frames are drawn on
+     */
+    private HandlerThread renderThread;
+    private Thread fallbackThread;
+    private volatile Choreographer choreographer;
+    private Choreographer.FrameCallback frameCallback;
+
+    RenderScheduler(FrameDrawer frameDrawer) {
+        this(frameDrawer, Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN);
+    }
+
+    /**
+     * @param frameDrawer      draws each frame
+     * @param useChoreographer false to wait on requests with a thread, as below Jelly Bean
+     */
+    RenderScheduler(FrameDrawer frameDrawer, boolean useChoreographer) {
+        this.frameDrawer = frameDrawer;
+        this.useChoreographer = useChoreographer;
+    }
+
+    /**
+     * Start drawing frames, a first frame is drawn straight away
+     */
+    void start() {
+        if(running) {
+            return;
+        }
+        running = true;
+        frameRequested.set(false);
+
+        if(useChoreographer) {
+            startChoreographer();
+        } else {
+            fallbackThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    fallbackRun();
+                }
+            }, "Graph Render");
+            fallbackThread.start();
+            requestRender();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void startChoreographer() {
+        frameCallback = new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                onFrame(frameTimeNanos);
+            }
+        };
+
+        renderThread = new HandlerThread("Graph Render");
+        renderThread.start();
+        new Handler(renderThread.getLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                // Choreographer has to be created on the thread the frames are drawn on
+                choreographer = Choreographer.getInstance();
+                frameRequested.set(false);
+                requestRender();
+            }
+        });
+    }
+
+    /**
+     * Stop drawing frames and wait for the render thread to finish
+     */
+    void stop() {
+        running = false;
+
+        if(renderThread != null) {
+            renderThread.quit();
+            joinThread(renderThread);
+            renderThread = null;
+            choreographer = null;
+        }
+
+        if(fallbackThread != null) {
+            synchronized(requestLock) {
+                requestLock.notifyAll();
+            }
+            joinThread(fallbackThread);
+            fallbackThread = null;
+        }
+    }
+
+    private void joinThread(Thread thread) {
+        boolean retry = true;
+        while(retry) {
+            try {
+                thread.join();
+                retry = false;
+            } catch(InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Request a frame to be drawn, any number of requests before the next frame result in a
+     * single frame. Can be called from any thread
+     */
+    @Override
+    public void requestRender() {
+        if(!running || !frameRequested.compareAndSet(false, true)) {
+            return;
+        }
+
+        if(useChoreographer) {
+            postFrameCallback();
+        } else {
+            synchronized(requestLock) {
+                requestLock.notifyAll();
+            }
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void postFrameCallback() {
+        final Choreographer choreographer = this.choreographer;
+        // Before Choreographer is ready the request is picked up once it is created
+        if(choreographer != null) {
+            choreographer.postFrameCallback(frameCallback);
+        }
+    }
+
+    /**
+     * Called on the render thread each display frame that has been asked for
+     *
+     * @param frameTimeNanos time the frame started
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void onFrame(long frameTimeNanos) {
+        if(!running) {
+            return;
+        }
+
+        // Too few display frames since the last frame, try again on the next one
+        final int divisor = vsyncDivisor;
+        if(divisor > 1 && vsyncsBetween(lastFrameTimeNs, frameTimeNanos, displayRefreshRate) <
+                divisor) {
+            choreographer.postFrameCallback(frameCallback);
+            return;
+        }
+
+        lastFrameTimeNs = frameTimeNanos;
+        // Cleared before drawing so a change made during the frame gets a frame of its own
+        frameRequested.set(false);
+        frameDrawer.drawFrame();
+    }
+
+    /**
+     * Main loop of the render thread below Jelly Bean
+     */
+    private void fallbackRun() {
+        while(running) {
+            synchronized(requestLock) {
+                while(running && !frameRequested.get()) {
+                    try {
+                        requestLock.wait();
+                    } catch(InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+            if(!running) {
+                break;
+            }
+
+            final int maximumFrameRate = this.maximumFrameRate;
+            final long waitNs = maximumFrameRate == UNCAPPED ? 0 :
+                    lastFrameTimeNs + 1000000000L / maximumFrameRate - System.nanoTime();
+            if(waitNs > 0) {
+                try {
+                    Thread.sleep(waitNs / 1000000L, (int) (waitNs % 1000000L));
+                } catch(InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+
+            lastFrameTimeNs = System.nanoTime();
+            frameRequested.set(false);
+            frameDrawer.drawFrame();
+        }
+    }
+
+    /**
+     * @param maximumFrameRate highest number of frames drawn per second, UNCAPPED to draw at the
+     *                         refresh rate of the display
+     */
+    void setMaximumFrameRate(int maximumFrameRate) {
+        this.maximumFrameRate = Math.max(UNCAPPED, maximumFrameRate);
+        vsyncDivisor = vsyncDivisor(displayRefreshRate, this.maximumFrameRate);
+    }
+
+    int getMaximumFrameRate() {
+        return maximumFrameRate;
+    }
+
+    /**
+     * @param displayRefreshRate refresh rate of the display the graph is shown on in Hz
+     */
+    void setDisplayRefreshRate(float displayRefreshRate) {
+        if(displayRefreshRate <= 0) {
+            return;
+        }
+        this.displayRefreshRate = displayRefreshRate;
+        vsyncDivisor = vsyncDivisor(displayRefreshRate, maximumFrameRate);
+    }
+
+    /**
+     * @param displayRefreshRate refresh rate of the display in Hz
+     * @param maximumFrameRate   highest number of frames to draw per second, UNCAPPED for no cap
+     * @return smallest number of display frames between drawn frames that keeps within the cap
+     */
+    static int vsyncDivisor(float displayRefreshRate, int maximumFrameRate) {
+        if(maximumFrameRate == UNCAPPED) {
+            return 1;
+        }
+        // Refresh rates are reported slightly off the nominal rate, eg 59.94Hz
+        return Math.max(1, (int) Math.ceil(displayRefreshRate / maximumFrameRate - 0.01f));
+    }
+
+    /**
+     * @param lastFrameTimeNs    time of the last frame drawn
+     * @param frameTimeNs        time of the current display frame
+     * @param displayRefreshRate refresh rate of the display in Hz
+     * @return number of display frames between the two, rounded to allow for jitter
+     */
+    static long vsyncsBetween(long lastFrameTimeNs, long frameTimeNs, float displayRefreshRate) {
+        return Math.round((frameTimeNs - lastFrameTimeNs) * displayRefreshRate / 1e9);
+    }
+
+    /**
+     * Draws a frame on the render thread
+     */
+    interface FrameDrawer {
+        void drawFrame();
+    }
+}
@@ -1,18 +1,22 @@
 package com.nfx.android.graph.androidgraph;
 
-import android.graphics.Canvas;
 import android.graphics.Color;
 import android.support.annotation.Nullable;
+import android.util.Log;
 
 import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
-import com.nfx.android.graph.androidgraph.AxisScale.GraphParameters;
+
+import java.util.concurrent.Semaphore;
 
 /**
  * NFX Development
  * Created by nick on 25/10/15.
  * <p>
  * This object will draw a signal on screen. The object has the ability to draw either in a
- * logarithmic or linear fashion at runtime
+ * logarithmic or linear fashion at runtime. The line segments and the vertical bars for points
+ * covering a range of values are collected into vertex arrays and drawn with one call each.
+ * Working out the geometry is split from drawing it so the signals can be prepared on worker
+ * threads, the canvas is only touched from the render thread
  */
 class Signal extends DrawableObject {
     /**
@@ -20,22 +24,96 @@ class Signal extends DrawableObject {
      */
     private final SignalBufferInterface signalBufferInterface;
     /**
-     * x axis zoom to scale to
+     * Stroke width of line
      */
-    private final ZoomDisplay xZoomDisplay;
+    private final float strokeWidth = 4f;
     /**
-     * Parent graph View
+     * Style of the vertical bars, the stroke width is set to the point spacing so each bar
+     * fills its column
      */
-    private final GraphParameters graphParameters;
+    private final DrawingStyle barStyle = new DrawingStyle();
     /**
-     * Stroke width of line
+     * Style of the envelope render mode. The envelope is also stroked so a signal with no spread
+     * is still visible
      */
-    private final float strokeWidth = 4f;
+    private final DrawingStyle envelopeStyle = new DrawingStyle();
+    private static final String TAG = "Signal";
+    /**
+     * How the signal is drawn
+     */
+    private volatile RenderMode renderMode = RenderMode.line;
+    /**
+     * Persistence display, only created once the phosphor render mode is used. Created on the UI
+     * thread and used on the render thread, it is fully set up before being published
+     */
+    @Nullable
+    private volatile Phosphor phosphor = null;
+    /**
+     * Buffer update count last rasterised into the phosphor, each buffer is only added once
+     */
+    private int phosphorUpdateCount = -1;
+    /**
+     * Fraction of the phosphor intensity kept after each frame
+     */
+    private float phosphorDecay = 0.9f;
+    /**
+     * Asked for another frame while the phosphor is still fading
+     */
+    private volatile RenderRequester renderRequester;
+    /**
+     * How many points per on screen buffer. This is a screen width divisor
+     */
+    private int lineResolution = FrameBudgetController.DEFAULT_LINE_RESOLUTION;
     /**
      * As more than one point can represent multiple values a minimum and maximum buffer is used
      */
     private float[] drawBufferMinimumValues;
     private float[] drawBufferMaximumValues;
+    /**
+     * Start and end points of each line segment and bar, four floats per segment
+     */
+    private float[] lineVertices = new float[0];
+    private float[] barVertices = new float[0];
+    /**
+     * Corners of the envelope, along the maximum values and back along the minimum values
+     */
+    private float[] envelopeVertices = new float[0];
+    /**
+     * Geometry worked out by the last prepare, drawn by the next doDraw
+     */
+    private boolean prepared = false;
+    private RenderMode preparedRenderMode = RenderMode.line;
+    private int preparedLength = 0;
+    private int lineVertexCount = 0;
+    private int barVertexCount = 0;
+    /**
+     * State of the frame being drawn, set by beginFrame before the signal is prepared
+     */
+    private FrameState frameState;
+    /**
+     * Released once the signal has been prepared on a worker thread
+     */
+    private Semaphore prepareFinished;
+    /**
+     * Prepares the signal on a worker thread
+     */
+    private final Runnable prepareTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                prepare();
+            } finally {
+                prepareFinished.release();
+            }
+        }
+    };
+    /**
+     * Screen dimensions for the frame being drawn
+     */
+    private float screenLeft;
+    private float screenTop;
+    private float screenHeight;
+    private float spacing;
     /**
      * A line and point to show where the zero intercept of y is
      */
@@ -51,39 +129,166 @@ class Signal extends DrawableObject {
      * Constructor
      *
      * @param signalBufferInterface the buffer to be drawn
-     * @param graphParameters       axis parameters of the current graph
-     * @param xZoomDisplay          zoom object for the x axis
      */
-    Signal(GraphParameters graphParameters, SignalBufferInterface
-            signalBufferInterface, ZoomDisplay xZoomDisplay) {
-        this.graphParameters = graphParameters;
+    Signal(SignalBufferInterface signalBufferInterface) {
         this.signalBufferInterface = signalBufferInterface;
-        this.xZoomDisplay = xZoomDisplay;
 
         int mColor = Color.YELLOW;
-        paint.setColor(mColor);
-        paint.setStrokeWidth(strokeWidth);
-        paint.setAntiAlias(true);
+        style.setColour(mColor);
+        style.setStrokeWidth(strokeWidth);
+        style.setAntiAlias(true);
+
+        barStyle.setColour(mColor);
+        barStyle.setStyle(DrawingStyle.Style.STROKE);
+        barStyle.setAntiAlias(true);
+
+        envelopeStyle.setColour(mColor);
+        envelopeStyle.setStyle(DrawingStyle.Style.FILL_AND_STROKE);
+        envelopeStyle.setStrokeWidth(strokeWidth);
+        envelopeStyle.setAntiAlias(true);
     }
 
     /**
-     * Call to draw the signal on screen
+     * Call to draw the signal on screen. If the signal has not been prepared since it was last
+     * drawn it is prepared first
      *
-     * @param canvas a canvas to draw onto
+     * @param drawingSurface surface to draw onto
+     * @param frameState state of the frame being drawn
      */
     @Override
-    public void doDraw(Canvas canvas) {
-        AxisParameters xAxisParameters = graphParameters.getXAxisParameters();
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
+        if(!prepared) {
+            this.frameState = frameState;
+            prepare();
+        }
+        prepared = false;
+
+        if(preparedRenderMode == RenderMode.phosphor) {
+            final Phosphor phosphor = this.phosphor;
+            if(phosphor != null) {
+                phosphor.doDraw(drawingSurface);
+            }
+        } else if(preparedRenderMode == RenderMode.envelope) {
+            if(preparedLength > 0) {
+                drawingSurface.drawPolygon(envelopeVertices, preparedLength * 4, envelopeStyle);
+            }
+        } else {
+            if(lineVertexCount > 0) {
+                drawingSurface.drawLines(lineVertices, 0, lineVertexCount, style);
+            }
+            if(barVertexCount > 0) {
+                barStyle.setStrokeWidth(spacing);
+                drawingSurface.drawLines(barVertices, 0, barVertexCount, barStyle);
+            }
+        }
+
+        if(yAxisZeroIntercept != null) {
+            yAxisZeroIntercept.doDraw(drawingSurface, frameState);
+        }
+
+        if(triggerLevelLabelPointer != null) {
+            triggerLevelLabelPointer.doDraw(drawingSurface, frameState);
+        }
+    }
+
+    /**
+     * Take the newest signal buffer for the frame about to be drawn, must be called on the
+     * render thread before prepare
+     *
+     * @param frameState state of the frame about to be drawn
+     */
+    void beginFrame(FrameState frameState) {
+        this.frameState = frameState;
+        signalBufferInterface.beginFrame();
+    }
 
-        float lowerX = xAxisParameters.getMinimumValue() +
-                (xAxisParameters.getAxisSpan() * xZoomDisplay.getDisplayOffsetPercentage());
-        float higherX = xAxisParameters.getMinimumValue() +
-                (xAxisParameters.getAxisSpan() * xZoomDisplay.getFarSideOffsetPercentage());
+    /**
+     * Scale the signal buffer to the screen and work out the geometry to draw. Does not touch
+     * the canvas so can be called from any thread, but not at the same time as doDraw
+     */
+    void prepare() {
+        final FrameState frameState = this.frameState;
+        final AxisParameters xAxisParameters = frameState.xAxisParameters;
+        final float lowerX = frameState.lowerXValue;
+        final float higherX = frameState.higherXValue;
+
+        preparedRenderMode = renderMode;
+        preparedLength = 0;
+        lineVertexCount = 0;
+        barVertexCount = 0;
+        prepared = true;
+
+        if(preparedRenderMode == RenderMode.phosphor) {
+            preparePhosphor(lowerX, higherX, xAxisParameters);
+            return;
+        }
 
         signalBufferInterface.getScaledMinimumMaximumBuffers(drawBufferMinimumValues,
                 drawBufferMaximumValues, lowerX, higherX, xAxisParameters);
 
         int drawBufferLength = drawBufferMinimumValues.length;
+        if(drawBufferLength < 2) {
+            return;
+        }
+        preparedLength = drawBufferLength;
+
+        screenLeft = (float) getDrawableArea().getLeft();
+        screenTop = (float) getDrawableArea().getTop();
+        screenHeight = (float) getDrawableArea().getHeight();
+        spacing = (float) getDrawableArea().getWidth() / (float) (drawBufferLength - 1);
+
+        if(preparedRenderMode == RenderMode.envelope) {
+            prepareEnvelope(drawBufferLength);
+        } else {
+            prepareLines(drawBufferLength);
+        }
+    }
+
+    /**
+     * Add the buffer to the phosphor at the phosphor resolution, only when the buffer has changed
+     * so redrawing the same buffer does not brighten it. The phosphor fades every frame, another
+     * frame is requested while it is still lit so the glow fades out once the input stops
+     *
+     * @param lowerX          lowest x value on screen
+     * @param higherX         highest x value on screen
+     * @param xAxisParameters x axis of the graph
+     */
+    private void preparePhosphor(float lowerX, float higherX, AxisParameters xAxisParameters) {
+        final Phosphor phosphor = this.phosphor;
+        if(phosphor == null) {
+            return;
+        }
+
+        final int updateCount = signalBufferInterface.getUpdateCount();
+        if(updateCount != phosphorUpdateCount) {
+            phosphorUpdateCount = updateCount;
+            phosphor.addTrace(signalBufferInterface, lowerX, higherX, xAxisParameters);
+        }
+
+        final RenderRequester renderRequester = this.renderRequester;
+        if(phosphor.fade() && renderRequester != null) {
+            renderRequester.requestRender();
+        }
+    }
+
+    /**
+     * @param finished released once the signal has been prepared
+     * @return task which prepares the signal on a worker thread
+     */
+    Runnable getPrepareTask(Semaphore finished) {
+        prepareFinished = finished;
+        return prepareTask;
+    }
+
+    /**
+     * Work out the line segments, with a bar for the points which cover a range of values
+     *
+     * @param drawBufferLength number of points in the draw buffers
+     */
+    private void prepareLines(int drawBufferLength) {
+        final float screenBottom = screenTop + screenHeight;
+        int lineVertexCount = 0;
+        int barVertexCount = 0;
 
         for(int i = 0; i < (drawBufferLength - 1); i++) {
             float minimumY = drawBufferMinimumValues[i];
@@ -99,70 +304,71 @@ class Signal extends DrawableObject {
 
             if(minimumY >= nextMinimumY && maximumY >= nextMaximumY && minimumY >= nextMaximumY) {
                 // If the values would draw an ascending line
-                doDrawLine(canvas, maximumY, nextMinimumY, i, drawBufferLength);
+                lineVertexCount = addLine(maximumY, nextMinimumY, i, lineVertexCount);
             } else if(minimumY <= nextMinimumY && maximumY <= nextMaximumY && maximumY <=
                     nextMaximumY) {
                 // If the values would draw an descending line
-                doDrawLine(canvas, minimumY, nextMaximumY, i, drawBufferLength);
+                lineVertexCount = addLine(minimumY, nextMaximumY, i, lineVertexCount);
             } else {
-                // If no line can be drawn just draw a rect of the current value
-                float screenLeft = (float) getDrawableArea().getLeft();
-                float screenHeight = (float) getDrawableArea().getHeight();
-                float screenWidth = (float) getDrawableArea().getWidth();
-                float screenTop = (float) getDrawableArea().getTop();
-
-                float spacing = screenWidth / (float) (drawBufferLength - 1);
-
-                float bottom = screenTop + screenHeight - (screenHeight * minimumY);
-                float left = screenLeft + (spacing * i);
-                float top = screenTop + screenHeight - (screenHeight * maximumY);
-                float right = screenLeft + (spacing * (i + 1));
+                // If no line can be drawn just draw a bar of the current value
+                float bottom = screenBottom - (screenHeight * minimumY);
+                float top = screenBottom - (screenHeight * maximumY);
 
                 // Ensure something can be seen
                 float centre = bottom - top;
                 if(centre < strokeWidth) {
-                    bottom = bottom + (centre / 2) + (strokeWidth / 2);
-                    top = top - (centre / 2) - (strokeWidth / 2);
+                    bottom = Math.min(bottom + (centre / 2) + (strokeWidth / 2), screenBottom);
+                    top = Math.max(top - (centre / 2) - (strokeWidth / 2), screenTop);
                 }
 
-                canvas.drawRect(getDrawableArea().checkLimitX(left),
-                        getDrawableArea().checkLimitY(top),
-                        getDrawableArea().checkLimitX(right),
-                        getDrawableArea().checkLimitY(bottom), paint);
+                final float x = screenLeft + (spacing * i) + (spacing / 2f);
+                barVertices[barVertexCount++] = x;
+                barVertices[barVertexCount++] = top;
+                barVertices[barVertexCount++] = x;
+                barVertices[barVertexCount++] = bottom;
             }
         }
 
-        if(yAxisZeroIntercept != null) {
-            yAxisZeroIntercept.doDraw(canvas);
-        }
+        this.lineVertexCount = lineVertexCount;
+        this.barVertexCount = barVertexCount;
+    }
 
-        if(triggerLevelLabelPointer != null) {
-            triggerLevelLabelPointer.doDraw(canvas);
+    /**
+     * Work out the envelope as one closed shape, along the maximum values and back along the
+     * minimum values
+     *
+     * @param drawBufferLength number of points in the draw buffers
+     */
+    private void prepareEnvelope(int drawBufferLength) {
+        final float screenBottom = screenTop + screenHeight;
+
+        int vertexCount = 0;
+        for(int i = 0; i < drawBufferLength; i++) {
+            envelopeVertices[vertexCount++] = screenLeft + (spacing * i);
+            envelopeVertices[vertexCount++] =
+                    screenBottom - (screenHeight * checkInBounds(drawBufferMaximumValues[i]));
+        }
+        for(int i = drawBufferLength - 1; i >= 0; i--) {
+            envelopeVertices[vertexCount++] = screenLeft + (spacing * i);
+            envelopeVertices[vertexCount++] =
+                    screenBottom - (screenHeight * checkInBounds(drawBufferMinimumValues[i]));
         }
     }
 
     /**
-     * Draw a straight graph line from startY to endY. The x dimensions are calculated from
-     * bufferIndex to bufferIndex+1
+     * Add a straight graph line from startY to endY to the line vertices. The x dimensions are
+     * calculated from bufferIndex to bufferIndex+1
      *
-     * @param canvas       canvas to draw onto
-     * @param startY       starting position on Y axis
-     * @param endY         end position on Y axis
-     * @param bufferIndex  index drawing in buffer
-     * @param bufferLength length of buffer
-     */
-    private void doDrawLine(Canvas canvas, float startY, float endY, int bufferIndex,
-                            int bufferLength) {
+     * @param startY      starting position on Y axis
+     * @param endY        end position on Y axis
+     * @param bufferIndex index drawing in buffer
+     * @param vertexCount number of line vertices added so far
+     * @return number of line vertices after the line is added
+     */
+    private int addLine(float startY, float endY, int bufferIndex, int vertexCount) {
         // If both positions are off screen do not try and draw
         if((startY < 1f || endY < 1f) &&
                 (startY > 0f || endY > 0f)) {
-            float screenLeft = (float) getDrawableArea().getLeft();
-            float screenHeight = (float) getDrawableArea().getHeight();
-            float screenWidth = (float) getDrawableArea().getWidth();
-            float screenTop = (float) getDrawableArea().getTop();
-
-            float spacing = screenWidth / (float) (bufferLength - 1);
-
             float startX = (float) bufferIndex;
             float endX = (float) (bufferIndex + 1);
 
@@ -204,11 +410,13 @@ class Signal extends DrawableObject {
             float drawEndPosY = screenTop + screenHeight - (screenHeight * endY);
             float drawEndPosX = screenLeft + (spacing * endX);
 
-            canvas.drawLine(getDrawableArea().checkLimitX(drawStartPosX),
-                    getDrawableArea().checkLimitY(drawStartPosY),
-                    getDrawableArea().checkLimitX(drawEndPosX),
-                    getDrawableArea().checkLimitY(drawEndPosY), paint);
+            // Both ends have been clipped to the screen so no further limit check is needed
+            lineVertices[vertexCount++] = drawStartPosX;
+            lineVertices[vertexCount++] = drawStartPosY;
+            lineVertices[vertexCount++] = drawEndPosX;
+            lineVertices[vertexCount++] = drawEndPosY;
         }
+        return vertexCount;
     }
 
     /**
@@ -229,12 +437,7 @@ class Signal extends DrawableObject {
     @Override
     public void surfaceChanged(DrawableArea drawableArea) {
         super.surfaceChanged(drawableArea);
-        /*
-      How many points per on screen buffer. This is a screen width divisor
-     */
-        int mLineResolution = 4;
-        drawBufferMinimumValues = new float[getDrawableArea().getWidth() / mLineResolution];
-        drawBufferMaximumValues = new float[getDrawableArea().getWidth() / mLineResolution];
+        allocateDrawBuffers();
 
         if(yAxisZeroIntercept != null) {
             yAxisZeroIntercept.surfaceChanged(drawableArea);
@@ -243,6 +446,36 @@ class Signal extends DrawableObject {
         if(triggerLevelLabelPointer != null) {
             triggerLevelLabelPointer.surfaceChanged(drawableArea);
         }
+
+        final Phosphor phosphor = this.phosphor;
+        if(phosphor != null) {
+            phosphor.surfaceChanged(getDrawableArea());
+        }
+    }
+
+    /**
+     * Size the draw buffers for the current width and line resolution
+     */
+    private void allocateDrawBuffers() {
+        final int numberOfPoints = getDrawableArea().getWidth() / lineResolution;
+        drawBufferMinimumValues = new float[numberOfPoints];
+        drawBufferMaximumValues = new float[numberOfPoints];
+        lineVertices = new float[Math.max(0, numberOfPoints - 1) * 4];
+        barVertices = new float[Math.max(0, numberOfPoints - 1) * 4];
+        envelopeVertices = new float[numberOfPoints * 4];
+    }
+
+    /**
+     * Change how many points the signal is drawn with, call on the render thread between frames
+     *
+     * @param lineResolution pixels per point, the screen width divisor
+     */
+    void setLineResolution(int lineResolution) {
+        if(lineResolution < 1 || lineResolution == this.lineResolution) {
+            return;
+        }
+        this.lineResolution = lineResolution;
+        allocateDrawBuffers();
     }
 
     /**
@@ -255,6 +488,62 @@ class Signal extends DrawableObject {
 
     }
 
+    @Override
+    public void setColour(int colour) {
+        super.setColour(colour);
+        barStyle.setColour(colour);
+        envelopeStyle.setColour(colour);
+        final Phosphor phosphor = this.phosphor;
+        if(phosphor != null) {
+            phosphor.setColour(colour);
+        }
+    }
+
+    RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    /**
+     * @param renderMode how the signal should be drawn
+     */
+    void setRenderMode(RenderMode renderMode) {
+        synchronized(this) {
+            if(renderMode == RenderMode.phosphor && phosphor == null) {
+                Phosphor phosphor = new Phosphor(getColour());
+                phosphor.setDecay(phosphorDecay);
+                phosphor.surfaceChanged(getDrawableArea());
+                this.phosphor = phosphor;
+            }
+            this.renderMode = renderMode;
+        }
+    }
+
+    /**
+     * Set how quickly the phosphor fades. If the decay is not between 0 and 1 it will not be set
+     * and a Log error is displayed.
+     *
+     * @param decay fraction of the phosphor intensity kept after each frame, 0-1
+     */
+    void setPhosphorDecay(float decay) {
+        if(!Phosphor.isValidDecay(decay)) {
+            Log.e(TAG, "Phosphor decay " + decay + " is not between 0 and 1");
+            return;
+        }
+        synchronized(this) {
+            phosphorDecay = decay;
+            if(phosphor != null) {
+                phosphor.setDecay(decay);
+            }
+        }
+    }
+
+    /**
+     * @param renderRequester asked for another frame while the phosphor is fading
+     */
+    void setRenderRequester(RenderRequester renderRequester) {
+        this.renderRequester = renderRequester;
+    }
+
     /**
      * @return the interface to the signal buffer
      */
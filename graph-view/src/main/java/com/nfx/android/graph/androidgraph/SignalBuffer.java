@@ -3,30 +3,76 @@ package com.nfx.android.graph.androidgraph;
 import android.util.Log;
 
 import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
+import com.nfx.android.graph.androidgraph.AxisScale.AxisTransform;
 import com.nfx.android.graph.graphbufferinput.InputListener;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * NFX Development
  * Created by nick on 31/10/15.
  * <p>
  * A signal buffer holds a buffer with additional information on how it should be displayed on
  * screen. This can be used to pass buffer information between graphical and input objects.
+ * <p>
+ * The buffer is triple buffered. The input writes into its own buffer and publishes it with a
+ * single atomic swap, the render thread takes the newest published buffer at the start of each
+ * frame with beginFrame and reads it for the rest of the frame without locking
  */
 @SuppressWarnings("WeakerAccess")
 public class SignalBuffer extends InputListener implements SignalBufferInterface {
     private static final String TAG = "SignalBuffer";
+    /**
+     * Set alongside the published index until the render thread has taken the buffer
+     */
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
     /**
      * Information about the scaling of signal in the y axis
      */
     private final ZoomDisplay yZoomDisplay;
     /**
-     * The Parameters of the axis'
+     * The Parameters of the axis', replaced rather than changed when the input moves axis
+     */
+    private volatile AxisParameters xAxisParameters;
+    /**
+     * Three buffers of given size which is worked out at runtime. This data is normalized 0-1
+     */
+    private volatile float[][] buffers;
+    /**
+     * Buffer the input writes into, only used by the input while holding the lock
+     */
+    private int writeIndex = 0;
+    /**
+     * Newest complete buffer, with FRESH set until the render thread takes it
+     */
+    private final AtomicInteger publishedIndex = new AtomicInteger(1);
+    /**
+     * Buffer being drawn, only used by the render thread
      */
-    private final AxisParameters xAxisParameters;
+    private int frameIndex = 2;
     /**
-     * buffer of given size which is worked out at runtime. This data is normalized 0-1
+     * Buffer and y zoom taken by beginFrame, used for the whole frame
      */
-    private float[] buffer;
+    private float[] frameBuffer;
+    private float frameYZoomLevelPercentage = 1f;
+    private float frameYDisplayOffsetPercentage = 0f;
+    /**
+     * Reused by calculateBufferIndexes, only used by the thread preparing this signal
+     */
+    private float[] bufferIndexes = new float[0];
+    /**
+     * Asked for a new frame whenever the buffer changes
+     */
+    private volatile RenderRequester renderRequester;
+    /**
+     * Capture time of the newest sample in the buffer, 0 when not known
+     */
+    private volatile long captureTimeNs = 0;
+    /**
+     * Incremented each time the buffer changes
+     */
+    private volatile int updateCount = 0;
     /**
      * Constructor
      *
@@ -37,11 +83,39 @@ public class SignalBuffer extends InputListener implements SignalBufferInterface
     public SignalBuffer(int sizeOfBuffer, AxisParameters xAxisParameters, ZoomDisplay zoomDisplay) {
         this.xAxisParameters = xAxisParameters;
 
-        buffer = new float[sizeOfBuffer];
+        buffers = new float[][]{new float[sizeOfBuffer], new float[sizeOfBuffer],
+                new float[sizeOfBuffer]};
+        frameBuffer = buffers[frameIndex];
 
         yZoomDisplay = zoomDisplay;
     }
 
+    /**
+     * Take the newest published buffer and the current y zoom for the frame about to be drawn.
+     * Only call from the render thread, before any of the scaled buffers are asked for
+     */
+    @Override
+    public void beginFrame() {
+        final float[][] buffers = this.buffers;
+        if((publishedIndex.get() & FRESH) != 0) {
+            frameIndex = publishedIndex.getAndSet(frameIndex) & INDEX_MASK;
+        }
+        frameBuffer = buffers[frameIndex];
+
+        final long yZoomState = yZoomDisplay.getZoomState();
+        frameYZoomLevelPercentage = ZoomDisplay.zoomLevelOf(yZoomState);
+        frameYDisplayOffsetPercentage = ZoomDisplay.displayOffsetOf(yZoomState);
+    }
+
+    /**
+     * Make the buffer just written the newest published buffer and take the previous one to
+     * write into next. Call while holding the lock
+     */
+    private void publish() {
+        writeIndex = publishedIndex.getAndSet(writeIndex | FRESH) & INDEX_MASK;
+        updateCount++;
+    }
+
     /**
      * This will return a buffer with the desired {@code numberOfPoints} size. It will
      * logarithmically scale (if required)  the buffer so the receiving buffer can plot in a linear
@@ -64,74 +138,72 @@ public class SignalBuffer extends InputListener implements SignalBufferInterface
         }
 
         int numberOfPoints = minimumValuesBuffer.length;
+        final float[] buffer = frameBuffer;
+        final float yDisplayOffsetPercentage = frameYDisplayOffsetPercentage;
+        final float yZoomLevelPercentage = frameYZoomLevelPercentage;
+
+        final float[] bufferIndexes = calculateBufferIndexes(minimumXValue, maximumXValue,
+                scaleToParameters, numberOfPoints, buffer.length);
+
+        for(int i = 0; i < numberOfPoints; i++) {
+            // The array index to read from, bufferIndexes starts one point before the first
+            float centreOffset = bufferIndexes[i + 1];
+            float averageFromLowerIndex = bufferIndexes[i];
+            float averageFromHigherIndex = bufferIndexes[i + 2];
+
+            // Work out the point falling between the centre and next offset and also the centre
+            // and last offset
+            float lowBound = centreOffset + ((averageFromLowerIndex - centreOffset) / 2f);
+            float highBound = centreOffset + ((averageFromHigherIndex - centreOffset) / 2f);
+
+            // If the point falls between 2 array indexes and the band is displaying less than
+            // two array points, then calculate the gradient for the crossing point at the
+            // current position. This smooths out the lower frequencies
+            if(centreOffset - lowBound < 2f && highBound - centreOffset < 2f) {
+                float arrayPosRemainder = centreOffset % 1;
+
+                if(arrayPosRemainder == 0) {
+                    maximumValuesBuffer[i] = minimumValuesBuffer[i] =
+                            (buffer[(int) centreOffset]
+                                    - yDisplayOffsetPercentage)
+                                    / yZoomLevelPercentage;
+                } else {
+                    int lowerPosition = (int) Math.floor(centreOffset);
+                    int upperPosition = (int) Math.ceil(centreOffset);
+
+                    float lowerValue = buffer[lowerPosition];
+                    float upperValue = buffer[upperPosition];
+
+                    maximumValuesBuffer[i] = minimumValuesBuffer[i] =
+                            (lowerValue + ((upperValue - lowerValue) * arrayPosRemainder)
+                                    - yDisplayOffsetPercentage)
+                                    / yZoomLevelPercentage;
+                }
+            } else { // If we are displaying more than 2 frequencies at a given point then
+                // display the average
+                int roundedLowBound = Math.round(lowBound);
+                int roundedHighBound = Math.round(highBound);
+                if(roundedLowBound < 0) {
+                    roundedLowBound = 0;
+                }
+                if(roundedHighBound > (buffer.length - 1)) {
+                    roundedHighBound = (buffer.length - 1);
+                }
 
-        synchronized(this) {
-            for(int i = 0; i < numberOfPoints; i++) {
-                // Calculate the array index to read from
-                float centreOffset = scaledIndexBufferIndex(i, minimumXValue, maximumXValue,
-                        scaleToParameters, numberOfPoints);
-                float averageFromLowerIndex = scaledIndexBufferIndex(i - 1, minimumXValue,
-                        maximumXValue, scaleToParameters,
-                        numberOfPoints);
-                float averageFromHigherIndex = scaledIndexBufferIndex(i + 1, minimumXValue,
-                        maximumXValue, scaleToParameters,
-                        numberOfPoints);
-
-                // Work out the point falling between the centre and next offset and also the centre
-                // and last offset
-                float lowBound = centreOffset + ((averageFromLowerIndex - centreOffset) / 2f);
-                float highBound = centreOffset + ((averageFromHigherIndex - centreOffset) / 2f);
-
-                // If the point falls between 2 array indexes and the band is displaying less than
-                // two array points, then calculate the gradient for the crossing point at the
-                // current position. This smooths out the lower frequencies
-                if(centreOffset - lowBound < 2f && highBound - centreOffset < 2f) {
-                    float arrayPosRemainder = centreOffset % 1;
-
-                    if(arrayPosRemainder == 0) {
-                        maximumValuesBuffer[i] = minimumValuesBuffer[i] =
-                                (buffer[(int) centreOffset]
-                                        - yZoomDisplay.getDisplayOffsetPercentage())
-                                        / yZoomDisplay.getZoomLevelPercentage();
-                    } else {
-                        int lowerPosition = (int) Math.floor(centreOffset);
-                        int upperPosition = (int) Math.ceil(centreOffset);
-
-                        float lowerValue = buffer[lowerPosition];
-                        float upperValue = buffer[upperPosition];
-
-                        maximumValuesBuffer[i] = minimumValuesBuffer[i] =
-                                (lowerValue + ((upperValue - lowerValue) * arrayPosRemainder)
-                                        - yZoomDisplay.getDisplayOffsetPercentage())
-                                        / yZoomDisplay.getZoomLevelPercentage();
-                    }
-                } else { // If we are displaying more than 2 frequencies at a given point then
-                    // display the average
-                    int roundedLowBound = Math.round(lowBound);
-                    int roundedHighBound = Math.round(highBound);
-                    if(roundedLowBound < 0) {
-                        roundedLowBound = 0;
-                    }
-                    if(roundedHighBound > (buffer.length - 1)) {
-                        roundedHighBound = (buffer.length - 1);
-                    }
-
-                    // Get the minimum value
-                    float displayValue = minimumValueForGivenRange(roundedLowBound,
-                            roundedHighBound);
-
-                    minimumValuesBuffer[i] = (displayValue - yZoomDisplay
-                            .getDisplayOffsetPercentage())
-                            / yZoomDisplay.getZoomLevelPercentage();
-
-                    // Get the maximum value
-                    displayValue = maximumValueForGivenRange(roundedLowBound, roundedHighBound);
-
-                    maximumValuesBuffer[i] = (displayValue - yZoomDisplay
-                            .getDisplayOffsetPercentage())
-                            / yZoomDisplay.getZoomLevelPercentage();
+                // Get the minimum value
+                float displayValue = minimumValueForGivenRange(buffer, roundedLowBound,
+                        roundedHighBound);
+
+                minimumValuesBuffer[i] = (displayValue - yDisplayOffsetPercentage)
+                        / yZoomLevelPercentage;
+
+                // Get the maximum value
+                displayValue = maximumValueForGivenRange(buffer, roundedLowBound,
+                        roundedHighBound);
+
+                maximumValuesBuffer[i] = (displayValue - yDisplayOffsetPercentage)
+                        / yZoomLevelPercentage;
 
-                }
             }
         }
 
@@ -150,159 +222,186 @@ public class SignalBuffer extends InputListener implements SignalBufferInterface
                          AxisParameters scaleToParameters) {
 
         int numberOfPoints = scaledBuffer.length;
+        final float[] buffer = frameBuffer;
+        final float yDisplayOffsetPercentage = frameYDisplayOffsetPercentage;
+        final float yZoomLevelPercentage = frameYZoomLevelPercentage;
+
+        final float[] bufferIndexes = calculateBufferIndexes(minimumValue, maximumValue,
+                scaleToParameters, numberOfPoints, buffer.length);
+
+        for(int i = 0; i < numberOfPoints; i++) {
+            // The array index to read from, bufferIndexes starts one point before the first
+            float centreOffset = bufferIndexes[i + 1];
+            float averageFromLowerIndex = bufferIndexes[i];
+            float averageFromHigherIndex = bufferIndexes[i + 2];
+
+            // Work out the point falling between the centre and next offset and also the centre
+            // and last offset
+            float lowBound = centreOffset + ((averageFromLowerIndex - centreOffset) / 2f);
+            float highBound = centreOffset + ((averageFromHigherIndex - centreOffset) / 2f);
+
+            float ceilLowBound = (float) Math.ceil(lowBound);
+            float ceilHighBound = (float) Math.ceil(highBound);
+            float ceilCentre = (float) Math.ceil(centreOffset);
+
+            // If the point falls between 2 array indexes and the band is displaying less than
+            // two array points, then calculate the gradient for the crossing point at the
+            // current position. This smooths out the lower frequencies
+            if(ceilCentre - ceilLowBound < 2f && ceilHighBound - ceilCentre < 2f) {
+                float arrayPosRemainder = centreOffset % 1;
+
+                if(arrayPosRemainder == 0) {
+                    scaledBuffer[i] = (buffer[(int) centreOffset]
+                            - yDisplayOffsetPercentage)
+                            / yZoomLevelPercentage;
+                } else {
+                    int lowerPosition = (int) Math.floor(centreOffset);
+                    int upperPosition = (int) Math.ceil(centreOffset);
+
+                    float lowerValue = buffer[lowerPosition];
+                    float upperValue = buffer[upperPosition];
+
+                    scaledBuffer[i] = (lowerValue + ((upperValue - lowerValue) *
+                            arrayPosRemainder)
+                            - yDisplayOffsetPercentage)
+                            / yZoomLevelPercentage;
+                }
+            } else { // If we are displaying more than 2 frequencies at a given point then
+                // display the average
+                int roundedLowBound = Math.round(lowBound);
+                int roundedHighBound = Math.round(highBound);
+                if(roundedLowBound < 0) {
+                    roundedLowBound = 0;
+                }
+                if(roundedHighBound > (buffer.length - 1)) {
+                    roundedHighBound = (buffer.length - 1);
+                }
 
-        synchronized(this) {
-            for(int i = 0; i < numberOfPoints; i++) {
-                // Calculate the array index to read from
-                float centreOffset = scaledIndexBufferIndex(i, minimumValue, maximumValue,
-                        scaleToParameters, numberOfPoints);
-                float averageFromLowerIndex = scaledIndexBufferIndex(i - 1, minimumValue,
-                        maximumValue, scaleToParameters,
-                        numberOfPoints);
-                float averageFromHigherIndex = scaledIndexBufferIndex(i + 1, minimumValue,
-                        maximumValue, scaleToParameters,
-                        numberOfPoints);
-
-                // Work out the point falling between the centre and next offset and also the centre
-                // and last offset
-                float lowBound = centreOffset + ((averageFromLowerIndex - centreOffset) / 2f);
-                float highBound = centreOffset + ((averageFromHigherIndex - centreOffset) / 2f);
-
-                float ceilLowBound = (float) Math.ceil(lowBound);
-                float ceilHighBound = (float) Math.ceil(highBound);
-                float ceilCentre = (float) Math.ceil(centreOffset);
-
-                // If the point falls between 2 array indexes and the band is displaying less than
-                // two array points, then calculate the gradient for the crossing point at the
-                // current position. This smooths out the lower frequencies
-                if(ceilCentre - ceilLowBound < 2f && ceilHighBound - ceilCentre < 2f) {
-                    float arrayPosRemainder = centreOffset % 1;
-
-                    if(arrayPosRemainder == 0) {
-                        scaledBuffer[i] = (buffer[(int) centreOffset]
-                                - yZoomDisplay.getDisplayOffsetPercentage())
-                                / yZoomDisplay.getZoomLevelPercentage();
-                    } else {
-                        int lowerPosition = (int) Math.floor(centreOffset);
-                        int upperPosition = (int) Math.ceil(centreOffset);
-
-                        float lowerValue = buffer[lowerPosition];
-                        float upperValue = buffer[upperPosition];
-
-                        scaledBuffer[i] = (lowerValue + ((upperValue - lowerValue) *
-                                arrayPosRemainder)
-                                - yZoomDisplay.getDisplayOffsetPercentage())
-                                / yZoomDisplay.getZoomLevelPercentage();
-                    }
-                } else { // If we are displaying more than 2 frequencies at a given point then
-                    // display the average
-                    int roundedLowBound = Math.round(lowBound);
-                    int roundedHighBound = Math.round(highBound);
-                    if(roundedLowBound < 0) {
-                        roundedLowBound = 0;
-                    }
-                    if(roundedHighBound > (buffer.length - 1)) {
-                        roundedHighBound = (buffer.length - 1);
-                    }
-
-                    float displayValue = maximumValueForGivenRange(roundedLowBound,
-                            roundedHighBound);
-
-                    scaledBuffer[i] = (displayValue - yZoomDisplay.getDisplayOffsetPercentage())
-                            / yZoomDisplay.getZoomLevelPercentage();
+                float displayValue = maximumValueForGivenRange(buffer, roundedLowBound,
+                        roundedHighBound);
+
+                scaledBuffer[i] = (displayValue - yDisplayOffsetPercentage)
+                        / yZoomLevelPercentage;
 
-                }
             }
         }
     }
 
     /**
-     * Return the raw buffer
+     * Return the raw buffer taken for the current frame
      *
      * @return float array with raw information
      */
     @Override
     public float[] getUnscaledBuffer() {
-        return buffer;
+        return frameBuffer;
     }
 
 
     /**
-     * This will return a value for a given position in the buffer.
+     * This will return a value for a given position in the buffer taken for the current frame.
      *
      * @param scalePosition value between mMinimumX and mMaximumX
      * @return the value at given position
      */
     public float getValueAtPosition(float scalePosition) {
+        final AxisParameters xAxisParameters = this.xAxisParameters;
         if(scalePosition < xAxisParameters.getMinimumValue() ||
                 scalePosition > xAxisParameters.getMaximumValue()) {
             return 0;
         }
-        // Determine position in the buffer
-        float percentageOffset = (scalePosition - xAxisParameters.getMinimumValue()) /
-                xAxisParameters.getAxisSpan();
+        // Determine position in the buffer, the buffer may be linearly or logarithmically spaced
+        float percentageOffset = xAxisParameters.scaledAxisToGraphPosition(scalePosition);
 
-        synchronized(this) {
-            float bufferIndexToRead = percentageOffset * (float) (getSizeOfBuffer() - 1);
+        final float[] buffer = frameBuffer;
+        float bufferIndexToRead = percentageOffset * (float) (buffer.length - 1);
 
-            float arrayPosRemainder = bufferIndexToRead % 1;
+        float arrayPosRemainder = bufferIndexToRead % 1;
 
-            if(arrayPosRemainder == 0) {
-                return (buffer[(int) bufferIndexToRead]
-                        - yZoomDisplay.getDisplayOffsetPercentage())
-                        / yZoomDisplay.getZoomLevelPercentage();
-            } else {
-                int lowerPosition = (int) Math.floor(bufferIndexToRead);
-                int upperPosition = (int) Math.ceil(bufferIndexToRead);
+        if(arrayPosRemainder == 0) {
+            return (buffer[(int) bufferIndexToRead]
+                    - frameYDisplayOffsetPercentage)
+                    / frameYZoomLevelPercentage;
+        } else {
+            int lowerPosition = (int) Math.floor(bufferIndexToRead);
+            int upperPosition = (int) Math.ceil(bufferIndexToRead);
 
-                float lowerValue = buffer[lowerPosition];
-                float upperValue = buffer[upperPosition];
+            float lowerValue = buffer[lowerPosition];
+            float upperValue = buffer[upperPosition];
 
-                return (lowerValue + ((upperValue - lowerValue) *
-                        arrayPosRemainder)
-                        - yZoomDisplay.getDisplayOffsetPercentage())
-                        / yZoomDisplay.getZoomLevelPercentage();
-            }
+            return (lowerValue + ((upperValue - lowerValue) *
+                    arrayPosRemainder)
+                    - frameYDisplayOffsetPercentage)
+                    / frameYZoomLevelPercentage;
         }
     }
 
     /**
-     * calculates where the scaled buffer index should point in relation to the given
-     * log Frequency buffer
+     * calculates where each scaled buffer index should point in relation to the given log
+     * Frequency buffer. The whole range is converted in two batch transforms rather than three
+     * conversions per point
      *
-     * @param index          desired scaled index to calculate
+     * @param minimumValue      lowest value of the scaled buffer
+     * @param maximumValue      highest value of the scaled buffer
      * @param scaleToParameters scaled buffer limits
-     * @param numberOfPoints number of points in the scaled buffer
-     * @return read buffer index to use
+     * @param numberOfPoints    number of points in the scaled buffer
+     * @param bufferLength      length of the buffer being read
+     * @return read buffer index to use for scaled index -1 to numberOfPoints, so entry i + 1 is
+     * for scaled index i. Only valid until the next call
      */
-    private float scaledIndexBufferIndex(int index, float minimumValue, float maximumValue,
-                                         AxisParameters scaleToParameters, int numberOfPoints) {
-        float minimumGraphPosition = (minimumValue - scaleToParameters.getMinimumValue()) /
-                scaleToParameters.getAxisSpan();
-        float maximumGraphPosition = (maximumValue - scaleToParameters.getMinimumValue()) /
-                scaleToParameters.getAxisSpan();
-        float graphPositionSpan = maximumGraphPosition - minimumGraphPosition;
-
-
-        float frequencyToRead = scaleToParameters.graphPositionToScaledAxis(
-                minimumGraphPosition + (((float) index / (float) numberOfPoints) *
-                        graphPositionSpan));
+    private float[] calculateBufferIndexes(float minimumValue, float maximumValue,
+                                           AxisParameters scaleToParameters, int numberOfPoints,
+                                           int bufferLength) {
+        final int length = numberOfPoints + 2;
+        float[] bufferIndexes = this.bufferIndexes;
+        if(bufferIndexes.length < length) {
+            bufferIndexes = new float[length];
+            this.bufferIndexes = bufferIndexes;
+        }
 
-        float bufferPercentagePosition = (frequencyToRead - xAxisParameters.getMinimumValue()) /
-                xAxisParameters.getAxisSpan();
+        final AxisTransform scaleToTransform = scaleToParameters.getAxisTransform();
+        final float minimumGraphPosition = (minimumValue - scaleToTransform.getMinimumValue()) /
+                scaleToTransform.getAxisSpan();
+        final float maximumGraphPosition = (maximumValue - scaleToTransform.getMinimumValue()) /
+                scaleToTransform.getAxisSpan();
+        final float graphPositionSpan = maximumGraphPosition - minimumGraphPosition;
+
+        final float graphPositionStep = graphPositionSpan / (float) numberOfPoints;
+
+        // Graph position to frequency, then frequency to position in the buffer. The graph
+        // positions are evenly spaced, so on a log axis each frequency is a multiply of the last
+        scaleToTransform.graphPositionRampToScaledAxis(minimumGraphPosition - graphPositionStep,
+                graphPositionStep, bufferIndexes, length);
+        xAxisParameters.getAxisTransform().scaledAxisToGraphPositions(bufferIndexes,
+                bufferIndexes, length);
+
+        final float lastIndex = bufferLength - 1;
+        for(int i = 0; i < length; i++) {
+            float bufferPercentagePosition = bufferIndexes[i];
+            // Positions outside of the buffer, such as below the first band of a logarithmically
+            // spaced buffer, are clamped to the ends of the buffer
+            if(!(bufferPercentagePosition > 0f)) {
+                bufferPercentagePosition = 0f;
+            } else if(bufferPercentagePosition > 1f) {
+                bufferPercentagePosition = 1f;
+            }
+            bufferIndexes[i] = bufferPercentagePosition * lastIndex;
+        }
 
-        return bufferPercentagePosition * (getSizeOfBuffer() - 1);
+        return bufferIndexes;
     }
 
     /**
      * Average value for a given range within buffer
      *
+     * @param buffer               buffer to read
      * @param minimumArrayPosition first position in array
      * @param maxArrayPosition     last position in array
      * @return average value
      */
     @SuppressWarnings("unused")
-    private float averageValueForGivenRange(int minimumArrayPosition, int maxArrayPosition) {
+    private static float averageValueForGivenRange(float[] buffer, int minimumArrayPosition,
+                                                   int maxArrayPosition) {
         float displayValue = 0;
         int positionDifference = minimumArrayPosition - maxArrayPosition + 1;
 
@@ -318,11 +417,13 @@ public class SignalBuffer extends InputListener implements SignalBufferInterface
     /**
      * Find the maximum value for a given range within buffer
      *
+     * @param buffer               buffer to read
      * @param minimumArrayPosition first position in array
      * @param maxArrayPosition     last position in array
      * @return maximum value
      */
-    private float maximumValueForGivenRange(int minimumArrayPosition, int maxArrayPosition) {
+    private static float maximumValueForGivenRange(float[] buffer, int minimumArrayPosition,
+                                                   int maxArrayPosition) {
         float displayValue = buffer[minimumArrayPosition];
 
         for(int g = minimumArrayPosition; g <= maxArrayPosition; ++g) {
@@ -337,8 +438,25 @@ public class SignalBuffer extends InputListener implements SignalBufferInterface
     @Override
     public void inputBlockSizeUpdate(int blockSize) {
         synchronized(this) {
-            buffer = new float[blockSize];
+            // The render thread may still be reading the old buffers so new ones are made
+            buffers = new float[][]{new float[blockSize], new float[blockSize],
+                    new float[blockSize]};
+            publish();
         }
+        requestRender();
+    }
+
+    /**
+     * The input now sends buffers on a different x axis, a copy is kept so later changes to the
+     * input's parameters do not affect a frame being drawn
+     *
+     * @param xAxisParameters x axis of the buffers to follow
+     */
+    @Override
+    public void inputXAxisUpdate(AxisParameters xAxisParameters) {
+        this.xAxisParameters = new AxisParameters(xAxisParameters.getMinimumValue(),
+                xAxisParameters.getMaximumValue(), xAxisParameters.getAxisScale());
+        requestRender();
     }
 
     /**
@@ -351,13 +469,77 @@ public class SignalBuffer extends InputListener implements SignalBufferInterface
     @Override
     public void bufferUpdate(float[] buffer) {
         synchronized(this) {
-            if(this.buffer.length == buffer.length) {
-                System.arraycopy(buffer, 0, this.buffer, 0, this.buffer.length);
+            final float[] writeBuffer = buffers[writeIndex];
+            if(writeBuffer.length == buffer.length) {
+                System.arraycopy(buffer, 0, writeBuffer, 0, writeBuffer.length);
+                publish();
             } else {
                 Log.e(TAG, "Buffer passed " + buffer.length +
-                        " in does not match size of signal buffer " + this.buffer.length);
+                        " in does not match size of signal buffer " + writeBuffer.length);
+            }
+        }
+        requestRender();
+    }
+
+    /**
+     * Sets the member buffer and records when its newest sample was captured
+     *
+     * @param buffer        source for buffer copy
+     * @param captureTimeNs {@link System#nanoTime()} based capture time of the newest sample
+     */
+    @Override
+    public void bufferUpdate(float[] buffer, long captureTimeNs) {
+        this.captureTimeNs = captureTimeNs;
+        bufferUpdate(buffer);
+    }
+
+    /**
+     * @return {@link System#nanoTime()} based capture time of the newest sample in the buffer, 0
+     * when not known
+     */
+    long getCaptureTimeNs() {
+        return captureTimeNs;
+    }
+
+    /**
+     * Sets the member buffer straight from a ring buffer, the two halves of the ring are copied
+     * into place so the ring never has to be unrolled. If the ring does not match the size of the
+     * member buffer it will not be set and a Log warning is displayed.
+     *
+     * @param ringBuffer    source for buffer copy
+     * @param oldestIndex   index of the oldest sample in the ring
+     * @param captureTimeNs {@link System#nanoTime()} based capture time of the newest sample
+     */
+    @Override
+    public void ringBufferUpdate(float[] ringBuffer, int oldestIndex, long captureTimeNs) {
+        this.captureTimeNs = captureTimeNs;
+        synchronized(this) {
+            final float[] writeBuffer = buffers[writeIndex];
+            if(writeBuffer.length == ringBuffer.length) {
+                final int firstSegmentLength = ringBuffer.length - oldestIndex;
+                System.arraycopy(ringBuffer, oldestIndex, writeBuffer, 0, firstSegmentLength);
+                System.arraycopy(ringBuffer, 0, writeBuffer, firstSegmentLength, oldestIndex);
+                publish();
+            } else {
+                Log.e(TAG, "Ring buffer passed " + ringBuffer.length +
+                        " in does not match size of signal buffer " + writeBuffer.length);
             }
         }
+        requestRender();
+    }
+
+    /**
+     * @param renderRequester asked for a new frame whenever the buffer changes
+     */
+    void setRenderRequester(RenderRequester renderRequester) {
+        this.renderRequester = renderRequester;
+    }
+
+    private void requestRender() {
+        final RenderRequester renderRequester = this.renderRequester;
+        if(renderRequester != null) {
+            renderRequester.requestRender();
+        }
     }
 
     @Override
@@ -368,11 +550,13 @@ public class SignalBuffer extends InputListener implements SignalBufferInterface
     /**
      * Find the minimum value for a given range within buffer
      *
+     * @param buffer               buffer to read
      * @param minimumArrayPosition first position in array
      * @param maxArrayPosition     last position in array
      * @return maximum value
      */
-    private float minimumValueForGivenRange(int minimumArrayPosition, int maxArrayPosition) {
+    private static float minimumValueForGivenRange(float[] buffer, int minimumArrayPosition,
+                                                   int maxArrayPosition) {
         float displayValue = buffer[minimumArrayPosition];
 
         for(int g = minimumArrayPosition; g <= maxArrayPosition; ++g) {
@@ -384,8 +568,12 @@ public class SignalBuffer extends InputListener implements SignalBufferInterface
         return displayValue;
     }
 
-    private int getSizeOfBuffer() {
-        return buffer.length;
+    /**
+     * @return a count which changes each time the buffer does
+     */
+    @Override
+    public int getUpdateCount() {
+        return updateCount;
     }
 
     @Override
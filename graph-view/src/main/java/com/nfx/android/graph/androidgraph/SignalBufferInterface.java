@@ -10,6 +10,12 @@ import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
  */
 public interface SignalBufferInterface {
 
+    /**
+     * Take the newest buffer and y zoom for the frame about to be drawn, the other read methods
+     * use these until the next frame
+     */
+    void beginFrame();
+
     void getScaledMinimumMaximumBuffers(float[] minimumValuesBuffer, float[] maximumValuesBuffer,
                                         float minimumXValue, float maximumXValue,
                                         AxisParameters xAxisParameters);
@@ -27,4 +33,6 @@ public interface SignalBufferInterface {
     ZoomDisplay getYZoomDisplay();
 
     AxisParameters getXAxisParameters();
+
+    int getUpdateCount();
 }
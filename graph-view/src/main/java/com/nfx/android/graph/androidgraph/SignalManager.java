@@ -1,6 +1,5 @@
 package com.nfx.android.graph.androidgraph;
 
-import android.graphics.Canvas;
 import android.support.annotation.ColorInt;
 import android.support.annotation.Nullable;
 import android.util.Log;
@@ -8,19 +7,35 @@ import android.util.SparseArray;
 
 import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
 import com.nfx.android.graph.graphbufferinput.InputListener;
+import com.nfx.android.graph.timing.TimingHistogram;
+import com.nfx.android.graph.timing.TimingStatistics;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 /**
  * NFX Development
  * Created by nick on 31/10/15.
  * <p>
  * This is the middle man between the graph drawer and the input. All inputs are registered with
- * this manager and it will ask to create a drawer objects for these
+ * this manager and it will ask to create a drawer objects for these. When there are several
+ * signals they are prepared in parallel on a pool of worker threads before being drawn in turn
  */
 class SignalManager implements SignalManagerInterface {
     private static final String TAG = SignalManager.class.getName();
+    /**
+     * Number of signals from which they are prepared on worker threads, below this the cost of
+     * handing the work over outweighs the gain
+     */
+    private static final int PARALLEL_SIGNAL_COUNT = 2;
+    /**
+     * Number of threads which can prepare signals, the render thread takes one signal itself
+     */
+    private static final int NUMBER_OF_WORKERS =
+            Math.max(0, Runtime.getRuntime().availableProcessors() - 1);
     /**
      * parent object
      */
@@ -29,6 +44,10 @@ class SignalManager implements SignalManagerInterface {
      * Array of drawers to display signals
      */
     private final SparseArray<Signal> signalDrawers = new SparseArray<>();
+    /**
+     * Array of time frequency displays
+     */
+    private final SparseArray<Waterfall> waterfalls = new SparseArray<>();
     /**
      * An object holding the signals to display
      */
@@ -47,13 +66,40 @@ class SignalManager implements SignalManagerInterface {
      * Current drawable area
      */
     private DrawableArea drawableArea = new DrawableArea(0, 0, 0, 0);
+    /**
+     * Frame timings of the graph, each signal has a stage of its own
+     */
+    private final TimingStatistics timingStatistics;
+    private final TimingHistogram waterfallTiming;
+    private final TimingHistogram markerTiming;
+    private final SparseArray<TimingHistogram> signalTimings = new SparseArray<>();
+    private final TimingHistogram prepareTiming;
+    /**
+     * Prepares signals while drawing, null until first needed
+     */
+    private ExecutorService preparePool = null;
+    /**
+     * Released by each worker as it finishes preparing a signal, reused for every frame so
+     * nothing is allocated on the render thread
+     */
+    private final Semaphore signalsPrepared = new Semaphore(0);
+    /**
+     * Pixels per point each signal is drawn with
+     */
+    private int lineResolution = FrameBudgetController.DEFAULT_LINE_RESOLUTION;
     /**
      * Constructor
      *
      * @param graphViewInterface needed to set the axis zoom levels
+     * @param timingStatistics   frame timings to record the drawing into
      */
-    SignalManager(GraphViewInterface graphViewInterface, GraphListManager graphListManager) {
+    SignalManager(GraphViewInterface graphViewInterface, GraphListManager graphListManager,
+                  TimingStatistics timingStatistics) {
         this.graphViewInterface = graphViewInterface;
+        this.timingStatistics = timingStatistics;
+        waterfallTiming = timingStatistics.getStage("Waterfalls");
+        markerTiming = timingStatistics.getStage("Markers");
+        prepareTiming = timingStatistics.getStage("Signal prepare");
 
         markerManager = new MarkerManager(graphViewInterface, this,
                 graphListManager.getGraphListAdapter());
@@ -89,17 +135,81 @@ class SignalManager implements SignalManagerInterface {
             }
         }
 
-        Signal signal = new Signal(graphViewInterface.getGraphParameters(),
-                signalBuffer, graphViewInterface.getGraphXZoomDisplay());
+        Signal signal = new Signal(signalBuffer);
+        synchronized(this) {
+            signal.setLineResolution(lineResolution);
+        }
         signal.surfaceChanged(drawableArea);
         signal.setColour(colour);
+        signal.setRenderRequester(graphViewInterface);
+        signalBuffer.setRenderRequester(graphViewInterface);
+        // The y zoom of each signal is changed from the UI and drawn on the next frame like the
+        // graph's own axes
+        signalBuffer.getYZoomDisplay().setRenderRequester(graphViewInterface);
 
         synchronized(this) {
             signalDrawers.put(id, signal);
+            if(signalTimings.get(id) == null) {
+                signalTimings.put(id, timingStatistics.getStage("Signal " + id));
+            }
             markerManager.updateMarkers(id);
         }
+        graphViewInterface.requestRender();
+    }
+
+
+    /**
+     * Add a waterfall display. If the Id is not unique the existing waterfall is replaced
+     *
+     * @param id              id of the waterfall
+     * @param xAxisParameters scale of the incoming buffer x axis
+     * @param historyDepth    number of buffers of history to display
+     * @return listener to attach to the input
+     */
+    @Override
+    public InputListener addWaterfall(int id, AxisParameters xAxisParameters, int historyDepth) {
+        Waterfall waterfall = new Waterfall(graphViewInterface.getGraphParameters(),
+                xAxisParameters, historyDepth);
+        waterfall.surfaceChanged(drawableArea);
+        waterfall.setRenderRequester(graphViewInterface);
+
+        synchronized(this) {
+            waterfalls.put(id, waterfall);
+        }
+        graphViewInterface.requestRender();
+
+        return waterfall.getInputListener();
+    }
+
+    /**
+     * Remove waterfall with given id
+     *
+     * @param id id of the waterfall to remove
+     */
+    @Override
+    public void removeWaterfall(int id) {
+        synchronized(this) {
+            waterfalls.remove(id);
+        }
+        graphViewInterface.requestRender();
     }
 
+    /**
+     * Change the colour map of a waterfall
+     *
+     * @param id        id of the waterfall
+     * @param colourMap colours from lowest to highest value, 256 entries
+     */
+    @Override
+    public void setWaterfallColourMap(int id, @ColorInt int[] colourMap) {
+        final Waterfall waterfall;
+        synchronized(this) {
+            waterfall = waterfalls.get(id);
+        }
+        if(waterfall != null) {
+            waterfall.setColourMap(colourMap);
+        }
+    }
 
     @Override
     public boolean hasSignal(int id) {
@@ -134,10 +244,20 @@ class SignalManager implements SignalManagerInterface {
      */
     @Override
     public void removeSignal(int id) {
+        SignalBuffer signalBuffer;
         synchronized(this) {
-            signalBuffers.remove(id);
+            signalBuffer = signalBuffers.remove(id);
             signalDrawers.remove(id);
+            TimingHistogram signalTiming = signalTimings.get(id);
+            if(signalTiming != null) {
+                timingStatistics.removeStage(signalTiming);
+                signalTimings.remove(id);
+            }
+        }
+        if(signalBuffer != null) {
+            signalBuffer.getYZoomDisplay().setRenderRequester(null);
         }
+        graphViewInterface.requestRender();
     }
 
     /**
@@ -148,6 +268,10 @@ class SignalManager implements SignalManagerInterface {
      */
     public void surfaceChanged(DrawableArea drawableArea) {
         this.drawableArea = drawableArea;
+        final int waterfallSize = waterfalls.size();
+        for(int i = 0; i < waterfallSize; i++) {
+            waterfalls.valueAt(i).surfaceChanged(drawableArea);
+        }
         final int signalDrawerSize = signalDrawers.size();
         for(int i = 0; i < signalDrawerSize; i++) {
             int key = signalDrawers.keyAt(i);
@@ -159,22 +283,122 @@ class SignalManager implements SignalManagerInterface {
         markerManager.surfaceChanged(drawableArea);
     }
 
+    /**
+     * Change how many points every signal is drawn with
+     *
+     * @param lineResolution pixels per point, the screen width divisor
+     */
+    void setLineResolution(int lineResolution) {
+        synchronized(this) {
+            this.lineResolution = lineResolution;
+            final int signalDrawerSize = signalDrawers.size();
+            for(int i = 0; i < signalDrawerSize; i++) {
+                signalDrawers.valueAt(i).setLineResolution(lineResolution);
+            }
+        }
+    }
+
+    /**
+     * @param markerUpdateInterval number of frames between marker value updates
+     */
+    void setMarkerUpdateInterval(int markerUpdateInterval) {
+        markerManager.setMarkerUpdateInterval(markerUpdateInterval);
+    }
+
     /**
      * Call with the canvas to draw on
      *
-     * @param canvas canvas to draw the objects onto
+     * @param drawingSurface surface to draw the objects onto
+     * @param frameState state of the frame being drawn
      */
-    public void doDraw(Canvas canvas) {
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
         synchronized(this) {
+            long time = timingStatistics.startTiming();
+            final int waterfallSize = waterfalls.size();
+            for(int i = 0; i < waterfallSize; i++) {
+                waterfalls.valueAt(i).doDraw(drawingSurface, frameState);
+            }
+            if(waterfallSize > 0) {
+                time = timingStatistics.lap(waterfallTiming, time);
+            }
             final int signalDrawerSize = signalDrawers.size();
+            for(int i = 0; i < signalDrawerSize; i++) {
+                signalDrawers.valueAt(i).beginFrame(frameState);
+            }
+            if(signalDrawerSize >= PARALLEL_SIGNAL_COUNT && NUMBER_OF_WORKERS > 0) {
+                prepareSignals(signalDrawerSize);
+                time = timingStatistics.lap(prepareTiming, time);
+            }
             for(int i = 0; i < signalDrawerSize; i++) {
                 int key = signalDrawers.keyAt(i);
-                signalDrawers.get(key).doDraw(canvas);
+                signalDrawers.get(key).doDraw(drawingSurface, frameState);
+                TimingHistogram signalTiming = signalTimings.get(key);
+                if(signalTiming != null) {
+                    time = timingStatistics.lap(signalTiming, time);
+                }
             }
             if(xAxisZeroIntersect != null) {
-                xAxisZeroIntersect.doDraw(canvas);
+                xAxisZeroIntersect.doDraw(drawingSurface, frameState);
+            }
+            time = timingStatistics.startTiming();
+            markerManager.doDraw(drawingSurface, frameState);
+            timingStatistics.lap(markerTiming, time);
+        }
+    }
+
+    /**
+     * Tell the listeners of each signal's y zoom of changes made since the last frame. Called
+     * on the render thread before the frame is drawn
+     */
+    void dispatchZoomChanged() {
+        synchronized(this) {
+            for(SignalBuffer signalBuffer : signalBuffers.values()) {
+                signalBuffer.getYZoomDisplay().dispatchZoomChanged();
+            }
+        }
+    }
+
+    /**
+     * @return capture time of the newest sample across all the signals, 0 when not known
+     */
+    long getNewestCaptureTimeNs() {
+        long newestCaptureTimeNs = 0;
+        for(SignalBuffer signalBuffer : signalBuffers.values()) {
+            newestCaptureTimeNs = Math.max(newestCaptureTimeNs, signalBuffer.getCaptureTimeNs());
+        }
+        return newestCaptureTimeNs;
+    }
+
+    /**
+     * Prepare every signal at once, the first signal is prepared on this thread while the
+     * workers take the rest. Returns once all have been prepared
+     *
+     * @param signalDrawerSize number of signals to prepare
+     */
+    private void prepareSignals(int signalDrawerSize) {
+        if(preparePool == null) {
+            preparePool = Executors.newFixedThreadPool(NUMBER_OF_WORKERS);
+        }
+
+        for(int i = 1; i < signalDrawerSize; i++) {
+            preparePool.execute(signalDrawers.valueAt(i).getPrepareTask(signalsPrepared));
+        }
+        signalDrawers.valueAt(0).prepare();
+
+        // A signal must not be drawn while a worker is still preparing it, so the wait is not
+        // cut short by an interrupt, which would also leave permits behind for the next frame
+        signalsPrepared.acquireUninterruptibly(signalDrawerSize - 1);
+    }
+
+    /**
+     * Stop the worker threads, they are started again when next needed
+     */
+    void stop() {
+        synchronized(this) {
+            if(preparePool != null) {
+                preparePool.shutdown();
+                preparePool = null;
             }
-            markerManager.doDraw(canvas);
         }
     }
 
@@ -208,6 +432,36 @@ class SignalManager implements SignalManagerInterface {
         return xAxisZeroIntersect;
     }
 
+    /**
+     * Change how a signal is drawn
+     *
+     * @param signalId   id of signal to change
+     * @param renderMode render mode to use
+     */
+    @Override
+    public void setSignalRenderMode(int signalId, RenderMode renderMode) {
+        Signal signal = signalDrawers.get(signalId);
+        if(signal != null) {
+            signal.setRenderMode(renderMode);
+            graphViewInterface.requestRender();
+        }
+    }
+
+    /**
+     * Set how quickly a signal drawn in the phosphor render mode fades. This can be set before
+     * the render mode is changed
+     *
+     * @param signalId id of signal to change
+     * @param decay    fraction of the intensity kept after each frame, 0-1
+     */
+    @Override
+    public void setSignalPhosphorDecay(int signalId, float decay) {
+        Signal signal = signalDrawers.get(signalId);
+        if(signal != null) {
+            signal.setPhosphorDecay(decay);
+        }
+    }
+
     public void enableYAxisIntercept(int signalId) {
         Signal signal = signalDrawers.valueAt(signalId);
         if(signal != null) {
@@ -18,8 +18,18 @@ public interface SignalManagerInterface {
 
     boolean hasSignal(int id);
 
+    InputListener addWaterfall(int id, AxisParameters xAxisParameters, int historyDepth);
+
+    void removeWaterfall(int id);
+
+    void setWaterfallColourMap(int id, @ColorInt int[] colourMap);
+
     void removeSignal(int id);
 
+    void setSignalRenderMode(int signalId, RenderMode renderMode);
+
+    void setSignalPhosphorDecay(int signalId, float decay);
+
     HorizontalLabelPointer enableTriggerLevelPointer(int signalId, @ColorInt int color);
 
     @Nullable
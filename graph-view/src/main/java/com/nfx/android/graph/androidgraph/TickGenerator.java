@@ -0,0 +1,171 @@
+package com.nfx.android.graph.androidgraph;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Picks ticks which fall on nice numbers, a 1, 2 or 5 times a power of ten. majorTickStep gives
+ * the spacing of the major grid lines of a linear axis, a logarithmic axis uses its decades.
+ * numberOfGridLines works out how many minor ticks to place between two major grid lines, which
+ * works for both scales as the minor ticks are always evenly spaced in value. Minor results are
+ * kept in a small cache keyed on the quantised range and the number of divisions which fit, so
+ * repeated zooming over the same grid lines does no work and allocates nothing
+ */
+class TickGenerator {
+    /**
+     * Most divisions placed between two major grid lines
+     */
+    static final int MAXIMUM_DIVISIONS = 10;
+    /**
+     * Nice step mantissas, largest first
+     */
+    private static final float[] NICE_STEPS = {5f, 2f, 1f};
+    /**
+     * How close a division count has to be to a whole number to count as exact
+     */
+    private static final float DIVISION_TOLERANCE = 0.001f;
+    /**
+     * Low mantissa bits dropped from the range so values which differ by rounding share an entry
+     */
+    private static final int QUANTISE_MASK = ~0xFF;
+    /**
+     * Number of cache entries, a power of two
+     */
+    private static final int CACHE_SIZE = 64;
+    /**
+     * Smallest gap between minor ticks in pixels
+     */
+    private final float minimumTickSpacing;
+    /**
+     * Direct mapped cache, an entry is empty while its result is 0
+     */
+    private final int[] cachedMinimums = new int[CACHE_SIZE];
+    private final int[] cachedMaximums = new int[CACHE_SIZE];
+    private final int[] cachedMaximumDivisions = new int[CACHE_SIZE];
+    private final int[] cachedDivisions = new int[CACHE_SIZE];
+
+    /**
+     * @param minimumTickSpacing smallest gap between minor ticks in pixels
+     */
+    TickGenerator(float minimumTickSpacing) {
+        this.minimumTickSpacing = minimumTickSpacing;
+    }
+
+    /**
+     * @param minimum     value of the lower major grid line
+     * @param maximum     value of the upper major grid line
+     * @param pixelLength distance between the major grid lines on screen
+     * @return number of grid lines including both major grid lines, at least 2
+     */
+    int numberOfGridLines(float minimum, float maximum, float pixelLength) {
+        final int minimumKey = Float.floatToIntBits(minimum) & QUANTISE_MASK;
+        final int maximumKey = Float.floatToIntBits(maximum) & QUANTISE_MASK;
+        // The result only depends on the pixel length through this, so it is the key
+        final int maximumDivisions = Math.max(1, Math.min(MAXIMUM_DIVISIONS,
+                (int) (pixelLength / minimumTickSpacing)));
+
+        final int slot = ((minimumKey * 31 + maximumKey) * 31 + maximumDivisions) &
+                (CACHE_SIZE - 1);
+        if(cachedDivisions[slot] != 0 && cachedMinimums[slot] == minimumKey &&
+                cachedMaximums[slot] == maximumKey &&
+                cachedMaximumDivisions[slot] == maximumDivisions) {
+            return cachedDivisions[slot] + 1;
+        }
+
+        final int divisions = calculateDivisions(maximum - minimum, maximumDivisions);
+        cachedMinimums[slot] = minimumKey;
+        cachedMaximums[slot] = maximumKey;
+        cachedMaximumDivisions[slot] = maximumDivisions;
+        cachedDivisions[slot] = divisions;
+
+        return divisions + 1;
+    }
+
+    /**
+     * Find the most divisions of the span, up to what fits in the pixel length, where each step
+     * is a nice number. If no nice step divides the span exactly the span is split as finely as
+     * fits
+     *
+     * @param span             difference in value between the major grid lines
+     * @param maximumDivisions most divisions which fit between the major grid lines
+     * @return number of divisions, at least 1
+     */
+    private static int calculateDivisions(float span, int maximumDivisions) {
+        span = Math.abs(span);
+        if(span == 0 || Float.isNaN(span) || Float.isInfinite(span)) {
+            return maximumDivisions;
+        }
+
+        // Start from the smallest power of ten step which fits, then try larger steps
+        double decade = Math.pow(10, Math.floor(Math.log10(span / maximumDivisions)));
+        for(int attempt = 0; attempt < 3; attempt++) {
+            for(int i = NICE_STEPS.length - 1; i >= 0; i--) {
+                final double step = NICE_STEPS[i] * decade;
+                final double divisions = span / step;
+                final long roundedDivisions = Math.round(divisions);
+
+                if(roundedDivisions >= 1 && roundedDivisions <= maximumDivisions &&
+                        Math.abs(divisions - roundedDivisions) < DIVISION_TOLERANCE *
+                                roundedDivisions) {
+                    return (int) roundedDivisions;
+                }
+            }
+            decade *= 10;
+        }
+
+        return maximumDivisions;
+    }
+
+    /**
+     * Find the smallest nice step for major grid lines of a linear axis, so that no more than
+     * the given number of divisions are needed once the first and last grid lines are rounded
+     * out to multiples of the step
+     *
+     * @param minimum          lowest value on the axis
+     * @param maximum          highest value on the axis
+     * @param maximumDivisions most divisions wanted between the outer major grid lines
+     * @return step between major grid lines, 0 if the range is empty or not finite
+     */
+    static float majorTickStep(float minimum, float maximum, int maximumDivisions) {
+        final double span = (double) maximum - minimum;
+        if(!(span > 0) || Double.isInfinite(span) || maximumDivisions < 1) {
+            return 0;
+        }
+
+        // Start from the power of ten below the smallest step which could fit, then go larger
+        double decade = Math.pow(10, Math.floor(Math.log10(span / maximumDivisions)));
+        for(int attempt = 0; attempt < 3; attempt++) {
+            for(int i = NICE_STEPS.length - 1; i >= 0; i--) {
+                final double step = NICE_STEPS[i] * decade;
+                final double divisions =
+                        (majorTickAbove(maximum, step) - majorTickBelow(minimum, step)) / step;
+                if(Math.round(divisions) <= maximumDivisions) {
+                    return (float) step;
+                }
+            }
+            decade *= 10;
+        }
+
+        return (float) span;
+    }
+
+    /**
+     * @param value value on the axis
+     * @param step  step between major grid lines
+     * @return the major grid line at or just below the value, values within rounding error of a
+     * grid line count as on it
+     */
+    static double majorTickBelow(float value, double step) {
+        return Math.floor(value / step + DIVISION_TOLERANCE) * step;
+    }
+
+    /**
+     * @param value value on the axis
+     * @param step  step between major grid lines
+     * @return the major grid line at or just above the value, values within rounding error of a
+     * grid line count as on it
+     */
+    static double majorTickAbove(float value, double step) {
+        return Math.ceil(value / step - DIVISION_TOLERANCE) * step;
+    }
+}
@@ -0,0 +1,157 @@
+package com.nfx.android.graph.androidgraph;
+
+import android.content.Context;
+import android.graphics.Color;
+
+import com.nfx.android.graph.timing.TimingHistogram;
+import com.nfx.android.graph.timing.TimingStatisticsInterface;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Draws the median, 99th percentile and mean of each timed stage in the top left of the graph.
+ * The text is rebuilt twice a second into a reused buffer so the overlay does not allocate while
+ * drawing and the figures stay readable. The overlay is only drawn with the graph, GraphView asks
+ * for a frame each update interval while it is shown
+ */
+class TimingOverlay extends DrawableObject {
+    /**
+     * How often the text is rebuilt
+     */
+    static final long UPDATE_INTERVAL_MS = 500L;
+    private static final long UPDATE_INTERVAL_NS = UPDATE_INTERVAL_MS * 1000000L;
+    /**
+     * Statistics to display, in order
+     */
+    private final List<TimingStatisticsInterface> timingStatistics = new ArrayList<>();
+    /**
+     * Text of the overlay, one line per stage
+     */
+    private final StringBuilder text = new StringBuilder();
+    /**
+     * Start of each line within the text
+     */
+    private final List<Integer> lineStarts = new ArrayList<>();
+    /**
+     * Characters drawn from, grown when the text outgrows it
+     */
+    private char[] characters = new char[0];
+    private int numberOfLines = 0;
+    private long lastUpdateNs = 0;
+    /**
+     * Height of a line of text
+     */
+    private final float lineHeight;
+
+    /**
+     * @param context needed to work out the text size
+     */
+    TimingOverlay(Context context) {
+        float textScale = context.getResources().getDisplayMetrics().density;
+
+        style.setAntiAlias(true);
+        style.setColour(Color.YELLOW);
+        int mUnscaledTextSize = 12;
+        style.setTextSize((float) mUnscaledTextSize * textScale);
+        lineHeight = style.getTextSize() * 1.2f;
+    }
+
+    /**
+     * @param statistics statistics to add to the overlay
+     */
+    void addTimingStatistics(TimingStatisticsInterface statistics) {
+        synchronized(timingStatistics) {
+            if(!timingStatistics.contains(statistics)) {
+                timingStatistics.add(statistics);
+            }
+        }
+    }
+
+    @Override
+    protected void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
+        final long now = System.nanoTime();
+        if(now - lastUpdateNs >= UPDATE_INTERVAL_NS) {
+            lastUpdateNs = now;
+            updateText();
+        }
+
+        final float left = getDrawableArea().getLeft() + lineHeight;
+        float y = getDrawableArea().getTop() + lineHeight;
+        for(int i = 0; i < numberOfLines; i++) {
+            final int start = lineStarts.get(i);
+            final int end = i + 1 < numberOfLines ? lineStarts.get(i + 1) : text.length();
+            drawingSurface.drawText(characters, start, end - start, left, y, style);
+            y += lineHeight;
+        }
+    }
+
+    /**
+     * Rebuild the overlay text from the current statistics
+     */
+    private void updateText() {
+        text.setLength(0);
+        numberOfLines = 0;
+
+        synchronized(timingStatistics) {
+            for(TimingStatisticsInterface statistics : timingStatistics) {
+                final int numberOfStages = statistics.getNumberOfStages();
+                for(int i = 0; i < numberOfStages; i++) {
+                    TimingHistogram stage = statistics.getStage(i);
+                    if(stage == null || stage.getCount() == 0) {
+                        continue;
+                    }
+                    addLineStart(text.length());
+                    text.append(stage.getName()).append("  p50 ");
+                    appendMilliseconds(stage.getPercentile(50f));
+                    text.append("  p99 ");
+                    appendMilliseconds(stage.getPercentile(99f));
+                    text.append("  mean ");
+                    appendMilliseconds(stage.getMean());
+                    text.append(" ms");
+                }
+            }
+        }
+
+        if(characters.length < text.length()) {
+            characters = new char[text.length() * 2];
+        }
+        text.getChars(0, text.length(), characters, 0);
+    }
+
+    private void addLineStart(int start) {
+        if(numberOfLines < lineStarts.size()) {
+            lineStarts.set(numberOfLines, start);
+        } else {
+            lineStarts.add(start);
+        }
+        numberOfLines++;
+    }
+
+    /**
+     * Append a duration as milliseconds to two decimal places
+     *
+     * @param durationNs duration in nanoseconds
+     */
+    private void appendMilliseconds(long durationNs) {
+        final long hundredths = (durationNs + 5000L) / 10000L;
+        text.append(hundredths / 100).append('.');
+        final long fraction = hundredths % 100;
+        if(fraction < 10) {
+            text.append('0');
+        }
+        text.append(fraction);
+    }
+
+    /**
+     * The overlay is drawn over the graph, therefore theoretically it takes up no screen space
+     *
+     * @param currentDrawableArea the drawable area canvas to calculate the area taken
+     */
+    @Override
+    protected void calculateRemainingDrawableArea(DrawableArea currentDrawableArea) {
+    }
+}
@@ -1,6 +1,5 @@
 package com.nfx.android.graph.androidgraph;
 
-import android.graphics.Canvas;
 import android.util.Log;
 
 /**
@@ -21,20 +20,20 @@ class VerticalLabelPointer extends LabelPointer {
     }
 
     @Override
-    public void doDraw(Canvas canvas) {
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
         float xPositionOfCircle = getXPositionOfPointer();
         float yPositionOfCircle = getYPositionOfPointer();
 
-        canvas.drawCircle(getDrawableArea().checkLimitX(xPositionOfCircle), yPositionOfCircle,
-                circleRadius, paint);
+        drawingSurface.drawCircle(getDrawableArea().checkLimitX(xPositionOfCircle),
+                yPositionOfCircle, circleRadius, style);
 
         if(showLine) {
-            canvas.drawLine(
+            drawingSurface.drawLine(
                     getDrawableArea().checkLimitX(xPositionOfCircle),
                     getDrawableArea().getTop(),
                     getDrawableArea().checkLimitX(xPositionOfCircle),
                     getDrawableArea().getBottom(),
-                    paint
+                    style
             );
         }
     }
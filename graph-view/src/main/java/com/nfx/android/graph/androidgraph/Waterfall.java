@@ -0,0 +1,370 @@
+package com.nfx.android.graph.androidgraph;
+
+import android.graphics.Color;
+import android.util.Log;
+
+import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
+import com.nfx.android.graph.androidgraph.AxisScale.GraphParameters;
+import com.nfx.android.graph.graphbufferinput.InputListener;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Draws a time frequency display. Each buffer update is written as a single row into a circular
+ * image, the image is then drawn in two slices so the newest row is always at the top. The cost
+ * of each frame is therefore one row plus a blit no matter how much history is held
+ */
+class Waterfall extends DrawableObject {
+    private static final String TAG = "Waterfall";
+    /**
+     * Number of entries in the colour map
+     */
+    static final int COLOUR_MAP_SIZE = 256;
+    /**
+     * The Parameters of the incoming buffer x axis
+     */
+    private AxisParameters bufferXAxisParameters;
+    /**
+     * Parameters of the graph the waterfall is drawn on
+     */
+    private final GraphParameters graphParameters;
+    /**
+     * Number of rows of history to keep
+     */
+    private final int historyDepth;
+    /**
+     * Source and destination areas used when drawing the two slices
+     */
+    private final DrawingRect sourceRect = new DrawingRect();
+    private final DrawingRect destinationRect = new DrawingRect();
+    /**
+     * Listener which writes a row for each buffer received
+     */
+    private final InputListener inputListener = new InputListener() {
+        @Override
+        public void inputBlockSizeUpdate(int blockSize) {
+            synchronized(Waterfall.this) {
+                mappedBufferLength = 0;
+            }
+        }
+
+        @Override
+        public void bufferUpdate(float[] buffer) {
+            addRow(buffer);
+        }
+
+        @Override
+        public void inputXAxisUpdate(AxisParameters xAxisParameters) {
+            synchronized(Waterfall.this) {
+                bufferXAxisParameters = xAxisParameters;
+                mappedBufferLength = 0;
+            }
+        }
+
+        @Override
+        public void inputRemoved() {
+        }
+    };
+    /**
+     * Maps a normalised value to a colour
+     */
+    private int[] colourMap = createDefaultColourMap();
+    /**
+     * Circular buffer of rows, the newest row is at writeRow
+     */
+    private DrawingImage image;
+    /**
+     * Reusable row of pixels which is copied into the image
+     */
+    private int[] rowPixels = new int[0];
+    /**
+     * Buffer index range covered by each pixel column
+     */
+    private int[] columnLowerIndex = new int[0];
+    private int[] columnUpperIndex = new int[0];
+    /**
+     * The state the column mapping was calculated against
+     */
+    private int mappedBufferLength = 0;
+    private Scale mappedScale;
+    private float mappedMinimumValue;
+    private float mappedMaximumValue;
+    /**
+     * Next row to write to, rows are written in descending order
+     */
+    private int writeRow = 0;
+    /**
+     * Asked for a new frame whenever a row is added
+     */
+    private volatile RenderRequester renderRequester;
+
+    /**
+     * Constructor
+     *
+     * @param graphParameters       axis parameters of the current graph
+     * @param bufferXAxisParameters x axis parameters of the incoming buffer
+     * @param historyDepth          number of rows of history to display
+     */
+    Waterfall(GraphParameters graphParameters, AxisParameters bufferXAxisParameters,
+              int historyDepth) {
+        this.graphParameters = graphParameters;
+        this.bufferXAxisParameters = bufferXAxisParameters;
+        this.historyDepth = historyDepth;
+    }
+
+    /**
+     * Creates a black, blue, cyan, yellow, red, white colour map
+     *
+     * @return colour map with COLOUR_MAP_SIZE entries
+     */
+    private static int[] createDefaultColourMap() {
+        final int[] stops = {Color.BLACK, Color.BLUE, Color.CYAN, Color.YELLOW, Color.RED,
+                Color.WHITE};
+        int[] colourMap = new int[COLOUR_MAP_SIZE];
+        final int segments = stops.length - 1;
+
+        for(int i = 0; i < COLOUR_MAP_SIZE; i++) {
+            float position = (float) i / (COLOUR_MAP_SIZE - 1) * segments;
+            int segment = Math.min((int) position, segments - 1);
+            float fraction = position - segment;
+
+            int start = stops[segment];
+            int end = stops[segment + 1];
+
+            colourMap[i] = Color.rgb(
+                    (int) (Color.red(start) + (Color.red(end) - Color.red(start)) * fraction),
+                    (int) (Color.green(start) + (Color.green(end) - Color.green(start)) *
+                            fraction),
+                    (int) (Color.blue(start) + (Color.blue(end) - Color.blue(start)) * fraction));
+        }
+
+        return colourMap;
+    }
+
+    /**
+     * Draw the circular image in two slices, newest row at the top
+     *
+     * @param drawingSurface surface to draw onto
+     * @param frameState state of the frame being drawn
+     */
+    @Override
+    protected void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
+        synchronized(this) {
+            if(image == null) {
+                return;
+            }
+
+            final int imageWidth = image.getWidth();
+            final int sourceLeft = (int) (frameState.xDisplayOffsetPercentage * imageWidth);
+            final int sourceRight = (int) (frameState.getXFarSideOffsetPercentage() *
+                    imageWidth);
+
+            final int top = getDrawableArea().getTop();
+            final int height = getDrawableArea().getHeight();
+            final int newestSliceHeight = (int) ((long) height * (historyDepth - writeRow) /
+                    historyDepth);
+
+            // Newest rows, from the write position to the end of the image
+            sourceRect.set(sourceLeft, writeRow, sourceRight, historyDepth);
+            destinationRect.set(getDrawableArea().getLeft(), top, getDrawableArea().getRight(),
+                    top + newestSliceHeight);
+            drawingSurface.drawImage(image, sourceRect, destinationRect, style);
+
+            // Oldest rows, from the start of the image to the write position
+            if(writeRow > 0) {
+                sourceRect.set(sourceLeft, 0, sourceRight, writeRow);
+                destinationRect.set(getDrawableArea().getLeft(), top + newestSliceHeight,
+                        getDrawableArea().getRight(), top + height);
+                drawingSurface.drawImage(image, sourceRect, destinationRect, style);
+            }
+        }
+    }
+
+    /**
+     * Convert the buffer into a row of pixels and write it into the circular image
+     *
+     * @param buffer normalised 0-1 buffer to add
+     */
+    private void addRow(float[] buffer) {
+        synchronized(this) {
+            if(image == null || buffer.length == 0) {
+                return;
+            }
+
+            final AxisParameters xAxisParameters = graphParameters.getXAxisParameters();
+            if(buffer.length != mappedBufferLength ||
+                    xAxisParameters.getAxisScale() != mappedScale ||
+                    xAxisParameters.getMinimumValue() != mappedMinimumValue ||
+                    xAxisParameters.getMaximumValue() != mappedMaximumValue) {
+                calculateColumnMapping(buffer.length);
+            }
+
+            final int width = rowPixels.length;
+            for(int x = 0; x < width; x++) {
+                final int upperIndex = columnUpperIndex[x];
+                float value = buffer[columnLowerIndex[x]];
+                for(int i = columnLowerIndex[x] + 1; i <= upperIndex; i++) {
+                    if(buffer[i] > value) {
+                        value = buffer[i];
+                    }
+                }
+                rowPixels[x] = colourMap[colourIndex(value)];
+            }
+
+            if(--writeRow < 0) {
+                writeRow = historyDepth - 1;
+            }
+            image.setPixels(rowPixels, 0, width, 0, writeRow, width, 1);
+        }
+
+        final RenderRequester renderRequester = this.renderRequester;
+        if(renderRequester != null) {
+            renderRequester.requestRender();
+        }
+    }
+
+    /**
+     * Works out which buffer indexes fall into each pixel column using the graph x axis scale.
+     * This is only done when the buffer size, the axis scale or range, or the surface changes
+     *
+     * @param bufferLength length of the incoming buffers
+     */
+    private void calculateColumnMapping(int bufferLength) {
+        final AxisParameters xAxisParameters = graphParameters.getXAxisParameters();
+        calculateColumnMapping(xAxisParameters, bufferXAxisParameters, bufferLength,
+                columnLowerIndex, columnUpperIndex);
+
+        mappedBufferLength = bufferLength;
+        mappedScale = xAxisParameters.getAxisScale();
+        mappedMinimumValue = xAxisParameters.getMinimumValue();
+        mappedMaximumValue = xAxisParameters.getMaximumValue();
+    }
+
+    /**
+     * Works out the range of buffer indexes which fall into each pixel column. Every column
+     * covers at least one index
+     *
+     * @param xAxisParameters       graph x axis
+     * @param bufferXAxisParameters x axis of the incoming buffer
+     * @param bufferLength          length of the incoming buffers
+     * @param columnLowerIndex      filled with the first index of each column
+     * @param columnUpperIndex      filled with the last index of each column, the length of the
+     *                              arrays is the number of columns
+     */
+    static void calculateColumnMapping(AxisParameters xAxisParameters,
+                                       AxisParameters bufferXAxisParameters, int bufferLength,
+                                       int[] columnLowerIndex, int[] columnUpperIndex) {
+        final int width = columnLowerIndex.length;
+        final int lastIndex = bufferLength - 1;
+
+        for(int x = 0; x < width; x++) {
+            // Positions outside of the buffer are clamped below
+            int lowerIndex = Math.round(bufferPosition(xAxisParameters, bufferXAxisParameters,
+                    (float) x / width, lastIndex));
+            int upperIndex = Math.round(bufferPosition(xAxisParameters, bufferXAxisParameters,
+                    (float) (x + 1) / width, lastIndex));
+            // The end of a column is the start of the next, apart from the last column
+            if(x < width - 1) {
+                upperIndex--;
+            }
+
+            lowerIndex = Math.max(0, Math.min(lowerIndex, lastIndex));
+            upperIndex = Math.max(lowerIndex, Math.min(upperIndex, lastIndex));
+
+            columnLowerIndex[x] = lowerIndex;
+            columnUpperIndex[x] = upperIndex;
+        }
+    }
+
+    /**
+     * @param value normalised 0-1 value
+     * @return entry of the colour map to show the value with, values out of range are clamped
+     */
+    static int colourIndex(float value) {
+        final int maximumColourIndex = COLOUR_MAP_SIZE - 1;
+        int colourIndex = (int) (value * maximumColourIndex);
+        if(colourIndex < 0) {
+            colourIndex = 0;
+        } else if(colourIndex > maximumColourIndex) {
+            colourIndex = maximumColourIndex;
+        }
+        return colourIndex;
+    }
+
+    /**
+     * @param xAxisParameters       graph x axis
+     * @param bufferXAxisParameters x axis of the incoming buffer
+     * @param graphPosition         position on the graph 0-1
+     * @param lastIndex             last index of the buffer
+     * @return position in the buffer the graph position points to
+     */
+    private static float bufferPosition(AxisParameters xAxisParameters,
+                                        AxisParameters bufferXAxisParameters,
+                                        float graphPosition, int lastIndex) {
+        float value = xAxisParameters.graphPositionToScaledAxis(graphPosition);
+        return bufferXAxisParameters.scaledAxisToGraphPosition(value) * lastIndex;
+    }
+
+    @Override
+    public void surfaceChanged(DrawableArea drawableArea) {
+        super.surfaceChanged(drawableArea);
+
+        final int width = getDrawableArea().getWidth();
+
+        synchronized(this) {
+            image = null;
+            if(width > 0 && historyDepth > 0) {
+                image = new DrawingImage(width, historyDepth);
+                image.eraseColor(colourMap[0]);
+            }
+
+            rowPixels = new int[width];
+            columnLowerIndex = new int[width];
+            columnUpperIndex = new int[width];
+            mappedBufferLength = 0;
+            writeRow = 0;
+        }
+    }
+
+    /**
+     * The waterfall can be drawn over, therefore theoretically it takes up no screen space
+     *
+     * @param currentDrawableArea the drawable area canvas to calculate the area taken
+     */
+    @Override
+    protected void calculateRemainingDrawableArea(DrawableArea currentDrawableArea) {
+    }
+
+    /**
+     * Set the colour map, the first entry is used for the lowest value and the last entry for
+     * the highest. Existing rows are not redrawn. If the colour map is not the correct size it
+     * will not be set and a Log error is displayed.
+     *
+     * @param colourMap colours with COLOUR_MAP_SIZE entries
+     */
+    void setColourMap(int[] colourMap) {
+        if(colourMap.length != COLOUR_MAP_SIZE) {
+            Log.e(TAG, "Colour map passed in has " + colourMap.length + " entries, " +
+                    COLOUR_MAP_SIZE + " expected");
+            return;
+        }
+        synchronized(this) {
+            this.colourMap = colourMap.clone();
+        }
+    }
+
+    /**
+     * @param renderRequester asked for a new frame whenever a row is added
+     */
+    void setRenderRequester(RenderRequester renderRequester) {
+        this.renderRequester = renderRequester;
+    }
+
+    /**
+     * @return listener to attach to the fft input
+     */
+    InputListener getInputListener() {
+        return inputListener;
+    }
+}
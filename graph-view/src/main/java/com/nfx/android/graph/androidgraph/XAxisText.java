@@ -1,7 +1,6 @@
 package com.nfx.android.graph.androidgraph;
 
 import android.content.Context;
-import android.graphics.Canvas;
 import android.graphics.Rect;
 
 import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
@@ -28,12 +27,13 @@ class XAxisText extends AxisText {
      * draw the axis text on to canvas. Note this will only draw text if there is more than 1
      * grid line
      *
-     * @param canvas a canvas to draw onto
+     * @param drawingSurface surface to draw onto
+     * @param frameState state of the frame being drawn
      */
     @Override
-    public void doDraw(Canvas canvas) {
-        if(gridLineValues.length != gridLines.getNumberOfGridLines()) {
-            gridLineValues = new String[gridLines.getNumberOfGridLines()];
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
+        if(gridLineValues.length < gridLines.getNumberOfGridLines()) {
+            allocateGridLineValues();
             calculateGridLineValues();
         }
 
@@ -58,13 +58,11 @@ class XAxisText extends AxisText {
             if(xIntersect > 0 && xIntersect < getDrawableArea().getWidth() &&
                     xIntersect - lastTextDrawn > bounds.width() &&
                     drawLimitText - xIntersect > bounds.width() * 1.5f) {
-                String displayString = gridLineValues[i];
                 int x = getDrawableArea().getLeft() + (int) xIntersect;
 
                 // Remember the text is drawn on the baseline
-                canvas.drawText(displayString, x, getDrawableArea()
-                        .getTop() +
-                        (int) Math.abs(paint.ascent()), paint);
+                drawingSurface.drawText(gridLineValues[i], 0, gridLineValueLengths[i], x,
+                        getDrawableArea().getTop() + (int) Math.abs(textPaint.ascent()), style);
 
                 lastTextDrawn = xIntersect;
             }
@@ -80,7 +78,7 @@ class XAxisText extends AxisText {
     public void surfaceChanged(DrawableArea drawableArea) {
         String textString = "0";
         Rect bounds = new Rect();
-        paint.getTextBounds(textString, 0, textString.length(), bounds);
+        textPaint.getTextBounds(textString, 0, textString.length(), bounds);
         getDrawableArea().setDrawableArea(drawableArea.getLeft(),
                 drawableArea.getHeight() - (int) getRealTextHeight(),
                 drawableArea.getWidth(), (int) getRealTextHeight());
@@ -1,8 +1,6 @@
 package com.nfx.android.graph.androidgraph;
 
 import android.content.Context;
-import android.graphics.Canvas;
-import android.graphics.Paint;
 
 import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
 
@@ -22,18 +20,19 @@ class YAxisText extends AxisText {
      */
     YAxisText(Context context, GridLines gridLines, AxisParameters axisParameters) {
         super(context, gridLines, axisParameters);
-        paint.setTextAlign(Paint.Align.RIGHT);
+        style.setTextAlign(DrawingStyle.TextAlign.RIGHT);
     }
 
     /**
      * draw the axis text on to canvas
      *
-     * @param canvas a canvas to draw onto
+     * @param drawingSurface surface to draw onto
+     * @param frameState state of the frame being drawn
      */
     @Override
-    public void doDraw(Canvas canvas) {
-        if(gridLineValues.length != gridLines.getNumberOfGridLines()) {
-            gridLineValues = new String[gridLines.getNumberOfGridLines()];
+    public void doDraw(DrawingSurface drawingSurface, FrameState frameState) {
+        if(gridLineValues.length < gridLines.getNumberOfGridLines()) {
+            allocateGridLineValues();
             calculateGridLineValues();
         }
 
@@ -55,8 +54,6 @@ class YAxisText extends AxisText {
 
         // Our limits are over laps with other grid lines, hence starting from 1 and -1
         for(int i = 1; i < lastGridLine; ++i) {
-            String displayString = gridLineValues[i];
-
             float yIntersect = gridLines.getDrawableArea().getHeight() -
                     gridLines.intersectZoomCompensated(i) *
                             gridLines.getDrawableArea().getHeight();
@@ -66,7 +63,8 @@ class YAxisText extends AxisText {
                     yIntersect - drawLimitText > getRealTextHeight() * 1f) {
                 float y = getDrawableArea().getTop() + yIntersect + (getRealTextHeight() / 2);
 
-                canvas.drawText(displayString, getDrawableArea().getWidth(), y, paint);
+                drawingSurface.drawText(gridLineValues[i], 0, gridLineValueLengths[i],
+                        getDrawableArea().getWidth(), y, style);
 
                 lastTextDrawn = yIntersect;
             }
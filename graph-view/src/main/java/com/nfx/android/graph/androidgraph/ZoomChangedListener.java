@@ -1,18 +1,11 @@
 package com.nfx.android.graph.androidgraph;
 
-import java.util.Observable;
-import java.util.Observer;
-
 /**
  * NFX Development
  * Created by nick on 15/07/16.
  * <p>
  * An interface for subscribes to get information about view zoom level changes
  */
-abstract class ZoomChangedListener implements Observer {
+abstract class ZoomChangedListener {
     abstract void zoomChanged();
-
-    public void update(Observable obs, Object obj) {
-        zoomChanged();
-    }
-}
\ No newline at end of file
+}
@@ -1,8 +1,11 @@
 package com.nfx.android.graph.androidgraph;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
-import java.util.Observable;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * NFX Development
@@ -10,8 +13,14 @@ import java.util.Observable;
  * <p>
  * A helper class which will hold the zoom values of a given view. A listener can get updates
  * when the surface size has changed.
+ * <p>
+ * The zoom level and offset are held together in a single atomic value so a reader on another
+ * thread always sees a matching pair. Once a render requester is set changes are coalesced, a
+ * frame is requested and listeners are told once at the start of that frame no matter how many
+ * changes were made in between. Without a render requester listeners are told straight away.
+ * Changes are expected to come from a single thread, normally the UI thread
  */
-public class ZoomDisplay extends Observable {
+public class ZoomDisplay {
     /**
      * Absolute minimum zoom level
      */
@@ -20,22 +29,34 @@ public class ZoomDisplay extends Observable {
      * Absolute maximum zoom value
      */
     private static final float MAXIMUM_ZOOM_LEVEL = 1f;
+    private static final ZoomChangedListener[] NO_LISTENERS = new ZoomChangedListener[0];
+    /**
+     * Zoom level percentage in the upper 32 bits and display offset percentage in the lower 32
+     * bits, both as float bits
+     */
+    private final AtomicLong zoomState = new AtomicLong(pack(1f, 0f));
+    /**
+     * Set when the zoom has changed since listeners were last told
+     */
+    private final AtomicBoolean zoomChangePending = new AtomicBoolean(false);
     /**
      * Maximum zoom level
      */
-    private float maximumZoomLevel = 1f;
+    private volatile float maximumZoomLevel = 1f;
     /**
      * Minimum zoom level
      */
-    private float minimumZoomLevel = 0f;
+    private volatile float minimumZoomLevel = 0f;
     /**
-     * percentage of view to display in given area
+     * Listeners told of zoom changes, replaced rather than modified so it can be read without a
+     * lock
      */
-    private float zoomLevelPercentage = 1f;
+    private volatile ZoomChangedListener[] listeners = NO_LISTENERS;
     /**
-     * offset in given plane where to display from
+     * Asked for a frame when the zoom changes, listeners are then told by dispatchZoomChanged
      */
-    private float displayOffsetPercentage = 0f;
+    @Nullable
+    private volatile RenderRequester renderRequester;
 
 
     /**
@@ -45,26 +66,70 @@ public class ZoomDisplay extends Observable {
      *                                warning is logged and 0f will be assigned
      **/
     public ZoomDisplay(float zoomLevelPercentage, float displayOffsetPercentage) {
+        float initialZoomLevelPercentage = 1f;
+        float initialDisplayOffsetPercentage = 0f;
         if(zoomLevelPercentage < maximumZoomLevel && zoomLevelPercentage > minimumZoomLevel) {
-            this.zoomLevelPercentage = zoomLevelPercentage;
+            initialZoomLevelPercentage = zoomLevelPercentage;
         }
         if(displayOffsetPercentage < maximumZoomLevel && displayOffsetPercentage >
                 minimumZoomLevel) {
             // Ensure that the zoom level will be within the bounds of the screen
-            if((displayOffsetPercentage + this.zoomLevelPercentage) > maximumZoomLevel) {
-                this.displayOffsetPercentage = maximumZoomLevel - this.zoomLevelPercentage;
+            if((displayOffsetPercentage + initialZoomLevelPercentage) > maximumZoomLevel) {
+                initialDisplayOffsetPercentage = maximumZoomLevel - initialZoomLevelPercentage;
             } else {
-                this.displayOffsetPercentage = displayOffsetPercentage;
+                initialDisplayOffsetPercentage = displayOffsetPercentage;
             }
         }
+        zoomState.set(pack(initialZoomLevelPercentage, initialDisplayOffsetPercentage));
+    }
+
+    private static long pack(float zoomLevelPercentage, float displayOffsetPercentage) {
+        return ((long) Float.floatToIntBits(zoomLevelPercentage) << 32) |
+                (Float.floatToIntBits(displayOffsetPercentage) & 0xFFFFFFFFL);
     }
 
     /**
-     * register a listener for zoom changed reports
+     * @param state value from getZoomState
+     * @return zoom level percentage held in the state
+     */
+    static float zoomLevelOf(long state) {
+        return Float.intBitsToFloat((int) (state >>> 32));
+    }
+
+    /**
+     * @param state value from getZoomState
+     * @return display offset percentage held in the state
+     */
+    static float displayOffsetOf(long state) {
+        return Float.intBitsToFloat((int) state);
+    }
+
+    /**
+     * Read the zoom level and offset together, use zoomLevelOf and displayOffsetOf to unpack
+     *
+     * @return packed zoom level and display offset
+     */
+    long getZoomState() {
+        return zoomState.get();
+    }
+
+    /**
+     * register a listener for zoom changed reports. Listeners are told in the order they were
+     * added
+     *
      * @param listener register listener
      */
     void addListener(ZoomChangedListener listener) {
-        addObserver(listener);
+        synchronized(this) {
+            for(ZoomChangedListener registered : listeners) {
+                if(registered == listener) {
+                    return;
+                }
+            }
+            ZoomChangedListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+            newListeners[listeners.length] = listener;
+            listeners = newListeners;
+        }
     }
 
     /**
@@ -73,14 +138,69 @@ public class ZoomDisplay extends Observable {
      * @param listener remove from listener
      */
     void removeListener(ZoomChangedListener listener) {
-        deleteObserver(listener);
+        synchronized(this) {
+            final ZoomChangedListener[] currentListeners = listeners;
+            for(int i = 0; i < currentListeners.length; i++) {
+                if(currentListeners[i] == listener) {
+                    ZoomChangedListener[] newListeners =
+                            new ZoomChangedListener[currentListeners.length - 1];
+                    System.arraycopy(currentListeners, 0, newListeners, 0, i);
+                    System.arraycopy(currentListeners, i + 1, newListeners, i,
+                            newListeners.length - i);
+                    listeners = newListeners;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Once set zoom changes request a frame rather than telling listeners straight away, the
+     * frame must then call dispatchZoomChanged before drawing
+     *
+     * @param renderRequester asked for a frame when the zoom changes, null to tell listeners
+     *                        straight away
+     */
+    void setRenderRequester(@Nullable RenderRequester renderRequester) {
+        this.renderRequester = renderRequester;
+        // Do not leave a change waiting on a frame which may never come
+        dispatchZoomChanged();
+    }
+
+    /**
+     * Tell listeners of any zoom change since this was last called. Called once per frame so a
+     * number of changes between frames only causes a single update
+     */
+    void dispatchZoomChanged() {
+        if(zoomChangePending.getAndSet(false)) {
+            notifyListeners();
+        }
+    }
+
+    private void notifyListeners() {
+        for(ZoomChangedListener listener : listeners) {
+            listener.zoomChanged();
+        }
+    }
+
+    /**
+     * Either tell listeners now or mark the change and request a frame
+     */
+    private void zoomChanged() {
+        final RenderRequester renderRequester = this.renderRequester;
+        if(renderRequester == null) {
+            notifyListeners();
+        } else {
+            zoomChangePending.set(true);
+            renderRequester.requestRender();
+        }
     }
 
     /**
      * @return the value of displayOffsetPercentage
      */
     public float getDisplayOffsetPercentage() {
-        return displayOffsetPercentage;
+        return displayOffsetOf(zoomState.get());
     }
 
     /**
@@ -91,24 +211,22 @@ public class ZoomDisplay extends Observable {
      *                                nothing happens
      */
     public void setDisplayOffsetPercentage(float displayOffsetPercentage) {
-        this.displayOffsetPercentage = displayOffsetPercentage;
-
-        setChanged();
-        notifyObservers();
+        setZoom(getZoomLevelPercentage(), displayOffsetPercentage);
     }
 
     /**
      * @return the value of displayOffsetPercentage + size currently being displayed
      */
     public float getFarSideOffsetPercentage() {
-        return displayOffsetPercentage + zoomLevelPercentage;
+        final long state = zoomState.get();
+        return displayOffsetOf(state) + zoomLevelOf(state);
     }
 
     /**
      * @return the value of zoomLevelPercentage
      */
     public float getZoomLevelPercentage() {
-        return zoomLevelPercentage;
+        return zoomLevelOf(zoomState.get());
     }
 
     /**
@@ -123,10 +241,20 @@ public class ZoomDisplay extends Observable {
             zoomLevelPercentage = MAXIMUM_ZOOM_LEVEL;
         }
 
-        this.zoomLevelPercentage = zoomLevelPercentage;
+        setZoom(zoomLevelPercentage, getDisplayOffsetPercentage());
+    }
 
-        setChanged();
-        notifyObservers();
+    /**
+     * Change the zoom level and offset together, listeners are told once. Use this rather than
+     * the separate setters when both change, for instance on each step of a pinch zoom
+     *
+     * @param zoomLevelPercentage     a float referenced as 0% = 0 100% = 1
+     * @param displayOffsetPercentage a float referenced as a percentage across the screen
+     *                                0% = 0 100% = 1
+     */
+    public void setZoom(float zoomLevelPercentage, float displayOffsetPercentage) {
+        zoomState.set(pack(zoomLevelPercentage, displayOffsetPercentage));
+        zoomChanged();
     }
 
     /**
@@ -138,8 +266,7 @@ public class ZoomDisplay extends Observable {
     public void setZoomLimits(float minimumZoomLevel, float maximumZoomLevel) {
         this.minimumZoomLevel = minimumZoomLevel;
         this.maximumZoomLevel = maximumZoomLevel;
-        setZoomLevelPercentage(maximumZoomLevel - minimumZoomLevel);
-        setDisplayOffsetPercentage(minimumZoomLevel);
+        setZoom(maximumZoomLevel - minimumZoomLevel, minimumZoomLevel);
     }
 
     /**
@@ -148,12 +275,10 @@ public class ZoomDisplay extends Observable {
      * @param zoomDisplay Object to copy values from
      */
     public void setZoomDisplay(@NonNull ZoomDisplay zoomDisplay) {
-        this.displayOffsetPercentage = zoomDisplay.displayOffsetPercentage;
-        this.zoomLevelPercentage = zoomDisplay.zoomLevelPercentage;
+        this.zoomState.set(zoomDisplay.zoomState.get());
         this.minimumZoomLevel = zoomDisplay.minimumZoomLevel;
         this.maximumZoomLevel = zoomDisplay.maximumZoomLevel;
     }
-
     /**
      * @return maximum zoom level possible by this object
      */
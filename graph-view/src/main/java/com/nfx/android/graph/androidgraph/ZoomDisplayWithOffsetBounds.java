@@ -16,50 +16,35 @@ public class ZoomDisplayWithOffsetBounds extends ZoomDisplay {
     }
 
     /**
-     * change the view offset
+     * Change the zoom level and offset together, both are kept within the zoom limits
      *
+     * @param zoomLevelPercentage     a float referenced as 0% = 0 100% = 1 if below the minimum
+     *                                zoom level nothing happens
      * @param displayOffsetPercentage a float referenced as a percentage across the screen 0% = 0
-     *                                100% = 1 if outside this value a warning is logged and
-     *                                nothing happens
+     *                                100% = 1
      */
-    public void setDisplayOffsetPercentage(float displayOffsetPercentage) {
-        if(displayOffsetPercentage < getMinimumZoomLevel()) {
-            displayOffsetPercentage = getMinimumZoomLevel();
-        } else if(displayOffsetPercentage > getMaximumZoomLevel()) {
-            displayOffsetPercentage = getMaximumZoomLevel();
-        }
-
-        // Ensure that the zoom level will be within the bounds of the screen
-        if((displayOffsetPercentage + getZoomLevelPercentage()) > getMaximumZoomLevel()) {
-            displayOffsetPercentage = getMaximumZoomLevel() - getZoomLevelPercentage();
-        }
-
-        super.setDisplayOffsetPercentage(displayOffsetPercentage);
-    }
-
-    /**
-     * change the zoom level of the view
-     * @param zoomLevelPercentage a float referenced as 0% = 0 100% = 1 if outside this value a
-     *                            warning is logged and nothing happens
-     */
-    public void setZoomLevelPercentage(float zoomLevelPercentage) {
-        float displayOffsetPercentage = getDisplayOffsetPercentage();
+    @Override
+    public void setZoom(float zoomLevelPercentage, float displayOffsetPercentage) {
         if(zoomLevelPercentage < getMinimumZoomLevel()) {
             return;
         } else if(zoomLevelPercentage > getMaximumZoomLevel()) {
             zoomLevelPercentage = getMaximumZoomLevel();
         }
+        if((getMaximumZoomLevel() - zoomLevelPercentage) < getMinimumZoomLevel()) {
+            zoomLevelPercentage = getMaximumZoomLevel() - getMinimumZoomLevel();
+        }
+
+        if(displayOffsetPercentage < getMinimumZoomLevel()) {
+            displayOffsetPercentage = getMinimumZoomLevel();
+        } else if(displayOffsetPercentage > getMaximumZoomLevel()) {
+            displayOffsetPercentage = getMaximumZoomLevel();
+        }
 
         // Ensure that the zoom level will be within the bounds of the screen
-        if((zoomLevelPercentage + getDisplayOffsetPercentage()) > getMaximumZoomLevel()) {
+        if((displayOffsetPercentage + zoomLevelPercentage) > getMaximumZoomLevel()) {
             displayOffsetPercentage = getMaximumZoomLevel() - zoomLevelPercentage;
         }
-        if((getMaximumZoomLevel() - zoomLevelPercentage) < getMinimumZoomLevel()) {
-            displayOffsetPercentage = getMinimumZoomLevel();
-            zoomLevelPercentage = getMaximumZoomLevel() - getMinimumZoomLevel();
-        }
 
-        super.setDisplayOffsetPercentage(displayOffsetPercentage);
-        super.setZoomLevelPercentage(zoomLevelPercentage);
+        super.setZoom(zoomLevelPercentage, displayOffsetPercentage);
     }
 }
@@ -1,20 +1,37 @@
 package com.nfx.android.graph.androidgraph.list.data;
 
-import com.nfx.android.graph.dsp.AverageFrequency;
-import com.nfx.android.graph.graphbufferinput.InputListener;
+import com.nfx.android.graph.dsp.AutocorrelationFrequency;
+import com.nfx.android.graph.graphbufferinput.ScheduledInputListener;
 
 /**
  * NFX Development
  * Created by nick on 7/01/17.
  */
-public class AverageFrequencyData extends InputListener {
+public class AverageFrequencyData extends ScheduledInputListener {
+    /**
+     * Results below this confidence are ignored and the last good frequency is kept
+     */
+    private static final float MINIMUM_CONFIDENCE = 0.5f;
+    /**
+     * The list is refreshed every 100ms so there is no need to analyse any faster
+     */
+    private static final int UPDATE_INTERVAL_IN_MS = 100;
 
-    private AverageFrequency averageFrequencyCalculator;
+    private AutocorrelationFrequency averageFrequencyCalculator;
     private int signalColor;
+    /**
+     * Last frequency found with enough confidence
+     */
+    private volatile int averageFrequency = 0;
+    /**
+     * Sample rate waiting to be applied, the analysis runs on the scheduler's thread so the
+     * calculator is only changed from there. 0 when there is no change
+     */
+    private volatile int pendingSampleRate = 0;
 
     public AverageFrequencyData(int sampleRate, int signalColor) {
         this.signalColor = signalColor;
-        averageFrequencyCalculator = new AverageFrequency(sampleRate);
+        averageFrequencyCalculator = new AutocorrelationFrequency(sampleRate);
     }
 
     @Override
@@ -24,7 +41,25 @@ public class AverageFrequencyData extends InputListener {
 
     @Override
     public void bufferUpdate(float[] buffer) {
+        final int sampleRate = pendingSampleRate;
+        if(sampleRate != 0) {
+            pendingSampleRate = 0;
+            averageFrequencyCalculator.setSampleRate(sampleRate);
+        }
         averageFrequencyCalculator.analyseBuffer(buffer);
+        if(averageFrequencyCalculator.getConfidence() >= MINIMUM_CONFIDENCE) {
+            averageFrequency = Math.round(averageFrequencyCalculator.getFrequency());
+        }
+    }
+
+    @Override
+    public void inputSampleRateUpdate(int sampleRate) {
+        pendingSampleRate = sampleRate;
+    }
+
+    @Override
+    public int getUpdateIntervalInMs() {
+        return UPDATE_INTERVAL_IN_MS;
     }
 
     @Override
@@ -37,6 +72,13 @@ public class AverageFrequencyData extends InputListener {
     }
 
     public int getAverageFrequency() {
-        return averageFrequencyCalculator.getFrequency();
+        return averageFrequency;
+    }
+
+    /**
+     * @return confidence 0-1 of the last buffer analysed
+     */
+    public float getConfidence() {
+        return averageFrequencyCalculator.getConfidence();
     }
 }
@@ -21,6 +21,10 @@ public class MarkerData implements Marker.MarkerUpdateInterface {
 
     private boolean xIsInteger = false;
     private boolean yIsInteger = false;
+    /**
+     * When true the y value is supplied by a level tracker rather than read from the signal
+     */
+    private volatile boolean levelTracked = false;
 
     public MarkerData(GraphViewInterface graphViewInterface,
                       SignalBufferInterface signalBufferInterface) {
@@ -51,13 +55,45 @@ public class MarkerData implements Marker.MarkerUpdateInterface {
         // so it has been flipped, then scaled to the minimum value.
         // So we need to reverse this, retrieve and convert back to the decibel value
         this.xValue = xValue;
-        yValue *= signalBufferInterface.getYZoomDisplay().getZoomLevelPercentage();
-        yValue += signalBufferInterface.getYZoomDisplay().getDisplayOffsetPercentage();
+        if(levelTracked) {
+            return;
+        }
+        this.yValue = signalValueToYAxis(yValue);
+    }
+
+    /**
+     * Update the y value directly from a level tracker. The level is put through the same
+     * conversion as the FFT signal so it reads in the units of the y axis
+     *
+     * @param level level in dBFS, full scale is 0dB
+     */
+    public void markerLevelUpdate(float level) {
+        final float minimumValue = graphViewInterface.getGraphParameters().
+                getYAxisParameters().getMinimumValue();
+        // Scaled to the axis minimum and flipped as the FFT signal is
+        this.yValue = signalValueToYAxis(1f - level / minimumValue);
+    }
+
+    /**
+     * @param signalValue value held in the signal buffer
+     * @return the value in the units of the y axis
+     */
+    private float signalValueToYAxis(float signalValue) {
+        signalValue *= signalBufferInterface.getYZoomDisplay().getZoomLevelPercentage();
+        signalValue += signalBufferInterface.getYZoomDisplay().getDisplayOffsetPercentage();
         float miniMumValue = graphViewInterface.getGraphParameters().
                 getYAxisParameters().getMinimumValue();
         float axisSpan = graphViewInterface.getGraphParameters().
                 getYAxisParameters().getAxisSpan();
-        this.yValue = miniMumValue + yValue * axisSpan;
+        return miniMumValue + signalValue * axisSpan;
+    }
+
+    public boolean isLevelTracked() {
+        return levelTracked;
+    }
+
+    public void setLevelTracked(boolean levelTracked) {
+        this.levelTracked = levelTracked;
     }
 
     public void setXIsInteger(boolean xIsInteger) {
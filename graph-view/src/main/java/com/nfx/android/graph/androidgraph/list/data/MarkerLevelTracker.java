@@ -0,0 +1,111 @@
+package com.nfx.android.graph.androidgraph.list.data;
+
+import com.nfx.android.graph.dsp.Goertzel;
+import com.nfx.android.graph.graphbufferinput.InputListener;
+import com.nfx.android.graph.graphbufferinput.windowing.NoWindow;
+import com.nfx.android.graph.graphbufferinput.windowing.Window;
+
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Listens to a time domain input and works out the level at each marker frequency using the
+ * Goertzel algorithm. The marker readouts are then updated once per input block without needing
+ * a full spectrum to be calculated. The block is windowed first with the same window as the
+ * signal's FFT so the tracked levels agree with the levels read from the spectrum
+ */
+public class MarkerLevelTracker extends InputListener {
+    /**
+     * Markers which are having their levels tracked
+     */
+    private final List<MarkerData> markerDataList = new Vector<>();
+    /**
+     * Calculates the level at each of the marker frequencies
+     */
+    private final Goertzel goertzel;
+    /**
+     * Window applied before the levels are worked out, should match the window of the FFT
+     */
+    private Window window = new NoWindow();
+    /**
+     * Windowed copy of the input block, the input buffer is shared with other listeners so is
+     * not windowed in place
+     */
+    private float[] windowedBuffer = new float[0];
+
+    public MarkerLevelTracker(int sampleRate) {
+        goertzel = new Goertzel(sampleRate);
+    }
+
+    /**
+     * Start tracking the level of the given marker
+     *
+     * @param markerData marker to track
+     */
+    public void addMarkerData(MarkerData markerData) {
+        markerData.setLevelTracked(true);
+        markerDataList.add(markerData);
+    }
+
+    /**
+     * Stop tracking all markers, the markers will revert to reading the level from the signal
+     */
+    public void removeAll() {
+        synchronized(markerDataList) {
+            for(MarkerData markerData : markerDataList) {
+                markerData.setLevelTracked(false);
+            }
+            markerDataList.clear();
+        }
+    }
+
+    @Override
+    public void inputBlockSizeUpdate(int blockSize) {
+        // N/A in this instance
+    }
+
+    @Override
+    public void bufferUpdate(float[] buffer) {
+        synchronized(markerDataList) {
+            final int numberOfMarkers = markerDataList.size();
+            goertzel.setNumberOfTargets(numberOfMarkers);
+
+            for(int i = 0; i < numberOfMarkers; i++) {
+                goertzel.setTargetFrequency(i, markerDataList.get(i).getXValue());
+            }
+
+            if(windowedBuffer.length != buffer.length) {
+                windowedBuffer = new float[buffer.length];
+            }
+            System.arraycopy(buffer, 0, windowedBuffer, 0, buffer.length);
+            goertzel.analyseBuffer(window.applyWindow(windowedBuffer));
+
+            for(int i = 0; i < numberOfMarkers; i++) {
+                markerDataList.get(i).markerLevelUpdate(goertzel.getDecibels(i));
+            }
+        }
+    }
+
+    @Override
+    public void inputRemoved() {
+        removeAll();
+    }
+
+    /**
+     * @param window window to apply to each block, should match the window of the signal's FFT
+     */
+    public void setWindow(Window window) {
+        synchronized(markerDataList) {
+            this.window = window;
+        }
+    }
+
+    public void setSampleRate(int sampleRate) {
+        synchronized(markerDataList) {
+            goertzel.setSampleRate(sampleRate);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.nfx.android.graph.dsp;
+
+import org.jtransforms.fft.FloatFFT_1D;
+
+import java.util.Arrays;
+
+/**
+ * Works out the fundamental frequency of a buffer from its autocorrelation. The autocorrelation
+ * is calculated with a zero padded FFT, taking the power spectrum and transforming it back, so the
+ * cost is O(n log n) per buffer. The strongest peak within the frequency range is then refined
+ * with parabolic interpolation. The height of that peak relative to the zero lag gives a
+ * confidence, a clean periodic signal will be close to 1 and noise close to 0
+ *
+ * @author nick
+ */
+public class AutocorrelationFrequency {
+    /**
+     * Default range of frequencies which will be searched for
+     */
+    private static final float DEFAULT_MINIMUM_FREQUENCY = 20f;
+    private static final float DEFAULT_MAXIMUM_FREQUENCY = 5000f;
+
+    private int sampleRate;
+    private float minimumFrequency = DEFAULT_MINIMUM_FREQUENCY;
+    private float maximumFrequency = DEFAULT_MAXIMUM_FREQUENCY;
+    /**
+     * Length of buffer the workspace has been allocated for
+     */
+    private int bufferLength = 0;
+    private FloatFFT_1D fft;
+    /**
+     * Zero padded FFT workspace, holds the autocorrelation once the buffer has been analysed
+     */
+    private float[] workspace = new float[0];
+    /**
+     * Result of the last analysed buffer
+     */
+    private float frequency = 0f;
+    private float confidence = 0f;
+
+    public AutocorrelationFrequency(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Analyse the buffer and store the frequency and confidence of the result
+     *
+     * @param buffer time domain buffer to analyse
+     * @return the frequency found, the previous frequency is returned if the buffer is silent
+     */
+    public float analyseBuffer(float[] buffer) {
+        if(buffer.length < 4) {
+            return frequency;
+        }
+        if(buffer.length != bufferLength) {
+            allocateWorkspace(buffer.length);
+        }
+
+        // Remove any DC offset, otherwise it dominates the autocorrelation
+        double sum = 0;
+        for(int i = 0; i < bufferLength; i++) {
+            sum += buffer[i];
+        }
+        final float mean = (float) (sum / bufferLength);
+
+        for(int i = 0; i < bufferLength; i++) {
+            workspace[i] = buffer[i] - mean;
+        }
+        Arrays.fill(workspace, bufferLength, workspace.length, 0f);
+
+        fft.realForward(workspace);
+
+        // Power spectrum, element 0 and 1 hold the real DC and nyquist values
+        workspace[0] = workspace[0] * workspace[0];
+        workspace[1] = workspace[1] * workspace[1];
+        for(int i = 2; i < workspace.length; i += 2) {
+            final float real = workspace[i];
+            final float imaginary = workspace[i + 1];
+            workspace[i] = real * real + imaginary * imaginary;
+            workspace[i + 1] = 0f;
+        }
+
+        fft.realInverse(workspace, true);
+
+        findPeak();
+
+        return frequency;
+    }
+
+    /**
+     * Find the highest autocorrelation peak within the lag range once the first zero crossing
+     * has been passed, this stops the main lobe around zero lag from being picked
+     */
+    private void findPeak() {
+        final float zeroLag = workspace[0];
+        if(!(zeroLag > 0f)) {
+            confidence = 0f;
+            return;
+        }
+
+        final int minimumLag = Math.max(1, (int) (sampleRate / maximumFrequency));
+        // At least two periods are needed in the buffer for a reliable peak
+        final int maximumLag = Math.min(bufferLength / 2, (int) (sampleRate / minimumFrequency));
+
+        int lag = 1;
+        while(lag < maximumLag && workspace[lag] > 0f) {
+            lag++;
+        }
+        lag = Math.max(lag, minimumLag);
+
+        int peakLag = -1;
+        float peakValue = 0f;
+        for(; lag <= maximumLag; lag++) {
+            if(workspace[lag] > peakValue) {
+                peakValue = workspace[lag];
+                peakLag = lag;
+            }
+        }
+
+        if(peakLag < 1) {
+            confidence = 0f;
+            return;
+        }
+
+        // Fit a parabola through the peak and its neighbours to find the true peak position
+        final float previous = workspace[peakLag - 1];
+        final float next = workspace[peakLag + 1];
+        final float denominator = previous - 2f * peakValue + next;
+        float offset = 0f;
+        if(denominator != 0f) {
+            offset = 0.5f * (previous - next) / denominator;
+        }
+
+        frequency = sampleRate / (peakLag + offset);
+        // Fewer samples overlap at longer lags, scale the peak back up before comparing
+        confidence = Math.min(1f, peakValue * bufferLength / ((bufferLength - peakLag) *
+                zeroLag));
+    }
+
+    /**
+     * Allocates a workspace large enough to hold the buffer padded with the same number of zeros,
+     * rounded up to a power of two
+     *
+     * @param bufferLength length of buffers to be analysed
+     */
+    private void allocateWorkspace(int bufferLength) {
+        int fftSize = Integer.highestOneBit(bufferLength * 2 - 1) << 1;
+
+        this.bufferLength = bufferLength;
+        workspace = new float[fftSize];
+        fft = new FloatFFT_1D(fftSize);
+    }
+
+    /**
+     * @return frequency of the last buffer analysed
+     */
+    public float getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * @return confidence 0-1 of the last buffer analysed
+     */
+    public float getConfidence() {
+        return confidence;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Set the range of frequencies to search for
+     *
+     * @param minimumFrequency lowest frequency in Hz
+     * @param maximumFrequency highest frequency in Hz
+     */
+    public void setFrequencyRange(float minimumFrequency, float maximumFrequency) {
+        this.minimumFrequency = minimumFrequency;
+        this.maximumFrequency = maximumFrequency;
+    }
+}
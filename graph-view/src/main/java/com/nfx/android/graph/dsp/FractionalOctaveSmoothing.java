@@ -0,0 +1,123 @@
+package com.nfx.android.graph.dsp;
+
+/**
+ * Smooths a linear magnitude spectrum into logarithmically spaced 1/N octave bands. The band
+ * edges are worked out once and a prefix sum of the power spectrum is used, so each band costs
+ * O(1) no matter how many bins it covers
+ *
+ * @author nick
+ */
+public class FractionalOctaveSmoothing {
+    /**
+     * First and last bin (inclusive) covered by each band
+     */
+    private final int[] bandLowerBin;
+    private final int[] bandUpperBin;
+    /**
+     * Centre frequency of each band
+     */
+    private final float[] bandCentreFrequencies;
+    /**
+     * Running sum of the power spectrum, prefixSums[i] is the sum of bins 0 to i - 1
+     */
+    private final double[] prefixSums;
+
+    /**
+     * @param bandsPerOctave  number of bands per octave, eg 3 for 1/3 octave smoothing
+     * @param numberOfBins    number of bins in the magnitude spectrum
+     * @param sampleRate      sample rate of the signal the spectrum was taken from
+     */
+    public FractionalOctaveSmoothing(int bandsPerOctave, int numberOfBins, int sampleRate) {
+        final double binWidth = (double) sampleRate / (2.0 * numberOfBins);
+        final double nyquist = binWidth * (numberOfBins - 1);
+        final double bandStep = Math.pow(2.0, 1.0 / bandsPerOctave);
+        final double halfBandStep = Math.pow(2.0, 1.0 / (2.0 * bandsPerOctave));
+
+        // Start at the first bin above DC
+        int numberOfBands = 0;
+        for(double centre = binWidth; centre <= nyquist; centre *= bandStep) {
+            numberOfBands++;
+        }
+
+        bandLowerBin = new int[numberOfBands];
+        bandUpperBin = new int[numberOfBands];
+        bandCentreFrequencies = new float[numberOfBands];
+        prefixSums = new double[numberOfBins + 1];
+
+        final int lastBin = numberOfBins - 1;
+        double centre = binWidth;
+        for(int band = 0; band < numberOfBands; band++) {
+            int lowerBin = (int) Math.ceil(centre / halfBandStep / binWidth);
+            int upperBin = (int) Math.floor(centre * halfBandStep / binWidth);
+
+            // Narrow bands at the bottom of the spectrum may not cover any bin, use the nearest
+            if(upperBin < lowerBin) {
+                lowerBin = upperBin = (int) Math.round(centre / binWidth);
+            }
+
+            bandLowerBin[band] = Math.max(1, Math.min(lowerBin, lastBin));
+            bandUpperBin[band] = Math.max(bandLowerBin[band], Math.min(upperBin, lastBin));
+            bandCentreFrequencies[band] = (float) centre;
+
+            centre *= bandStep;
+        }
+    }
+
+    /**
+     * Smooth the magnitudes into the band buffer. The power within each band is averaged and
+     * the result is returned as a magnitude
+     *
+     * @param magnitudes         linear magnitude spectrum
+     * @param smoothedMagnitudes buffer to fill, must be getNumberOfBands() long
+     */
+    public void smooth(double[] magnitudes, double[] smoothedMagnitudes) {
+        final int numberOfBins = prefixSums.length - 1;
+
+        double sum = 0;
+        prefixSums[0] = 0;
+        for(int i = 0; i < numberOfBins; i++) {
+            sum += magnitudes[i] * magnitudes[i];
+            prefixSums[i + 1] = sum;
+        }
+
+        final int numberOfBands = bandCentreFrequencies.length;
+        for(int band = 0; band < numberOfBands; band++) {
+            final int lowerBin = bandLowerBin[band];
+            final int upperBin = bandUpperBin[band];
+
+            double bandPower = (prefixSums[upperBin + 1] - prefixSums[lowerBin]) /
+                    (upperBin - lowerBin + 1);
+            smoothedMagnitudes[band] = Math.sqrt(bandPower);
+        }
+    }
+
+    /**
+     * @return number of bands the spectrum is smoothed into
+     */
+    public int getNumberOfBands() {
+        return bandCentreFrequencies.length;
+    }
+
+    /**
+     * @return centre frequency of each band
+     */
+    public float[] getBandCentreFrequencies() {
+        return bandCentreFrequencies;
+    }
+
+    /**
+     * @param band band to look up
+     * @return first bin covered by the band
+     */
+    int getBandLowerBin(int band) {
+        return bandLowerBin[band];
+    }
+
+    /**
+     * @param band band to look up
+     * @return last bin (inclusive) covered by the band
+     */
+    int getBandUpperBin(int band) {
+        return bandUpperBin[band];
+    }
+}
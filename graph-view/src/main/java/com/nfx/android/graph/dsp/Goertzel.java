@@ -0,0 +1,142 @@
+package com.nfx.android.graph.dsp;
+
+/**
+ * Computes the level at a small set of frequencies using the Goertzel algorithm. Where only a
+ * handful of frequencies are of interest this costs O(k*n) per block, with k being the number of
+ * tracked frequencies, rather than the cost of a full FFT
+ *
+ * @author nick
+ */
+public class Goertzel {
+    /**
+     * Lowest level reported, a silent buffer reads as this rather than minus infinity
+     */
+    public static final float MINIMUM_DECIBELS = -160f;
+    private int sampleRate;
+    /**
+     * Frequencies currently being tracked
+     */
+    private float[] targetFrequencies = new float[0];
+    /**
+     * 2cos(w) for each target frequency, recalculated only when a target changes
+     */
+    private double[] coefficients = new double[0];
+    /**
+     * Normalised magnitude for each target, a full scale sine wave will read as 1
+     */
+    private float[] magnitudes = new float[0];
+
+    public Goertzel(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Run the filters across the buffer and store the resulting magnitudes
+     *
+     * @param buffer time domain buffer to analyse
+     */
+    public void analyseBuffer(float[] buffer) {
+        final int bufferLength = buffer.length;
+        final int numberOfTargets = targetFrequencies.length;
+
+        if(bufferLength == 0) {
+            return;
+        }
+
+        for(int t = 0; t < numberOfTargets; t++) {
+            final double coefficient = coefficients[t];
+            double s1 = 0;
+            double s2 = 0;
+
+            for(int i = 0; i < bufferLength; i++) {
+                double s0 = buffer[i] + coefficient * s1 - s2;
+                s2 = s1;
+                s1 = s0;
+            }
+
+            double power = s1 * s1 + s2 * s2 - coefficient * s1 * s2;
+            if(power < 0) {
+                power = 0;
+            }
+            magnitudes[t] = (float) (2.0 * Math.sqrt(power) / bufferLength);
+        }
+    }
+
+    /**
+     * @return the number of frequencies being tracked
+     */
+    public int getNumberOfTargets() {
+        return targetFrequencies.length;
+    }
+
+    /**
+     * Change the number of frequencies being tracked. New targets are set to 0Hz
+     *
+     * @param numberOfTargets number of frequencies to track
+     */
+    public void setNumberOfTargets(int numberOfTargets) {
+        if(numberOfTargets == targetFrequencies.length) {
+            return;
+        }
+
+        float[] frequencies = new float[numberOfTargets];
+        System.arraycopy(targetFrequencies, 0, frequencies, 0,
+                Math.min(numberOfTargets, targetFrequencies.length));
+
+        targetFrequencies = frequencies;
+        coefficients = new double[numberOfTargets];
+        magnitudes = new float[numberOfTargets];
+
+        for(int i = 0; i < numberOfTargets; i++) {
+            calculateCoefficient(i);
+        }
+    }
+
+    /**
+     * Set the frequency to track at the given index. The coefficient is only recalculated when the
+     * frequency has changed
+     *
+     * @param index     index of the target
+     * @param frequency frequency in Hz
+     */
+    public void setTargetFrequency(int index, float frequency) {
+        if(targetFrequencies[index] != frequency) {
+            targetFrequencies[index] = frequency;
+            calculateCoefficient(index);
+        }
+    }
+
+    public float getTargetFrequency(int index) {
+        return targetFrequencies[index];
+    }
+
+    /**
+     * @param index index of the target
+     * @return normalised magnitude of the last analysed buffer, full scale is 1
+     */
+    public float getMagnitude(int index) {
+        return magnitudes[index];
+    }
+
+    /**
+     * @param index index of the target
+     * @return level of the last analysed buffer in decibels, full scale is 0dB. Never below
+     * MINIMUM_DECIBELS
+     */
+    public float getDecibels(int index) {
+        return Math.max(MINIMUM_DECIBELS, 20f * (float) Math.log10(magnitudes[index]));
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+
+        for(int i = 0; i < targetFrequencies.length; i++) {
+            calculateCoefficient(i);
+        }
+    }
+
+    private void calculateCoefficient(int index) {
+        double omega = 2.0 * Math.PI * targetFrequencies[index] / sampleRate;
+        coefficients[index] = 2.0 * Math.cos(omega);
+    }
+}
@@ -0,0 +1,147 @@
+package com.nfx.android.graph.dsp;
+
+import java.util.Arrays;
+
+/**
+ * Changes the sample rate of a stream by the ratio interpolation / decimation using a polyphase
+ * FIR filter. The anti aliasing filter is a Blackman windowed sinc which is split into one short
+ * filter per phase, so only the outputs that are kept are ever calculated. The filter history is
+ * held between calls, blocks of any size can be passed in and the output is the same as if the
+ * stream had been processed in one go
+ *
+ * @author nick
+ */
+public class PolyphaseResampler {
+    private final int interpolation;
+    private final int decimation;
+    private final int tapsPerPhase;
+    /**
+     * Filter coefficients for each phase, ordered oldest sample first to match the history
+     */
+    private final float[][] phaseCoefficients;
+    /**
+     * The last tapsPerPhase input samples. Every sample is written twice, tapsPerPhase apart, so
+     * the history can always be read as one run from historyIndex without wrapping
+     */
+    private final float[] history;
+    private int historyIndex = 0;
+    /**
+     * Phase of the next output sample
+     */
+    private int phase = 0;
+    /**
+     * Input samples still to be taken in before the next output sample can be calculated
+     */
+    private int samplesToConsume = 1;
+
+    /**
+     * @param interpolation  up sampling factor
+     * @param decimation     down sampling factor
+     * @param zeroCrossings  number of sinc zero crossings either side of the filter centre, more
+     *                       zero crossings give a sharper cut off
+     */
+    public PolyphaseResampler(int interpolation, int decimation, int zeroCrossings) {
+        this.interpolation = interpolation;
+        this.decimation = decimation;
+        // The sinc is stretched by the larger of the two factors, so is the filter length
+        this.tapsPerPhase = (2 * zeroCrossings * Math.max(interpolation, decimation) +
+                interpolation - 1) / interpolation;
+
+        phaseCoefficients = new float[interpolation][tapsPerPhase];
+        history = new float[tapsPerPhase * 2];
+
+        designFilter();
+    }
+
+    /**
+     * Design the prototype low pass filter at the up sampled rate and split it into phases
+     */
+    private void designFilter() {
+        final int filterLength = interpolation * tapsPerPhase;
+        // Cut off at the lower of the input and output nyquist, relative to the up sampled rate
+        final double cutOff = 0.5 / Math.max(interpolation, decimation);
+        final double centre = (filterLength - 1) / 2.0;
+
+        for(int i = 0; i < filterLength; i++) {
+            final double x = i - centre;
+            double sinc = x == 0 ? 2.0 * cutOff :
+                    Math.sin(2.0 * Math.PI * cutOff * x) / (Math.PI * x);
+            double window = 0.42 - 0.5 * Math.cos(2.0 * Math.PI * i / (filterLength - 1)) +
+                    0.08 * Math.cos(4.0 * Math.PI * i / (filterLength - 1));
+
+            // Gain of interpolation makes up for the zeros inserted when up sampling
+            final int phaseIndex = i % interpolation;
+            final int tap = i / interpolation;
+            phaseCoefficients[phaseIndex][tapsPerPhase - 1 - tap] =
+                    (float) (sinc * window * interpolation);
+        }
+    }
+
+    /**
+     * Resample a block of input
+     *
+     * @param input       input samples
+     * @param inputLength number of samples in input to use
+     * @param output      buffer to fill, must be at least getMaximumOutputLength long
+     * @return number of output samples written
+     */
+    public int process(float[] input, int inputLength, float[] output) {
+        int outputLength = 0;
+        int inputIndex = 0;
+
+        while(true) {
+            while(samplesToConsume > 0) {
+                if(inputIndex >= inputLength) {
+                    return outputLength;
+                }
+                addToHistory(input[inputIndex++]);
+                samplesToConsume--;
+            }
+
+            final float[] coefficients = phaseCoefficients[phase];
+            float sum = 0;
+            for(int j = 0; j < tapsPerPhase; j++) {
+                sum += coefficients[j] * history[historyIndex + j];
+            }
+            output[outputLength++] = sum;
+
+            phase += decimation;
+            samplesToConsume = phase / interpolation;
+            phase %= interpolation;
+        }
+    }
+
+    private void addToHistory(float sample) {
+        history[historyIndex] = sample;
+        history[historyIndex + tapsPerPhase] = sample;
+        if(++historyIndex >= tapsPerPhase) {
+            historyIndex = 0;
+        }
+    }
+
+    /**
+     * @param inputLength number of input samples
+     * @return the largest number of output samples the given input can produce
+     */
+    public int getMaximumOutputLength(int inputLength) {
+        return (int) (((long) inputLength * interpolation + interpolation) / decimation) + 1;
+    }
+
+    /**
+     * Clear the filter history, the next input is treated as the start of a new stream
+     */
+    public void reset() {
+        Arrays.fill(history, 0f);
+        historyIndex = 0;
+        phase = 0;
+        samplesToConsume = 1;
+    }
+
+    public int getInterpolation() {
+        return interpolation;
+    }
+
+    public int getDecimation() {
+        return decimation;
+    }
+}
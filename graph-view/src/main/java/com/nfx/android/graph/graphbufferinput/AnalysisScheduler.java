@@ -0,0 +1,197 @@
+package com.nfx.android.graph.graphbufferinput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Sits between an input and a number of analysers. Each analyser is only passed a block once its
+ * update interval has elapsed, measured in samples so it follows the input rather than the wall
+ * clock. When an analyser is due the block is copied into a buffer held for that analyser and the
+ * analysis is run on a background thread, leaving the reader thread with just the copy. If an
+ * analyser is still busy with its last buffer the block is skipped for that analyser
+ */
+@SuppressWarnings("WeakerAccess")
+public class AnalysisScheduler extends InputListener {
+    /**
+     * Analysers being fed by this scheduler
+     */
+    private final List<ScheduledAnalyser> scheduledAnalysers = new ArrayList<>();
+    /**
+     * Runs the analysis away from the reader thread
+     */
+    private final ExecutorService executorService;
+    /**
+     * Sample rate of the input, the update intervals are converted into samples with it
+     */
+    private int sampleRate;
+
+    public AnalysisScheduler(int sampleRate) {
+        this(sampleRate, Executors.newSingleThreadExecutor());
+    }
+
+    /**
+     * @param sampleRate      sample rate of the input
+     * @param executorService runs the analysis, a direct executor makes the scheduling
+     *                        deterministic in tests
+     */
+    AnalysisScheduler(int sampleRate, ExecutorService executorService) {
+        this.sampleRate = sampleRate;
+        this.executorService = executorService;
+    }
+
+    /**
+     * Add an analyser, it will receive its first buffer with the next block
+     *
+     * @param scheduledInputListener analyser to add
+     */
+    public void addAnalyser(ScheduledInputListener scheduledInputListener) {
+        synchronized(this) {
+            scheduledAnalysers.add(new ScheduledAnalyser(scheduledInputListener));
+        }
+    }
+
+    /**
+     * Remove an analyser, a buffer may still be delivered if analysis is already underway
+     *
+     * @param scheduledInputListener analyser to remove
+     */
+    public void removeAnalyser(ScheduledInputListener scheduledInputListener) {
+        synchronized(this) {
+            for(int i = scheduledAnalysers.size() - 1; i >= 0; i--) {
+                if(scheduledAnalysers.get(i).listener == scheduledInputListener) {
+                    scheduledAnalysers.remove(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of analysers being fed
+     */
+    public int getNumberOfAnalysers() {
+        synchronized(this) {
+            return scheduledAnalysers.size();
+        }
+    }
+
+    @Override
+    public void inputBlockSizeUpdate(int blockSize) {
+        synchronized(this) {
+            for(ScheduledAnalyser scheduledAnalyser : scheduledAnalysers) {
+                scheduledAnalyser.listener.inputBlockSizeUpdate(blockSize);
+            }
+        }
+    }
+
+    @Override
+    public void bufferUpdate(float[] buffer) {
+        final int bufferLength = buffer.length;
+
+        synchronized(this) {
+            final int numberOfAnalysers = scheduledAnalysers.size();
+            for(int i = 0; i < numberOfAnalysers; i++) {
+                final ScheduledAnalyser scheduledAnalyser = scheduledAnalysers.get(i);
+
+                scheduledAnalyser.samplesUntilUpdate -= bufferLength;
+                if(scheduledAnalyser.samplesUntilUpdate > 0 ||
+                        !scheduledAnalyser.busy.compareAndSet(false, true)) {
+                    continue;
+                }
+
+                if(scheduledAnalyser.buffer.length != bufferLength) {
+                    scheduledAnalyser.buffer = new float[bufferLength];
+                }
+                System.arraycopy(buffer, 0, scheduledAnalyser.buffer, 0, bufferLength);
+
+                final long intervalInSamples = (long) sampleRate *
+                        scheduledAnalyser.listener.getUpdateIntervalInMs() / 1000L;
+                // Do not build up a debt of updates if the analyser has been skipped
+                scheduledAnalyser.samplesUntilUpdate = Math.max(
+                        scheduledAnalyser.samplesUntilUpdate + intervalInSamples, 1L);
+
+                executorService.execute(scheduledAnalyser);
+            }
+        }
+    }
+
+    @Override
+    public void inputSampleRateUpdate(int sampleRate) {
+        setSampleRate(sampleRate);
+    }
+
+    /**
+     * The input will send no more blocks, so the background thread is stopped along with it
+     */
+    @Override
+    public void inputRemoved() {
+        synchronized(this) {
+            for(ScheduledAnalyser scheduledAnalyser : scheduledAnalysers) {
+                scheduledAnalyser.listener.inputRemoved();
+            }
+        }
+        shutdown();
+    }
+
+    /**
+     * Stop the background thread, the scheduler can not be used after this
+     */
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    /**
+     * @return true once the background thread has been stopped
+     */
+    public boolean isShutdown() {
+        return executorService.isShutdown();
+    }
+
+    /**
+     * Set the sample rate the update intervals are measured against. The analysers are told of
+     * the new rate and the next update of each is measured from the new rate
+     *
+     * @param sampleRate sample rate in Hz
+     */
+    public void setSampleRate(int sampleRate) {
+        synchronized(this) {
+            this.sampleRate = sampleRate;
+            for(ScheduledAnalyser scheduledAnalyser : scheduledAnalysers) {
+                scheduledAnalyser.samplesUntilUpdate = 0;
+                scheduledAnalyser.listener.inputSampleRateUpdate(sampleRate);
+            }
+        }
+    }
+
+    /**
+     * Holds the buffer and timing for a single analyser. It is also the task run on the
+     * background thread so nothing is allocated per block
+     */
+    private static class ScheduledAnalyser implements Runnable {
+        private final ScheduledInputListener listener;
+        /**
+         * Set while the analyser is working on its buffer
+         */
+        private final AtomicBoolean busy = new AtomicBoolean(false);
+        private float[] buffer = new float[0];
+        private long samplesUntilUpdate = 0;
+
+        private ScheduledAnalyser(ScheduledInputListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            try {
+                listener.bufferUpdate(buffer);
+            } finally {
+                busy.set(false);
+            }
+        }
+    }
+}
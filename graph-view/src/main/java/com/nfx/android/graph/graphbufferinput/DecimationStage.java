@@ -0,0 +1,161 @@
+package com.nfx.android.graph.graphbufferinput;
+
+import com.nfx.android.graph.dsp.PolyphaseResampler;
+
+import java.util.Arrays;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Sits between an input and a display buffer. Each block from the input is resampled and added
+ * to a rolling buffer of the most recent resampled samples, which is passed on to the display
+ * listener. Long time windows can then be shown from a short buffer without the signal buffer
+ * having to min/max a full rate buffer each frame. Analysers needing the full rate data should
+ * still listen to the input directly
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class DecimationStage extends InputListener {
+    /**
+     * Sinc zero crossings either side of the resampler filter centre
+     */
+    private static final int ZERO_CROSSINGS = 16;
+    /**
+     * Resamples the incoming stream, the filter state is carried between blocks
+     */
+    private PolyphaseResampler resampler;
+    /**
+     * Output of the resampler for a single block
+     */
+    private float[] resampledBlock = new float[0];
+    /**
+     * Rolling buffer of the most recent resampled samples, writeIndex points at the oldest
+     */
+    private float[] displayBuffer;
+    private int writeIndex = 0;
+    /**
+     * Receives the rolling display buffer after each block
+     */
+    private InputListener displayListener;
+
+    /**
+     * Constructor
+     *
+     * @param interpolation up sampling factor
+     * @param decimation    down sampling factor
+     * @param displayLength number of resampled samples passed to the display listener
+     */
+    public DecimationStage(int interpolation, int decimation, int displayLength) {
+        resampler = new PolyphaseResampler(interpolation, decimation, ZERO_CROSSINGS);
+        displayBuffer = new float[displayLength];
+    }
+
+    @Override
+    public void inputBlockSizeUpdate(int blockSize) {
+        synchronized(this) {
+            resampledBlock = new float[resampler.getMaximumOutputLength(blockSize)];
+        }
+    }
+
+    @Override
+    public void bufferUpdate(float[] buffer) {
+        bufferUpdate(buffer, 0);
+    }
+
+    /**
+     * The newest resampled sample is taken to have the capture time of the newest input sample
+     */
+    @Override
+    public void bufferUpdate(float[] buffer, long captureTimeNs) {
+        synchronized(this) {
+            final int maximumOutputLength = resampler.getMaximumOutputLength(buffer.length);
+            if(resampledBlock.length < maximumOutputLength) {
+                resampledBlock = new float[maximumOutputLength];
+            }
+
+            final int resampledLength = resampler.process(buffer, buffer.length, resampledBlock);
+            writeToDisplayBuffer(resampledLength);
+
+            if(displayListener != null) {
+                displayListener.ringBufferUpdate(displayBuffer, writeIndex, captureTimeNs);
+            }
+        }
+    }
+
+    /**
+     * Add the resampled block to the rolling display buffer
+     *
+     * @param resampledLength number of samples in the resampled block
+     */
+    private void writeToDisplayBuffer(int resampledLength) {
+        final int displayLength = displayBuffer.length;
+        int from = 0;
+        int count = resampledLength;
+
+        // Only the newest display length samples can be held
+        if(count > displayLength) {
+            from = count - displayLength;
+            count = displayLength;
+        }
+
+        final int firstSegmentLength = Math.min(count, displayLength - writeIndex);
+        System.arraycopy(resampledBlock, from, displayBuffer, writeIndex, firstSegmentLength);
+        System.arraycopy(resampledBlock, from + firstSegmentLength, displayBuffer, 0,
+                count - firstSegmentLength);
+
+        writeIndex = (writeIndex + count) % displayLength;
+    }
+
+    @Override
+    public void inputRemoved() {
+        if(displayListener != null) {
+            displayListener.inputRemoved();
+        }
+    }
+
+    /**
+     * Set the listener to receive the display buffer, normally a SignalBuffer. The listener is
+     * told the display length straight away
+     *
+     * @param displayListener listener to receive the display buffer
+     */
+    public void setDisplayListener(InputListener displayListener) {
+        synchronized(this) {
+            this.displayListener = displayListener;
+        }
+        if(displayListener != null) {
+            displayListener.inputBlockSizeUpdate(displayBuffer.length);
+        }
+    }
+
+    /**
+     * Change the resampling ratio. The display buffer is cleared as the samples in it no longer
+     * match the new rate
+     *
+     * @param interpolation up sampling factor
+     * @param decimation    down sampling factor
+     */
+    public void setRatio(int interpolation, int decimation) {
+        synchronized(this) {
+            resampler = new PolyphaseResampler(interpolation, decimation, ZERO_CROSSINGS);
+            Arrays.fill(displayBuffer, 0f);
+            writeIndex = 0;
+        }
+    }
+
+    /**
+     * @param inputSampleRate sample rate of the input
+     * @return sample rate of the display buffer
+     */
+    public float getOutputSampleRate(int inputSampleRate) {
+        return (float) inputSampleRate * resampler.getInterpolation() /
+                resampler.getDecimation();
+    }
+
+    /**
+     * @return number of samples in the display buffer
+     */
+    public int getDisplayLength() {
+        return displayBuffer.length;
+    }
+}
@@ -0,0 +1,266 @@
+package com.nfx.android.graph.graphbufferinput;
+
+import com.nfx.android.graph.dsp.FractionalOctaveSmoothing;
+import com.nfx.android.graph.graphbufferinput.windowing.Window;
+import com.nfx.android.graph.timing.TimingHistogram;
+import com.nfx.android.graph.timing.TimingStatistics;
+
+import org.jtransforms.fft.FloatFFT_1D;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * The FFT processing for a single channel. The window, FFT, magnitude conversion, smoothing and
+ * averaging are carried out with buffers owned by the chain so a chain for each channel can be
+ * run at the same time
+ */
+class FftChain implements Runnable {
+    // NW pulled from other magnitude scales. This will ensure a signal of +1 to -1 is equal to 0db
+    // This fudge factor is added to the output to make a realistically
+    // fully-saturated signal come to 0dB.  Without it, the signal would
+    // have to be solid samples of -32768 to read zero, which is not
+    // realistic.  This really is a fudge, because the best value depends
+    // on the input frequency and sampling rate.  We optimise here for
+    // a 1kHz signal at 16,000 samples/sec.
+    private static final float FUDGE = 0.63610f;
+    /**
+     * Computes the FFT
+     */
+    private final FloatFFT_1D fftCalculations;
+    /**
+     * converted fft signal is stored here
+     */
+    private final float[] fftBuffer;
+    /**
+     * Last fft buffer to be converted
+     */
+    private final double[] magnitudeBuffer;
+    /**
+     * Last fft buffer to be converted
+     */
+    private final double[] phaseBuffer;
+    /**
+     * Smooths the magnitude buffer into fractional octave bands, null when disabled
+     */
+    private final FractionalOctaveSmoothing octaveSmoothing;
+    /**
+     * The magnitudes which are converted into the returned buffer
+     */
+    private final double[] outputMagnitudeBuffer;
+    /**
+     * Buffer with the finished data in
+     */
+    private final float[] returnedMagnitudeBuffer;
+    /**
+     * Stores a history of the previous buffers
+     */
+    private float[][] historyMagnitudeBuffers;
+    /**
+     * Current history buffer to write into
+     */
+    private int historyIndex = 0;
+    /**
+     * Work to carry out when run on a worker thread
+     */
+    private float[] pendingBuffer;
+    private Window pendingWindow;
+    private float pendingMinimumValue;
+    private Semaphore pendingFinished;
+    /**
+     * Timings of each stage, shared by the chains of all channels
+     */
+    private final TimingStatistics timingStatistics;
+    private final TimingHistogram windowTiming;
+    private final TimingHistogram fftTiming;
+    private final TimingHistogram conversionTiming;
+    private final TimingHistogram averagingTiming;
+    /**
+     * End of the FFT stage, the conversion stage runs from here to the start of averaging
+     */
+    private long conversionStartTime;
+
+    /**
+     * @param inputBlockSize         number of time domain samples in each block
+     * @param bandsPerOctave         fractional octave smoothing bands, 0 to disable
+     * @param sampleRate             sample rate of the input
+     * @param numberOfHistoryBuffers number of buffers to average over
+     * @param timingStatistics       timings to record each stage into
+     */
+    FftChain(int inputBlockSize, int bandsPerOctave, int sampleRate,
+             int numberOfHistoryBuffers, TimingStatistics timingStatistics) {
+        this.timingStatistics = timingStatistics;
+        windowTiming = timingStatistics.getStage("Window");
+        fftTiming = timingStatistics.getStage("FFT");
+        conversionTiming = timingStatistics.getStage("Conversion");
+        averagingTiming = timingStatistics.getStage("Averaging");
+
+        fftCalculations = new FloatFFT_1D(inputBlockSize);
+
+        fftBuffer = new float[inputBlockSize];
+        magnitudeBuffer = new double[inputBlockSize / 2];
+        phaseBuffer = new double[inputBlockSize / 2];
+
+        if(bandsPerOctave > 0) {
+            octaveSmoothing = new FractionalOctaveSmoothing(bandsPerOctave, inputBlockSize / 2,
+                    sampleRate);
+            outputMagnitudeBuffer = new double[octaveSmoothing.getNumberOfBands()];
+        } else {
+            octaveSmoothing = null;
+            outputMagnitudeBuffer = magnitudeBuffer;
+        }
+
+        returnedMagnitudeBuffer = new float[outputMagnitudeBuffer.length];
+        historyMagnitudeBuffers = new float[numberOfHistoryBuffers][outputMagnitudeBuffer.length];
+    }
+
+    /**
+     * Take the buffer through the whole chain, the result is left in the returned magnitude
+     * buffer
+     *
+     * @param buffer       time domain buffer, the window is applied in place
+     * @param window       window to apply prior to the FFT
+     * @param minimumValue minimum of the y axis in decibels to scale to, NaN to skip the
+     *                     conversion
+     */
+    void process(float[] buffer, Window window, float minimumValue) {
+        transform(buffer, window);
+        if(!Float.isNaN(minimumValue)) {
+            applyMagnitudeConversions(minimumValue);
+        }
+        average();
+    }
+
+    /**
+     * First part of the chain, windows the buffer and leaves the magnitude of each bin, smoothed
+     * if enabled, ready for applyMagnitudeConversions
+     *
+     * @param buffer time domain buffer, the window is applied in place
+     * @param window window to apply prior to the FFT
+     */
+    void transform(float[] buffer, Window window) {
+        long time = timingStatistics.startTiming();
+        buffer = window.applyWindow(buffer);
+        time = timingStatistics.lap(windowTiming, time);
+        applyFft(buffer);
+        conversionStartTime = timingStatistics.lap(fftTiming, time);
+        convertPowerAndPhase();
+        if(octaveSmoothing != null) {
+            octaveSmoothing.smooth(magnitudeBuffer, outputMagnitudeBuffer);
+        }
+    }
+
+    /**
+     * Last part of the chain, averages the converted buffer into the returned magnitude buffer
+     */
+    void average() {
+        final long time = timingStatistics.lap(conversionTiming, conversionStartTime);
+        applyingFFTAveraging();
+        timingStatistics.lap(averagingTiming, time);
+    }
+
+    /**
+     * Set up the work for run to carry out on a worker thread
+     *
+     * @param buffer       time domain buffer
+     * @param window       window to apply prior to the FFT
+     * @param minimumValue minimum of the y axis in decibels
+     * @param finished     released once the chain has finished
+     */
+    void prepare(float[] buffer, Window window, float minimumValue, Semaphore finished) {
+        pendingBuffer = buffer;
+        pendingWindow = window;
+        pendingMinimumValue = minimumValue;
+        pendingFinished = finished;
+    }
+
+    @Override
+    public void run() {
+        try {
+            process(pendingBuffer, pendingWindow, pendingMinimumValue);
+        } finally {
+            pendingFinished.release();
+        }
+    }
+
+    private void applyFft(float[] buffer) {
+        System.arraycopy(buffer, 0, fftBuffer, 0, buffer.length);
+        fftCalculations.realForward(fftBuffer);
+    }
+
+    private void convertPowerAndPhase() {
+        int bufferLength = magnitudeBuffer.length;
+        double scale = bufferLength * FUDGE;
+
+        for(int i = 0; i < bufferLength; i++) {
+            double real = fftBuffer[i * 2];
+            double imaginary = fftBuffer[i * 2 + 1];
+            magnitudeBuffer[i] = Math.sqrt(real * real + imaginary * imaginary) / scale;
+            phaseBuffer[i] = Math.atan2(imaginary, real);
+        }
+    }
+
+    /**
+     * Convert the magnitudes into decibels scaled to the y axis and flipped for display
+     *
+     * @param minimumValue minimum of the y axis in decibels to scale to
+     */
+    void applyMagnitudeConversions(float minimumValue) {
+        int bufferLength = returnedMagnitudeBuffer.length;
+
+        for(int i = 0; i < bufferLength; ++i) {
+
+            // Convert the signal into decibels so it is easier to read on screen.
+            // 20*log(value) / scaledToAxisMinimum
+            // Then flip the buffer to allow simple display on screen. (Screens display top to
+            // bottom, graphs show bottom to top)
+            returnedMagnitudeBuffer[i] = 20f * (float) Math.log10(outputMagnitudeBuffer[i]);
+            returnedMagnitudeBuffer[i] /= minimumValue; // Scale to negative 140 db
+            returnedMagnitudeBuffer[i] = 1f - returnedMagnitudeBuffer[i];
+        }
+    }
+
+    /**
+     * Averages the new buffer with the old buffers and stores the results the return buffer
+     */
+    private void applyingFFTAveraging() {
+        final int numberOfHistoryBuffers = historyMagnitudeBuffers.length;
+
+        // Update the index.
+        if(++historyIndex >= numberOfHistoryBuffers) {
+            historyIndex = 0;
+        }
+
+        int bufferLength = returnedMagnitudeBuffer.length;
+
+        System.arraycopy(
+                returnedMagnitudeBuffer, 0, historyMagnitudeBuffers[historyIndex], 0, bufferLength);
+
+        for(int i = 0; i < bufferLength; ++i) {
+            returnedMagnitudeBuffer[i] = 0;
+            for(int g = 0; g < numberOfHistoryBuffers; ++g) {
+                returnedMagnitudeBuffer[i] += historyMagnitudeBuffers[g][i];
+            }
+            returnedMagnitudeBuffer[i] /= numberOfHistoryBuffers;
+        }
+    }
+
+    void setNumberOfHistoryBuffers(int numberOfHistoryBuffers) {
+        historyMagnitudeBuffers = new float[numberOfHistoryBuffers][returnedMagnitudeBuffer.length];
+        historyIndex = 0;
+    }
+
+    double[] getMagnitudeBuffer() {
+        return magnitudeBuffer;
+    }
+
+    double[] getPhaseBuffer() {
+        return phaseBuffer;
+    }
+
+    float[] getReturnedMagnitudeBuffer() {
+        return returnedMagnitudeBuffer;
+    }
+}
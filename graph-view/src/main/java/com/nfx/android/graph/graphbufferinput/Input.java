@@ -2,18 +2,27 @@ package com.nfx.android.graph.graphbufferinput;
 
 import android.util.SparseArray;
 
+import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
+
 /**
  * NFX Development
  * Created by nick on 10/11/15.
  * <p>
  * This is the bare bones of an buffer input. Other objects can subscribe to buffer and settings
- * updates. Inherit from this class and implement the input type
+ * updates. Inherit from this class and implement the input type. Inputs with more than one
+ * channel send the first channel to the standard listeners, listeners can also subscribe to a
+ * particular channel
  */
 public abstract class Input implements InputInterface {
     /**
      * Interface to update buffer data
      */
     private final SparseArray<InputListener> inputListeners = new SparseArray<>();
+    /**
+     * Listeners for the channels after the first, keyed by channel
+     */
+    private final SparseArray<SparseArray<InputListener>> channelInputListeners =
+            new SparseArray<>();
     /**
      * Is the input running
      */
@@ -42,6 +51,88 @@ public abstract class Input implements InputInterface {
         inputListeners.remove(inputListener.hashCode());
     }
 
+    /**
+     * Add a listening object to a single channel of the input
+     *
+     * @param channel       channel to listen to, 0 being the first channel
+     * @param inputListener listener object
+     */
+    @Override
+    public void addInputListener(int channel, InputListener inputListener) {
+        if(channel == 0) {
+            addInputListener(inputListener);
+            return;
+        }
+
+        SparseArray<InputListener> listeners = channelInputListeners.get(channel);
+        if(listeners == null) {
+            listeners = new SparseArray<>();
+            channelInputListeners.put(channel, listeners);
+        }
+        listeners.put(inputListener.hashCode(), inputListener);
+    }
+
+    /**
+     * Remove a listening object from a channel
+     *
+     * @param channel       channel the listener was added to
+     * @param inputListener listener object
+     */
+    @Override
+    public void removeInputListener(int channel, InputListener inputListener) {
+        if(channel == 0) {
+            removeInputListener(inputListener);
+            return;
+        }
+
+        SparseArray<InputListener> listeners = channelInputListeners.get(channel);
+        if(listeners != null) {
+            listeners.remove(inputListener.hashCode());
+        }
+    }
+
+    /**
+     * Call when the x axis of the buffers sent to listeners changes
+     *
+     * @param xAxisParameters x axis of the buffers to follow
+     */
+    protected void notifyListenersOfXAxisChange(AxisParameters xAxisParameters) {
+        final int listenersSize = inputListeners.size();
+        for(int i = 0; i < listenersSize; i++) {
+            inputListeners.valueAt(i).inputXAxisUpdate(xAxisParameters);
+        }
+
+        final int channelsSize = channelInputListeners.size();
+        for(int c = 0; c < channelsSize; c++) {
+            SparseArray<InputListener> listeners = channelInputListeners.valueAt(c);
+            final int channelListenersSize = listeners.size();
+            for(int i = 0; i < channelListenersSize; i++) {
+                listeners.valueAt(i).inputXAxisUpdate(xAxisParameters);
+            }
+        }
+    }
+
+    /**
+     * Call when the sample rate of the input is changed
+     *
+     * @param sampleRate the new sample rate
+     */
+    protected void notifyListenersOfSampleRateChange(int sampleRate) {
+        final int listenersSize = inputListeners.size();
+        for(int i = 0; i < listenersSize; i++) {
+            inputListeners.valueAt(i).inputSampleRateUpdate(sampleRate);
+        }
+
+        final int channelsSize = channelInputListeners.size();
+        for(int c = 0; c < channelsSize; c++) {
+            SparseArray<InputListener> listeners = channelInputListeners.valueAt(c);
+            final int channelListenersSize = listeners.size();
+            for(int i = 0; i < channelListenersSize; i++) {
+                listeners.valueAt(i).inputSampleRateUpdate(sampleRate);
+            }
+        }
+    }
+
     /**
      * Call when block size is changed
      *
@@ -54,6 +145,15 @@ public abstract class Input implements InputInterface {
             int key = inputListeners.keyAt(i);
             inputListeners.get(key).inputBlockSizeUpdate(blockSize);
         }
+
+        final int channelsSize = channelInputListeners.size();
+        for(int c = 0; c < channelsSize; c++) {
+            SparseArray<InputListener> listeners = channelInputListeners.valueAt(c);
+            final int channelListenersSize = listeners.size();
+            for(int i = 0; i < channelListenersSize; i++) {
+                listeners.valueAt(i).inputBlockSizeUpdate(blockSize);
+            }
+        }
     }
 
     /**
@@ -62,10 +162,55 @@ public abstract class Input implements InputInterface {
      * @param buffer the new buffer
      */
     protected void notifyListenersOfBufferChange(float[] buffer) {
+        notifyListenersOfBufferChange(buffer, 0);
+    }
+
+    /**
+     * Call when there is a buffer update
+     *
+     * @param buffer        the new buffer
+     * @param captureTimeNs {@link System#nanoTime()} based capture time of the newest sample, 0
+     *                      when it is not known
+     */
+    protected void notifyListenersOfBufferChange(float[] buffer, long captureTimeNs) {
         final int listenersSize = inputListeners.size();
         for(int i = 0; i < listenersSize; i++) {
             int key = inputListeners.keyAt(i);
-            inputListeners.get(key).bufferUpdate(buffer);
+            inputListeners.get(key).bufferUpdate(buffer, captureTimeNs);
+        }
+    }
+
+    /**
+     * Call when there is a buffer update for a channel
+     *
+     * @param channel channel the buffer belongs to
+     * @param buffer  the new buffer
+     */
+    protected void notifyListenersOfChannelBufferChange(int channel, float[] buffer) {
+        notifyListenersOfChannelBufferChange(channel, buffer, 0);
+    }
+
+    /**
+     * Call when there is a buffer update for a channel
+     *
+     * @param channel       channel the buffer belongs to
+     * @param buffer        the new buffer
+     * @param captureTimeNs {@link System#nanoTime()} based capture time of the newest sample, 0
+     *                      when it is not known
+     */
+    protected void notifyListenersOfChannelBufferChange(int channel, float[] buffer,
+                                                        long captureTimeNs) {
+        if(channel == 0) {
+            notifyListenersOfBufferChange(buffer, captureTimeNs);
+            return;
+        }
+
+        SparseArray<InputListener> listeners = channelInputListeners.get(channel);
+        if(listeners != null) {
+            final int listenersSize = listeners.size();
+            for(int i = 0; i < listenersSize; i++) {
+                listeners.valueAt(i).bufferUpdate(buffer, captureTimeNs);
+            }
         }
     }
 
@@ -78,6 +223,23 @@ public abstract class Input implements InputInterface {
             int key = inputListeners.keyAt(i);
             inputListeners.get(key).inputRemoved();
         }
+
+        final int channelsSize = channelInputListeners.size();
+        for(int c = 0; c < channelsSize; c++) {
+            SparseArray<InputListener> listeners = channelInputListeners.valueAt(c);
+            final int channelListenersSize = listeners.size();
+            for(int i = 0; i < channelListenersSize; i++) {
+                listeners.valueAt(i).inputRemoved();
+            }
+        }
+    }
+
+    /**
+     * @return number of channels the input provides
+     */
+    @Override
+    public int getNumberOfChannels() {
+        return 1;
     }
 
     /**
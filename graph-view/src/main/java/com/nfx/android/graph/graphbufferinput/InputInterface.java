@@ -34,10 +34,16 @@ public interface InputInterface {
 
     void addInputListener(InputListener inputListener);
 
+    void addInputListener(int channel, InputListener inputListener);
+
     SparseArray<InputListener> getInputListeners();
 
     void removeInputListener(InputListener inputListener);
 
+    void removeInputListener(int channel, InputListener inputListener);
+
+    int getNumberOfChannels();
+
     boolean hasTriggerDetection();
 
     @Nullable
@@ -1,13 +1,81 @@
 package com.nfx.android.graph.graphbufferinput;
 
+import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
+
 /**
  * NFX Development
  * Created by nick on 18/08/16.
  */
 public abstract class InputListener {
+    /**
+     * Used to unroll ring buffers for listeners that do not handle them directly
+     */
+    private float[] unrolledBuffer = new float[0];
+
     public abstract void inputBlockSizeUpdate(int blockSize);
 
     public abstract void bufferUpdate(float[] buffer);
 
+    /**
+     * Called with a new buffer and the time its newest sample was captured. By default the time
+     * is dropped and the buffer passed to bufferUpdate, override to make use of it
+     *
+     * @param buffer        the new buffer
+     * @param captureTimeNs {@link System#nanoTime()} based capture time of the newest sample, 0
+     *                      when it is not known
+     */
+    public void bufferUpdate(float[] buffer, long captureTimeNs) {
+        bufferUpdate(buffer);
+    }
+
+    /**
+     * Called with a full ring buffer when the capture time is not known
+     *
+     * @param ringBuffer  the ring buffer
+     * @param oldestIndex index of the oldest sample in the ring
+     */
+    public void ringBufferUpdate(float[] ringBuffer, int oldestIndex) {
+        ringBufferUpdate(ringBuffer, oldestIndex, 0);
+    }
+
+    /**
+     * Called with a full ring buffer, the oldest sample is at {@code oldestIndex} and the buffer
+     * wraps around to finish at {@code oldestIndex - 1}. By default the ring is unrolled and
+     * passed to bufferUpdate, override to copy straight out of the ring instead
+     *
+     * @param ringBuffer    the ring buffer
+     * @param oldestIndex   index of the oldest sample in the ring
+     * @param captureTimeNs {@link System#nanoTime()} based capture time of the newest sample, 0
+     *                      when it is not known
+     */
+    public void ringBufferUpdate(float[] ringBuffer, int oldestIndex, long captureTimeNs) {
+        if(unrolledBuffer.length != ringBuffer.length) {
+            unrolledBuffer = new float[ringBuffer.length];
+        }
+
+        final int firstSegmentLength = ringBuffer.length - oldestIndex;
+        System.arraycopy(ringBuffer, oldestIndex, unrolledBuffer, 0, firstSegmentLength);
+        System.arraycopy(ringBuffer, 0, unrolledBuffer, firstSegmentLength, oldestIndex);
+
+        bufferUpdate(unrolledBuffer, captureTimeNs);
+    }
+
+    /**
+     * Called when the buffers sent from now on are on a different x axis, for example when
+     * fractional octave smoothing is turned on. Ignored by default
+     *
+     * @param xAxisParameters x axis of the buffers to follow
+     */
+    public void inputXAxisUpdate(AxisParameters xAxisParameters) {
+    }
+
+    /**
+     * Called when the sample rate of the input changes. Ignored by default
+     *
+     * @param sampleRate new sample rate in Hz
+     */
+    public void inputSampleRateUpdate(int sampleRate) {
+    }
+
     public abstract void inputRemoved();
 }
@@ -1,72 +1,84 @@
 package com.nfx.android.graph.graphbufferinput;
 
+import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
 import com.nfx.android.graph.androidgraph.GraphViewInterface;
+import com.nfx.android.graph.androidgraph.Scale;
+import com.nfx.android.graph.dsp.FractionalOctaveSmoothing;
 import com.nfx.android.graph.graphbufferinput.windowing.NoWindow;
 import com.nfx.android.graph.graphbufferinput.windowing.Window;
+import com.nfx.android.graph.timing.TimingHistogram;
+import com.nfx.android.graph.timing.TimingStatistics;
+import com.nfx.android.graph.timing.TimingStatisticsInterface;
 
-import org.jtransforms.fft.FloatFFT_1D;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 /**
  * NFX Development
  * Created by nick on 30/11/15.
  * <p>
  * This class takes the microphone input and computes the fft of signal. In addition to this the
- * final buffer is logarithmic
+ * final buffer is logarithmic. Each channel has its own FFT chain, for large FFTs the channels
+ * are processed in parallel on a small pool of worker threads
  */
 public class MicrophoneFFTInput extends MicrophoneInput implements MicrophoneFFTInputInterface {
-
-    // NW pulled from other magnitude scales. This will ensure a signal of +1 to -1 is equal to 0db
-    // This fudge factor is added to the output to make a realistically
-    // fully-saturated signal come to 0dB.  Without it, the signal would
-    // have to be solid samples of -32768 to read zero, which is not
-    // realistic.  This really is a fudge, because the best value depends
-    // on the input frequency and sampling rate.  We optimise here for
-    // a 1kHz signal at 16,000 samples/sec.
-    private static final float FUDGE = 0.63610f;
+    /**
+     * Block size from which the channels are processed on worker threads, below this the cost of
+     * handing the work over outweighs the gain
+     */
+    private static final int PARALLEL_BLOCK_SIZE = 8192;
     /**
      * The interface in which to send updates to
      */
     protected final GraphViewInterface graphViewInterface;
     /**
-     * Last fft buffer to be converted
+     * Last fft buffer to be converted for the first channel
      */
     protected double[] magnitudeBuffer;
     /**
-     * Buffer with the finished data in
+     * Buffer with the finished data in for the first channel
      */
     protected float[] returnedMagnitudeBuffer;
     /**
-     * An interface to provide FFT buffers
+     * An interface to provide FFT buffers of the first channel
      */
     private InputFftListener inputFftListener;
-    /**
-     * converted fft signal is stored here
-     */
-    private float[] fftBuffer;
-    /**
-     * Last fft buffer to be converted
-     */
-    private double[] phaseBuffer;
     /**
      * Number of historical buffers to store
      */
     private int numberOfHistoryBuffers = 4;
     /**
-     * Computes the FFT
+     * FFT processing for each channel
      */
-    private FloatFFT_1D fftCalculations = null;
+    private FftChain[] fftChains = new FftChain[0];
     /**
-     * Stores a history of the previous buffers
+     * Processes the channels after the first, null when the channels are processed in turn
      */
-    private float[][] historyMagnitudeBuffers;
+    private ExecutorService workerPool = null;
     /**
-     * Current history buffer to write into
+     * Released by each worker chain as it finishes, reused for every block so nothing is
+     * allocated on the reader thread
      */
-    private int historyIndex = 0;
+    private final Semaphore channelsProcessed = new Semaphore(0);
     /**
      * Window to apply to signal prior to FFT
      */
     private Window window = new NoWindow();
+    /**
+     * Number of smoothing bands per octave, 0 when smoothing is disabled
+     */
+    private int bandsPerOctave = 0;
+    /**
+     * Smooths the magnitude buffer into fractional octave bands, null when disabled. The chains
+     * hold their own copy, this one gives the band layout
+     */
+    private FractionalOctaveSmoothing octaveSmoothing = null;
+    /**
+     * Rolling timings of each processing stage, the FFT chains record the stages up to averaging
+     */
+    private final TimingStatistics processingTimingStatistics = new TimingStatistics();
+    private final TimingHistogram dispatchTiming;
 
     /**
      * Constructor to initialise microphone for listening
@@ -78,122 +90,153 @@ public class MicrophoneFFTInput extends MicrophoneInput implements MicrophoneFFT
                               int binSize) {
         super(binSize * 2);
         this.graphViewInterface = graphViewInterface;
+        // Created first so the stages are listed in processing order
+        for(String stage : new String[]{"Window", "FFT", "Conversion", "Averaging"}) {
+            processingTimingStatistics.getStage(stage);
+        }
+        dispatchTiming = processingTimingStatistics.getStage("Dispatch");
     }
 
     @Override
     public synchronized void start() throws RuntimeException {
         super.start();
 
-        fftCalculations = new FloatFFT_1D(inputBlockSize);
+        allocateOutputBuffers();
 
-        fftBuffer = new float[inputBlockSize];
-        magnitudeBuffer = new double[inputBlockSize/2];
-        phaseBuffer = new double[inputBlockSize/2];
-        returnedMagnitudeBuffer = new float[inputBlockSize / 2];
-
-        historyMagnitudeBuffers = new float[numberOfHistoryBuffers][inputBlockSize / 2];
+        final int numberOfChannels = getNumberOfChannels();
+        if(numberOfChannels > 1 && inputBlockSize >= PARALLEL_BLOCK_SIZE && workerPool == null) {
+            final int numberOfWorkers = Math.max(1, Math.min(numberOfChannels - 1,
+                    Runtime.getRuntime().availableProcessors() - 1));
+            workerPool = Executors.newFixedThreadPool(numberOfWorkers);
+        }
 
-        notifyListenersOfInputBlockSizeChange(inputBlockSize / 2);
         if(inputFftListener != null) {
             inputFftListener.updateBufferSize(inputBlockSize);
         }
     }
 
     @Override
-    public int getBufferSize() {
-        return inputBlockSize / 2;
-    }
+    public void stop() {
+        super.stop();
 
-    @Override
-    public void setBufferSize(int bufferSize) {
-        setInputBlockSize(bufferSize);
+        if(workerPool != null) {
+            workerPool.shutdown();
+            workerPool = null;
+        }
     }
 
     /**
-     * This takes the last read buffer and does a FFT calculation on it. It then converts the values
-     * into dB. This may take a while so we have to optimise this as much as possible
-     *
-     * @param buffer Buffer containing the data.
+     * Sets up a FFT chain for each channel, including the smoothing stage if enabled. The
+     * listeners are informed of the new size
      */
-    @Override
-    protected synchronized void readDone(float[] buffer) {
-        if(isRunning()) {
-            transformSignalToFftSignal(buffer);
-            applyingFFTAveraging();
-            notifyListenersOfBufferChange(returnedMagnitudeBuffer);
+    private void allocateOutputBuffers() {
+        if(bandsPerOctave > 0) {
+            octaveSmoothing = new FractionalOctaveSmoothing(bandsPerOctave, inputBlockSize / 2,
+                    getSampleRate());
+        } else {
+            octaveSmoothing = null;
         }
-    }
 
-    protected void transformSignalToFftSignal(float[] buffer) {
-        buffer = applyWindow(buffer);
-        applyFft(buffer);
-        convertPowerAndPhase();
-        if(inputFftListener != null) {
-            inputFftListener.fftBufferUpdate(magnitudeBuffer, phaseBuffer);
+        fftChains = new FftChain[getNumberOfChannels()];
+        for(int c = 0; c < fftChains.length; c++) {
+            fftChains[c] = new FftChain(inputBlockSize, bandsPerOctave, getSampleRate(),
+                    numberOfHistoryBuffers, processingTimingStatistics);
         }
 
-        applyMagnitudeConversions();
+        magnitudeBuffer = fftChains[0].getMagnitudeBuffer();
+        returnedMagnitudeBuffer = fftChains[0].getReturnedMagnitudeBuffer();
+
+        notifyListenersOfInputBlockSizeChange(getBufferSize());
+        notifyListenersOfXAxisChange(getOutputXAxisParameters());
     }
 
-    private float[] applyWindow(float[] buffer) {
-        return window.applyWindow(buffer);
+    /**
+     * @return size of the buffer sent to listeners. This is the number of smoothing bands when
+     * fractional octave smoothing is enabled
+     */
+    @Override
+    public int getBufferSize() {
+        if(octaveSmoothing != null) {
+            return octaveSmoothing.getNumberOfBands();
+        }
+        return inputBlockSize / 2;
     }
 
-    private void applyFft(float[] buffer) {
-        System.arraycopy(buffer, 0, fftBuffer, 0, buffer.length);
-        fftCalculations.realForward(fftBuffer);
+    @Override
+    public void setBufferSize(int bufferSize) {
+        setInputBlockSize(bufferSize);
     }
 
-    private void convertPowerAndPhase() {
-        int bufferLength = magnitudeBuffer.length;
-        double scale = bufferLength * FUDGE;
+    /**
+     * This takes the last read buffers and does a FFT calculation on each channel. It then
+     * converts the values into dB. This may take a while so we have to optimise this as much as
+     * possible
+     *
+     * @param channelBuffers Buffer for each channel containing the data.
+     * @param captureTimeNs  capture time of the newest sample, passed on with the spectrum
+     */
+    @Override
+    protected synchronized void readDone(float[][] channelBuffers, long captureTimeNs) {
+        if(isRunning()) {
+            final float minimumValue = graphViewInterface != null ?
+                    graphViewInterface.getGraphParameters().getYAxisParameters()
+                            .getMinimumValue() : Float.NaN;
+            final int numberOfChannels = Math.min(channelBuffers.length, fftChains.length);
+
+            if(workerPool != null && numberOfChannels > 1) {
+                // The first channel is processed on this thread while the workers take the rest
+                for(int c = 1; c < numberOfChannels; c++) {
+                    fftChains[c].prepare(channelBuffers[c], window, minimumValue,
+                            channelsProcessed);
+                    workerPool.execute(fftChains[c]);
+                }
+                transformSignalToFftSignal(channelBuffers[0]);
+                // The workers must be finished with the channel buffers before the next read
+                // so the wait is not cut short by an interrupt, which would also leave permits
+                // behind for the next block
+                channelsProcessed.acquireUninterruptibly(numberOfChannels - 1);
+            } else {
+                transformSignalToFftSignal(channelBuffers[0]);
+                for(int c = 1; c < numberOfChannels; c++) {
+                    fftChains[c].process(channelBuffers[c], window, minimumValue);
+                }
+            }
 
-        for(int i = 0; i < bufferLength; i++) {
-            double real = fftBuffer[i * 2];
-            double imaginary = fftBuffer[i * 2 + 1];
-            magnitudeBuffer[i] = Math.sqrt(real * real + imaginary * imaginary) / scale;
-            phaseBuffer[i] = Math.atan2(imaginary, real);
-        }
-    }
+            final long dispatchStartTime = processingTimingStatistics.startTiming();
+            if(inputFftListener != null) {
+                inputFftListener.fftBufferUpdate(fftChains[0].getMagnitudeBuffer(),
+                        fftChains[0].getPhaseBuffer());
+            }
 
-    protected void applyMagnitudeConversions() {
-        if(graphViewInterface != null) {
-            int bufferLength = returnedMagnitudeBuffer.length;
-
-            for(int i = 0; i < bufferLength; ++i) {
-
-                // Convert the signal into decibels so it is easier to read on screen.
-                // 20*log(value) / scaledToAxisMinimum
-                // Then flip the buffer to allow simple display on screen. (Screens display top to
-                // bottom, graphs show bottom to top)
-                returnedMagnitudeBuffer[i] = 20f * (float) Math.log10(magnitudeBuffer[i]);
-                returnedMagnitudeBuffer[i] /= graphViewInterface.getGraphParameters().
-                        getYAxisParameters().getMinimumValue(); // Scale to negative 140 db
-                returnedMagnitudeBuffer[i] = 1f - returnedMagnitudeBuffer[i];
+            for(int c = 0; c < numberOfChannels; c++) {
+                notifyListenersOfChannelBufferChange(c, fftChains[c].getReturnedMagnitudeBuffer(),
+                        captureTimeNs);
             }
+            processingTimingStatistics.lap(dispatchTiming, dispatchStartTime);
         }
     }
 
     /**
-     * Averages the new buffer with the old buffers and stores the results the return buffer
+     * Take the first channel through its FFT chain. The other channels go straight through their
+     * chains, override this and applyMagnitudeConversions to change the processing of the
+     * displayed channel
+     *
+     * @param buffer time domain buffer of the first channel, the window is applied in place
      */
-    private void applyingFFTAveraging() {
-        // Update the index.
-        if(++historyIndex >= numberOfHistoryBuffers) {
-            historyIndex = 0;
-        }
-
-        int bufferLength = returnedMagnitudeBuffer.length;
-
-        System.arraycopy(
-                returnedMagnitudeBuffer, 0, historyMagnitudeBuffers[historyIndex], 0, bufferLength);
+    protected void transformSignalToFftSignal(float[] buffer) {
+        fftChains[0].transform(buffer, window);
+        applyMagnitudeConversions();
+        fftChains[0].average();
+    }
 
-        for(int i = 0; i < bufferLength; ++i) {
-            returnedMagnitudeBuffer[i] = 0;
-            for(int g = 0; g < numberOfHistoryBuffers; ++g) {
-                returnedMagnitudeBuffer[i] += historyMagnitudeBuffers[g][i];
-            }
-            returnedMagnitudeBuffer[i] /= numberOfHistoryBuffers;
+    /**
+     * Convert the magnitudes of the first channel into decibels scaled to the y axis, skipped
+     * when there is no graph to scale to
+     */
+    protected void applyMagnitudeConversions() {
+        if(graphViewInterface != null) {
+            fftChains[0].applyMagnitudeConversions(graphViewInterface.getGraphParameters().
+                    getYAxisParameters().getMinimumValue());
         }
     }
 
@@ -203,10 +246,12 @@ public class MicrophoneFFTInput extends MicrophoneInput implements MicrophoneFFT
     }
 
     @Override
-    public void setNumberOfHistoryBuffers(int numberOfHistoryBuffers) {
+    public synchronized void setNumberOfHistoryBuffers(int numberOfHistoryBuffers) {
         this.numberOfHistoryBuffers = numberOfHistoryBuffers;
 
-        historyMagnitudeBuffers = new float[numberOfHistoryBuffers][inputBlockSize / 2];
+        for(FftChain fftChain : fftChains) {
+            fftChain.setNumberOfHistoryBuffers(numberOfHistoryBuffers);
+        }
     }
 
     @Override
@@ -219,6 +264,49 @@ public class MicrophoneFFTInput extends MicrophoneInput implements MicrophoneFFT
         this.window = window;
     }
 
+    @Override
+    public int getFractionalOctaveSmoothing() {
+        return bandsPerOctave;
+    }
+
+    /**
+     * Smooth the spectrum into 1/bandsPerOctave octave bands. The listeners are sent a smaller
+     * buffer which is logarithmically spaced, see {@link #getOutputXAxisParameters()}. Listeners
+     * already attached are told of the new axis
+     *
+     * @param bandsPerOctave number of bands per octave, eg 3 for 1/3 octave. 0 to disable
+     */
+    @Override
+    public synchronized void setFractionalOctaveSmoothing(int bandsPerOctave) {
+        this.bandsPerOctave = bandsPerOctave;
+
+        if(isRunning()) {
+            allocateOutputBuffers();
+        } else {
+            if(bandsPerOctave > 0) {
+                octaveSmoothing = new FractionalOctaveSmoothing(bandsPerOctave,
+                        inputBlockSize / 2, getSampleRate());
+            } else {
+                octaveSmoothing = null;
+            }
+            // Signals already attached have to move onto the new axis
+            notifyListenersOfXAxisChange(getOutputXAxisParameters());
+        }
+    }
+
+    /**
+     * @return the x axis of the buffer sent to listeners
+     */
+    @Override
+    public AxisParameters getOutputXAxisParameters() {
+        if(octaveSmoothing != null) {
+            float[] bandCentreFrequencies = octaveSmoothing.getBandCentreFrequencies();
+            return new AxisParameters(bandCentreFrequencies[0],
+                    bandCentreFrequencies[bandCentreFrequencies.length - 1], Scale.logarithmic);
+        }
+        return new AxisParameters(0, getSampleRate() / 2, Scale.linear);
+    }
+
     @Override
     public boolean hasTriggerDetection() {
         return false;
@@ -229,6 +317,15 @@ public class MicrophoneFFTInput extends MicrophoneInput implements MicrophoneFFT
         return null;
     }
 
+    /**
+     * @return rolling timings of the window, FFT, conversion, averaging and listener dispatch.
+     * Timing is disabled by default
+     */
+    @Override
+    public TimingStatisticsInterface getProcessingTimingStatistics() {
+        return processingTimingStatistics;
+    }
+
     @Override
     public InputFftListener getInputFftListener() {
         return inputFftListener;
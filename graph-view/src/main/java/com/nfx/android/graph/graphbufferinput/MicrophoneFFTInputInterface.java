@@ -1,6 +1,8 @@
 package com.nfx.android.graph.graphbufferinput;
 
+import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
 import com.nfx.android.graph.graphbufferinput.windowing.Window;
+import com.nfx.android.graph.timing.TimingStatisticsInterface;
 
 /**
  * NFX Development
@@ -15,7 +17,15 @@ public interface MicrophoneFFTInputInterface extends InputInterface {
 
     void setWindow(Window window);
 
+    int getFractionalOctaveSmoothing();
+
+    void setFractionalOctaveSmoothing(int bandsPerOctave);
+
+    AxisParameters getOutputXAxisParameters();
+
     InputFftListener getInputFftListener();
 
     void setInputFftListener(InputFftListener inputFftListener);
+
+    TimingStatisticsInterface getProcessingTimingStatistics();
 }
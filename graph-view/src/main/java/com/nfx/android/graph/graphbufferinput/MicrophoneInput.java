@@ -1,7 +1,9 @@
 package com.nfx.android.graph.graphbufferinput;
 
+import android.annotation.TargetApi;
 import android.media.AudioFormat;
 import android.media.AudioRecord;
+import android.media.AudioTimestamp;
 import android.media.MediaRecorder;
 import android.os.Build;
 import android.util.Log;
@@ -11,14 +13,17 @@ import android.util.Log;
  * Created by nick on 10/11/15.
  * <p>
  * Sets up the microphone for listening, the data taken and sent on to the interface
- * The touch events are handled by this object to manipulate the microphone input
+ * The touch events are handled by this object to manipulate the microphone input. When more than
+ * one channel is captured the interleaved samples are split into a buffer per channel
  */
 public abstract class MicrophoneInput extends Input {
     private final static String TAG = "MicrophoneInput";
-    @SuppressWarnings("FieldCanBeLocal")
-    private final int channelConfig = AudioFormat.CHANNEL_IN_MONO;
     /**
-     * Audio input block size, in samples.
+     * Number of channels to capture
+     */
+    private int numberOfChannels = 1;
+    /**
+     * Audio input block size, in samples per channel.
      */
     int inputBlockSize = 2048;
     /**
@@ -36,6 +41,14 @@ public abstract class MicrophoneInput extends Input {
     private int audioFormat = AudioFormat.ENCODING_PCM_16BIT;
     @SuppressWarnings("FieldCanBeLocal")
     private int bufferSizeInBytes = 0;
+    /**
+     * Filled in by AudioRecord with the capture time of a recent frame
+     */
+    private AudioTimestamp audioTimestamp;
+    /**
+     * Capture time of the block being passed to readDone, only used on the reader thread
+     */
+    private long blockCaptureTimeNs = 0;
 
     /**
      * @param inputBlockSize            initial blockSize
@@ -60,24 +73,28 @@ public abstract class MicrophoneInput extends Input {
     public void start() throws RuntimeException {
         // Only try and start if not running
         if(!running) {
-            final int audioBufferSizeInBytes = AudioRecord.getMinBufferSize(sampleRate,
-                    channelConfig,
-                    audioFormat);
+            final int channelConfig = numberOfChannels == 1 ? AudioFormat.CHANNEL_IN_MONO :
+                    AudioFormat.CHANNEL_IN_STEREO;
+            final int minimumBufferSizeInBytes = AudioRecord.getMinBufferSize(sampleRate,
+                    channelConfig, audioFormat);
 
             if(audioFormat == AudioFormat.ENCODING_PCM_FLOAT) {
                 if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    inputBlockSize = Math.max(inputBlockSize, audioBufferSizeInBytes / 4);
-                    bufferSizeInBytes = inputBlockSize * 4;
+                    inputBlockSize = Math.max(inputBlockSize,
+                            minimumBlockSize(minimumBufferSizeInBytes, numberOfChannels, 4));
+                    bufferSizeInBytes = inputBlockSize * 4 * numberOfChannels;
                 } else {
                     throw new RuntimeException("ENCODING_PCM_FLOAT is not supported below Android" +
                             " Version 6.0");
                 }
             } else if(audioFormat == AudioFormat.ENCODING_PCM_16BIT) {
-                inputBlockSize = Math.max(inputBlockSize, audioBufferSizeInBytes / 2);
-                bufferSizeInBytes = inputBlockSize * 2;
+                inputBlockSize = Math.max(inputBlockSize,
+                        minimumBlockSize(minimumBufferSizeInBytes, numberOfChannels, 2));
+                bufferSizeInBytes = inputBlockSize * 2 * numberOfChannels;
             } else if(audioFormat == AudioFormat.ENCODING_PCM_8BIT) {
-                inputBlockSize = Math.max(inputBlockSize, audioBufferSizeInBytes);
-                bufferSizeInBytes = inputBlockSize;
+                inputBlockSize = Math.max(inputBlockSize,
+                        minimumBlockSize(minimumBufferSizeInBytes, numberOfChannels, 1));
+                bufferSizeInBytes = inputBlockSize * numberOfChannels;
             } else {
                 throw new RuntimeException("Unrecognized Encoding format only ENCODING_PCM_FLOAT," +
                         " ENCODING_PCM_16BIT , ENCODING_PCM_8BIT is supported");
@@ -87,9 +104,13 @@ public abstract class MicrophoneInput extends Input {
 
             // Set up the audio input.
             try {
-                audioInput = new AudioRecord(MediaRecorder.AudioSource.MIC, sampleRate,
-                        channelConfig,
-                        audioFormat, bufferSizeInBytes);
+                if(numberOfChannels > 2) {
+                    audioInput = createMultiChannelAudioRecord();
+                } else {
+                    audioInput = new AudioRecord(MediaRecorder.AudioSource.MIC, sampleRate,
+                            channelConfig,
+                            audioFormat, bufferSizeInBytes);
+                }
             } catch(RuntimeException e) {
                 throw new RuntimeException(e.getMessage());
             }
@@ -105,6 +126,46 @@ public abstract class MicrophoneInput extends Input {
         }
     }
 
+    /**
+     * Works out the smallest block which fills the minimum AudioRecord buffer. The minimum is
+     * only ever asked for with a mono or stereo configuration, so above two channels it is
+     * treated as a number of stereo frames and every channel needs that many frames
+     *
+     * @param minimumBufferSizeInBytes size returned by AudioRecord.getMinBufferSize
+     * @param numberOfChannels         number of channels being captured
+     * @param bytesPerSample           size of a single sample of one channel
+     * @return minimum block size in samples per channel, rounded up
+     */
+    static int minimumBlockSize(int minimumBufferSizeInBytes, int numberOfChannels,
+                                int bytesPerSample) {
+        final int bytesPerQueriedFrame = bytesPerSample * Math.min(numberOfChannels, 2);
+        return (minimumBufferSizeInBytes + bytesPerQueriedFrame - 1) / bytesPerQueriedFrame;
+    }
+
+    /**
+     * Channels beyond stereo can only be requested by index mask, which needs Android 6.0
+     *
+     * @return audio record capturing numberOfChannels channels
+     */
+    private AudioRecord createMultiChannelAudioRecord() {
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            throw new RuntimeException("More than 2 channels is not supported below Android" +
+                    " Version 6.0");
+        }
+
+        AudioFormat format = new AudioFormat.Builder()
+                .setEncoding(audioFormat)
+                .setSampleRate(sampleRate)
+                .setChannelIndexMask((1 << numberOfChannels) - 1)
+                .build();
+
+        return new AudioRecord.Builder()
+                .setAudioSource(MediaRecorder.AudioSource.MIC)
+                .setAudioFormat(format)
+                .setBufferSizeInBytes(bufferSizeInBytes)
+                .build();
+    }
+
     @Override
     public void stop() {
         running = false;
@@ -127,9 +188,15 @@ public abstract class MicrophoneInput extends Input {
      * Main loop of the audio reader.  This runs in our own thread.
      */
     private void readerRun() {
-        float[] bufferFloat = new float[inputBlockSize];
-        short[] bufferShort = new short[inputBlockSize];
-        byte[] bufferByte = new byte[inputBlockSize];
+        final int channels = numberOfChannels;
+        final int interleavedSize = inputBlockSize * channels;
+        // Mono float data is read straight into the channel buffer
+        float[] bufferFloat = channels == 1 ? null : new float[interleavedSize];
+        short[] bufferShort = new short[interleavedSize];
+        byte[] bufferByte = new byte[interleavedSize];
+        float[][] channelBuffers = new float[channels][inputBlockSize];
+        // Frames read since recording started, used to place each block against the timestamps
+        long framesRead = 0;
 
         Log.i(TAG, "Reader: Start Recording");
         audioInput.startRecording();
@@ -138,22 +205,24 @@ public abstract class MicrophoneInput extends Input {
             int unitsRead;
             if(audioInput.getAudioFormat() == AudioFormat.ENCODING_PCM_FLOAT) {
                 if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    unitsRead = audioInput.read(bufferFloat, 0, inputBlockSize, AudioRecord
-                            .READ_BLOCKING);
+                    if(bufferFloat == null) {
+                        unitsRead = audioInput.read(channelBuffers[0], 0, inputBlockSize,
+                                AudioRecord.READ_BLOCKING);
+                    } else {
+                        unitsRead = audioInput.read(bufferFloat, 0, interleavedSize,
+                                AudioRecord.READ_BLOCKING);
+                        deinterleave(bufferFloat, channelBuffers);
+                    }
                 } else {
                     throw new RuntimeException("ENCODING_PCM_FLOAT is not supported below Android" +
                             " Version 6.0");
                 }
             } else if(audioInput.getAudioFormat() == AudioFormat.ENCODING_PCM_16BIT) {
-                unitsRead = audioInput.read(bufferShort, 0, inputBlockSize);
-                for(int i = 0; i < inputBlockSize; i++) {
-                    bufferFloat[i] = (float) bufferShort[i] / (float) Short.MAX_VALUE;
-                }
+                unitsRead = audioInput.read(bufferShort, 0, interleavedSize);
+                deinterleave(bufferShort, channelBuffers);
             } else if(audioInput.getAudioFormat() == AudioFormat.ENCODING_PCM_8BIT) {
-                unitsRead = audioInput.read(bufferByte, 0, inputBlockSize);
-                for(int i = 0; i < inputBlockSize; i++) {
-                    bufferFloat[i] = (float) bufferByte[i] / (float) Byte.MAX_VALUE;
-                }
+                unitsRead = audioInput.read(bufferByte, 0, interleavedSize);
+                deinterleave(bufferByte, channelBuffers);
             } else {
                 throw new RuntimeException("Unrecognized Encoding format only ENCODING_PCM_FLOAT," +
                         " ENCODING_PCM_16BIT , ENCODING_PCM_8BIT is supported");
@@ -167,8 +236,10 @@ public abstract class MicrophoneInput extends Input {
                 break;
             }
 
+            framesRead += unitsRead / channels;
+
             if(!paused) {
-                readDone(bufferFloat);
+                readDone(channelBuffers, captureTime(framesRead - 1));
             }
         }
 
@@ -176,13 +247,142 @@ public abstract class MicrophoneInput extends Input {
             audioInput.stop();
     }
 
+    /**
+     * Works out when a frame was captured. From Android 7.0 this is taken from the AudioRecord
+     * timestamp, which is extrapolated from the frame it refers to. Before that, or if no
+     * timestamp is available yet, the time the read returned is used, which is shortly after the
+     * newest frame was captured
+     *
+     * @param framePosition frame to find the capture time of, counted from the start of recording
+     * @return {@link System#nanoTime()} based capture time of the frame
+     */
+    private long captureTime(long framePosition) {
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            final long timestampedCaptureTime = timestampedCaptureTime(framePosition);
+            if(timestampedCaptureTime != 0) {
+                return timestampedCaptureTime;
+            }
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * @param framePosition frame to find the capture time of, counted from the start of recording
+     * @return capture time of the frame from the AudioRecord timestamp, 0 if there is none
+     */
+    @TargetApi(Build.VERSION_CODES.N)
+    private long timestampedCaptureTime(long framePosition) {
+        if(audioTimestamp == null) {
+            audioTimestamp = new AudioTimestamp();
+        }
+        if(audioInput.getTimestamp(audioTimestamp, AudioTimestamp.TIMEBASE_MONOTONIC) !=
+                AudioRecord.SUCCESS) {
+            return 0;
+        }
+        return extrapolateCaptureTime(audioTimestamp.nanoTime, audioTimestamp.framePosition,
+                framePosition, sampleRate);
+    }
+
+    /**
+     * Moves a timestamp on, or back, to another frame at the sample rate
+     *
+     * @param timestampNanoTime      capture time of the timestamped frame
+     * @param timestampFramePosition frame the timestamp refers to
+     * @param framePosition          frame to find the capture time of
+     * @param sampleRate             sample rate of the input
+     * @return capture time of the frame
+     */
+    static long extrapolateCaptureTime(long timestampNanoTime, long timestampFramePosition,
+                                       long framePosition, int sampleRate) {
+        return timestampNanoTime +
+                (framePosition - timestampFramePosition) * 1000000000L / sampleRate;
+    }
+
+    /**
+     * Split interleaved samples into the channel buffers in a single pass
+     *
+     * @param interleaved    interleaved samples
+     * @param channelBuffers buffer for each channel
+     */
+    static void deinterleave(float[] interleaved, float[][] channelBuffers) {
+        final int channels = channelBuffers.length;
+        final int frames = channelBuffers[0].length;
+        int index = 0;
+        for(int i = 0; i < frames; i++) {
+            for(int c = 0; c < channels; c++) {
+                channelBuffers[c][i] = interleaved[index++];
+            }
+        }
+    }
+
+    /**
+     * Split interleaved samples into the channel buffers in a single pass, converting to float
+     *
+     * @param interleaved    interleaved samples
+     * @param channelBuffers buffer for each channel
+     */
+    static void deinterleave(short[] interleaved, float[][] channelBuffers) {
+        final int channels = channelBuffers.length;
+        final int frames = channelBuffers[0].length;
+        int index = 0;
+        for(int i = 0; i < frames; i++) {
+            for(int c = 0; c < channels; c++) {
+                channelBuffers[c][i] = (float) interleaved[index++] / (float) Short.MAX_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Split interleaved samples into the channel buffers in a single pass, converting to float
+     *
+     * @param interleaved    interleaved samples
+     * @param channelBuffers buffer for each channel
+     */
+    static void deinterleave(byte[] interleaved, float[][] channelBuffers) {
+        final int channels = channelBuffers.length;
+        final int frames = channelBuffers[0].length;
+        int index = 0;
+        for(int i = 0; i < frames; i++) {
+            for(int c = 0; c < channels; c++) {
+                channelBuffers[c][i] = (float) interleaved[index++] / (float) Byte.MAX_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Notify the client that a read has completed. The first channel is passed to readDone and
+     * the others are sent to their channel listeners
+     *
+     * @param channelBuffers buffer for each channel
+     * @param captureTimeNs  {@link System#nanoTime()} based capture time of the newest sample
+     */
+    protected void readDone(float[][] channelBuffers, long captureTimeNs) {
+        readDone(channelBuffers[0], captureTimeNs);
+        for(int c = 1; c < channelBuffers.length; c++) {
+            notifyListenersOfChannelBufferChange(c, channelBuffers[c], captureTimeNs);
+        }
+    }
+
+    /**
+     * Notify the client that a read has completed. By default this calls through to
+     * {@link #readDone(float[])} so subclasses overriding it are still called, override this
+     * instead to make use of the capture time
+     *
+     * @param buffer        Buffer containing the data.
+     * @param captureTimeNs {@link System#nanoTime()} based capture time of the newest sample
+     */
+    protected void readDone(float[] buffer, long captureTimeNs) {
+        blockCaptureTimeNs = captureTimeNs;
+        readDone(buffer);
+    }
+
     /**
      * Notify the client that a read has completed.
      *
      * @param buffer Buffer containing the data.
      */
     protected void readDone(float[] buffer) {
-        notifyListenersOfBufferChange(buffer);
+        notifyListenersOfBufferChange(buffer, blockCaptureTimeNs);
     }
 
     /**
@@ -208,6 +408,46 @@ public abstract class MicrophoneInput extends Input {
 
         this.sampleRate = sampleRate;
 
+        TriggerDetection triggerDetection = getTriggerDetection();
+        if(triggerDetection != null) {
+            triggerDetection.setSampleRate(sampleRate);
+        }
+        notifyListenersOfSampleRateChange(sampleRate);
+
+        initialise();
+        if(running) {
+            start();
+        }
+    }
+
+    /**
+     * @return number of channels being captured
+     */
+    @Override
+    public int getNumberOfChannels() {
+        return numberOfChannels;
+    }
+
+    /**
+     * Set the number of channels to capture. The audio stream will be restarted if running.
+     * More than two channels requires Android 6.0
+     *
+     * @param numberOfChannels number of channels to capture
+     */
+    public void setNumberOfChannels(int numberOfChannels) {
+        if(numberOfChannels < 1) {
+            Log.e(TAG, "Number of channels must be at least 1, " + numberOfChannels + " given");
+            return;
+        }
+
+        boolean running = isRunning();
+
+        if(running) {
+            stop();
+        }
+
+        this.numberOfChannels = numberOfChannels;
+
         initialise();
         if(running) {
             start();
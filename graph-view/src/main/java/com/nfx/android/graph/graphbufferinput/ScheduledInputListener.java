@@ -0,0 +1,15 @@
+package com.nfx.android.graph.graphbufferinput;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * An input listener which does not need every block. It is given buffers by an AnalysisScheduler
+ * at the rate it asks for, on the scheduler's background thread rather than the reader thread
+ */
+public abstract class ScheduledInputListener extends InputListener {
+    /**
+     * @return how often in milliseconds the listener needs a new buffer
+     */
+    public abstract int getUpdateIntervalInMs();
+}
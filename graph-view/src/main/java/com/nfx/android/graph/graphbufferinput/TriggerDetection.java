@@ -1,12 +1,22 @@
 package com.nfx.android.graph.graphbufferinput;
 
-import android.os.SystemClock;
-
 /**
  * NFX Development
  * Created by nick on 17/12/16.
+ * <p>
+ * Hold off is measured against a running count of the samples analysed rather than the wall
+ * clock. The detection is therefore sample accurate and gives the same result each time a
+ * recording is replayed. Block based callers move the sample clock on with advanceSampleClock,
+ * calling it once for each block they have finished with. Sample by sample callers using
+ * hasTriggered without an index move it on by one sample per call instead. Passing the block to
+ * advanceSampleClock carries its last sample over so a crossing between two blocks is not missed.
+ * The sample rate should come from the input being analysed
  */
 public class TriggerDetection {
+    /**
+     * Returned from findTrigger when no trigger is found in the block
+     */
+    public static final float NO_TRIGGER = -1f;
     /**
      * The type of trigger the class is detecting
      */
@@ -15,22 +25,84 @@ public class TriggerDetection {
      * A value between min value and max value
      */
     private float triggerValue = 0.75f;
+    /**
+     * Used until the sample rate of the input is known
+     */
+    public static final int DEFAULT_SAMPLE_RATE = 48000;
+    /**
+     * Sample rate of the input being analysed, used to convert the hold off into samples
+     */
+    private int sampleRate;
     /**
      * The time delay between triggers
      */
-    private long holdOffDelayInMs = 0;
-    private long lastTriggerTiming = 0;
+    private long holdOffDelayInUs = 0;
+    /**
+     * The hold off delay converted into samples
+     */
+    private long holdOffDelayInSamples = 0;
+    /**
+     * Number of samples analysed so far. For findTrigger this is the sample number of the start
+     * of the current block
+     */
+    private long sampleClock = 0;
+    /**
+     * The first sample number that is allowed to trigger
+     */
+    private long nextTriggerSample = 0;
+    /**
+     * Last sample of the previous block, only valid while hasPreviousBlockValue is set
+     */
+    private float previousBlockValue;
+    private boolean hasPreviousBlockValue = false;
 
     /**
-     * Compare the last value and the current value to determine if trigger is crossed
+     * Constructor, the sample rate should be set from the input before the hold off is used
+     */
+    public TriggerDetection() {
+        this(DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param sampleRate sample rate of the input being analysed
+     */
+    public TriggerDetection(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Compare the last value and the current value to determine if trigger is crossed. This is
+     * for callers passing in one sample at a time, the current value is taken to be at the
+     * sample clock and the clock is then moved on by one sample. Do not mix with
+     * advanceSampleClock
      *
      * @param lastValue    the value previous to the current value
      * @param currentValue the current value being analysed
      * @return true if the the trigger is crossed
      */
     public boolean hasTriggered(float lastValue, float currentValue) {
+        final boolean hasTriggered = hasTriggered(lastValue, currentValue, 0);
+        sampleClock++;
+        previousBlockValue = currentValue;
+        hasPreviousBlockValue = true;
+        return hasTriggered;
+    }
+
+    /**
+     * Compare the last value and the current value to determine if trigger is crossed. The
+     * sample clock is not moved, call advanceSampleClock once the block is finished with
+     *
+     * @param lastValue    the value previous to the current value
+     * @param currentValue the current value being analysed
+     * @param index        position of the current value in the block
+     * @return true if the the trigger is crossed
+     */
+    public boolean hasTriggered(float lastValue, float currentValue, int index) {
         boolean hasTriggered = false;
-        if(SystemClock.elapsedRealtime() - lastTriggerTiming >= holdOffDelayInMs) {
+        final long currentSample = sampleClock + index;
+        if(currentSample >= nextTriggerSample) {
             switch(triggerType) {
                 case RISING:
                     hasTriggered = hasTriggeredRising(lastValue, currentValue);
@@ -44,15 +116,161 @@ public class TriggerDetection {
                     break;
             }
             if(hasTriggered) {
-                lastTriggerTiming = SystemClock.elapsedRealtime();
+                nextTriggerSample = currentSample + holdOffDelayInSamples;
             }
-        } else {
-            hasTriggered = false;
         }
 
         return hasTriggered;
     }
 
+    /**
+     * Scan a whole block for the next trigger crossing. The trigger type and hold off are only
+     * looked at once per call, leaving a tight loop over the samples. The block may be searched
+     * several times, advanceSampleClock must be called once the block has been finished with
+     *
+     * @param block buffer to scan
+     * @param from  first index to look at, the sample before is used as the previous value. For
+     *              index 0 this is the last sample of the previous block when it was passed to
+     *              advanceSampleClock
+     * @return position of the crossing, interpolated between the two samples either side of the
+     * trigger value. Between -1 and 0 when the crossing is between the previous block and the
+     * first sample of this one. NO_TRIGGER if the trigger is not crossed
+     */
+    public float findTrigger(float[] block, int from) {
+        // Skip over any samples still within the hold off period. Worked out in long as the
+        // sample clock can run well past the range of an int
+        final long holdOffEnd = Math.max(0L,
+                Math.min(nextTriggerSample - sampleClock, (long) block.length));
+        final int firstIndex = hasPreviousBlockValue ? 0 : 1;
+        final int start = Math.max(Math.max(from, firstIndex), (int) holdOffEnd);
+        if(start >= block.length) {
+            return NO_TRIGGER;
+        }
+
+        final float startLastValue = start == 0 ? previousBlockValue : block[start - 1];
+        int index;
+        switch(triggerType) {
+            case RISING:
+                index = findRisingCrossing(block, start, startLastValue, triggerValue);
+                break;
+            case FALLING:
+                index = findFallingCrossing(block, start, startLastValue, triggerValue);
+                break;
+            case BOTH:
+                index = findAnyCrossing(block, start, startLastValue, triggerValue);
+                break;
+            default:
+                index = -1;
+                break;
+        }
+
+        if(index < 0) {
+            return NO_TRIGGER;
+        }
+
+        nextTriggerSample = sampleClock + index + holdOffDelayInSamples;
+
+        final float lastValue = index == 0 ? previousBlockValue : block[index - 1];
+        final float currentValue = block[index];
+        return (index - 1) + (triggerValue - lastValue) / (currentValue - lastValue);
+    }
+
+    /**
+     * Move the sample clock on to the start of the next block. This is the only place the clock
+     * is moved, so it must be called exactly once per block whichever search method is used.
+     * Nothing is known about the block, so the next findTrigger starts from its second sample
+     *
+     * @param numberOfSamples length of the block that has just been searched
+     */
+    public void advanceSampleClock(int numberOfSamples) {
+        sampleClock += numberOfSamples;
+        hasPreviousBlockValue = false;
+    }
+
+    /**
+     * Move the sample clock on to the start of the next block, keeping the last sample so the
+     * next findTrigger can find a crossing at the very start of the next block
+     *
+     * @param block the block that has just been searched
+     */
+    public void advanceSampleClock(float[] block) {
+        sampleClock += block.length;
+        if(block.length > 0) {
+            previousBlockValue = block[block.length - 1];
+            hasPreviousBlockValue = true;
+        }
+    }
+
+    /**
+     * Restart the sample clock from zero and clear any hold off in progress. Call this when the
+     * input is restarted or a recording is replayed from the beginning
+     */
+    public void resetSampleClock() {
+        sampleClock = 0;
+        nextTriggerSample = 0;
+        hasPreviousBlockValue = false;
+    }
+
+    /**
+     * @return the number of samples analysed since the clock was last reset
+     */
+    public long getSampleClock() {
+        return sampleClock;
+    }
+
+    /**
+     * @return index of the first sample above the trigger value after a sample below it, -1 if
+     * not found
+     */
+    private static int findRisingCrossing(float[] block, int start, float lastValue,
+                                          float triggerValue) {
+        final int length = block.length;
+        for(int i = start; i < length; i++) {
+            final float currentValue = block[i];
+            if((lastValue < triggerValue) & (currentValue > triggerValue)) {
+                return i;
+            }
+            lastValue = currentValue;
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the first sample below the trigger value after a sample above it, -1 if
+     * not found
+     */
+    private static int findFallingCrossing(float[] block, int start, float lastValue,
+                                           float triggerValue) {
+        final int length = block.length;
+        for(int i = start; i < length; i++) {
+            final float currentValue = block[i];
+            if((lastValue > triggerValue) & (currentValue < triggerValue)) {
+                return i;
+            }
+            lastValue = currentValue;
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the first sample on the opposite side of the trigger value to the sample
+     * before it, -1 if not found
+     */
+    private static int findAnyCrossing(float[] block, int start, float lastValue,
+                                       float triggerValue) {
+        final int length = block.length;
+        float lastOffset = lastValue - triggerValue;
+        for(int i = start; i < length; i++) {
+            final float currentOffset = block[i] - triggerValue;
+            // Only negative when the two samples sit either side of the trigger value
+            if(lastOffset * currentOffset < 0) {
+                return i;
+            }
+            lastOffset = currentOffset;
+        }
+        return -1;
+    }
+
     private boolean hasTriggeredRising(float lastValue, float currentValue) {
         return currentValue > triggerValue && lastValue < triggerValue;
     }
@@ -94,10 +312,10 @@ public class TriggerDetection {
     }
 
     /**
-     * @return the current hold off delay
+     * @return the current hold off delay in milliseconds
      */
     public long getHoldOffDelayInMs() {
-        return holdOffDelayInMs;
+        return holdOffDelayInUs / 1000L;
     }
 
     /**
@@ -106,7 +324,45 @@ public class TriggerDetection {
      * @param holdOffDelayInMs time in milliseconds
      */
     public void setHoldOffDelayInMs(long holdOffDelayInMs) {
-        this.holdOffDelayInMs = holdOffDelayInMs;
+        setHoldOffDelayInUs(holdOffDelayInMs * 1000L);
+    }
+
+    /**
+     * @return the current hold off delay in microseconds
+     */
+    public long getHoldOffDelayInUs() {
+        return holdOffDelayInUs;
+    }
+
+    /**
+     * Set the hold off delay in microseconds. The delay is rounded to the nearest sample
+     *
+     * @param holdOffDelayInUs time in microseconds
+     */
+    public void setHoldOffDelayInUs(long holdOffDelayInUs) {
+        this.holdOffDelayInUs = holdOffDelayInUs;
+        calculateHoldOffDelayInSamples();
+    }
+
+    /**
+     * @return the sample rate the hold off is calculated against
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Set the sample rate of the input being analysed, this should match the input's sample rate
+     *
+     * @param sampleRate sample rate in Hz
+     */
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+        calculateHoldOffDelayInSamples();
+    }
+
+    private void calculateHoldOffDelayInSamples() {
+        holdOffDelayInSamples = (holdOffDelayInUs * sampleRate + 500000L) / 1000000L;
     }
 
     public enum TriggerType {
@@ -0,0 +1,298 @@
+package com.nfx.android.graph.graphbufferinput;
+
+import android.util.Log;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Oscilloscope style acquisition. The most recent samples from an input are kept in a ring one
+ * sample longer than a frame. Once a trigger is found the capture waits for the post trigger
+ * samples to arrive, then the frame is interpolated out of the ring so the trigger crossing sits
+ * exactly on the pre trigger sample. Without this the trace would jitter by up to a sample from
+ * one frame to the next. The trigger can sit anywhere in the frame by setting the pre trigger
+ * percentage
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class TriggeredCapture extends InputListener {
+    private static final String TAG = "TriggeredCapture";
+    /**
+     * Detects the trigger crossings in the incoming blocks
+     */
+    private final TriggerDetection triggerDetection;
+    /**
+     * Holds the last frame worth of samples plus the one before, writeIndex points at the oldest
+     * sample
+     */
+    private float[] ring;
+    /**
+     * The frame interpolated out of the ring and handed to the frame listener
+     */
+    private float[] frame;
+    private int writeIndex = 0;
+    /**
+     * Number of valid samples in the ring, saturates at the ring length
+     */
+    private int ringFill = 0;
+    /**
+     * Fraction of the frame displayed before the trigger point 0-1
+     */
+    private float preTriggerPercentage = 0.5f;
+    private int preTriggerSamples;
+    /**
+     * Samples still to be captured before the current frame is complete, 0 when waiting for a
+     * trigger
+     */
+    private volatile int postTriggerSamplesRemaining = 0;
+    /**
+     * How far between the two samples either side of it the trigger crossing is, 0-1
+     */
+    private float triggerFraction = 0f;
+    /**
+     * Receives each completed frame
+     */
+    private InputListener frameListener;
+
+    /**
+     * Constructor
+     *
+     * @param triggerDetection trigger settings to capture with
+     * @param frameSize        number of samples in each frame
+     * @param sampleRate       sample rate of the input being captured, normally
+     *                         {@link InputInterface#getSampleRate()}
+     */
+    public TriggeredCapture(TriggerDetection triggerDetection, int frameSize, int sampleRate) {
+        this.triggerDetection = triggerDetection;
+        triggerDetection.setSampleRate(sampleRate);
+        ring = new float[frameSize + 1];
+        frame = new float[frameSize];
+        calculatePreTriggerSamples();
+    }
+
+    @Override
+    public void inputBlockSizeUpdate(int blockSize) {
+        // The frame size is independent of the input block size
+    }
+
+    @Override
+    public void bufferUpdate(float[] buffer) {
+        bufferUpdate(buffer, 0);
+    }
+
+    /**
+     * The capture time passed on with a frame is moved back from the newest sample of the block
+     * to the last sample of the frame, including the part of a sample the frame is shifted by to
+     * line it up with the trigger crossing
+     */
+    @Override
+    public void bufferUpdate(float[] buffer, long captureTimeNs) {
+        synchronized(this) {
+            final int length = buffer.length;
+            int position = 0;
+
+            while(position < length) {
+                if(postTriggerSamplesRemaining > 0) {
+                    final int count = Math.min(length - position, postTriggerSamplesRemaining);
+                    writeToRing(buffer, position, count);
+                    position += count;
+                    postTriggerSamplesRemaining -= count;
+
+                    if(postTriggerSamplesRemaining == 0 && frameListener != null) {
+                        interpolateFrame();
+                        frameListener.bufferUpdate(frame,
+                                frameCaptureTime(captureTimeNs, length - position));
+                    }
+                } else {
+                    // A trigger is only accepted once there is enough history in front of it,
+                    // including the sample before the frame used for the interpolation
+                    final int searchFrom = position +
+                            Math.max(0, preTriggerSamples + 1 - ringFill);
+                    final float trigger = searchFrom < length ?
+                            triggerDetection.findTrigger(buffer, searchFrom) :
+                            TriggerDetection.NO_TRIGGER;
+
+                    if(trigger == TriggerDetection.NO_TRIGGER) {
+                        writeToRing(buffer, position, length - position);
+                        position = length;
+                    } else {
+                        // The trigger can sit just before the block when it crosses from the
+                        // last sample of the previous block
+                        final int triggerIndex = (int) Math.floor(trigger) + 1;
+                        triggerFraction = trigger - (triggerIndex - 1);
+                        writeToRing(buffer, position, triggerIndex - position);
+                        position = triggerIndex;
+                        postTriggerSamplesRemaining = frame.length - preTriggerSamples;
+                    }
+                }
+            }
+
+            triggerDetection.advanceSampleClock(buffer);
+        }
+    }
+
+    /**
+     * @param blockCaptureTimeNs capture time of the newest sample in the block, 0 if not known
+     * @param samplesAfterFrame  number of samples in the block after the end of the frame
+     * @return capture time of the last sample of the frame, 0 if not known
+     */
+    private long frameCaptureTime(long blockCaptureTimeNs, int samplesAfterFrame) {
+        if(blockCaptureTimeNs == 0) {
+            return 0;
+        }
+        // The last sample of the frame is interpolated from part of a sample earlier
+        final double samplesAfter = samplesAfterFrame + 1.0 - triggerFraction;
+        return blockCaptureTimeNs -
+                Math.round(samplesAfter * 1000000000.0 / triggerDetection.getSampleRate());
+    }
+
+    /**
+     * Fill the frame from the ring, each sample is moved back by the part of a sample the
+     * trigger crossing is before the trigger sample. The trigger crossing then lands exactly on
+     * the pre trigger sample of the frame
+     */
+    private void interpolateFrame() {
+        final int ringLength = ring.length;
+        final float nextWeight = triggerFraction;
+        final float previousWeight = 1f - triggerFraction;
+        int ringIndex = writeIndex;
+        float previousValue = ring[ringIndex];
+
+        for(int i = 0; i < frame.length; i++) {
+            if(++ringIndex == ringLength) {
+                ringIndex = 0;
+            }
+            final float nextValue = ring[ringIndex];
+            frame[i] = previousValue * previousWeight + nextValue * nextWeight;
+            previousValue = nextValue;
+        }
+    }
+
+    /**
+     * Copy part of a block into the ring, wrapping around the end of the ring if needed
+     *
+     * @param buffer source block
+     * @param from   first index of the block to copy
+     * @param count  number of samples to copy
+     */
+    private void writeToRing(float[] buffer, int from, int count) {
+        final int ringLength = ring.length;
+
+        // Only the newest ring length samples can be held
+        if(count > ringLength) {
+            from += count - ringLength;
+            count = ringLength;
+        }
+
+        final int firstSegmentLength = Math.min(count, ringLength - writeIndex);
+        System.arraycopy(buffer, from, ring, writeIndex, firstSegmentLength);
+        System.arraycopy(buffer, from + firstSegmentLength, ring, 0, count - firstSegmentLength);
+
+        writeIndex = (writeIndex + count) % ringLength;
+        ringFill = Math.min(ringFill + count, ringLength);
+    }
+
+    @Override
+    public void inputSampleRateUpdate(int sampleRate) {
+        setSampleRate(sampleRate);
+    }
+
+    @Override
+    public void inputRemoved() {
+        if(frameListener != null) {
+            frameListener.inputRemoved();
+        }
+    }
+
+    /**
+     * Set the listener to receive each frame, normally a SignalBuffer. The listener is told the
+     * frame size straight away
+     *
+     * @param frameListener listener to receive frames
+     */
+    public void setFrameListener(InputListener frameListener) {
+        synchronized(this) {
+            this.frameListener = frameListener;
+        }
+        if(frameListener != null) {
+            frameListener.inputBlockSizeUpdate(getFrameSize());
+        }
+    }
+
+    /**
+     * @return number of samples in each frame
+     */
+    public int getFrameSize() {
+        return frame.length;
+    }
+
+    /**
+     * Change the frame size, any capture in progress is abandoned
+     *
+     * @param frameSize number of samples in each frame
+     */
+    public void setFrameSize(int frameSize) {
+        InputListener listener;
+        synchronized(this) {
+            ring = new float[frameSize + 1];
+            frame = new float[frameSize];
+            writeIndex = 0;
+            ringFill = 0;
+            postTriggerSamplesRemaining = 0;
+            calculatePreTriggerSamples();
+            listener = frameListener;
+        }
+        if(listener != null) {
+            listener.inputBlockSizeUpdate(frameSize);
+        }
+    }
+
+    /**
+     * Call when the sample rate of the input changes so the hold off stays the same length
+     *
+     * @param sampleRate sample rate in Hz
+     */
+    public void setSampleRate(int sampleRate) {
+        synchronized(this) {
+            triggerDetection.setSampleRate(sampleRate);
+        }
+    }
+
+    /**
+     * @return fraction of the frame shown before the trigger point
+     */
+    public float getPreTriggerPercentage() {
+        return preTriggerPercentage;
+    }
+
+    /**
+     * Set how much of the frame is shown before the trigger point. If the value is not within
+     * 0-1 it will not be set and a Log error is displayed.
+     *
+     * @param preTriggerPercentage fraction of the frame 0-1
+     */
+    public void setPreTriggerPercentage(float preTriggerPercentage) {
+        if(preTriggerPercentage < 0f || preTriggerPercentage > 1f) {
+            Log.e(TAG, "Pre trigger percentage " + preTriggerPercentage + " out of range 0-1");
+            return;
+        }
+        synchronized(this) {
+            this.preTriggerPercentage = preTriggerPercentage;
+            calculatePreTriggerSamples();
+        }
+    }
+
+    /**
+     * @return true while a triggered frame is being captured
+     */
+    public boolean isCapturing() {
+        return postTriggerSamplesRemaining > 0;
+    }
+
+    private void calculatePreTriggerSamples() {
+        preTriggerSamples = Math.round(frame.length * preTriggerPercentage);
+        // At least one sample must follow the trigger for the frame to complete
+        if(preTriggerSamples >= frame.length) {
+            preTriggerSamples = frame.length - 1;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.nfx.android.graph.timing;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Rolling histogram of how long a stage takes. The last WINDOW_SIZE durations are kept in a
+ * ring and counted into logarithmic buckets, four per power of two, so recording is O(1) with no
+ * allocation and a percentile is read by walking the buckets. Percentiles are accurate to the
+ * bucket width, around 19%
+ */
+public class TimingHistogram {
+    /**
+     * Number of durations the statistics are taken over
+     */
+    public static final int WINDOW_SIZE = 256;
+    /**
+     * Buckets per power of two
+     */
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Enough buckets to cover durations up to 2^40ns, anything longer goes in the last bucket
+     */
+    private static final int NUMBER_OF_BUCKETS = 41 * SUB_BUCKETS;
+    /**
+     * Name of the stage being timed
+     */
+    private final String name;
+    /**
+     * Number of durations in each bucket
+     */
+    private final int[] bucketCounts = new int[NUMBER_OF_BUCKETS];
+    /**
+     * The durations currently in the window
+     */
+    private final long[] durations = new long[WINDOW_SIZE];
+    /**
+     * Index to write the next duration into
+     */
+    private int writeIndex = 0;
+    /**
+     * Number of durations in the window
+     */
+    private int count = 0;
+    /**
+     * Sum of the durations in the window
+     */
+    private long sum = 0;
+
+    /**
+     * @param name name of the stage being timed
+     */
+    public TimingHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param durationNs duration in nanoseconds
+     * @return index of the bucket the duration falls in
+     */
+    private static int bucketIndex(long durationNs) {
+        if(durationNs < SUB_BUCKETS) {
+            return durationNs < 0 ? 0 : (int) durationNs;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(durationNs);
+        final int subBucket = (int) (durationNs >>> (exponent - SUB_BUCKET_BITS)) &
+                (SUB_BUCKETS - 1);
+        return Math.min((exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket,
+                NUMBER_OF_BUCKETS - 1);
+    }
+
+    /**
+     * @param bucketIndex index of the bucket
+     * @return the largest duration which falls in the bucket
+     */
+    private static long bucketUpperBound(int bucketIndex) {
+        if(bucketIndex < SUB_BUCKETS) {
+            return bucketIndex;
+        }
+        final int exponent = bucketIndex / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final long subBucket = bucketIndex % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Add a duration to the window, the oldest duration is dropped once the window is full
+     *
+     * @param durationNs duration in nanoseconds
+     */
+    public synchronized void record(long durationNs) {
+        if(count == WINDOW_SIZE) {
+            final long oldest = durations[writeIndex];
+            bucketCounts[bucketIndex(oldest)]--;
+            sum -= oldest;
+        } else {
+            count++;
+        }
+
+        durations[writeIndex] = durationNs;
+        bucketCounts[bucketIndex(durationNs)]++;
+        sum += durationNs;
+
+        if(++writeIndex == WINDOW_SIZE) {
+            writeIndex = 0;
+        }
+    }
+
+    /**
+     * @param percentile percentile to find 0-100
+     * @return duration in nanoseconds which the given percentage of the window is at or below.
+     * 0 if nothing has been recorded
+     */
+    public synchronized long getPercentile(float percentile) {
+        if(count == 0) {
+            return 0;
+        }
+
+        final int target = Math.max(1, (int) Math.ceil(count * percentile / 100f));
+        int total = 0;
+        for(int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            total += bucketCounts[i];
+            if(total >= target) {
+                return bucketUpperBound(i);
+            }
+        }
+        return bucketUpperBound(NUMBER_OF_BUCKETS - 1);
+    }
+
+    /**
+     * @return mean duration in nanoseconds over the window, 0 if nothing has been recorded
+     */
+    public synchronized long getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * @return number of durations in the window
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Empty the window
+     */
+    public synchronized void reset() {
+        for(int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            bucketCounts[i] = 0;
+        }
+        writeIndex = 0;
+        count = 0;
+        sum = 0;
+    }
+
+    /**
+     * @return name of the stage being timed
+     */
+    public String getName() {
+        return name;
+    }
+}
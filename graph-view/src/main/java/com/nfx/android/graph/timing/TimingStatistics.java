@@ -0,0 +1,121 @@
+package com.nfx.android.graph.timing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * A set of named stages, each with its own timing histogram. Timing is off by default, while off
+ * the clock is never read so the instrumented code pays for a single volatile read per stage
+ */
+public class TimingStatistics implements TimingStatisticsInterface {
+    /**
+     * Histogram for each stage in the order they were added
+     */
+    private final List<TimingHistogram> stages = new ArrayList<>();
+    /**
+     * Set to record timings
+     */
+    private volatile boolean enabled = false;
+
+    /**
+     * Find a stage by name, creating it if it does not exist yet
+     *
+     * @param name name of the stage
+     * @return histogram the stage is recorded into
+     */
+    public TimingHistogram getStage(String name) {
+        synchronized(stages) {
+            for(TimingHistogram stage : stages) {
+                if(stage.getName().equals(name)) {
+                    return stage;
+                }
+            }
+            TimingHistogram stage = new TimingHistogram(name);
+            stages.add(stage);
+            return stage;
+        }
+    }
+
+    /**
+     * Stop showing a stage, used for stages which come and go such as signals
+     *
+     * @param stage stage to remove
+     */
+    public void removeStage(TimingHistogram stage) {
+        synchronized(stages) {
+            stages.remove(stage);
+        }
+    }
+
+    /**
+     * Call before the first stage of a sequence
+     *
+     * @return the current time in nanoseconds or 0 when timing is disabled
+     */
+    public long startTiming() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Record the time since startNs against a stage. Returns the current time so sequential
+     * stages can be chained without reading the clock twice
+     *
+     * @param stage   stage to record against
+     * @param startNs value returned by startTiming or the previous lap
+     * @return the current time in nanoseconds or 0 when timing is disabled
+     */
+    public long lap(TimingHistogram stage, long startNs) {
+        if(startNs == 0 || !enabled) {
+            return 0;
+        }
+        final long now = System.nanoTime();
+        stage.record(now - startNs);
+        return now;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public int getNumberOfStages() {
+        synchronized(stages) {
+            return stages.size();
+        }
+    }
+
+    /**
+     * @param index index of the stage
+     * @return the stage or null if the index is out of range
+     */
+    @Override
+    public TimingHistogram getStage(int index) {
+        synchronized(stages) {
+            if(index < 0 || index >= stages.size()) {
+                return null;
+            }
+            return stages.get(index);
+        }
+    }
+
+    /**
+     * Empty the histogram of each stage
+     */
+    @Override
+    public void reset() {
+        synchronized(stages) {
+            for(TimingHistogram stage : stages) {
+                stage.reset();
+            }
+        }
+    }
+}
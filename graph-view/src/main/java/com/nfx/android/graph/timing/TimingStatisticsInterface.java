@@ -0,0 +1,17 @@
+package com.nfx.android.graph.timing;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public interface TimingStatisticsInterface {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    int getNumberOfStages();
+
+    TimingHistogram getStage(int index);
+
+    void reset();
+}
@@ -0,0 +1,176 @@
+package com.nfx.android.utils;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Formats numbers in engineering notation, three significant figures followed by an SI prefix,
+ * eg 1.25k or 470u. The text is written into a char array supplied by the caller so nothing is
+ * allocated, which allows labels to be reformatted on every zoom step. An instance holds no state
+ * other than its settings so a single instance can be shared between threads
+ */
+public class EngineeringFormat {
+    /**
+     * Longest text format can write, eg -1.25k without a unit
+     */
+    public static final int MAXIMUM_LENGTH = 8;
+    /**
+     * Prefixes from 10^-12 to 10^12 in steps of 10^3
+     */
+    private static final char[] PREFIXES = {'p', 'n', 'u', 'm', 0, 'k', 'M', 'G', 'T'};
+    private static final int UNIT_PREFIX_INDEX = 4;
+    private static final char[] NOT_A_NUMBER = {'N', 'a', 'N'};
+    /**
+     * Range of exponents to use. Smaller values are rounded using the smallest prefix, values too
+     * large for the largest prefix are shown as NaN
+     */
+    private final int minimumExponent;
+    private final int maximumExponent;
+
+    /**
+     * Uses every prefix from pico to tera
+     */
+    public EngineeringFormat() {
+        this(-12, 12);
+    }
+
+    /**
+     * @param minimumExponent smallest power of 10 prefix to use, a multiple of 3 from -12 to 12
+     * @param maximumExponent largest power of 10 prefix to use, a multiple of 3 from -12 to 12
+     */
+    public EngineeringFormat(int minimumExponent, int maximumExponent) {
+        this.minimumExponent = minimumExponent;
+        this.maximumExponent = maximumExponent;
+    }
+
+    /**
+     * Write the value into the destination
+     *
+     * @param value       value to format
+     * @param destination array to write into, must have MAXIMUM_LENGTH from offset available
+     * @param offset      index to start writing at
+     * @return index after the last character written
+     */
+    public int format(double value, char[] destination, int offset) {
+        if(Double.isNaN(value) || Double.isInfinite(value)) {
+            System.arraycopy(NOT_A_NUMBER, 0, destination, offset, NOT_A_NUMBER.length);
+            return offset + NOT_A_NUMBER.length;
+        }
+
+        int index = offset;
+        if(value < 0) {
+            value = -value;
+            destination[index++] = '-';
+        }
+
+        int exponent = 0;
+        if(value != 0) {
+            while(value >= 1000d && exponent < maximumExponent) {
+                value /= 1000d;
+                exponent += 3;
+            }
+            while(value < 1d && exponent > minimumExponent) {
+                value *= 1000d;
+                exponent -= 3;
+            }
+        }
+        // Beyond the largest prefix there is no way to show the value in three figures
+        if(value >= 1000d) {
+            System.arraycopy(NOT_A_NUMBER, 0, destination, offset, NOT_A_NUMBER.length);
+            return offset + NOT_A_NUMBER.length;
+        }
+
+        int decimalPlaces = decimalPlaces(value);
+        long scaled = Math.round(value * pow10(decimalPlaces));
+        // Rounding can carry into the next digit, eg 9.996 becomes 10.00
+        if(decimalPlaces > 0 && scaled >= 1000) {
+            decimalPlaces--;
+            scaled = Math.round(value * pow10(decimalPlaces));
+        } else if(decimalPlaces == 0 && scaled >= 1000 && exponent < maximumExponent) {
+            exponent += 3;
+            decimalPlaces = 2;
+            scaled = Math.round(value / 1000d * 100d);
+        }
+
+        // Small values can round to zero, which should not be shown as negative
+        if(scaled == 0) {
+            index = offset;
+        }
+
+        // Drop trailing zeros after the decimal point
+        while(decimalPlaces > 0 && scaled % 10 == 0) {
+            scaled /= 10;
+            decimalPlaces--;
+        }
+
+        index = writeDigits(scaled, decimalPlaces, destination, index);
+
+        final char prefix = PREFIXES[UNIT_PREFIX_INDEX + exponent / 3];
+        if(prefix != 0) {
+            destination[index++] = prefix;
+        }
+        return index;
+    }
+
+    /**
+     * Write the value followed by a unit into the destination, eg 1.5kHz
+     *
+     * @param value       value to format
+     * @param unit        unit to append
+     * @param destination array to write into, must have MAXIMUM_LENGTH plus the length of the
+     *                    unit from offset available
+     * @param offset      index to start writing at
+     * @return index after the last character written
+     */
+    public int format(double value, String unit, char[] destination, int offset) {
+        final int index = format(value, destination, offset);
+        unit.getChars(0, unit.length(), destination, index);
+        return index + unit.length();
+    }
+
+    /**
+     * @param mantissa value between 1 and 1000
+     * @return decimal places to show three significant figures, but never less than 0
+     */
+    private static int decimalPlaces(double mantissa) {
+        if(mantissa < 10d) {
+            return 2;
+        } else if(mantissa < 100d) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private static double pow10(int decimalPlaces) {
+        return decimalPlaces == 2 ? 100d : decimalPlaces == 1 ? 10d : 1d;
+    }
+
+    /**
+     * Write a fixed point number, most significant digit first
+     *
+     * @param scaled        value multiplied by 10^decimalPlaces
+     * @param decimalPlaces number of digits after the decimal point
+     * @param destination   array to write into
+     * @param index         index to start writing at
+     * @return index after the last character written
+     */
+    private static int writeDigits(long scaled, int decimalPlaces, char[] destination, int index) {
+        int numberOfDigits = 1;
+        for(long remaining = scaled / 10; remaining > 0; remaining /= 10) {
+            numberOfDigits++;
+        }
+        // Always show a digit before the decimal point
+        numberOfDigits = Math.max(numberOfDigits, decimalPlaces + 1);
+
+        final int length = numberOfDigits + (decimalPlaces > 0 ? 1 : 0);
+        int position = index + length - 1;
+        for(int digit = 0; digit < numberOfDigits; digit++) {
+            if(digit == decimalPlaces && decimalPlaces > 0) {
+                destination[position--] = '.';
+            }
+            destination[position--] = (char) ('0' + scaled % 10);
+            scaled /= 10;
+        }
+        return index + length;
+    }
+}
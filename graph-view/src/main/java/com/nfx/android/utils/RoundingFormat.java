@@ -8,6 +8,10 @@ import java.text.NumberFormat;
 /**
  * NFX Development
  * Created by nick on 8/01/17.
+ * <p>
+ * Formats values into strings for display in the list. Each thread has its own number format as
+ * DecimalFormat is not thread safe. For text redrawn on every zoom step use
+ * {@link EngineeringFormat} which does not allocate
  */
 public class RoundingFormat {
     private static final long KILO = 1000;
@@ -17,7 +21,13 @@ public class RoundingFormat {
     private static final double MILLI = 0.001;
     private static final double MICRO = 0.000001;
     private static final double NANO = 0.000000001;
-    private static NumberFormat numberFormat = new DecimalFormat("###.##");
+    private static final ThreadLocal<NumberFormat> numberFormats =
+            new ThreadLocal<NumberFormat>() {
+                @Override
+                protected NumberFormat initialValue() {
+                    return new DecimalFormat("###.##");
+                }
+            };
 
     @SuppressLint("DefaultLocale")
     public static String frequencyToString(long frequency) {
@@ -38,6 +48,7 @@ public class RoundingFormat {
 
     @SuppressLint("DefaultLocale")
     public static String secondsToString(double seconds) {
+        final NumberFormat numberFormat = numberFormats.get();
         if(seconds < NANO) {
             return numberFormat.format(seconds / NANO) + " ns";
         } else if(seconds == NANO) {
@@ -59,6 +70,7 @@ public class RoundingFormat {
 
     @SuppressLint("DefaultLocale")
     public static String voltsToString(float volts) {
+        final NumberFormat numberFormat = numberFormats.get();
         if(volts < NANO) {
             return numberFormat.format(volts / NANO) + " nV";
         } else if(volts == NANO) {
@@ -0,0 +1,78 @@
+package com.nfx.android.graph.androidgraph.AxisScale;
+
+import com.nfx.android.graph.androidgraph.Scale;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ * <p>
+ * Times the conversions SignalBuffer uses to find the frequency of each point drawn on a log
+ * axis. The timings are printed rather than asserted, as they depend on the machine and what
+ * else it is doing. Only the results are checked
+ */
+public class AxisTransformBenchmark {
+    private static final int NUMBER_OF_POINTS = 4096;
+    private static final int BENCHMARK_ROUNDS = 200;
+    private static final float MINIMUM_VALUE = 20f;
+    private static final float MAXIMUM_VALUE = 20000f;
+
+    @Test
+    public void benchmarkLogarithmicRamp() {
+        AxisTransform transform = AxisTransform.create(MINIMUM_VALUE, MAXIMUM_VALUE,
+                Scale.logarithmic);
+        float[] values = new float[NUMBER_OF_POINTS];
+        final float step = 1f / NUMBER_OF_POINTS;
+
+        float sink = 0;
+        long referenceNs = 0, singleNs = 0, rampNs = 0;
+        // The first half of the rounds warm up the JIT
+        for(int round = 0; round < BENCHMARK_ROUNDS; round++) {
+            final boolean measure = round >= BENCHMARK_ROUNDS / 2;
+
+            long start = System.nanoTime();
+            for(int i = 0; i < NUMBER_OF_POINTS; i++) {
+                values[i] = AxisTransformTest.referenceGraphPositionToScaledAxis(MINIMUM_VALUE,
+                        MAXIMUM_VALUE, Scale.logarithmic, step * i);
+            }
+            long end = System.nanoTime();
+            sink += values[NUMBER_OF_POINTS / 2];
+            if(measure) {
+                referenceNs += end - start;
+            }
+
+            start = System.nanoTime();
+            for(int i = 0; i < NUMBER_OF_POINTS; i++) {
+                values[i] = transform.graphPositionToScaledAxis(step * i);
+            }
+            end = System.nanoTime();
+            sink += values[NUMBER_OF_POINTS / 2];
+            if(measure) {
+                singleNs += end - start;
+            }
+
+            start = System.nanoTime();
+            transform.graphPositionRampToScaledAxis(0f, step, values, NUMBER_OF_POINTS);
+            end = System.nanoTime();
+            sink += values[NUMBER_OF_POINTS / 2];
+            if(measure) {
+                rampNs += end - start;
+            }
+        }
+
+        final int measuredRounds = BENCHMARK_ROUNDS - BENCHMARK_ROUNDS / 2;
+        System.out.println(String.format(Locale.US, "%d point log conversion, mean of %d rounds: " +
+                        "reference %d ns, transform %d ns, ramp %d ns", NUMBER_OF_POINTS,
+                measuredRounds, referenceNs / measuredRounds, singleNs / measuredRounds,
+                rampNs / measuredRounds));
+
+        // The midpoint of a 20Hz to 20kHz log axis is 632Hz for each of the three methods, this
+        // also keeps the results in use so the loops are not optimised away
+        assertEquals(BENCHMARK_ROUNDS * 3 * 632.456f, sink, BENCHMARK_ROUNDS);
+    }
+}
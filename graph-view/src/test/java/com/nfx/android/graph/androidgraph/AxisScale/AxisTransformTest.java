@@ -0,0 +1,117 @@
+package com.nfx.android.graph.androidgraph.AxisScale;
+
+import com.nfx.android.graph.androidgraph.Scale;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class AxisTransformTest {
+    private static final int NUMBER_OF_POINTS = 4096;
+
+    /**
+     * The conversions as they were before transforms, used to check the results and as the
+     * baseline of {@link AxisTransformBenchmark}
+     */
+    static float referenceGraphPositionToScaledAxis(float minimumValue,
+                                                            float maximumValue, Scale axisScale,
+                                                            float graphPosition) {
+        if(axisScale == Scale.logarithmic) {
+            double minimum = minimumValue > 0 ? minimumValue : 1;
+            double maximum = Math.log(maximumValue / minimum) / Math.log(2);
+            graphPosition *= maximum;
+
+            double frequency = minimum * Math.pow(2, graphPosition);
+
+            if(frequency == 1f) {
+                return 0f;
+            } else {
+                return (float) frequency;
+            }
+        } else {
+            return minimumValue + ((maximumValue - minimumValue) * graphPosition);
+        }
+    }
+
+    private static float referenceScaledAxisToGraphPosition(float minimumValue,
+                                                            float maximumValue, Scale axisScale,
+                                                            float scaleAxisValue) {
+        if(axisScale == Scale.logarithmic) {
+            double minimum = minimumValue > 0 ? minimumValue : 1;
+            double maximum = Math.log(maximumValue / minimum) / Math.log(2);
+            double result = Math.log(scaleAxisValue / minimum) / Math.log(2);
+
+            result /= maximum;
+
+            return (float) result;
+        } else {
+            return (scaleAxisValue - minimumValue) / (maximumValue - minimumValue);
+        }
+    }
+
+    @Test
+    public void testMatchesReference() {
+        final Scale[] scales = {Scale.linear, Scale.logarithmic};
+        for(Scale scale : scales) {
+            AxisTransform transform = AxisTransform.create(20f, 20000f, scale);
+            float[] positions = new float[NUMBER_OF_POINTS];
+            float[] values = new float[NUMBER_OF_POINTS];
+            for(int i = 0; i < NUMBER_OF_POINTS; i++) {
+                positions[i] = (float) i / (NUMBER_OF_POINTS - 1);
+            }
+            transform.graphPositionsToScaledAxis(positions, values, NUMBER_OF_POINTS);
+
+            for(int i = 0; i < NUMBER_OF_POINTS; i++) {
+                float expected = referenceGraphPositionToScaledAxis(20f, 20000f, scale,
+                        positions[i]);
+                assertEquals(expected, transform.graphPositionToScaledAxis(positions[i]),
+                        expected * 1e-4f);
+                assertEquals(expected, values[i], expected * 1e-4f);
+                assertEquals(positions[i], referenceScaledAxisToGraphPosition(20f, 20000f,
+                        scale, values[i]), 1e-4f);
+            }
+
+            transform.scaledAxisToGraphPositions(values, values, NUMBER_OF_POINTS);
+            for(int i = 0; i < NUMBER_OF_POINTS; i++) {
+                assertEquals(positions[i], values[i], 1e-4f);
+            }
+        }
+    }
+
+    @Test
+    public void testAxisParametersFollowChanges() {
+        AxisParameters axisParameters = new AxisParameters(0, 100, Scale.linear);
+        assertEquals(50f, axisParameters.graphPositionToScaledAxis(0.5f), 0f);
+
+        axisParameters.setMaximumValue(200);
+        assertEquals(100f, axisParameters.graphPositionToScaledAxis(0.5f), 0f);
+
+        axisParameters.setMinimumValue(1);
+        axisParameters.setMaximumValue(10000);
+        axisParameters.setAxisScale(Scale.logarithmic);
+        assertEquals(100f, axisParameters.graphPositionToScaledAxis(0.5f), 1e-3f);
+        assertEquals(0.5f, axisParameters.scaledAxisToGraphPosition(100f), 1e-6f);
+    }
+
+    @Test
+    public void testRampMatchesSingleConversions() {
+        final Scale[] scales = {Scale.linear, Scale.logarithmic};
+        final float firstPosition = -1f / NUMBER_OF_POINTS;
+        final float step = 1.5f / NUMBER_OF_POINTS;
+        for(Scale scale : scales) {
+            AxisTransform transform = AxisTransform.create(0f, 22050f, scale);
+            float[] values = new float[NUMBER_OF_POINTS];
+            transform.graphPositionRampToScaledAxis(firstPosition, step, values,
+                    NUMBER_OF_POINTS);
+
+            for(int i = 0; i < NUMBER_OF_POINTS; i++) {
+                float expected = transform.graphPositionToScaledAxis(firstPosition + step * i);
+                assertEquals(expected, values[i], Math.max(expected * 1e-5f, 1e-3f));
+            }
+        }
+    }
+}
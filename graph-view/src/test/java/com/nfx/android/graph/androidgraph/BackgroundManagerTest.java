@@ -0,0 +1,103 @@
+package com.nfx.android.graph.androidgraph;
+
+import android.os.Build;
+
+import com.nfx.android.graph.BuildConfig;
+import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
+import com.nfx.android.graph.androidgraph.AxisScale.GraphParameters;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.LOLLIPOP, constants = BuildConfig.class)
+public class BackgroundManagerTest {
+    private final ZoomDisplay xZoomDisplay = new ZoomDisplay(1f, 0f);
+    private final ZoomDisplay yZoomDisplay = new ZoomDisplay(1f, 0f);
+    private BackgroundManager backgroundManager;
+
+    @Before
+    public void setUp() {
+        GraphParameters graphParameters = new GraphParameters(
+                new AxisParameters(20, 20000, Scale.logarithmic),
+                new AxisParameters(-100, 0, Scale.linear));
+        backgroundManager = new BackgroundManager(RuntimeEnvironment.application,
+                graphParameters);
+        backgroundManager.setShowAxisText(true);
+        backgroundManager.surfaceChanged(new DrawableArea(0, 0, 1000, 600));
+        backgroundManager.setXZoomDisplay(xZoomDisplay);
+        backgroundManager.setYZoomDisplay(yZoomDisplay);
+        backgroundManager.setXAxisLogarithmic();
+
+        RenderRequester renderRequester = new RenderRequester() {
+            @Override
+            public void requestRender() {
+            }
+        };
+        xZoomDisplay.setRenderRequester(renderRequester);
+        yZoomDisplay.setRenderRequester(renderRequester);
+    }
+
+    @Test
+    public void testZoomChangesWaitForTheBackgroundLock() throws InterruptedException {
+        xZoomDisplay.setZoom(0.1f, 0.45f);
+        // Nothing changes until the frame tells the listeners
+        assertEquals(0, backgroundManager.getXGridLines().getNumberOfChildGridLines());
+
+        final CountDownLatch dispatched = new CountDownLatch(1);
+        Thread renderThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                backgroundManager.dispatchZoomChanged(xZoomDisplay, yZoomDisplay);
+                dispatched.countDown();
+            }
+        });
+
+        // The UI thread holds the lock while changing the grid lines
+        synchronized(backgroundManager) {
+            renderThread.start();
+            assertFalse(dispatched.await(100, TimeUnit.MILLISECONDS));
+            assertEquals(0, backgroundManager.getXGridLines().getNumberOfChildGridLines());
+        }
+
+        assertTrue(dispatched.await(1, TimeUnit.SECONDS));
+        assertTrue(backgroundManager.getXGridLines().getNumberOfChildGridLines() > 0);
+    }
+
+    @Test
+    public void testMinorGridLinesHiddenFromAnotherThread() throws InterruptedException {
+        xZoomDisplay.setZoom(0.1f, 0.45f);
+        backgroundManager.dispatchZoomChanged(xZoomDisplay, yZoomDisplay);
+        assertTrue(backgroundManager.getXGridLines().getNumberOfChildGridLines() > 0);
+
+        Thread uiThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                backgroundManager.setMinorGridLinesShown(false);
+            }
+        });
+        uiThread.start();
+        uiThread.join();
+
+        assertEquals(0, backgroundManager.getXGridLines().getNumberOfChildGridLines());
+        // While hidden zoom changes do not add them again
+        xZoomDisplay.setZoom(0.05f, 0.45f);
+        backgroundManager.dispatchZoomChanged(xZoomDisplay, yZoomDisplay);
+        assertEquals(0, backgroundManager.getXGridLines().getNumberOfChildGridLines());
+    }
+}
@@ -0,0 +1,140 @@
+package com.nfx.android.graph.androidgraph;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class FrameBudgetControllerTest {
+    private static final long SLOW_FRAME_NS = 30000000L;
+    private static final long FAST_FRAME_NS = 2000000L;
+    /**
+     * Within the budget at 60 frames per second but not fast enough to raise the level
+     */
+    private static final long STEADY_FRAME_NS = 12000000L;
+    private static final long FIRST_FRAME_NS = 1000000000L;
+
+    private final FrameBudgetController frameBudgetController = new FrameBudgetController();
+
+    private void drawFrames(int count, long frameTimeNs) {
+        for(int i = 0; i < count; i++) {
+            frameBudgetController.frameDrawn(frameTimeNs);
+        }
+    }
+
+    @Test
+    public void testSlowFramesLowerDetail() {
+        assertEquals(FrameBudgetController.DEFAULT_LEVEL, frameBudgetController.getLevel());
+        assertEquals(FrameBudgetController.DEFAULT_LINE_RESOLUTION,
+                frameBudgetController.getLineResolution());
+
+        drawFrames(FrameBudgetController.FRAMES_TO_LOWER - 1, SLOW_FRAME_NS);
+        assertFalse(frameBudgetController.takeLevelChange());
+
+        drawFrames(1, SLOW_FRAME_NS);
+        assertTrue(frameBudgetController.takeLevelChange());
+        assertFalse(frameBudgetController.takeLevelChange());
+        assertEquals(FrameBudgetController.DEFAULT_LEVEL + 1, frameBudgetController.getLevel());
+        assertTrue(frameBudgetController.getLineResolution() >
+                FrameBudgetController.DEFAULT_LINE_RESOLUTION);
+
+        // Never drops below the coarsest level
+        drawFrames(FrameBudgetController.FRAMES_TO_LOWER * 20, SLOW_FRAME_NS);
+        final int coarsestLevel = frameBudgetController.getNumberOfLevels() - 1;
+        assertEquals(coarsestLevel, frameBudgetController.getLevel());
+        assertFalse(frameBudgetController.isMinorGridLinesShown());
+        assertTrue(frameBudgetController.getMarkerUpdateInterval() > 1);
+    }
+
+    @Test
+    public void testFastFramesRaiseDetail() {
+        frameBudgetController.setLevel(3);
+        frameBudgetController.takeLevelChange();
+
+        // A short run of fast frames is not enough
+        drawFrames(FrameBudgetController.FRAMES_TO_RAISE - 1, FAST_FRAME_NS);
+        assertEquals(3, frameBudgetController.getLevel());
+        drawFrames(1, FAST_FRAME_NS);
+        assertEquals(2, frameBudgetController.getLevel());
+
+        // A slow frame in the run starts the count again
+        drawFrames(FrameBudgetController.FRAMES_TO_RAISE / 2, FAST_FRAME_NS);
+        drawFrames(3, SLOW_FRAME_NS);
+        drawFrames(FrameBudgetController.FRAMES_TO_RAISE / 2, FAST_FRAME_NS);
+        assertEquals(2, frameBudgetController.getLevel());
+    }
+
+    @Test
+    public void testDisabledHoldsLevel() {
+        frameBudgetController.setEnabled(false);
+        drawFrames(FrameBudgetController.FRAMES_TO_LOWER * 10, SLOW_FRAME_NS);
+        assertEquals(FrameBudgetController.DEFAULT_LEVEL, frameBudgetController.getLevel());
+        assertFalse(frameBudgetController.takeLevelChange());
+
+        frameBudgetController.setLevel(0);
+        assertTrue(frameBudgetController.takeLevelChange());
+        assertEquals(0, frameBudgetController.getLevel());
+    }
+
+    @Test
+    public void testSetLevelAppliedAtStartOfFrame() {
+        drawFrames(FrameBudgetController.FRAMES_TO_LOWER - 1, SLOW_FRAME_NS);
+
+        // Set from the UI thread, nothing changes until the render thread takes it
+        frameBudgetController.setLevel(3);
+        assertEquals(FrameBudgetController.DEFAULT_LEVEL, frameBudgetController.getLevel());
+
+        assertTrue(frameBudgetController.takeLevelChange());
+        assertEquals(3, frameBudgetController.getLevel());
+        assertFalse(frameBudgetController.takeLevelChange());
+
+        // The slow frames before the change were cleared along with it
+        drawFrames(1, SLOW_FRAME_NS);
+        assertEquals(3, frameBudgetController.getLevel());
+    }
+
+    @Test
+    public void testSingleSlowFrameKeepsDetail() {
+        // The first frame after starting is often slow, it should not hold the level down
+        drawFrames(1, FIRST_FRAME_NS);
+        drawFrames(FrameBudgetController.FRAMES_TO_LOWER * 10, STEADY_FRAME_NS);
+        assertEquals(FrameBudgetController.DEFAULT_LEVEL, frameBudgetController.getLevel());
+        assertFalse(frameBudgetController.takeLevelChange());
+
+        // Slow frames only count while they run on
+        for(int i = 0; i < FrameBudgetController.FRAMES_TO_LOWER * 10; i++) {
+            drawFrames(1, i % 2 == 0 ? SLOW_FRAME_NS : STEADY_FRAME_NS);
+        }
+        assertEquals(FrameBudgetController.DEFAULT_LEVEL, frameBudgetController.getLevel());
+    }
+
+    @Test
+    public void testLevelChangeRequestsRender() {
+        final int[] renderRequests = {0};
+        frameBudgetController.setRenderRequester(new RenderRequester() {
+            @Override
+            public void requestRender() {
+                renderRequests[0]++;
+            }
+        });
+
+        frameBudgetController.setLevel(3);
+        assertEquals(1, renderRequests[0]);
+        // Asking again for the level already asked for is not a change
+        frameBudgetController.setLevel(3);
+        assertEquals(1, renderRequests[0]);
+        // Nor is setting the level it is already at
+        assertTrue(frameBudgetController.takeLevelChange());
+        frameBudgetController.setLevel(3);
+        assertFalse(frameBudgetController.takeLevelChange());
+        assertEquals(1, renderRequests[0]);
+
+        drawFrames(FrameBudgetController.FRAMES_TO_LOWER, SLOW_FRAME_NS);
+        assertEquals(2, renderRequests[0]);
+    }
+}
@@ -0,0 +1,101 @@
+package com.nfx.android.graph.androidgraph;
+
+import android.os.Build;
+
+import com.nfx.android.graph.BuildConfig;
+import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
+import com.nfx.android.graph.graphbufferinput.InputListener;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.LOLLIPOP, constants = BuildConfig.class)
+public class GraphViewTest {
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 300;
+    private static final int BUFFER_SIZE = 256;
+    private static final int SIGNAL_COLOUR = 0xFFFF00FF;
+
+    private final float[] buffer = new float[BUFFER_SIZE];
+    private GraphView graphView;
+    private InputListener signalInput;
+
+    @Before
+    public void setUp() {
+        graphView = new GraphView(RuntimeEnvironment.application);
+        signalInput = graphView.getSignalManager().addSignal(0, BUFFER_SIZE,
+                new AxisParameters(0, 1, Scale.linear), SIGNAL_COLOUR);
+    }
+
+    /**
+     * Give the signal a flat buffer and draw the graph onto a new surface
+     *
+     * @param level value of every point in the buffer
+     * @return surface drawn onto
+     */
+    private RasterDrawingSurface drawFlatSignal(float level) {
+        Arrays.fill(buffer, level);
+        signalInput.bufferUpdate(buffer);
+
+        RasterDrawingSurface surface = new RasterDrawingSurface(WIDTH, HEIGHT);
+        graphView.drawOnto(surface);
+        return surface;
+    }
+
+    /**
+     * @return average row of the signal coloured pixels in a column, -1 if there are none
+     */
+    private static float signalRow(RasterDrawingSurface surface, int x) {
+        int rows = 0;
+        int rowTotal = 0;
+        for(int y = 0; y < surface.getHeight(); y++) {
+            if(surface.getPixel(x, y) == SIGNAL_COLOUR) {
+                rows++;
+                rowTotal += y;
+            }
+        }
+        return rows == 0 ? -1 : (float) rowTotal / rows;
+    }
+
+    @Test
+    public void testDrawOntoDrawsBackgroundAndSignal() {
+        RasterDrawingSurface surface = drawFlatSignal(0.5f);
+
+        // The background covers the whole surface
+        for(int pixel : surface.getPixels()) {
+            assertNotEquals(0, pixel);
+        }
+
+        // A flat signal is a level line part way down the graph
+        final float middleRow = signalRow(surface, WIDTH / 2);
+        assertTrue(middleRow > 0 && middleRow < HEIGHT);
+        assertEquals(middleRow, signalRow(surface, WIDTH / 4), 1f);
+        assertEquals(middleRow, signalRow(surface, WIDTH * 3 / 4), 1f);
+    }
+
+    @Test
+    public void testDrawOntoFollowsSignalData() {
+        final float middleRow = signalRow(drawFlatSignal(0.5f), WIDTH / 2);
+        final float upperRow = signalRow(drawFlatSignal(0.75f), WIDTH / 2);
+
+        // A higher value is drawn higher up the surface
+        assertTrue(upperRow >= 0);
+        assertTrue("Signal at " + upperRow + " should be above " + middleRow,
+                upperRow < middleRow - HEIGHT / 10f);
+    }
+}
@@ -0,0 +1,89 @@
+package com.nfx.android.graph.androidgraph;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class PhosphorTest {
+    private static final int COLUMNS = 4;
+    private static final int ROWS = 11;
+
+    private final int[] intensities = new int[COLUMNS * ROWS];
+
+    @Test
+    public void testValueToRowIsClamped() {
+        assertEquals(0, Phosphor.valueToRow(1f, ROWS));
+        assertEquals(ROWS - 1, Phosphor.valueToRow(0f, ROWS));
+        assertEquals(5, Phosphor.valueToRow(0.5f, ROWS));
+        assertEquals(0, Phosphor.valueToRow(2f, ROWS));
+        assertEquals(ROWS - 1, Phosphor.valueToRow(-1f, ROWS));
+    }
+
+    @Test
+    public void testColumnRangeIsFilled() {
+        float[] minimumValues = new float[]{0.3f, 0.5f, 0.5f, 0.5f};
+        float[] maximumValues = new float[]{0.5f, 0.5f, 0.5f, 0.5f};
+
+        Phosphor.rasterise(minimumValues, maximumValues, intensities, COLUMNS, ROWS);
+
+        // The first column covers rows 5 to 7, the rest only row 5
+        for(int y = 0; y < ROWS; y++) {
+            int expected = y >= 5 && y <= 7 ? Phosphor.HIT_INTENSITY : 0;
+            assertEquals("Row " + y + " incorrect", expected, intensities[y * COLUMNS]);
+        }
+        assertEquals(Phosphor.HIT_INTENSITY, intensities[5 * COLUMNS + 3]);
+        assertEquals(0, intensities[6 * COLUMNS + 3]);
+    }
+
+    @Test
+    public void testGapBetweenColumnsIsJoined() {
+        // A step from the bottom to the top between the first two columns
+        float[] values = new float[]{0f, 1f, 1f, 1f};
+
+        Phosphor.rasterise(values, values, intensities, COLUMNS, ROWS);
+
+        for(int y = 0; y < ROWS; y++) {
+            boolean joined = intensities[y * COLUMNS] != 0 || intensities[y * COLUMNS + 1] != 0;
+            assertTrue("Row " + y + " not joined", joined);
+        }
+    }
+
+    @Test
+    public void testDecayIsExponentialAndFadesOut() {
+        int[] colourLookup = new int[256];
+        for(int i = 0; i < colourLookup.length; i++) {
+            colourLookup[i] = i;
+        }
+        int[] pixels = new int[intensities.length];
+        intensities[0] = 0x8000;
+        final int halfDecay = 0x8000;
+
+        assertTrue(Phosphor.decay(intensities, pixels, colourLookup, halfDecay));
+        // The pixels show the intensity before the decay
+        assertEquals(0x80, pixels[0]);
+        assertEquals(0x4000, intensities[0]);
+
+        int frames = 1;
+        while(Phosphor.decay(intensities, pixels, colourLookup, halfDecay)) {
+            frames++;
+        }
+        // 0x8000 halves to below 0x100 after 8 frames
+        assertEquals(7, frames);
+        assertFalse("Dark phosphor reported as lit",
+                Phosphor.decay(intensities, pixels, colourLookup, halfDecay));
+    }
+
+    @Test
+    public void testDecayValidation() {
+        assertTrue(Phosphor.isValidDecay(0f));
+        assertTrue(Phosphor.isValidDecay(1f));
+        assertFalse(Phosphor.isValidDecay(-0.1f));
+        assertFalse(Phosphor.isValidDecay(1.5f));
+    }
+}
@@ -0,0 +1,112 @@
+package com.nfx.android.graph.androidgraph;
+
+import android.os.Build;
+
+import com.nfx.android.graph.BuildConfig;
+import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
+import com.nfx.android.graph.androidgraph.AxisScale.GraphParameters;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.LOLLIPOP, constants = BuildConfig.class)
+public class PinchZoomAllocationTest {
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 600;
+    private static final int PINCH_STEPS = 500;
+    /**
+     * Allowance for allocations the JVM makes on the thread outside of the pinch, well under a
+     * byte per zoom step
+     */
+    private static final long ALLOCATION_TOLERANCE_BYTES = 512;
+
+    private final ZoomDisplay xZoomDisplay = new ZoomDisplay(1f, 0f);
+    private final ZoomDisplay yZoomDisplay = new ZoomDisplay(1f, 0f);
+    private BackgroundManager backgroundManager;
+
+    @Before
+    public void setUp() {
+        GraphParameters graphParameters = new GraphParameters(
+                new AxisParameters(20, 20000, Scale.logarithmic),
+                new AxisParameters(-100, 0, Scale.linear));
+        backgroundManager = new BackgroundManager(RuntimeEnvironment.application,
+                graphParameters);
+        backgroundManager.setShowAxisText(true);
+        backgroundManager.surfaceChanged(new DrawableArea(0, 0, WIDTH, HEIGHT));
+        backgroundManager.setXZoomDisplay(xZoomDisplay);
+        backgroundManager.setYZoomDisplay(yZoomDisplay);
+        backgroundManager.setXAxisLogarithmic();
+    }
+
+    /**
+     * Zoom both axes in towards the centre and back out again, each step goes through the zoom
+     * listeners of the grid lines and the boarder text as a pinch zoom would
+     *
+     * @return highest number of minor x grid lines shown during the pinch
+     */
+    private int pinchZoom() {
+        int mostChildGridLines = 0;
+        for(int step = 0; step < PINCH_STEPS * 2; step++) {
+            final int stepIn = step < PINCH_STEPS ? step : PINCH_STEPS * 2 - 1 - step;
+            final float zoom = 1f - 0.98f * stepIn / PINCH_STEPS;
+            final float offset = (1f - zoom) / 2f;
+            xZoomDisplay.setZoom(zoom, offset);
+            yZoomDisplay.setZoom(zoom, offset);
+            mostChildGridLines = Math.max(mostChildGridLines,
+                    backgroundManager.getXGridLines().getNumberOfChildGridLines());
+        }
+        return mostChildGridLines;
+    }
+
+    @Test
+    public void testPinchZoomAddsAndRemovesMinorGridLines() {
+        assertEquals(0, backgroundManager.getXGridLines().getNumberOfChildGridLines());
+        assertTrue(pinchZoom() > 0);
+        assertEquals(0, backgroundManager.getXGridLines().getNumberOfChildGridLines());
+    }
+
+    @Test
+    public void testPinchZoomDoesNotAllocate() {
+        // Warm up so class loading, compilation and filling the pools are not counted
+        for(int i = 0; i < 20; i++) {
+            pinchZoom();
+        }
+
+        // Per thread allocation counts are only available on some JVMs
+        final ThreadMXBean platformThreadMXBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(platformThreadMXBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) platformThreadMXBean;
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        final long threadId = Thread.currentThread().getId();
+
+        // The measurement itself may allocate, take that away
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        long overhead = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+        before = threadMXBean.getThreadAllocatedBytes(threadId);
+        final int mostChildGridLines = pinchZoom();
+        final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before - overhead;
+
+        assertTrue("Pinch zoom allocated " + allocated + " bytes",
+                allocated <= ALLOCATION_TOLERANCE_BYTES);
+        assertTrue("No minor grid lines were added", mostChildGridLines > 0);
+    }
+}
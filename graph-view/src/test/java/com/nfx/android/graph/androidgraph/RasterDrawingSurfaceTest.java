@@ -0,0 +1,166 @@
+package com.nfx.android.graph.androidgraph;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class RasterDrawingSurfaceTest {
+    private static final int RED = 0xFFFF0000;
+    private static final int BLUE = 0xFF0000FF;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private final RasterDrawingSurface surface = new RasterDrawingSurface(20, 10);
+
+    private int countPixels(int colour) {
+        int count = 0;
+        for(int pixel : surface.getPixels()) {
+            if(pixel == colour) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testFillRectCoversPixelCentres() {
+        surface.fillRect(2f, 3f, 6f, 5f, RED);
+        assertEquals(8, countPixels(RED));
+        assertEquals(RED, surface.getPixel(2, 3));
+        assertEquals(RED, surface.getPixel(5, 4));
+        assertEquals(0, surface.getPixel(6, 4));
+
+        // Clipped to the surface
+        surface.eraseColor(0);
+        surface.fillRect(-5f, -5f, 100f, 100f, RED);
+        assertEquals(200, countPixels(RED));
+    }
+
+    @Test
+    public void testLines() {
+        // Single pixel wide line from one end to the other
+        surface.strokeLine(0f, 0.5f, 19f, 0.5f, 0f, RED);
+        assertEquals(20, countPixels(RED));
+
+        // A 2 pixel wide line with butt ends covers a 10 by 2 block
+        surface.strokeLine(5f, 5f, 15f, 5f, 2f, BLUE);
+        assertEquals(20, countPixels(BLUE));
+        assertEquals(BLUE, surface.getPixel(5, 4));
+        assertEquals(BLUE, surface.getPixel(14, 5));
+        assertEquals(0, surface.getPixel(15, 5));
+    }
+
+    @Test
+    public void testFillPolygonAndCircle() {
+        // Right angled triangle with a 10 pixel base and height
+        final float[] triangle = {0f, 0f, 10f, 10f, 0f, 10f};
+        surface.fillPolygon(triangle, triangle.length, RED);
+        assertEquals(45, countPixels(RED));
+
+        surface.eraseColor(0);
+        surface.fillCircle(10f, 5f, 3f, BLUE);
+        assertEquals(BLUE, surface.getPixel(10, 5));
+        assertEquals(0, surface.getPixel(14, 5));
+        assertEquals(32, countPixels(BLUE));
+    }
+
+    @Test
+    public void testBlendAndDrawPixels() {
+        surface.eraseColor(WHITE);
+        surface.fillRect(0f, 0f, 1f, 1f, 0x80000000);
+        assertEquals(0xFF7F7F7F, surface.getPixel(0, 0));
+
+        // A 2 by 1 image doubled in size
+        final int[] image = {RED, BLUE};
+        surface.drawPixels(image, 2, 0, 0, 2, 1, 10, 2, 14, 4);
+        assertEquals(RED, surface.getPixel(10, 2));
+        assertEquals(RED, surface.getPixel(11, 3));
+        assertEquals(BLUE, surface.getPixel(12, 2));
+        assertEquals(BLUE, surface.getPixel(13, 3));
+        assertEquals(WHITE, surface.getPixel(14, 2));
+    }
+
+    @Test
+    public void testDrawThroughInterfaceWithStyle() {
+        final DrawingSurface drawingSurface = surface;
+        final DrawingStyle style = new DrawingStyle();
+        style.setColour(RED);
+
+        // Filled, then outlined with a 2 pixel stroke centred on the edges
+        drawingSurface.drawRect(new DrawingRect(2, 2, 6, 6), style);
+        assertEquals(16, countPixels(RED));
+
+        surface.eraseColor(0);
+        style.setStyle(DrawingStyle.Style.STROKE);
+        style.setStrokeWidth(2f);
+        drawingSurface.drawRect(new DrawingRect(2, 2, 8, 8), style);
+        assertEquals(RED, surface.getPixel(2, 5));
+        assertEquals(RED, surface.getPixel(7, 5));
+        assertEquals(0, surface.getPixel(5, 5));
+
+        surface.eraseColor(0);
+        style.setColour(BLUE);
+        drawingSurface.drawLine(5f, 5f, 15f, 5f, style);
+        assertEquals(20, countPixels(BLUE));
+    }
+
+    @Test
+    public void testDrawImage() {
+        final DrawingImage image = new DrawingImage(2, 2);
+        image.eraseColor(RED);
+        image.setPixels(new int[]{BLUE, BLUE}, 0, 2, 0, 1, 2, 1);
+
+        // The bottom row stretched over a 4 by 2 area
+        surface.drawImage(image, new DrawingRect(0, 1, 2, 2), new DrawingRect(4, 4, 8, 6),
+                new DrawingStyle());
+        assertEquals(8, countPixels(BLUE));
+        assertEquals(0, countPixels(RED));
+
+        // The whole image, top row red and bottom row blue
+        surface.eraseColor(0);
+        surface.drawImage(image, null, new DrawingRect(0, 0, 4, 4), new DrawingStyle());
+        assertEquals(RED, surface.getPixel(3, 1));
+        assertEquals(BLUE, surface.getPixel(0, 2));
+    }
+
+    @Test
+    public void testImageTracksChangedRows() {
+        final DrawingImage image = new DrawingImage(4, 10);
+        // Everything has changed until a surface has taken a copy
+        assertEquals(0, image.getChangedTop());
+        assertEquals(10, image.getChangedBottom());
+
+        image.clearChanged();
+        image.setPixels(new int[4], 0, 4, 0, 6, 4, 1);
+        image.markChanged(2, 3);
+        assertEquals(2, image.getChangedTop());
+        assertEquals(7, image.getChangedBottom());
+    }
+
+    @Test
+    public void testDrawablesDrawWithoutAndroid() {
+        final RasterDrawingSurface graphSurface = new RasterDrawingSurface(60, 40);
+        final DrawableArea drawableArea = new DrawableArea(0, 0, 60, 40);
+        final Background background = new Background();
+        final Boarder boarder = new Boarder();
+        background.setColour(BLUE);
+        boarder.setColour(WHITE);
+        background.surfaceChanged(drawableArea);
+        boarder.surfaceChanged(drawableArea);
+
+        background.doDraw(graphSurface, null);
+        boarder.doDraw(graphSurface, null);
+
+        // A 10 pixel boarder around the background
+        assertEquals(WHITE, graphSurface.getPixel(0, 0));
+        assertEquals(WHITE, graphSurface.getPixel(9, 20));
+        assertEquals(WHITE, graphSurface.getPixel(59, 39));
+        assertEquals(BLUE, graphSurface.getPixel(10, 10));
+        assertEquals(BLUE, graphSurface.getPixel(49, 29));
+        assertEquals(10, drawableArea.getLeft());
+        assertEquals(40, drawableArea.getWidth());
+    }
+}
@@ -0,0 +1,127 @@
+package com.nfx.android.graph.androidgraph;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class RenderSchedulerTest {
+    private final AtomicInteger framesDrawn = new AtomicInteger(0);
+    private final Semaphore frameStarted = new Semaphore(0);
+    private final Semaphore frameDrawn = new Semaphore(0);
+    /**
+     * Held by the test to keep the render thread inside a frame
+     */
+    private final Semaphore frameGate = new Semaphore(0);
+    private final RenderScheduler renderScheduler = new RenderScheduler(
+            new RenderScheduler.FrameDrawer() {
+                @Override
+                public void drawFrame() {
+                    frameStarted.release();
+                    frameGate.acquireUninterruptibly();
+                    framesDrawn.incrementAndGet();
+                    frameDrawn.release();
+                }
+            }, false);
+
+    @After
+    public void tearDown() {
+        frameGate.release(100);
+        renderScheduler.stop();
+    }
+
+    @Test
+    public void testNothingDrawnWithoutRequest() throws InterruptedException {
+        renderScheduler.setMaximumFrameRate(1000);
+        renderScheduler.start();
+        frameGate.release();
+        assertTrue("First frame not drawn", frameDrawn.tryAcquire(1, TimeUnit.SECONDS));
+
+        assertTrue("Frame drawn without a request",
+                !frameDrawn.tryAcquire(100, TimeUnit.MILLISECONDS));
+        assertEquals("Incorrect number of frames", 1, framesDrawn.get());
+    }
+
+    @Test
+    public void testRequestsAreCoalesced() throws InterruptedException {
+        renderScheduler.setMaximumFrameRate(1000);
+        renderScheduler.start();
+        frameGate.release();
+        assertTrue("First frame not drawn", frameDrawn.tryAcquire(1, TimeUnit.SECONDS));
+
+        for(int i = 0; i < 10; i++) {
+            renderScheduler.requestRender();
+        }
+        frameGate.release(10);
+
+        assertTrue("Requested frame not drawn", frameDrawn.tryAcquire(1, TimeUnit.SECONDS));
+        assertTrue("Requests not coalesced", !frameDrawn.tryAcquire(100, TimeUnit.MILLISECONDS));
+        assertEquals("Incorrect number of frames", 2, framesDrawn.get());
+    }
+
+    @Test
+    public void testRequestDuringFrameGetsItsOwnFrame() throws InterruptedException {
+        renderScheduler.setMaximumFrameRate(1000);
+        renderScheduler.start();
+
+        // The render thread is held inside the first frame while the request is made
+        assertTrue("First frame not started", frameStarted.tryAcquire(1, TimeUnit.SECONDS));
+        renderScheduler.requestRender();
+        frameGate.release(2);
+
+        assertTrue("First frame not drawn", frameDrawn.tryAcquire(1, TimeUnit.SECONDS));
+        assertTrue("Request made during frame lost", frameDrawn.tryAcquire(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFrameRateIsCapped() throws InterruptedException {
+        renderScheduler.setMaximumFrameRate(20);
+        renderScheduler.start();
+        frameGate.release(100);
+        assertTrue("First frame not drawn", frameDrawn.tryAcquire(1, TimeUnit.SECONDS));
+
+        final long startTime = System.nanoTime();
+        renderScheduler.requestRender();
+        assertTrue("Requested frame not drawn", frameDrawn.tryAcquire(1, TimeUnit.SECONDS));
+        final long intervalMs = (System.nanoTime() - startTime) / 1000000L;
+
+        // 20fps is a 50ms interval, allow for the time taken to make the request
+        assertTrue("Frame drawn too soon " + intervalMs + "ms", intervalMs >= 40);
+        assertEquals(20, renderScheduler.getMaximumFrameRate());
+    }
+
+    @Test
+    public void testUncappedByDefault() {
+        assertEquals(RenderScheduler.UNCAPPED, renderScheduler.getMaximumFrameRate());
+        assertEquals(1, RenderScheduler.vsyncDivisor(90f, RenderScheduler.UNCAPPED));
+        assertEquals(1, RenderScheduler.vsyncDivisor(144f, RenderScheduler.UNCAPPED));
+    }
+
+    @Test
+    public void testCapUsesSmallestVsyncDivisor() {
+        assertEquals(1, RenderScheduler.vsyncDivisor(60f, 60));
+        assertEquals(1, RenderScheduler.vsyncDivisor(59.94f, 60));
+        assertEquals(2, RenderScheduler.vsyncDivisor(90f, 60));
+        assertEquals(2, RenderScheduler.vsyncDivisor(120f, 60));
+        assertEquals(3, RenderScheduler.vsyncDivisor(144f, 60));
+        assertEquals(1, RenderScheduler.vsyncDivisor(90f, 120));
+        assertEquals(4, RenderScheduler.vsyncDivisor(120f, 30));
+    }
+
+    @Test
+    public void testVsyncsBetweenAllowsForJitter() {
+        // 90Hz is an 11.1ms frame
+        assertEquals(1, RenderScheduler.vsyncsBetween(0, 10500000L, 90f));
+        assertEquals(1, RenderScheduler.vsyncsBetween(0, 11800000L, 90f));
+        assertEquals(2, RenderScheduler.vsyncsBetween(0, 21900000L, 90f));
+    }
+}
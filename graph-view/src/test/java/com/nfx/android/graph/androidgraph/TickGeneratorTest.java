@@ -0,0 +1,55 @@
+package com.nfx.android.graph.androidgraph;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class TickGeneratorTest {
+    private final TickGenerator tickGenerator = new TickGenerator(40f);
+
+    @Test
+    public void testLinearTicks() {
+        // Steps of 2, 5 and 1
+        assertEquals(11, tickGenerator.numberOfGridLines(0f, 20f, 600f));
+        assertEquals(6, tickGenerator.numberOfGridLines(0f, 25f, 600f));
+        assertEquals(11, tickGenerator.numberOfGridLines(-0.5f, 0.5f, 600f));
+        // Not enough space for ten divisions, steps of 5 rather than 2
+        assertEquals(5, tickGenerator.numberOfGridLines(0f, 20f, 200f));
+    }
+
+    @Test
+    public void testLogDecadeTicks() {
+        assertEquals(10, tickGenerator.numberOfGridLines(100f, 1000f, 600f));
+        assertEquals(10, tickGenerator.numberOfGridLines(1000f, 10000f, 600f));
+        // Rounding in the scale conversion should not change the result
+        assertEquals(10, tickGenerator.numberOfGridLines(99.99999f, 1000.0001f, 600f));
+        assertEquals(11, tickGenerator.numberOfGridLines(1000f, 2000f, 600f));
+    }
+
+    @Test
+    public void testCacheKeyedOnDivisionsWhichFit() {
+        // Both lengths used to share a cache entry, only one division fits in the first
+        assertEquals(2, tickGenerator.numberOfGridLines(0f, 20f, 79f));
+        assertEquals(3, tickGenerator.numberOfGridLines(0f, 20f, 80f));
+        assertEquals(2, tickGenerator.numberOfGridLines(0f, 20f, 79f));
+    }
+
+    @Test
+    public void testMajorTickStep() {
+        assertEquals(5000f, TickGenerator.majorTickStep(20f, 22050f, 5), 0f);
+        assertEquals(20f, TickGenerator.majorTickStep(-100f, 0f, 5), 0f);
+        assertEquals(0.1f, TickGenerator.majorTickStep(0f, 0.3f, 5), 1e-6f);
+        // Rounding out to the step can need one more division, so a larger step is taken
+        assertEquals(5f, TickGenerator.majorTickStep(1f, 9f, 4), 0f);
+        assertEquals(0f, TickGenerator.majorTickStep(1f, 1f, 5), 0f);
+
+        assertEquals(0, TickGenerator.majorTickBelow(20f, 5000), 0);
+        assertEquals(25000, TickGenerator.majorTickAbove(22050f, 5000), 0);
+        // Within rounding of a grid line counts as on it
+        assertEquals(0.3, TickGenerator.majorTickAbove(0.3f, 0.1), 1e-6);
+    }
+}
@@ -0,0 +1,62 @@
+package com.nfx.android.graph.androidgraph;
+
+import com.nfx.android.graph.androidgraph.AxisScale.AxisParameters;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class WaterfallTest {
+    private static final int BUFFER_LENGTH = 101;
+
+    private final AxisParameters bufferXAxisParameters =
+            new AxisParameters(0, 1000, Scale.linear);
+    private final int[] columnLowerIndex = new int[10];
+    private final int[] columnUpperIndex = new int[10];
+
+    @Test
+    public void testLinearColumnMapping() {
+        Waterfall.calculateColumnMapping(new AxisParameters(0, 1000, Scale.linear),
+                bufferXAxisParameters, BUFFER_LENGTH, columnLowerIndex, columnUpperIndex);
+
+        // Each column covers ten indexes with no gaps or overlaps
+        assertEquals(0, columnLowerIndex[0]);
+        for(int x = 0; x < columnLowerIndex.length; x++) {
+            assertEquals(10, columnUpperIndex[x] - columnLowerIndex[x] + 1, 1);
+            if(x > 0) {
+                assertEquals(columnUpperIndex[x - 1] + 1, columnLowerIndex[x]);
+            }
+        }
+    }
+
+    @Test
+    public void testColumnMappingFollowsAxisRange() {
+        // Only the upper half of the buffer is on the graph
+        Waterfall.calculateColumnMapping(new AxisParameters(500, 1000, Scale.linear),
+                bufferXAxisParameters, BUFFER_LENGTH, columnLowerIndex, columnUpperIndex);
+        assertEquals(50, columnLowerIndex[0]);
+        assertEquals(BUFFER_LENGTH - 1, columnUpperIndex[columnUpperIndex.length - 1]);
+
+        // Zoomed in past the buffer resolution every column still has an index
+        Waterfall.calculateColumnMapping(new AxisParameters(500, 502, Scale.linear),
+                bufferXAxisParameters, BUFFER_LENGTH, columnLowerIndex, columnUpperIndex);
+        for(int x = 0; x < columnLowerIndex.length; x++) {
+            assertTrue(columnUpperIndex[x] >= columnLowerIndex[x]);
+            assertTrue(columnLowerIndex[x] >= 50 && columnUpperIndex[x] <= 51);
+        }
+    }
+
+    @Test
+    public void testColourIndexIsClamped() {
+        assertEquals(0, Waterfall.colourIndex(-1f));
+        assertEquals(0, Waterfall.colourIndex(0f));
+        assertEquals(127, Waterfall.colourIndex(0.5f));
+        assertEquals(Waterfall.COLOUR_MAP_SIZE - 1, Waterfall.colourIndex(1f));
+        assertEquals(Waterfall.COLOUR_MAP_SIZE - 1, Waterfall.colourIndex(10f));
+    }
+}
@@ -0,0 +1,66 @@
+package com.nfx.android.graph.androidgraph;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class ZoomDisplayTest {
+    private int numberOfZoomChanges = 0;
+    private int numberOfRenderRequests = 0;
+
+    private final ZoomChangedListener zoomChangedListener = new ZoomChangedListener() {
+        @Override
+        void zoomChanged() {
+            numberOfZoomChanges++;
+        }
+    };
+
+    @Test
+    public void testChangesAreCoalescedPerFrame() {
+        ZoomDisplay zoomDisplay = new ZoomDisplay(1f, 0f);
+        zoomDisplay.addListener(zoomChangedListener);
+        zoomDisplay.setRenderRequester(new RenderRequester() {
+            @Override
+            public void requestRender() {
+                numberOfRenderRequests++;
+            }
+        });
+
+        zoomDisplay.setZoomLevelPercentage(0.5f);
+        zoomDisplay.setDisplayOffsetPercentage(0.25f);
+        zoomDisplay.setZoom(0.4f, 0.3f);
+        assertEquals(0, numberOfZoomChanges);
+        assertEquals(3, numberOfRenderRequests);
+
+        zoomDisplay.dispatchZoomChanged();
+        zoomDisplay.dispatchZoomChanged();
+        assertEquals(1, numberOfZoomChanges);
+        assertEquals(0.4f, zoomDisplay.getZoomLevelPercentage(), 0f);
+        assertEquals(0.3f, zoomDisplay.getDisplayOffsetPercentage(), 0f);
+        assertEquals(0.7f, zoomDisplay.getFarSideOffsetPercentage(), 1e-6f);
+    }
+
+    @Test
+    public void testRemovedListenerIsNotTold() {
+        ZoomDisplay zoomDisplay = new ZoomDisplay(1f, 0f);
+        zoomDisplay.addListener(zoomChangedListener);
+        zoomDisplay.setZoom(0.5f, 0f);
+        assertEquals(1, numberOfZoomChanges);
+
+        zoomDisplay.removeListener(zoomChangedListener);
+        zoomDisplay.setZoom(0.25f, 0f);
+        assertEquals(1, numberOfZoomChanges);
+    }
+
+    @Test
+    public void testOffsetBounds() {
+        ZoomDisplay zoomDisplay = new ZoomDisplayWithOffsetBounds(1f, 0f);
+        zoomDisplay.setZoom(0.5f, 0.75f);
+        assertEquals(0.5f, zoomDisplay.getZoomLevelPercentage(), 0f);
+        assertEquals(0.5f, zoomDisplay.getDisplayOffsetPercentage(), 0f);
+    }
+}
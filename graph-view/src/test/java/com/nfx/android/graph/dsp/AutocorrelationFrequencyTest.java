@@ -0,0 +1,48 @@
+package com.nfx.android.graph.dsp;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class AutocorrelationFrequencyTest {
+    private static final int SAMPLE_RATE = 48000;
+    private static final int BLOCK_SIZE = 2048;
+
+    private final AutocorrelationFrequency autocorrelationFrequency =
+            new AutocorrelationFrequency(SAMPLE_RATE);
+    private final Random random = new Random(1);
+
+    @Test
+    public void testNoisySine() {
+        float[] buffer = new float[BLOCK_SIZE];
+        // Normalised 0-1 sine wave with noise added, as would come from the microphone input
+        for(int i = 0; i < BLOCK_SIZE; i++) {
+            buffer[i] = 0.5f + 0.25f * (float) Math.sin(2.0 * Math.PI * 440.0 * i / SAMPLE_RATE) +
+                    0.1f * (random.nextFloat() - 0.5f);
+        }
+
+        autocorrelationFrequency.analyseBuffer(buffer);
+
+        assertEquals("Incorrect frequency", 440f, autocorrelationFrequency.getFrequency(), 1f);
+        assertTrue("Low confidence", autocorrelationFrequency.getConfidence() > 0.8f);
+    }
+
+    @Test
+    public void testNoiseHasLowConfidence() {
+        float[] buffer = new float[BLOCK_SIZE];
+        for(int i = 0; i < BLOCK_SIZE; i++) {
+            buffer[i] = random.nextFloat();
+        }
+
+        autocorrelationFrequency.analyseBuffer(buffer);
+
+        assertTrue("High confidence for noise", autocorrelationFrequency.getConfidence() < 0.3f);
+    }
+}
@@ -0,0 +1,89 @@
+package com.nfx.android.graph.dsp;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class FractionalOctaveSmoothingTest {
+    private static final int SAMPLE_RATE = 48000;
+    private static final int NUMBER_OF_BINS = 2048;
+    private static final int BANDS_PER_OCTAVE = 3;
+
+    private final FractionalOctaveSmoothing smoothing =
+            new FractionalOctaveSmoothing(BANDS_PER_OCTAVE, NUMBER_OF_BINS, SAMPLE_RATE);
+
+    @Test
+    public void testBandEdgesStayWithinSpectrum() {
+        int previousLowerBin = 1;
+        for(int band = 0; band < smoothing.getNumberOfBands(); band++) {
+            int lowerBin = smoothing.getBandLowerBin(band);
+            int upperBin = smoothing.getBandUpperBin(band);
+
+            assertTrue(lowerBin >= 1);
+            assertTrue(upperBin <= NUMBER_OF_BINS - 1);
+            assertTrue(lowerBin <= upperBin);
+            assertTrue(lowerBin >= previousLowerBin);
+            previousLowerBin = lowerBin;
+        }
+    }
+
+    @Test
+    public void testCentreFrequenciesAreFractionalOctavesApart() {
+        float[] centres = smoothing.getBandCentreFrequencies();
+        double bandStep = Math.pow(2.0, 1.0 / BANDS_PER_OCTAVE);
+
+        assertEquals((double) SAMPLE_RATE / (2.0 * NUMBER_OF_BINS), centres[0], 1e-3);
+        for(int band = 1; band < centres.length; band++) {
+            assertEquals(bandStep, centres[band] / centres[band - 1], 1e-4);
+        }
+    }
+
+    @Test
+    public void testEnergyIsConservedAcrossContiguousBands() {
+        double[] magnitudes = new double[NUMBER_OF_BINS];
+        for(int i = 0; i < NUMBER_OF_BINS; i++) {
+            magnitudes[i] = 1.0 + (i % 7) * 0.25;
+        }
+        double[] smoothed = new double[smoothing.getNumberOfBands()];
+        smoothing.smooth(magnitudes, smoothed);
+
+        // Low bands may share a bin, only check where each band follows straight on
+        int checkedBands = 0;
+        for(int band = 1; band < smoothed.length; band++) {
+            int lowerBin = smoothing.getBandLowerBin(band);
+            int upperBin = smoothing.getBandUpperBin(band);
+            if(lowerBin != smoothing.getBandUpperBin(band - 1) + 1) {
+                continue;
+            }
+
+            double binPower = 0;
+            for(int i = lowerBin; i <= upperBin; i++) {
+                binPower += magnitudes[i] * magnitudes[i];
+            }
+            double bandPower = smoothed[band] * smoothed[band] * (upperBin - lowerBin + 1);
+
+            assertEquals(binPower, bandPower, binPower * 1e-9);
+            checkedBands++;
+        }
+        assertTrue(checkedBands > 10);
+    }
+
+    @Test
+    public void testFlatSpectrumStaysFlat() {
+        double[] magnitudes = new double[NUMBER_OF_BINS];
+        Arrays.fill(magnitudes, 0.5);
+        double[] smoothed = new double[smoothing.getNumberOfBands()];
+        smoothing.smooth(magnitudes, smoothed);
+
+        for(double magnitude : smoothed) {
+            assertEquals(0.5, magnitude, 1e-9);
+        }
+    }
+}
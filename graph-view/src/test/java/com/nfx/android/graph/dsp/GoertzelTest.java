@@ -0,0 +1,67 @@
+package com.nfx.android.graph.dsp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class GoertzelTest {
+    private static final int SAMPLE_RATE = 48000;
+    private static final int BLOCK_SIZE = 4800;
+
+    private final Goertzel goertzel = new Goertzel(SAMPLE_RATE);
+    private final float[] buffer = new float[BLOCK_SIZE];
+
+    @Before
+    public void setUp() {
+        // 1kHz full scale sine wave with a whole number of cycles in the block
+        for(int i = 0; i < BLOCK_SIZE; i++) {
+            buffer[i] = (float) Math.sin(2.0 * Math.PI * 1000.0 * i / SAMPLE_RATE);
+        }
+    }
+
+    @Test
+    public void testFullScaleSineIsZeroDecibels() {
+        goertzel.setNumberOfTargets(1);
+        goertzel.setTargetFrequency(0, 1000f);
+        goertzel.analyseBuffer(buffer);
+
+        assertEquals("Full scale sine is not 1", 1f, goertzel.getMagnitude(0), 0.01f);
+        assertEquals("Full scale sine is not 0dB", 0f, goertzel.getDecibels(0), 0.1f);
+    }
+
+    @Test
+    public void testSilenceIsClampedToFloor() {
+        goertzel.setNumberOfTargets(1);
+        goertzel.setTargetFrequency(0, 1000f);
+        goertzel.analyseBuffer(new float[BLOCK_SIZE]);
+
+        assertEquals(Goertzel.MINIMUM_DECIBELS, goertzel.getDecibels(0), 0f);
+    }
+
+    @Test
+    public void testOffFrequencyIsRejected() {
+        goertzel.setNumberOfTargets(2);
+        goertzel.setTargetFrequency(0, 1000f);
+        goertzel.setTargetFrequency(1, 5000f);
+        goertzel.analyseBuffer(buffer);
+
+        assertTrue("Off frequency target not rejected", goertzel.getDecibels(1) < -60f);
+    }
+
+    @Test
+    public void testTargetsKeptWhenResized() {
+        goertzel.setNumberOfTargets(1);
+        goertzel.setTargetFrequency(0, 1000f);
+        goertzel.setNumberOfTargets(3);
+        goertzel.analyseBuffer(buffer);
+
+        assertEquals("Target lost on resize", 1000f, goertzel.getTargetFrequency(0), 0f);
+        assertEquals("Full scale sine is not 1", 1f, goertzel.getMagnitude(0), 0.01f);
+    }
+}
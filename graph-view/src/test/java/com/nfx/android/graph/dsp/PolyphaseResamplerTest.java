@@ -0,0 +1,79 @@
+package com.nfx.android.graph.dsp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class PolyphaseResamplerTest {
+    private static final int SAMPLE_RATE = 48000;
+    private static final int LENGTH = 9600;
+    private static final int ZERO_CROSSINGS = 16;
+
+    @Test
+    public void testBlockBoundariesDoNotChangeOutput() {
+        final float[] input = sine(1000f);
+        final PolyphaseResampler whole = new PolyphaseResampler(2, 3, ZERO_CROSSINGS);
+        final PolyphaseResampler blocks = new PolyphaseResampler(2, 3, ZERO_CROSSINGS);
+
+        float[] wholeOutput = new float[whole.getMaximumOutputLength(LENGTH)];
+        int wholeLength = whole.process(input, LENGTH, wholeOutput);
+
+        // Odd block size so the blocks never line up with the ratio
+        final int blockSize = 97;
+        float[] block = new float[blockSize];
+        float[] blockOutput = new float[blocks.getMaximumOutputLength(blockSize)];
+        float[] blocksOutput = new float[wholeOutput.length];
+        int blocksLength = 0;
+        for(int i = 0; i < LENGTH; i += blockSize) {
+            int length = Math.min(blockSize, LENGTH - i);
+            System.arraycopy(input, i, block, 0, length);
+            int outputLength = blocks.process(block, length, blockOutput);
+            System.arraycopy(blockOutput, 0, blocksOutput, blocksLength, outputLength);
+            blocksLength += outputLength;
+        }
+
+        assertEquals("Output lengths differ", wholeLength, blocksLength);
+        assertArrayEquals("Outputs differ", wholeOutput, blocksOutput, 0f);
+    }
+
+    @Test
+    public void testDecimationRemovesAliases() {
+        final PolyphaseResampler passResampler = new PolyphaseResampler(1, 8, ZERO_CROSSINGS);
+        final PolyphaseResampler stopResampler = new PolyphaseResampler(1, 8, ZERO_CROSSINGS);
+
+        // Output nyquist is 3kHz, 1kHz should pass and 10kHz should be removed
+        float passLevel = levelAfterSettling(passResampler, sine(1000f));
+        float stopLevel = levelAfterSettling(stopResampler, sine(10000f));
+
+        assertEquals("Pass band level incorrect", 1f, passLevel, 0.05f);
+        assertTrue("Alias not removed", stopLevel < 0.01f);
+    }
+
+    private static float[] sine(float frequency) {
+        float[] buffer = new float[LENGTH];
+        for(int i = 0; i < LENGTH; i++) {
+            buffer[i] = (float) Math.sin(2.0 * Math.PI * frequency * i / SAMPLE_RATE);
+        }
+        return buffer;
+    }
+
+    private static float levelAfterSettling(PolyphaseResampler resampler, float[] input) {
+        float[] output = new float[resampler.getMaximumOutputLength(input.length)];
+        int outputLength = resampler.process(input, input.length, output);
+
+        // RMS scaled to the peak of a sine, the output may not be sampled at the sine peaks
+        double sum = 0;
+        int count = 0;
+        for(int i = ZERO_CROSSINGS * 2; i < outputLength; i++) {
+            sum += output[i] * output[i];
+            count++;
+        }
+        return (float) Math.sqrt(2.0 * sum / count);
+    }
+}
@@ -0,0 +1,149 @@
+package com.nfx.android.graph.graphbufferinput;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class AnalysisSchedulerTest {
+    private static final int SAMPLE_RATE = 1000;
+    private static final int BLOCK_SIZE = 10;
+
+    private final AnalysisScheduler analysisScheduler =
+            new AnalysisScheduler(SAMPLE_RATE, new DirectExecutorService());
+    private final CountingAnalyser fastAnalyser = new CountingAnalyser(100);
+    private final CountingAnalyser slowAnalyser = new CountingAnalyser(250);
+
+    @Before
+    public void setUp() {
+        analysisScheduler.addAnalyser(fastAnalyser);
+        analysisScheduler.addAnalyser(slowAnalyser);
+    }
+
+    @Test
+    public void testAnalysersOnlyReceiveBlocksAtTheirRate() {
+        // Updates are due from the first block, stop just short of the one due at one second
+        feedBlocks(99);
+
+        assertEquals("Fast analyser cadence incorrect", 10, fastAnalyser.numberOfUpdates);
+        assertEquals("Slow analyser cadence incorrect", 4, slowAnalyser.numberOfUpdates);
+    }
+
+    @Test
+    public void testCadenceFollowsSampleRateChange() {
+        analysisScheduler.inputSampleRateUpdate(SAMPLE_RATE * 2);
+        // Just short of one second of input at the new rate
+        feedBlocks(199);
+
+        assertEquals("Analyser not told of new rate", SAMPLE_RATE * 2, fastAnalyser.sampleRate);
+        assertEquals("Fast analyser cadence incorrect", 10, fastAnalyser.numberOfUpdates);
+        assertEquals("Slow analyser cadence incorrect", 4, slowAnalyser.numberOfUpdates);
+    }
+
+    @Test
+    public void testRemovedAnalyserIsNotFed() {
+        analysisScheduler.removeAnalyser(slowAnalyser);
+        feedBlocks(100);
+
+        assertEquals("Incorrect number of analysers", 1, analysisScheduler.getNumberOfAnalysers());
+        assertEquals("Removed analyser was fed", 0, slowAnalyser.numberOfUpdates);
+    }
+
+    @Test
+    public void testInputRemovedStopsTheThread() {
+        assertFalse("Shut down too early", analysisScheduler.isShutdown());
+        analysisScheduler.inputRemoved();
+
+        assertTrue("Thread left running after the input was removed",
+                analysisScheduler.isShutdown());
+    }
+
+    private void feedBlocks(int numberOfBlocks) {
+        float[] block = new float[BLOCK_SIZE];
+        for(int b = 0; b < numberOfBlocks; b++) {
+            analysisScheduler.bufferUpdate(block);
+        }
+    }
+
+    private static class CountingAnalyser extends ScheduledInputListener {
+        private final int updateIntervalInMs;
+        int numberOfUpdates = 0;
+        int sampleRate = 0;
+
+        CountingAnalyser(int updateIntervalInMs) {
+            this.updateIntervalInMs = updateIntervalInMs;
+        }
+
+        @Override
+        public int getUpdateIntervalInMs() {
+            return updateIntervalInMs;
+        }
+
+        @Override
+        public void inputBlockSizeUpdate(int blockSize) {
+        }
+
+        @Override
+        public void bufferUpdate(float[] buffer) {
+            numberOfUpdates++;
+        }
+
+        @Override
+        public void inputSampleRateUpdate(int sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        @Override
+        public void inputRemoved() {
+        }
+    }
+
+    /**
+     * Runs each task straight away on the calling thread
+     */
+    private static class DirectExecutorService extends AbstractExecutorService {
+        private boolean shutdown = false;
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
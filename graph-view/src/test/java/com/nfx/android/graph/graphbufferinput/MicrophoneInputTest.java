@@ -0,0 +1,174 @@
+package com.nfx.android.graph.graphbufferinput;
+
+import android.os.Build;
+import android.support.annotation.Nullable;
+
+import com.nfx.android.graph.BuildConfig;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.LOLLIPOP, constants = BuildConfig.class)
+public class MicrophoneInputTest {
+    private static final int FRAMES = 4;
+    private static final int CHANNELS = 3;
+
+    @Test
+    public void testDeinterleaveFloat() {
+        float[] interleaved = new float[FRAMES * CHANNELS];
+        for(int i = 0; i < interleaved.length; i++) {
+            interleaved[i] = i;
+        }
+        float[][] channelBuffers = new float[CHANNELS][FRAMES];
+
+        MicrophoneInput.deinterleave(interleaved, channelBuffers);
+
+        assertArrayEquals(new float[]{0f, 3f, 6f, 9f}, channelBuffers[0], 0f);
+        assertArrayEquals(new float[]{1f, 4f, 7f, 10f}, channelBuffers[1], 0f);
+        assertArrayEquals(new float[]{2f, 5f, 8f, 11f}, channelBuffers[2], 0f);
+    }
+
+    @Test
+    public void testDeinterleaveShortIsScaled() {
+        short[] interleaved = new short[]{Short.MAX_VALUE, 0, -Short.MAX_VALUE, Short.MAX_VALUE};
+        float[][] channelBuffers = new float[2][2];
+
+        MicrophoneInput.deinterleave(interleaved, channelBuffers);
+
+        assertArrayEquals(new float[]{1f, -1f}, channelBuffers[0], 0f);
+        assertArrayEquals(new float[]{0f, 1f}, channelBuffers[1], 0f);
+    }
+
+    @Test
+    public void testDeinterleaveByteIsScaled() {
+        byte[] interleaved = new byte[]{Byte.MAX_VALUE, -Byte.MAX_VALUE};
+        float[][] channelBuffers = new float[2][1];
+
+        MicrophoneInput.deinterleave(interleaved, channelBuffers);
+
+        assertEquals(1f, channelBuffers[0][0], 0f);
+        assertEquals(-1f, channelBuffers[1][0], 0f);
+    }
+
+    @Test
+    public void testMinimumBlockSizeCoversEveryChannel() {
+        // 1000 bytes of 16 bit stereo is 250 frames, every channel needs that many samples
+        assertEquals(500, MicrophoneInput.minimumBlockSize(1000, 1, 2));
+        assertEquals(250, MicrophoneInput.minimumBlockSize(1000, 2, 2));
+        assertEquals(250, MicrophoneInput.minimumBlockSize(1000, 6, 2));
+        // A partial frame is rounded up
+        assertEquals(126, MicrophoneInput.minimumBlockSize(1001, 4, 4));
+    }
+
+    @Test
+    public void testEachChannelIsDispatchedToItsListeners() {
+        TestMicrophoneInput input = new TestMicrophoneInput();
+        RecordingListener[] listeners = new RecordingListener[CHANNELS];
+        for(int c = 0; c < CHANNELS; c++) {
+            listeners[c] = new RecordingListener();
+            input.addInputListener(c, listeners[c]);
+        }
+
+        float[][] channelBuffers = new float[CHANNELS][FRAMES];
+        input.readDone(channelBuffers, 1234L);
+
+        for(int c = 0; c < CHANNELS; c++) {
+            assertSame("Channel " + c + " sent to wrong listener", channelBuffers[c],
+                    listeners[c].buffer);
+            assertEquals("Capture time lost on channel " + c, 1234L,
+                    listeners[c].captureTimeNs);
+        }
+    }
+
+    @Test
+    public void testCaptureTimeIsExtrapolatedFromTimestamp() {
+        // Frame 1000 was captured at 5s, at 48kHz frame 1480 is 10ms later
+        assertEquals(5010000000L,
+                MicrophoneInput.extrapolateCaptureTime(5000000000L, 1000, 1480, 48000));
+        // Frames before the timestamp are earlier
+        assertEquals(4990000000L,
+                MicrophoneInput.extrapolateCaptureTime(5000000000L, 1000, 520, 48000));
+    }
+
+    @Test
+    public void testOverridingSingleBufferReadDoneStillWorks() {
+        final float[][] received = new float[1][];
+        TestMicrophoneInput input = new TestMicrophoneInput() {
+            @Override
+            protected void readDone(float[] buffer) {
+                received[0] = buffer;
+                super.readDone(buffer);
+            }
+        };
+        RecordingListener listener = new RecordingListener();
+        input.addInputListener(listener);
+
+        float[][] channelBuffers = new float[1][FRAMES];
+        input.readDone(channelBuffers, 1234L);
+
+        assertSame("Old readDone not called", channelBuffers[0], received[0]);
+        assertEquals("Capture time lost through old readDone", 1234L, listener.captureTimeNs);
+    }
+
+    private static class TestMicrophoneInput extends MicrophoneInput {
+        TestMicrophoneInput() {
+            super(FRAMES);
+        }
+
+        @Override
+        public int getBufferSize() {
+            return FRAMES;
+        }
+
+        @Override
+        public void setBufferSize(int bufferSize) {
+            // N/a
+        }
+
+        @Override
+        public boolean hasTriggerDetection() {
+            return false;
+        }
+
+        @Nullable
+        @Override
+        public TriggerDetection getTriggerDetection() {
+            return null;
+        }
+    }
+
+    private static class RecordingListener extends InputListener {
+        float[] buffer;
+        long captureTimeNs;
+
+        @Override
+        public void inputBlockSizeUpdate(int blockSize) {
+        }
+
+        @Override
+        public void bufferUpdate(float[] buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void bufferUpdate(float[] buffer, long captureTimeNs) {
+            this.captureTimeNs = captureTimeNs;
+            bufferUpdate(buffer);
+        }
+
+        @Override
+        public void inputRemoved() {
+        }
+    }
+}
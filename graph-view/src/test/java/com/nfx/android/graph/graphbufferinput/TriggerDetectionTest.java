@@ -0,0 +1,181 @@
+package com.nfx.android.graph.graphbufferinput;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class TriggerDetectionTest {
+    private static final int SAMPLE_RATE = 48000;
+    private static final int BLOCK_SIZE = 480;
+    /**
+     * 1kHz square wave, rising edge every 48 samples
+     */
+    private static final int PERIOD = 48;
+
+    private final TriggerDetection triggerDetection = new TriggerDetection();
+    private final float[] block = new float[BLOCK_SIZE];
+
+    @Before
+    public void setUp() {
+        for(int i = 0; i < BLOCK_SIZE; i++) {
+            block[i] = (i % PERIOD) < PERIOD / 2 ? 1f : 0f;
+        }
+        triggerDetection.setSampleRate(SAMPLE_RATE);
+        triggerDetection.setTriggerType(TriggerDetection.TriggerType.RISING);
+        triggerDetection.setTriggerValue(0.5f);
+    }
+
+    @Test
+    public void testHoldOffInSamples() {
+        // 1.5ms hold off is 72 samples, so every other rising edge is skipped
+        triggerDetection.setHoldOffDelayInUs(1500);
+
+        int numberOfTriggers = countTriggers();
+
+        assertEquals("Incorrect trigger count", 5, numberOfTriggers);
+    }
+
+    @Test
+    public void testHoldOffCarriesAcrossBlocks() {
+        // 15ms is 720 samples, the last trigger of the first block holds off into the second
+        triggerDetection.setHoldOffDelayInMs(15);
+
+        float firstTrigger = triggerDetection.findTrigger(block, 0);
+        triggerDetection.advanceSampleClock(BLOCK_SIZE);
+        float secondTrigger = triggerDetection.findTrigger(block, 0);
+
+        assertEquals("First trigger incorrect", PERIOD - 0.5f, firstTrigger, 0f);
+        assertEquals("Second trigger incorrect", PERIOD * 6 - 0.5f, secondTrigger, 0f);
+    }
+
+    @Test
+    public void testReplayIsDeterministic() {
+        triggerDetection.setHoldOffDelayInUs(1500);
+        int firstRun = countTriggers();
+
+        triggerDetection.resetSampleClock();
+        int secondRun = countTriggers();
+
+        assertEquals("Replay gave a different result", firstRun, secondRun);
+    }
+
+    @Test
+    public void testSampleBySampleMatchesBlockSearch() {
+        triggerDetection.setHoldOffDelayInUs(1500);
+
+        int numberOfTriggers = 0;
+        for(int i = 1; i < BLOCK_SIZE; i++) {
+            if(triggerDetection.hasTriggered(block[i - 1], block[i], i)) {
+                numberOfTriggers++;
+            }
+        }
+
+        assertEquals("Sample clock moved by hasTriggered", 0, triggerDetection.getSampleClock());
+        triggerDetection.advanceSampleClock(BLOCK_SIZE);
+        assertEquals("Sample clock counted twice", BLOCK_SIZE, triggerDetection.getSampleClock());
+        assertEquals("Incorrect trigger count", 5, numberOfTriggers);
+    }
+
+    @Test
+    public void testSampleBySampleWithoutIndexKeepsTriggering() {
+        triggerDetection.setHoldOffDelayInUs(1500);
+
+        // Each call moves the clock on by one sample, so the hold off keeps running out
+        int numberOfTriggers = 0;
+        for(int repeat = 0; repeat < 3; repeat++) {
+            for(int i = 0; i < BLOCK_SIZE; i++) {
+                final float lastValue = block[(i + BLOCK_SIZE - 1) % BLOCK_SIZE];
+                if(triggerDetection.hasTriggered(lastValue, block[i])) {
+                    numberOfTriggers++;
+                }
+            }
+        }
+
+        assertEquals("Sample clock not moved", BLOCK_SIZE * 3, triggerDetection.getSampleClock());
+        assertEquals("Incorrect trigger count", 15, numberOfTriggers);
+    }
+
+    @Test
+    public void testSampleRateFromConstructor() {
+        TriggerDetection detection = new TriggerDetection(8000);
+        detection.setHoldOffDelayInMs(10);
+
+        // 10ms at 8kHz is 80 samples, only the edges at 48 and 144 are far enough apart
+        int numberOfTriggers = 0;
+        for(int i = 1; i < 150; i++) {
+            if(detection.hasTriggered(block[i - 1], block[i], i)) {
+                numberOfTriggers++;
+            }
+        }
+
+        assertEquals("Sample rate not used", 8000, detection.getSampleRate());
+        assertEquals("Incorrect trigger count", 2, numberOfTriggers);
+    }
+
+    @Test
+    public void testCrossingBetweenBlocks() {
+        // The first block ends low and the second starts high
+        float[] lowBlock = new float[BLOCK_SIZE];
+        float[] highBlock = new float[BLOCK_SIZE];
+        Arrays.fill(highBlock, 1f);
+
+        assertEquals(TriggerDetection.NO_TRIGGER, triggerDetection.findTrigger(lowBlock, 0), 0f);
+        triggerDetection.advanceSampleClock(lowBlock);
+
+        assertEquals("Boundary crossing missed", -0.5f,
+                triggerDetection.findTrigger(highBlock, 0), 0f);
+    }
+
+    @Test
+    public void testCrossingBetweenBlocksRespectsHoldOff() {
+        // 1.5ms is 72 samples, the edge at sample 48 holds off until sample 120
+        triggerDetection.setHoldOffDelayInUs(1500);
+        float[] firstBlock = new float[100];
+        float[] secondBlock = new float[100];
+        Arrays.fill(secondBlock, 1f);
+        for(int i = 48; i < firstBlock.length; i++) {
+            firstBlock[i] = i < 99 ? 1f : 0f;
+        }
+
+        assertEquals(PERIOD - 0.5f, triggerDetection.findTrigger(firstBlock, 0), 0f);
+        assertEquals(TriggerDetection.NO_TRIGGER, triggerDetection.findTrigger(firstBlock, 49),
+                0f);
+        triggerDetection.advanceSampleClock(firstBlock);
+
+        assertEquals("Boundary crossing inside the hold off", TriggerDetection.NO_TRIGGER,
+                triggerDetection.findTrigger(secondBlock, 0), 0f);
+    }
+
+    @Test
+    public void testHoldOffLongAfterLastTrigger() {
+        triggerDetection.setHoldOffDelayInUs(1500);
+        assertEquals(PERIOD - 0.5f, triggerDetection.findTrigger(block, 0), 0f);
+
+        // 2^32 - 100 samples after the hold off ended, as an int this would look like the hold
+        // off still had 100 samples to go
+        triggerDetection.advanceSampleClock(Integer.MAX_VALUE);
+        triggerDetection.advanceSampleClock(Integer.MAX_VALUE);
+        triggerDetection.advanceSampleClock(22);
+
+        assertEquals("Hold off end overflowed", PERIOD - 0.5f,
+                triggerDetection.findTrigger(block, 0), 0f);
+    }
+
+    private int countTriggers() {
+        int numberOfTriggers = 0;
+        float trigger = triggerDetection.findTrigger(block, 0);
+        while(trigger != TriggerDetection.NO_TRIGGER) {
+            numberOfTriggers++;
+            trigger = triggerDetection.findTrigger(block, (int) trigger + 2);
+        }
+        triggerDetection.advanceSampleClock(BLOCK_SIZE);
+        return numberOfTriggers;
+    }
+}
@@ -0,0 +1,172 @@
+package com.nfx.android.graph.graphbufferinput;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class TriggeredCaptureTest {
+    private static final int FRAME_SIZE = 100;
+    private static final int BLOCK_SIZE = 64;
+    private static final int SAMPLE_RATE = 1000;
+
+    private final TriggerDetection triggerDetection = new TriggerDetection();
+    private final TriggeredCapture triggeredCapture = new TriggeredCapture(triggerDetection,
+            FRAME_SIZE, SAMPLE_RATE);
+    private final FrameListener frameListener = new FrameListener();
+
+    @Before
+    public void setUp() {
+        triggerDetection.setTriggerType(TriggerDetection.TriggerType.RISING);
+        triggerDetection.setTriggerValue(0.5f);
+        triggerDetection.setHoldOffDelayInMs(1000);
+        triggeredCapture.setFrameListener(frameListener);
+    }
+
+    @Test
+    public void testTriggerPositionInFrame() {
+        triggeredCapture.setPreTriggerPercentage(0.25f);
+
+        // Single rising edge at sample 150, spread over a number of blocks
+        feedStep(150, 4);
+
+        // The crossing is half way between samples 149 and 150, the frame is shifted by half a
+        // sample to put it on the trigger sample
+        assertEquals("Incorrect number of frames", 1, frameListener.numberOfFrames);
+        assertEquals("Sample before trigger incorrect", 0f, frameListener.frame[24], 0f);
+        assertEquals("Trigger sample incorrect", 0.5f, frameListener.frame[25], 0f);
+        assertEquals("Sample after trigger incorrect", 1f, frameListener.frame[26], 0f);
+        assertEquals("Last sample incorrect", 1f, frameListener.frame[FRAME_SIZE - 1], 0f);
+    }
+
+    @Test
+    public void testTriggerCrossingAlignedBetweenFrames() {
+        triggeredCapture.setPreTriggerPercentage(0.25f);
+        triggerDetection.setHoldOffDelayInMs(0);
+
+        // Ramps of the same slope crossing the trigger at different points between samples
+        final float[] crossingOffsets = {0.1f, 0.45f, 0.8f};
+        float[] block = new float[FRAME_SIZE * 2];
+        for(float crossingOffset : crossingOffsets) {
+            triggerDetection.resetSampleClock();
+            for(int i = 0; i < block.length; i++) {
+                block[i] = Math.max(0f, Math.min(1f,
+                        0.5f + (i - FRAME_SIZE / 2 - crossingOffset) * 0.1f));
+            }
+            triggeredCapture.bufferUpdate(block);
+
+            assertEquals("Trigger crossing not on the trigger sample", 0.5f,
+                    frameListener.frame[25], 1e-5f);
+            assertEquals("Frame not shifted with the crossing", 0.4f,
+                    frameListener.frame[24], 1e-5f);
+        }
+        assertEquals("Incorrect number of frames", crossingOffsets.length,
+                frameListener.numberOfFrames);
+    }
+
+    @Test
+    public void testTriggerOnBlockBoundary() {
+        triggeredCapture.setPreTriggerPercentage(0.25f);
+
+        // The edge is the first sample of the third block
+        feedStep(BLOCK_SIZE * 2, 4);
+
+        assertEquals("Boundary trigger missed", 1, frameListener.numberOfFrames);
+        assertEquals("Sample before trigger incorrect", 0f, frameListener.frame[24], 0f);
+        assertEquals("Trigger sample incorrect", 0.5f, frameListener.frame[25], 0f);
+        assertEquals("Sample after trigger incorrect", 1f, frameListener.frame[26], 0f);
+    }
+
+    @Test
+    public void testNoFrameWithoutPostTriggerSamples() {
+        triggeredCapture.setPreTriggerPercentage(0.25f);
+
+        // Edge close to the end of the input, the frame can not be completed
+        feedStep(BLOCK_SIZE * 2 - 10, 2);
+
+        assertEquals("Frame emitted too early", 0, frameListener.numberOfFrames);
+    }
+
+    @Test
+    public void testHoldOffUsesInputSampleRate() {
+        triggeredCapture.setPreTriggerPercentage(0f);
+        triggerDetection.setHoldOffDelayInMs(200);
+
+        assertEquals("Sample rate not passed on", SAMPLE_RATE, triggerDetection.getSampleRate());
+
+        // Rising edge every 50 samples, at 1kHz a 200ms hold off skips three in every four
+        float[] block = new float[BLOCK_SIZE];
+        for(int sample = 0; sample < 1000; sample += BLOCK_SIZE) {
+            for(int i = 0; i < BLOCK_SIZE; i++) {
+                block[i] = ((sample + i) % 50) < 25 ? 0f : 1f;
+            }
+            triggeredCapture.bufferUpdate(block);
+        }
+
+        assertEquals("Incorrect number of frames", 5, frameListener.numberOfFrames);
+    }
+
+    @Test
+    public void testFrameCarriesCaptureTimeOfItsLastSample() {
+        triggeredCapture.setPreTriggerPercentage(0.25f);
+
+        // Edge at sample 10 of the second block, the frame ends at sample 84 leaving 43 samples
+        // of the 128 sample block after it. The crossing is half a sample before the trigger
+        // sample, so the frame is moved back by another half a sample
+        float[] block = new float[BLOCK_SIZE * 2];
+        for(int i = 0; i < block.length; i++) {
+            block[i] = i >= 10 ? 1f : 0f;
+        }
+        triggeredCapture.bufferUpdate(new float[BLOCK_SIZE]);
+        triggeredCapture.bufferUpdate(block, 2000000000L);
+
+        assertEquals("Incorrect number of frames", 1, frameListener.numberOfFrames);
+        assertEquals("Incorrect frame capture time", 2000000000L - 43500000L,
+                frameListener.captureTimeNs);
+    }
+
+    /**
+     * Feed blocks of a step which rises at the given sample
+     */
+    private void feedStep(int edgeSample, int numberOfBlocks) {
+        float[] block = new float[BLOCK_SIZE];
+        for(int b = 0; b < numberOfBlocks; b++) {
+            for(int i = 0; i < BLOCK_SIZE; i++) {
+                int sample = b * BLOCK_SIZE + i;
+                block[i] = sample >= edgeSample ? 1f : 0f;
+            }
+            triggeredCapture.bufferUpdate(block);
+        }
+    }
+
+    private static class FrameListener extends InputListener {
+        float[] frame = new float[0];
+        int numberOfFrames = 0;
+        long captureTimeNs = 0;
+
+        @Override
+        public void inputBlockSizeUpdate(int blockSize) {
+            frame = new float[blockSize];
+        }
+
+        @Override
+        public void bufferUpdate(float[] buffer) {
+            System.arraycopy(buffer, 0, frame, 0, frame.length);
+            numberOfFrames++;
+        }
+
+        @Override
+        public void bufferUpdate(float[] buffer, long captureTimeNs) {
+            this.captureTimeNs = captureTimeNs;
+            bufferUpdate(buffer);
+        }
+
+        @Override
+        public void inputRemoved() {
+        }
+    }
+}
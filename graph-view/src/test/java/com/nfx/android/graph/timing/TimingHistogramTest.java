@@ -0,0 +1,46 @@
+package com.nfx.android.graph.timing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class TimingHistogramTest {
+    private final TimingHistogram timingHistogram = new TimingHistogram("Test");
+
+    @Test
+    public void testPercentilesWithinBucketWidth() {
+        // 1ms to 100ms in 1ms steps
+        for(int i = 1; i <= 100; i++) {
+            timingHistogram.record(i * 1000000L);
+        }
+
+        final long median = timingHistogram.getPercentile(50f);
+        final long ninetyNinth = timingHistogram.getPercentile(99f);
+
+        assertTrue("Median " + median + " out of range",
+                median >= 50000000L && median < 50000000L * 1.2);
+        assertTrue("99th percentile " + ninetyNinth + " out of range",
+                ninetyNinth >= 99000000L && ninetyNinth < 99000000L * 1.2);
+        assertEquals("Mean is incorrect", 50500000L, timingHistogram.getMean());
+    }
+
+    @Test
+    public void testOldestDurationsRollOut() {
+        for(int i = 0; i < TimingHistogram.WINDOW_SIZE; i++) {
+            timingHistogram.record(1000000000L);
+        }
+        for(int i = 0; i < TimingHistogram.WINDOW_SIZE; i++) {
+            timingHistogram.record(1000L);
+        }
+
+        assertEquals("Window has grown", TimingHistogram.WINDOW_SIZE, timingHistogram.getCount());
+        assertEquals("Old durations still in the mean", 1000L, timingHistogram.getMean());
+        assertTrue("Old durations still in the histogram",
+                timingHistogram.getPercentile(100f) < 1200L);
+    }
+}
@@ -0,0 +1,42 @@
+package com.nfx.android.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * NFX Development
+ * Created by nick on 19/10/26.
+ */
+public class EngineeringFormatTest {
+    private final EngineeringFormat engineeringFormat = new EngineeringFormat();
+    private final char[] destination = new char[EngineeringFormat.MAXIMUM_LENGTH + 4];
+
+    private String format(double value) {
+        return new String(destination, 0, engineeringFormat.format(value, destination, 0));
+    }
+
+    @Test
+    public void testEngineeringNotation() {
+        assertEquals("0", format(0));
+        assertEquals("1", format(1));
+        assertEquals("1.25k", format(1250));
+        assertEquals("-12.3k", format(-12345));
+        assertEquals("470u", format(0.00047));
+        assertEquals("999", format(999.4));
+        assertEquals("1k", format(999.7));
+        assertEquals("10", format(9.996));
+        assertEquals("NaN", format(Double.NaN));
+        assertEquals("1.5kHz", new String(destination, 0,
+                engineeringFormat.format(1500, "Hz", destination, 0)));
+    }
+
+    @Test
+    public void testNoPrefixBelowMinimumExponent() {
+        EngineeringFormat axisFormat = new EngineeringFormat(0, 12);
+        int length = axisFormat.format(0.05, destination, 0);
+        assertEquals("0.05", new String(destination, 0, length));
+        length = axisFormat.format(-0.001, destination, 0);
+        assertEquals("0", new String(destination, 0, length));
+    }
+}